@@ -4,6 +4,7 @@ import com.calendario.trabajadores.model.database.EstadoTurno;
 import com.calendario.trabajadores.model.dto.turno.CrearEditarTurnoResponse;
 import com.calendario.trabajadores.model.dto.turno.CrearTurnoRequest;
 import com.calendario.trabajadores.model.dto.turno.EditarTurnoRequest;
+import com.calendario.trabajadores.model.dto.turno.VistaCalendario;
 import com.calendario.trabajadores.model.errorresponse.GenericResponse;
 import com.calendario.trabajadores.services.turno.TurnoService;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -17,8 +18,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -122,6 +127,39 @@ public class TurnoController {
     }
 
 
+    // Calendario de turnos de un usuario (dia, semana o mes)
+    @Operation(summary = "Calendario de turnos", description = "Endpoint para listar, paginados, los turnos de un usuario " +
+            "en el dia, la semana o el mes que contienen una fecha")
+    @GetMapping("/turno/calendario")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Turnos del intervalo",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = CrearEditarTurnoResponse.class))))
+    })
+    public ResponseEntity<GenericResponse<Page<CrearEditarTurnoResponse>>> listarTurnosCalendario(
+            @RequestParam(value = "usuarioId") Long usuarioId,
+            @RequestParam(value = "vista", defaultValue = "SEMANA") VistaCalendario vista,
+            @RequestParam(value = "fecha") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> fecha,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        return ResponseEntity.ok(turnoService.listarTurnosCalendario(usuarioId, vista, fecha.orElse(LocalDate.now()),
+                PageRequest.of(page, size)));
+    }
+
+    // Turnos en curso ahora mismo
+    @Operation(summary = "Turnos en curso", description = "Endpoint para listar, paginados, los turnos activos que estan en curso ahora")
+    @GetMapping("/turno/enCurso")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Turnos en curso",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = CrearEditarTurnoResponse.class))))
+    })
+    public ResponseEntity<GenericResponse<Page<CrearEditarTurnoResponse>>> listarTurnosEnCurso(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        return ResponseEntity.ok(turnoService.listarTurnosEnCurso(PageRequest.of(page, size)));
+    }
+
     // Eliminar un turno
     @Operation(summary = "Eliminar turno", description = "Endpoint para eliminar un turno")
     @DeleteMapping("/turno/borrar")
@@ -4,9 +4,12 @@ import com.calendario.trabajadores.model.dto.usuario.CrearUsuarioRequest;
 import com.calendario.trabajadores.model.dto.usuario.UsuarioResponse;
 import com.calendario.trabajadores.model.dto.usuario.EditarUsuarioRequest;
 import com.calendario.trabajadores.model.dto.usuario.UsuarioVehiculosResponse;
+import com.calendario.trabajadores.model.dto.usuario.UsuarioViajeResponse;
 import com.calendario.trabajadores.model.errorresponse.ErrorResponse;
 import com.calendario.trabajadores.model.errorresponse.GenericResponse;
 import com.calendario.trabajadores.services.user.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,10 +18,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,6 +36,8 @@ import java.util.Optional;
 public class UserController {
     @Autowired
     private UserService userService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     //Endpoints
     //Crear usuario
@@ -190,8 +200,13 @@ public class UserController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     }
     )
-    public ResponseEntity<?> listAll(@RequestParam(value = "activo") Optional<Boolean> activo) {
-        var usuario = userService.listar(activo);
+    public ResponseEntity<?> listAll(@RequestParam(value = "activo") Optional<Boolean> activo,
+                                     @RequestParam(value = "page") Optional<Integer> page,
+                                     @RequestParam(value = "size", defaultValue = "50") int size) {
+        //Con page se devuelve solo esa pagina; sin page, la lista completa como hasta ahora
+        var usuario = page.isPresent()
+                ? userService.listar(activo, PageRequest.of(page.get(), size))
+                : userService.listar(activo);
         if (!usuario.isSuccess()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of(usuario.getError().getStatus(), usuario.getError().getMessage()));
@@ -210,8 +225,14 @@ public class UserController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     }
     )
-    public ResponseEntity<?> listarUsuariosVehiculos(@RequestParam(value = "activo") Optional<Boolean> activo) {
-        return ResponseEntity.ok(userService.listarUsuariosVehiculos(activo));
+    public ResponseEntity<?> listarUsuariosVehiculos(@RequestParam(value = "activo") Optional<Boolean> activo,
+                                                     @RequestParam(value = "despuesDe") Optional<Long> despuesDe,
+                                                     @RequestParam(value = "size", defaultValue = "50") int size) {
+        //Con despuesDe (id del ultimo usuario de la pagina anterior, 0 para la primera) se devuelve
+        //solo esa pagina; sin el, la lista completa como hasta ahora
+        return ResponseEntity.ok(despuesDe.isPresent()
+                ? userService.listarUsuariosVehiculos(activo, despuesDe.get(), size)
+                : userService.listarUsuariosVehiculos(activo));
     }
 
     //Borrado total usuario (Uso solo para admin! Para usuarios normales usar bajaUsuario (SoftDelete)
@@ -242,12 +263,42 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Bad Request",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> listarUsuariosViajes(@RequestParam(value = "activo") Optional<Boolean> activo) {
+    public ResponseEntity<?> listarUsuariosViajes(@RequestParam(value = "activo") Optional<Boolean> activo,
+                                                  @RequestParam(value = "page") Optional<Integer> page,
+                                                  @RequestParam(value = "size", defaultValue = "50") int size) {
+        if (page.isPresent()) {
+            return ResponseEntity.ok(userService.listar(activo, PageRequest.of(page.get(), size)));
+        }
         // Asumiendo que el servicio devuelve un GenericResponse<List<UsuarioResponse>> como se definió antes
         GenericResponse<List<UsuarioResponse>> response = userService.listar(activo);  // Cambié listarUsuariosViajes por listar
         return ResponseEntity.ok(response);
     }
 
+    //Exportar todos los usuarios con sus viajes como un array JSON que se escribe segun se lee de la
+    //base de datos (por lotes), asi el listado de administracion no depende del numero de usuarios
+    @Operation(summary = "Exportar usuarios con viajes", description = "Endpoint que devuelve en streaming todos los usuarios con sus viajes")
+    @GetMapping(value = "/user/viajes/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de usuarios con viajes",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UsuarioViajeResponse.class))))
+    })
+    public ResponseEntity<StreamingResponseBody> exportarUsuariosViajes(@RequestParam(value = "activo") Optional<Boolean> activo) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                userService.recorrerUsuariosViajes(activo.orElse(null), usuario -> {
+                    try {
+                        generator.writeObject(usuario);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
 
 
 }
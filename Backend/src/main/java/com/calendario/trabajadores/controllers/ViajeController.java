@@ -1,14 +1,23 @@
 package com.calendario.trabajadores.controllers;
 
+import com.calendario.trabajadores.model.dto.viaje.BuscarViajesRequest;
+import com.calendario.trabajadores.model.dto.viaje.BuscarViajesResponse;
 import com.calendario.trabajadores.model.dto.viaje.CrearEditarViajeResponse;
 import com.calendario.trabajadores.model.dto.viaje.CrearViajeRequest;
 import com.calendario.trabajadores.model.dto.viaje.EditarViajeRequest;
+import com.calendario.trabajadores.model.dto.viaje.PeticionViajeResponse;
+import com.calendario.trabajadores.model.dto.viaje.ProcesarPeticionesRequest;
+import com.calendario.trabajadores.model.dto.viaje.ProcesarPeticionesResponse;
 import com.calendario.trabajadores.model.dto.viaje.ViajeResponse;
+import com.calendario.trabajadores.model.dto.viaje.ViajeResumenDTO;
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
 import com.calendario.trabajadores.model.errorresponse.ErrorResponse;
 import com.calendario.trabajadores.model.errorresponse.GenericResponse;
 import com.calendario.trabajadores.services.user.UserService;
+import com.calendario.trabajadores.services.viaje.PeticionViajeService;
 import com.calendario.trabajadores.services.viaje.ViajeService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -31,6 +40,8 @@ public class ViajeController {
     private ViajeService viajeService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private PeticionViajeService peticionViajeService;
 
     //No necesito el constructor porque ya tengo la inyeccion de dependencias con @Autowired ***********
     public ViajeController(ViajeService viajeService, UserService userService) {
@@ -176,6 +187,205 @@ public class ViajeController {
 
 
 
+    //Buscar viajes disponibles por origen, destino y ventana de salida (paginado por clave)
+    @Operation(summary = "Buscar viajes", description = "Endpoint para buscar viajes disponibles por origen, destino, " +
+            "ventana de salida y plazas libres. Para la siguiente pagina se envian despuesDeFecha y despuesDeId " +
+            "con los valores siguienteFecha y siguienteId de la respuesta")
+    @GetMapping("/viaje/buscar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Viajes encontrados",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BuscarViajesResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> buscarViajes(@ModelAttribute BuscarViajesRequest filtro) {
+        var viajes = viajeService.buscarViajes(filtro);
+        if (!viajes.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(viajes.getError().getStatus(), viajes.getError().getMessage()));
+        }
+        return ResponseEntity.ok(viajes.getData());
+    }
+
+    //Autocompletar origenes
+    @Operation(summary = "Autocompletar origen", description = "Endpoint para sugerir origenes de viaje que empiezan por un texto")
+    @GetMapping("/viaje/lugares/origen")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Origenes sugeridos",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = String.class))))
+    })
+    public ResponseEntity<?> sugerirOrigenes(@RequestParam String prefijo,
+                                             @RequestParam(value = "limite", defaultValue = "10") int limite) {
+        return ResponseEntity.ok(viajeService.sugerirOrigenes(prefijo, limite));
+    }
+
+    //Autocompletar destinos
+    @Operation(summary = "Autocompletar destino", description = "Endpoint para sugerir destinos de viaje que empiezan por un texto")
+    @GetMapping("/viaje/lugares/destino")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Destinos sugeridos",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = String.class))))
+    })
+    public ResponseEntity<?> sugerirDestinos(@RequestParam String prefijo,
+                                             @RequestParam(value = "limite", defaultValue = "10") int limite) {
+        return ResponseEntity.ok(viajeService.sugerirDestinos(prefijo, limite));
+    }
+
+    //Viajes de un conductor
+    @Operation(summary = "Viajes de un conductor", description = "Endpoint para listar los viajes de un conductor con su vehiculo y numero de pasajeros")
+    @GetMapping("/viaje/conductor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Viajes del conductor",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ViajeResumenDTO.class))))
+    })
+    public ResponseEntity<?> mostrarViajesConductor(@RequestParam Long idUsuario) {
+        return ResponseEntity.ok(viajeService.mostrarViajesConductor(idUsuario).getData());
+    }
+
+    //Viajes en los que va un usuario como pasajero
+    @Operation(summary = "Mis viajes", description = "Endpoint para listar los viajes en los que va un usuario como pasajero")
+    @GetMapping("/viaje/misViajes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Viajes del pasajero",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ViajeResumenDTO.class))))
+    })
+    public ResponseEntity<?> mostrarMisViajes(@RequestParam Long idUsuario) {
+        return ResponseEntity.ok(viajeService.mostrarMisViajes(idUsuario).getData());
+    }
+
+    //Cancelar un viaje
+    @Operation(summary = "Cancelar viaje", description = "Endpoint para cancelar un viaje disponible")
+    @PatchMapping("/viaje/cancelar/{idViaje}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Viaje cancelado"),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> cancelarViaje(@PathVariable Long idViaje) {
+        var respuesta = viajeService.cancelarViaje(idViaje);
+        if (!respuesta.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(respuesta.getError().getStatus(), respuesta.getError().getMessage()));
+        }
+        return ResponseEntity.ok(respuesta.getData());
+    }
+
+    //Apuntar un pasajero a un viaje
+    @Operation(summary = "Agregar pasajero", description = "Endpoint para apuntar un usuario a un viaje si quedan plazas")
+    @PostMapping("/viaje/{idViaje}/pasajeros/{idUsuario}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pasajero agregado"),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> agregarPasajero(@PathVariable Long idViaje, @PathVariable Long idUsuario) {
+        var respuesta = viajeService.agregarPasajero(idViaje, idUsuario);
+        if (!respuesta.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(respuesta.getError().getStatus(), respuesta.getError().getMessage()));
+        }
+        return ResponseEntity.ok(respuesta.getData());
+    }
+
+    //Quitar un pasajero de un viaje
+    @Operation(summary = "Eliminar pasajero", description = "Endpoint para quitar un usuario de un viaje y liberar su plaza")
+    @DeleteMapping("/viaje/{idViaje}/pasajeros/{idUsuario}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pasajero eliminado"),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> eliminarPasajero(@PathVariable Long idViaje, @PathVariable Long idUsuario) {
+        var respuesta = viajeService.eliminarPasajero(idViaje, idUsuario);
+        if (!respuesta.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(respuesta.getError().getStatus(), respuesta.getError().getMessage()));
+        }
+        return ResponseEntity.ok(respuesta.getData());
+    }
+
+    //Pedir plaza en un viaje
+    @Operation(summary = "Pedir plaza", description = "Endpoint para que un usuario pida plaza en un viaje")
+    @PostMapping("/viaje/{idViaje}/peticiones")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Peticion creada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = PeticionViajeResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> solicitarPlaza(@PathVariable Long idViaje, @RequestParam Long idUsuario) {
+        return respuesta(peticionViajeService.solicitarPlaza(idViaje, idUsuario));
+    }
+
+    //Peticiones de un viaje
+    @Operation(summary = "Peticiones de un viaje", description = "Endpoint para listar las peticiones de plaza de un viaje, opcionalmente por estado")
+    @GetMapping("/viaje/{idViaje}/peticiones")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Peticiones del viaje",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PeticionViajeResponse.class))))
+    })
+    public ResponseEntity<?> listarPeticiones(@PathVariable Long idViaje,
+                                              @RequestParam(value = "estado") Optional<EstadoPeticionViaje> estado) {
+        return respuesta(peticionViajeService.listarPeticiones(idViaje, estado));
+    }
+
+    //Aceptar una peticion de plaza
+    @Operation(summary = "Aceptar peticion", description = "Endpoint para que el conductor acepte una peticion de plaza")
+    @PostMapping("/viaje/peticiones/{idPeticion}/aceptar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Peticion aceptada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = PeticionViajeResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> aceptarPeticion(@PathVariable Long idPeticion, @RequestParam Long idConductor) {
+        return respuesta(peticionViajeService.aceptarPeticion(idConductor, idPeticion));
+    }
+
+    //Rechazar una peticion de plaza
+    @Operation(summary = "Rechazar peticion", description = "Endpoint para que el conductor rechace una peticion de plaza")
+    @PostMapping("/viaje/peticiones/{idPeticion}/rechazar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Peticion rechazada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = PeticionViajeResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> rechazarPeticion(@PathVariable Long idPeticion, @RequestParam Long idConductor) {
+        return respuesta(peticionViajeService.rechazarPeticion(idConductor, idPeticion));
+    }
+
+    //Aceptar varias peticiones en una llamada
+    @Operation(summary = "Aceptar peticiones", description = "Endpoint para que el conductor acepte varias peticiones de plaza en una llamada")
+    @PostMapping("/viaje/peticiones/aceptar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultado por peticion",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProcesarPeticionesResponse.class)))
+    })
+    public ResponseEntity<?> aceptarPeticiones(@RequestBody ProcesarPeticionesRequest request) {
+        return respuesta(peticionViajeService.aceptarPeticiones(request));
+    }
+
+    //Rechazar varias peticiones en una llamada
+    @Operation(summary = "Rechazar peticiones", description = "Endpoint para que el conductor rechace varias peticiones de plaza en una llamada")
+    @PostMapping("/viaje/peticiones/rechazar")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultado por peticion",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProcesarPeticionesResponse.class)))
+    })
+    public ResponseEntity<?> rechazarPeticiones(@RequestBody ProcesarPeticionesRequest request) {
+        return respuesta(peticionViajeService.rechazarPeticiones(request));
+    }
+
+    //Convierte la respuesta del servicio: los datos con 200 o el error con 400
+    private ResponseEntity<?> respuesta(GenericResponse<?> respuesta) {
+        if (!respuesta.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(respuesta.getError().getStatus(), respuesta.getError().getMessage()));
+        }
+        return ResponseEntity.ok(respuesta.getData());
+    }
+
     /*//Listar todos los viajes (uso para admin) (No revisado) TODO: usando cookies de sesion, un unico endpoint que
     // diferencia si es admin o no, + estado viaje (enum) para filtrar
     @Operation(summary = "Listar todos los viajes", description = "Endpoint para listar todos los viajes con filtro por estado y rol de usuario")
@@ -30,6 +30,8 @@ public interface IViajeMapper {
     @Mapping(source = "fechaSalida", target = "fecha")
     @Mapping(source = "horaSalida", target = "hora")
     @Mapping(target = "usuarioViajes", ignore = true)
+    @Mapping(target = "origenClave", ignore = true)
+    @Mapping(target = "destinoClave", ignore = true)
     @Mapping(target = "fechaCreacion", ignore = true)
     @Mapping(target = "fechaModificacion", ignore = true)
     @Mapping(target = "creadoPor", ignore = true)
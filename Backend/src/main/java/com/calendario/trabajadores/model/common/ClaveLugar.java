@@ -0,0 +1,25 @@
+package com.calendario.trabajadores.model.common;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//Clave normalizada de un lugar (origen o destino de un viaje) para buscar y autocompletar:
+//"  Hospital  Clínico " y "hospital clinico" tienen la misma clave
+public final class ClaveLugar {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private ClaveLugar() {
+    }
+
+    //Minusculas, sin acentos y con los espacios colapsados. null se queda en null
+    public static String normalizar(String lugar) {
+        if (lugar == null) {
+            return null;
+        }
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(lugar, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,5 @@
 package com.calendario.trabajadores.model.database;
 
 public enum EstadoViaje {
-    DISPONIBLE, EN_CURSO, FINALIZADO
+    DISPONIBLE, EN_CURSO, FINALIZADO, CANCELADO
 }
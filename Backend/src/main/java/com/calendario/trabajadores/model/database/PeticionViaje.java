@@ -12,16 +12,19 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "peticion_viaje")
+//Indice para las peticiones de un viaje por estado (pendientes del conductor, rechazo al completarse)
+@Table(name = "peticion_viaje", indexes = {
+        @Index(name = "idx_peticion_viaje_estado", columnList = "viaje_id, estado")
+})
 public class PeticionViaje extends CamposComunes {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     public Long id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     public Usuario usuario = new Usuario();
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "viaje_id")
     public Viaje viaje = new Viaje();
     public EstadoPeticionViaje estado;
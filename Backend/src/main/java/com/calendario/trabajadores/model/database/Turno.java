@@ -12,13 +12,24 @@ import java.util.Date;
 @Getter
 @Setter
 @Entity
-@Table(name = "turnos")
+//Indices para las vistas de calendario y la comprobacion de solapes: por usuario e inicio, y por inicio
+//para los turnos en curso de todos los usuarios. Los de estado son para el avance automatico de estados
+@Table(name = "turnos", indexes = {
+        @Index(name = "idx_turnos_usuario_inicio", columnList = "usuario_id, hora_inicio"),
+        @Index(name = "idx_turnos_inicio", columnList = "hora_inicio"),
+        @Index(name = "idx_turnos_estado_inicio", columnList = "estado_turno, hora_inicio"),
+        @Index(name = "idx_turnos_estado_fin", columnList = "estado_turno, hora_fin")
+})
 public class Turno {
+    //Duracion maxima de un turno: acota por abajo hora_inicio en las consultas por intervalo,
+    //para que usen los indices en vez de recorrer todos los turnos anteriores
+    public static final long DURACION_MAXIMA_MS = 24L * 60 * 60 * 1000;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     //Identificador de la tabla
     private Long id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false) //Revisar lo de usuario id**
     public Usuario usuario = new Usuario();
 
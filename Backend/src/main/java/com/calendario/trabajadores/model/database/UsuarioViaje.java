@@ -7,7 +7,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "usuario_viaje")
+//Un usuario solo puede ir una vez en cada viaje
+@Table(name = "usuario_viaje", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"usuario_id", "viaje_id"})
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -1,6 +1,7 @@
 package com.calendario.trabajadores.model.database;
 
 import com.calendario.trabajadores.model.common.CamposComunes;
+import com.calendario.trabajadores.model.common.ClaveLugar;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -8,16 +9,24 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 
 @Entity
 @Getter
 @Setter
-@Table(name = "viajes")
+//Indice para la busqueda de viajes: origen y destino normalizados y la salida, con el id para paginar por clave.
+//El de estado y salida es para el avance automatico de estados
+@Table(name = "viajes", indexes = {
+        @Index(name = "idx_viajes_busqueda_salida", columnList = "origen_clave, destino_clave, salida, id"),
+        @Index(name = "idx_viajes_estado_salida", columnList = "estado, salida")
+})
 @NoArgsConstructor//Constructor vacio
 @AllArgsConstructor//Constructor con todos los atributos
 public class Viaje extends CamposComunes {
@@ -26,10 +35,22 @@ public class Viaje extends CamposComunes {
     public Long id;
     public Date fecha;
     public Date hora;
+    //Dia de fecha con la hora del dia de hora (los clientes mandan la fecha sin hora y la hora con un dia
+    //cualquiera); se calcula al guardar y es la columna por la que se busca y se avanza el estado
+    public Date salida;
     public String origen;
     public String destino;
+    //Origen y destino normalizados (ver ClaveLugar), se calculan al guardar
+    @Column(name = "origen_clave")
+    public String origenClave;
+    @Column(name = "destino_clave")
+    public String destinoClave;
     public int plazas;
+    //VARCHAR y no ENUM de MySQL: ddl-auto=update no amplia un ENUM al anadir un estado
+    //(ver db.migration.V8_1__Viajes_estado_cancelado para las bases de datos que ya lo tienen)
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
     public EstadoViaje estado;
     @ManyToOne(fetch = FetchType.LAZY) //Relacion de muchos a uno
     @JoinColumn(name = "usuario_id", nullable = false) //Un usuario!!! (no conductor) por viaje, no puede ser nulo
@@ -41,4 +62,27 @@ public class Viaje extends CamposComunes {
     @OneToMany(mappedBy = "viaje", fetch = FetchType.LAZY, orphanRemoval = false)
     public List<UsuarioViaje> usuarioViajes = new ArrayList<>();
 
+    @PrePersist
+    @PreUpdate
+    public void calcularCampos() {
+        origenClave = ClaveLugar.normalizar(origen);
+        destinoClave = ClaveLugar.normalizar(destino);
+        salida = calcularSalida(fecha, hora);
+    }
+
+    //Sin hora se toma la fecha tal cual
+    public static Date calcularSalida(Date fecha, Date hora) {
+        if (fecha == null || hora == null) {
+            return fecha;
+        }
+        Calendar dia = Calendar.getInstance();
+        dia.setTime(fecha);
+        Calendar horaDelDia = Calendar.getInstance();
+        horaDelDia.setTime(hora);
+        dia.set(Calendar.HOUR_OF_DAY, horaDelDia.get(Calendar.HOUR_OF_DAY));
+        dia.set(Calendar.MINUTE, horaDelDia.get(Calendar.MINUTE));
+        dia.set(Calendar.SECOND, horaDelDia.get(Calendar.SECOND));
+        dia.set(Calendar.MILLISECOND, horaDelDia.get(Calendar.MILLISECOND));
+        return dia.getTime();
+    }
 }
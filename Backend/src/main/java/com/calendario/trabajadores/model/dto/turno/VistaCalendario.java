@@ -0,0 +1,6 @@
+package com.calendario.trabajadores.model.dto.turno;
+
+//Vistas del calendario de turnos: el dia, la semana (de lunes a domingo) o el mes que contienen una fecha
+public enum VistaCalendario {
+    DIA, SEMANA, MES
+}
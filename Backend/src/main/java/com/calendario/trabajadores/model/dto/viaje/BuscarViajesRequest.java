@@ -0,0 +1,31 @@
+package com.calendario.trabajadores.model.dto.viaje;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BuscarViajesRequest {
+    //Origen y destino tal y como los escribe el usuario, se comparan normalizados
+    public String origen;
+    public String destino;
+    //Ventana de salida; sin desde se buscan los viajes a partir de ahora
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    public Date desde;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    public Date hasta;
+    //Plazas libres que necesita el usuario
+    public Integer plazas;
+    //Cursor de la pagina anterior (siguienteFecha y siguienteId de la respuesta)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    public Date despuesDeFecha;
+    public Long despuesDeId;
+    public Integer size;
+}
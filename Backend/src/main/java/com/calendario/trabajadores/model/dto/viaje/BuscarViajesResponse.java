@@ -0,0 +1,21 @@
+package com.calendario.trabajadores.model.dto.viaje;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BuscarViajesResponse {
+    public List<ViajeDTO> viajes = new ArrayList<>();
+    //Cursor para pedir la siguiente pagina (despuesDeFecha/despuesDeId); null si no hay mas viajes
+    public Date siguienteFecha;
+    public Long siguienteId;
+}
@@ -0,0 +1,22 @@
+package com.calendario.trabajadores.model.dto.viaje;
+
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeticionViajeResponse {
+    private Long id;
+    private Long viajeId;
+    private Long conductorId;
+    //Usuario que pide la plaza
+    private Long usuarioId;
+    private String nombre;
+    private String apellido1;
+    private EstadoPeticionViaje estado;
+}
@@ -0,0 +1,19 @@
+package com.calendario.trabajadores.model.dto.viaje;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcesarPeticionesRequest {
+    //Conductor que acepta o rechaza; solo puede procesar peticiones de sus viajes
+    public Long idConductor;
+    public List<Long> peticiones = new ArrayList<>();
+}
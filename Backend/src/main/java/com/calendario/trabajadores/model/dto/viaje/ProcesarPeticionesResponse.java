@@ -0,0 +1,22 @@
+package com.calendario.trabajadores.model.dto.viaje;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcesarPeticionesResponse {
+    public List<Long> aceptadas = new ArrayList<>();
+    public List<Long> rechazadas = new ArrayList<>();
+    //Peticiones que no se han podido procesar, con el motivo
+    public Map<Long, String> errores = new LinkedHashMap<>();
+}
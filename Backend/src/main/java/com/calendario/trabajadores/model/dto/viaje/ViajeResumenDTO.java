@@ -0,0 +1,33 @@
+package com.calendario.trabajadores.model.dto.viaje;
+
+import com.calendario.trabajadores.model.database.EstadoViaje;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+//Fila de los paneles de conductor y pasajero: el viaje con los datos basicos del conductor y del
+//vehiculo y el numero de pasajeros, todo en una consulta
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViajeResumenDTO {
+    private Long id;
+    private Date fecha;
+    private Date hora;
+    private String origen;
+    private String destino;
+    //Plazas libres
+    private int plazas;
+    private EstadoViaje estado;
+    private Long conductorId;
+    private String conductorNombre;
+    private String conductorApellido1;
+    private Long vehiculoId;
+    private String modeloCoche;
+    private String matricula;
+    private Long pasajeros;
+}
@@ -0,0 +1,29 @@
+package com.calendario.trabajadores.repository.peticionviaje;
+
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
+import com.calendario.trabajadores.model.dto.viaje.PeticionViajeResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomPeticionViajeRepository {
+
+    //Una peticion con su viaje, conductor y usuario, sin cargar las entidades
+    Optional<PeticionViajeResponse> findPeticion(Long peticionId);
+
+    //Varias peticiones por id, en una consulta
+    List<PeticionViajeResponse> findPeticiones(Collection<Long> peticionIds);
+
+    //Peticiones de un viaje (estado null = todas), las mas antiguas primero
+    List<PeticionViajeResponse> findPeticionesViaje(Long viajeId, EstadoPeticionViaje estado);
+
+    //Pasa una peticion PENDIENTE al estado indicado. Devuelve false si ya no estaba pendiente
+    boolean resolverPeticion(Long peticionId, EstadoPeticionViaje estado);
+
+    //Rechaza de una vez las peticiones pendientes de un viaje que ya no tiene plazas
+    int rechazarPendientesSiCompleto(Long viajeId);
+
+    //Rechaza de una vez las peticiones pendientes indicadas que sean de viajes del conductor
+    int rechazarPeticiones(Long conductorId, Collection<Long> peticionIds);
+}
@@ -0,0 +1,90 @@
+package com.calendario.trabajadores.repository.peticionviaje;
+
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
+import com.calendario.trabajadores.model.dto.viaje.PeticionViajeResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class CustomPeticionViajeRepositoryImpl implements CustomPeticionViajeRepository {
+    //Las peticiones se devuelven ya como DTO con los datos del viaje y del usuario en la misma consulta
+    private static final String PETICION =
+            "SELECT new com.calendario.trabajadores.model.dto.viaje.PeticionViajeResponse(p.id, v.id, v.conductor.id, " +
+                    "u.id, u.nombre, u.apellido1, p.estado) FROM PeticionViaje p JOIN p.viaje v JOIN p.usuario u ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<PeticionViajeResponse> findPeticion(Long peticionId) {
+        return entityManager.createQuery(PETICION + "WHERE p.id = :peticionId", PeticionViajeResponse.class)
+                .setParameter("peticionId", peticionId)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<PeticionViajeResponse> findPeticiones(Collection<Long> peticionIds) {
+        return entityManager.createQuery(PETICION + "WHERE p.id IN :peticionIds ORDER BY p.id", PeticionViajeResponse.class)
+                .setParameter("peticionIds", peticionIds)
+                .getResultList();
+    }
+
+    @Override
+    public List<PeticionViajeResponse> findPeticionesViaje(Long viajeId, EstadoPeticionViaje estado) {
+        String jpql = PETICION + "WHERE v.id = :viajeId" + (estado != null ? " AND p.estado = :estado" : "") +
+                " ORDER BY p.id";
+        TypedQuery<PeticionViajeResponse> query = entityManager.createQuery(jpql, PeticionViajeResponse.class)
+                .setParameter("viajeId", viajeId);
+        if (estado != null) {
+            query.setParameter("estado", estado);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    @Transactional
+    public boolean resolverPeticion(Long peticionId, EstadoPeticionViaje estado) {
+        //Condicionado a PENDIENTE: si dos conductores (o dos pestañas) resuelven a la vez, solo uno gana
+        int filas = entityManager.createQuery("UPDATE PeticionViaje p SET p.estado = :estado " +
+                        "WHERE p.id = :peticionId AND p.estado = :pendiente")
+                .setParameter("estado", estado)
+                .setParameter("pendiente", EstadoPeticionViaje.PENDIENTE)
+                .setParameter("peticionId", peticionId)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    @Override
+    @Transactional
+    public int rechazarPendientesSiCompleto(Long viajeId) {
+        return entityManager.createQuery("UPDATE PeticionViaje p SET p.estado = :rechazada " +
+                        "WHERE p.viaje.id = :viajeId AND p.estado = :pendiente " +
+                        "AND EXISTS (SELECT 1 FROM Viaje v WHERE v.id = :viajeId AND v.plazas <= 0)")
+                .setParameter("rechazada", EstadoPeticionViaje.RECHAZADA)
+                .setParameter("pendiente", EstadoPeticionViaje.PENDIENTE)
+                .setParameter("viajeId", viajeId)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int rechazarPeticiones(Long conductorId, Collection<Long> peticionIds) {
+        return entityManager.createQuery("UPDATE PeticionViaje p SET p.estado = :rechazada " +
+                        "WHERE p.id IN :peticionIds AND p.estado = :pendiente " +
+                        "AND p.viaje.id IN (SELECT v.id FROM Viaje v WHERE v.conductor.id = :conductorId)")
+                .setParameter("rechazada", EstadoPeticionViaje.RECHAZADA)
+                .setParameter("pendiente", EstadoPeticionViaje.PENDIENTE)
+                .setParameter("peticionIds", peticionIds)
+                .setParameter("conductorId", conductorId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,19 @@
+package com.calendario.trabajadores.repository.peticionviaje;
+
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
+import com.calendario.trabajadores.model.database.PeticionViaje;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface IPeticionViajeRepository extends JpaRepository<PeticionViaje, Long>, CustomPeticionViajeRepository {
+    //Comprobar si el usuario ya tiene una peticion en alguno de los estados para el viaje
+    @Query("SELECT COUNT(p) > 0 FROM PeticionViaje p WHERE p.viaje.id = :viajeId AND p.usuario.id = :usuarioId " +
+            "AND p.estado IN :estados")
+    boolean existePeticion(@Param("viajeId") Long viajeId, @Param("usuarioId") Long usuarioId,
+                           @Param("estados") Collection<EstadoPeticionViaje> estados);
+}
@@ -1,9 +1,22 @@
 package com.calendario.trabajadores.repository.turno;
 
+import com.calendario.trabajadores.model.database.EstadoTurno;
 import com.calendario.trabajadores.model.database.Turno;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface CustomTurnoRepository {
     List<Turno> buscarTurnosActivos();
+
+    //Ids de hasta limite turnos en alguno de los estados que ya han empezado (hora_inicio <= instante),
+    //bloqueados hasta el final de la transaccion
+    List<Long> bloquearTurnosEmpezados(Collection<EstadoTurno> estados, Date instante, int limite);
+
+    //Igual, pero de los turnos que ya han terminado (hora_fin <= instante)
+    List<Long> bloquearTurnosTerminados(Collection<EstadoTurno> estados, Date instante, int limite);
+
+    //Cambiar el estado de varios turnos con un unico UPDATE
+    int cambiarEstadoTurnos(Collection<Long> ids, EstadoTurno estado);
 }
@@ -1,11 +1,15 @@
 package com.calendario.trabajadores.repository.turno;
 
+import com.calendario.trabajadores.model.database.EstadoTurno;
 import com.calendario.trabajadores.model.database.Turno;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -20,4 +24,33 @@ public class CustomTurnoRepositoryImpl implements CustomTurnoRepository {
         TypedQuery<Turno> query = em.createQuery(jpql, Turno.class);
         return query.getResultList();
     }
+
+    @Override
+    public List<Long> bloquearTurnosEmpezados(Collection<EstadoTurno> estados, Date instante, int limite) {
+        return bloquearTurnos("t.horaInicio", estados, instante, limite);
+    }
+
+    @Override
+    public List<Long> bloquearTurnosTerminados(Collection<EstadoTurno> estados, Date instante, int limite) {
+        return bloquearTurnos("t.horaFin", estados, instante, limite);
+    }
+
+    //SELECT ... FOR UPDATE: otra instancia que avance estados a la vez espera en vez de repetir los turnos
+    private List<Long> bloquearTurnos(String campo, Collection<EstadoTurno> estados, Date instante, int limite) {
+        return em.createQuery("SELECT t.id FROM Turno t WHERE t.estadoTurno IN :estados AND " + campo +
+                        " <= :instante ORDER BY " + campo + ", t.id", Long.class)
+                .setParameter("estados", estados)
+                .setParameter("instante", instante)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    @Override
+    public int cambiarEstadoTurnos(Collection<Long> ids, EstadoTurno estado) {
+        return em.createQuery("UPDATE Turno t SET t.estadoTurno = :estado WHERE t.id IN :ids")
+                .setParameter("estado", estado)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
 }
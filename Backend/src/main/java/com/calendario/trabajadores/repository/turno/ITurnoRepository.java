@@ -1,9 +1,15 @@
 package com.calendario.trabajadores.repository.turno;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.calendario.trabajadores.model.database.Turno;
 import com.calendario.trabajadores.model.database.EstadoTurno;
+
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -14,4 +20,28 @@ public interface ITurnoRepository extends JpaRepository<Turno, Long>, CustomTurn
 
     // Metodo para obtener turnos por id de usuario
     List<Turno> findByUsuarioId(Long usuarioId);
+
+    // Turnos de un usuario que se solapan con [desde, hasta). inicioMinimo es desde menos la duracion maxima
+    // de un turno: con el, la consulta es un rango sobre idx_turnos_usuario_inicio
+    @Query(value = "SELECT t FROM Turno t WHERE t.usuario.id = :usuarioId AND t.horaInicio > :inicioMinimo " +
+            "AND t.horaInicio < :hasta AND t.horaFin > :desde ORDER BY t.horaInicio, t.id",
+            countQuery = "SELECT COUNT(t) FROM Turno t WHERE t.usuario.id = :usuarioId AND t.horaInicio > :inicioMinimo " +
+                    "AND t.horaInicio < :hasta AND t.horaFin > :desde")
+    Page<Turno> findTurnosEnIntervalo(@Param("usuarioId") Long usuarioId, @Param("inicioMinimo") Date inicioMinimo,
+                                      @Param("desde") Date desde, @Param("hasta") Date hasta, Pageable pageable);
+
+    // Turnos activos en curso en un instante, de todos los usuarios (rango sobre idx_turnos_inicio)
+    @Query(value = "SELECT t FROM Turno t WHERE t.horaInicio > :inicioMinimo AND t.horaInicio <= :instante " +
+            "AND t.horaFin > :instante AND (t.activo IS NULL OR t.activo = true) ORDER BY t.horaInicio, t.id",
+            countQuery = "SELECT COUNT(t) FROM Turno t WHERE t.horaInicio > :inicioMinimo AND t.horaInicio <= :instante " +
+                    "AND t.horaFin > :instante AND (t.activo IS NULL OR t.activo = true)")
+    Page<Turno> findTurnosEnCurso(@Param("inicioMinimo") Date inicioMinimo, @Param("instante") Date instante,
+                                  Pageable pageable);
+
+    // Comprobar si el usuario tiene otro turno activo que se solape con [inicio, fin) (excluyendo el turno que se edita)
+    @Query("SELECT COUNT(t) > 0 FROM Turno t WHERE t.usuario.id = :usuarioId AND t.id <> :excluirId " +
+            "AND t.horaInicio > :inicioMinimo AND t.horaInicio < :fin AND t.horaFin > :inicio " +
+            "AND (t.activo IS NULL OR t.activo = true)")
+    boolean existeSolape(@Param("usuarioId") Long usuarioId, @Param("excluirId") Long excluirId,
+                         @Param("inicioMinimo") Date inicioMinimo, @Param("inicio") Date inicio, @Param("fin") Date fin);
 }
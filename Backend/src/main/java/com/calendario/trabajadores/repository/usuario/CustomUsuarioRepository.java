@@ -18,4 +18,13 @@ public interface CustomUsuarioRepository {
     List<UsuarioVehiculosResponse> findAllUsuariosVehiculos();
     //
     List<UsuarioVehiculosResponse> findAllUsuariosVehiculosFiltrados(boolean param);
+    //Una página de usuarios (id > despuesDeId, como mucho limite) con sus vehículos; activo filtra los
+    //vehículos (null = todos). Siempre dos consultas, sin importar cuántos vehículos haya
+    List<UsuarioVehiculosResponse> findUsuariosVehiculos(Boolean activo, long despuesDeId, int limite);
+    //Saca del contexto de persistencia las entidades ya leidas (al recorrer la tabla por lotes); dentro de
+    //una transaccion vuelca antes los cambios pendientes para no perderlos
+    void vaciarContexto();
+    //Bloquea la fila del usuario hasta el final de la transaccion (SELECT ... FOR UPDATE) para serializar las
+    //comprobaciones que dependen de sus datos, como el solape de turnos. Devuelve false si no existe
+    boolean bloquearUsuario(Long usuarioId);
 }
@@ -1,25 +1,29 @@
 package com.calendario.trabajadores.repository.usuario;
 
-import com.calendario.trabajadores.mappings.IUserMapper;
 import com.calendario.trabajadores.model.database.Usuario;
-import com.calendario.trabajadores.model.database.Vehiculo;
 import com.calendario.trabajadores.model.dto.usuario.UsuarioVehiculosResponse;
 import com.calendario.trabajadores.model.dto.vehiculo.VehiculoDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
-import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.persistence.TypedQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Repository
 public class CustomUsuarioRepositoryImpl implements CustomUsuarioRepository {
+    //Usuarios por página al listar todos con sus vehículos
+    private static final int PAGINA_USUARIOS = 500;
+
     @PersistenceContext
     private EntityManager entityManager;
-    @Autowired
-    private IUserMapper userMapper;
     //Método para buscar un AdministradorServicio por su correo electrónico
     @Override
     public Optional<Usuario> findUsuarioByEmail(String email) {
@@ -31,44 +35,83 @@ public class CustomUsuarioRepositoryImpl implements CustomUsuarioRepository {
     }
     @Override
     public List<UsuarioVehiculosResponse> findAllUsuariosVehiculos() {
-        // Usamos LEFT JOIN para asegurarnos de que no se pierdan usuarios sin vehículos
-        List<Object[]> result = entityManager.createQuery(
-                        "SELECT u, v FROM Usuario u " +
-                                // Los vehículos pueden ser null si no los tienen
-                                "LEFT JOIN u.vehiculos v", Object[].class)
+        return recorrerUsuariosVehiculos(null);
+    }
+
+    @Override
+    public List<UsuarioVehiculosResponse> findAllUsuariosVehiculosFiltrados(boolean activo) {
+        return recorrerUsuariosVehiculos(activo);
+    }
+
+    @Override
+    public List<UsuarioVehiculosResponse> findUsuariosVehiculos(Boolean activo, long despuesDeId, int limite) {
+        // 1ª consulta: la página de usuarios (id > despuesDeId), solo las columnas de la respuesta
+        List<Object[]> usuarios = entityManager.createQuery(
+                        "SELECT u.id, u.nombre, u.apellido1, u.apellido2, u.email, u.activo FROM Usuario u " +
+                                "WHERE u.id > :despuesDeId ORDER BY u.id", Object[].class)
+                .setParameter("despuesDeId", despuesDeId)
+                .setMaxResults(limite)
                 .getResultList();
+        if (usuarios.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = usuarios.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
 
-        // Ahora mapeamos los resultados usando el mapper
-        return result.stream()
-                .map(row -> {
-                    Usuario usuario = (Usuario) row[0];
-                    // Los vehículos pueden ser null si no existen
-                    List<VehiculoDTO> vehiculos = (List<VehiculoDTO>) row[1];
+        // 2ª consulta: los vehículos de esos usuarios. El filtro por activo se aplica a los vehículos,
+        // así que un usuario sin vehículos (o sin ninguno que cumpla el filtro) sale con la lista vacía
+        String jpql = "SELECT v.usuario.id, v.id, v.modeloCoche, v.matricula, v.plazas, v.activo FROM Vehiculo v " +
+                "WHERE v.usuario.id IN :ids" + (activo != null ? " AND v.activo = :activo" : "") +
+                " ORDER BY v.usuario.id, v.id";
+        TypedQuery<Object[]> consultaVehiculos = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("ids", ids);
+        if (activo != null) {
+            consultaVehiculos.setParameter("activo", activo);
+        }
+        Map<Long, List<VehiculoDTO>> vehiculosPorUsuario = new HashMap<>();
+        for (Object[] row : consultaVehiculos.getResultList()) {
+            VehiculoDTO vehiculo = new VehiculoDTO((Long) row[1], (String) row[2], (String) row[3],
+                    (Integer) row[4], (Boolean) row[5]);
+            vehiculosPorUsuario.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(vehiculo);
+        }
 
-                    //  usamos el mapper para convertir el Usuario a UsuarioVehiculosResponse
-                    return userMapper.usuarioToUsuarioVehiculosResponse(usuario, vehiculos);
-                })
+        // Una fila por usuario, con su lista de vehículos anidada
+        return usuarios.stream()
+                .map(row -> new UsuarioVehiculosResponse((Long) row[0], (String) row[1], (String) row[2],
+                        (String) row[3], (String) row[4],
+                        vehiculosPorUsuario.getOrDefault((Long) row[0], new ArrayList<>()), (Boolean) row[5]))
                 .collect(Collectors.toList());
     }
+
     @Override
-    public List<UsuarioVehiculosResponse> findAllUsuariosVehiculosFiltrados(boolean activo) {
-        // Consulta con LEFT JOIN para obtener los usuarios y sus vehículos filtrados por el estado 'activo'
-        List<Object[]> result = entityManager.createQuery(
-                        "SELECT u, v FROM Usuario u " +
-                                "LEFT JOIN u.vehiculos v WHERE v.activo = :activo", Object[].class)
-                .setParameter("activo", activo)
-                .getResultList();
+    public void vaciarContexto() {
+        //Fuera de una transaccion (open-in-view o el hilo del streaming) no hay nada que volcar
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+        entityManager.clear();
+    }
 
-        // Mapear los resultados usando el mapper
-        return result.stream()
-                .map(row -> {
-                    Usuario usuario = (Usuario) row[0];
-                    List<VehiculoDTO> vehiculos = (List<VehiculoDTO>) row[1];  // Los vehículos pueden ser null si no existen
+    @Override
+    public boolean bloquearUsuario(Long usuarioId) {
+        return !entityManager.createQuery("SELECT u.id FROM Usuario u WHERE u.id = :usuarioId", Long.class)
+                .setParameter("usuarioId", usuarioId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList()
+                .isEmpty();
+    }
 
-                    // Usamos el mapper para convertir el Usuario a UsuarioVehiculosResponse
-                    return userMapper.usuarioToUsuarioVehiculosResponse(usuario, vehiculos);
-                })
-                .collect(Collectors.toList());
+    //Todos los usuarios página a página: dos consultas por cada PAGINA_USUARIOS usuarios
+    private List<UsuarioVehiculosResponse> recorrerUsuariosVehiculos(Boolean activo) {
+        List<UsuarioVehiculosResponse> resultado = new ArrayList<>();
+        long despuesDeId = 0;
+        while (true) {
+            List<UsuarioVehiculosResponse> pagina = findUsuariosVehiculos(activo, despuesDeId, PAGINA_USUARIOS);
+            resultado.addAll(pagina);
+            if (pagina.size() < PAGINA_USUARIOS) {
+                return resultado;
+            }
+            despuesDeId = pagina.get(pagina.size() - 1).getId();
+        }
     }
 
     //Antiguos metodos de UsuarioVehiculo
@@ -1,11 +1,14 @@
 package com.calendario.trabajadores.repository.usuario;
 
 import com.calendario.trabajadores.model.database.Usuario;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +18,19 @@ import java.util.Optional;
 public interface IUsuarioRepository extends JpaRepository<Usuario, Long>, CustomUsuarioRepository {
     @Query("SELECT u FROM Usuario u WHERE u.activo = :p")
     List<Usuario> findByActivo(@Param("p")boolean activo);
+
+    //Ids de una pagina de usuarios (activo null = todos). Se pagina sobre los ids porque paginar
+    //un JOIN FETCH de una coleccion obliga a Hibernate a traerse todas las filas y cortar en memoria
+    @Query(value = "SELECT u.id FROM Usuario u WHERE (:activo IS NULL OR u.activo = :activo) ORDER BY u.id",
+            countQuery = "SELECT COUNT(u) FROM Usuario u WHERE (:activo IS NULL OR u.activo = :activo)")
+    Page<Long> findIdsByActivo(@Param("activo") Boolean activo, Pageable pageable);
+
+    //Siguiente lote de ids a partir del ultimo leido (paginacion por clave, sin OFFSET), para recorrer
+    //todos los usuarios con coste constante por lote
+    @Query("SELECT u.id FROM Usuario u WHERE u.id > :despuesDe AND (:activo IS NULL OR u.activo = :activo) ORDER BY u.id")
+    List<Long> findIdsDespuesDe(@Param("despuesDe") long despuesDe, @Param("activo") Boolean activo, Pageable lote);
+
+    //Usuarios con sus viajes en una sola consulta
+    @Query("SELECT DISTINCT u FROM Usuario u LEFT JOIN FETCH u.viajes WHERE u.id IN :ids ORDER BY u.id")
+    List<Usuario> findConViajesByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
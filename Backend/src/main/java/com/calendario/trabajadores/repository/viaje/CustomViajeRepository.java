@@ -2,33 +2,58 @@ package com.calendario.trabajadores.repository.viaje;
 
 import com.calendario.trabajadores.model.database.EstadoViaje;
 import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.model.dto.viaje.ViajeDTO;
+import com.calendario.trabajadores.model.dto.viaje.ViajeResumenDTO;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 public interface CustomViajeRepository {
 
-    //Metodo para mostrar los viajes de un conductor
-    List<Viaje> mostrarViajesConductor(Long usuarioId);
+    //Metodo para mostrar los viajes de un conductor (con conductor, vehiculo y numero de pasajeros)
+    List<ViajeResumenDTO> mostrarViajesConductor(Long usuarioId);
 
     //Mostrar mis viajes (pasajero)
-    List<Viaje> mostrarMisViajes(Long usuarioId);
+    List<ViajeResumenDTO> mostrarMisViajes(Long usuarioId);
 
     //Actualizar viaje
     Viaje actualizarViaje(Viaje viaje);
 
-    //Cancelar viaje
-    void cancelarViaje(Long viajeId);
+    //Cancelar viaje (solo si esta DISPONIBLE). Devuelve false si no se ha cancelado
+    boolean cancelarViaje(Long viajeId);
 
-    //Agregar usuario a viaje
-    void agregarUsuarioViaje(Long viajeId, Long usuarioId);
+    //Agregar usuario a viaje ocupando una plaza. Devuelve false si no quedan plazas,
+    //el viaje no esta DISPONIBLE o el usuario ya va en el
+    boolean agregarUsuarioViaje(Long viajeId, Long usuarioId);
 
-    //Eliminar usuario de viaje
-    void eliminarUsuarioViaje(Long viajeId, Long usuarioId);
+    //Eliminar usuario de viaje liberando su plaza. Devuelve false si el usuario no iba en el viaje
+    boolean eliminarUsuarioViaje(Long viajeId, Long usuarioId);
 
 
     List<Viaje> findAllViajesByEstado(EstadoViaje estado);
 
     List<Viaje> findViajesByUsuarioAndEstado(Long usuarioId, EstadoViaje estado);
+
+    //Buscar viajes disponibles por origen/destino normalizados (null = cualquiera), salida entre desde y hasta
+    //(hasta null = sin limite) y con al menos plazasMinimas plazas. Ordenados por salida e id; para la
+    //siguiente pagina se pasa la fecha y el id del ultimo viaje (null en la primera)
+    List<ViajeDTO> buscarViajes(String origenClave, String destinoClave, Date desde, Date hasta, int plazasMinimas,
+                                Date despuesDeFecha, Long despuesDeId, int limite);
+
+    //Nombre de cada origen/destino con su numero de viajes, para cargar el indice de autocompletado
+    List<Object[]> contarOrigenes();
+
+    List<Object[]> contarDestinos();
+
+    //Calcula las claves de lugar y la salida de los viajes guardados antes de que existieran las columnas
+    int rellenarCamposCalculados();
+
+    //Ids de hasta limite viajes en alguno de los estados con salida (dia y hora) anterior o igual al instante,
+    //bloqueados hasta el final de la transaccion
+    List<Long> bloquearViajesSalidos(Collection<EstadoViaje> estados, Date instante, int limite);
+
+    //Cambiar el estado de varios viajes con un unico UPDATE
+    int cambiarEstadoViajes(Collection<Long> ids, EstadoViaje estado);
 }
@@ -1,16 +1,33 @@
 package com.calendario.trabajadores.repository.viaje;
 
 import com.calendario.trabajadores.model.database.EstadoViaje;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.database.UsuarioViaje;
 import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.model.dto.viaje.ViajeDTO;
+import com.calendario.trabajadores.model.dto.viaje.ViajeResumenDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
 public class CustomViajeRepositoryImpl implements CustomViajeRepository {
+    //Viajes por lote al rellenar las claves de lugar y la salida
+    private static final int LOTE_CLAVES = 500;
+    //Los paneles de conductor y pasajero leen el viaje, su conductor, su vehiculo y el numero de pasajeros
+    //en una sola consulta, sin cargar usuarioViajes
+    private static final String RESUMEN_VIAJE =
+            "SELECT new com.calendario.trabajadores.model.dto.viaje.ViajeResumenDTO(v.id, v.fecha, v.hora, " +
+                    "v.origen, v.destino, v.plazas, v.estado, c.id, c.nombre, c.apellido1, ve.id, ve.modeloCoche, " +
+                    "ve.matricula, (SELECT COUNT(uv) FROM UsuarioViaje uv WHERE uv.viaje = v)) " +
+                    "FROM Viaje v JOIN v.conductor c JOIN v.vehiculo ve ";
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -30,7 +47,8 @@ public class CustomViajeRepositoryImpl implements CustomViajeRepository {
     @Override              //TODO: implementar segun Listar vehiculos
     public List<Viaje> findViajesByUsuarioAndEstado(Long usuarioId, EstadoViaje estado) {
         //Creamos la sentencia JPQL
-        String jpql = "SELECT v FROM Viaje v WHERE (v.conductor.id = :usuarioId OR v.usuario.id = :usuarioId) AND v.estado = :estado";
+        String jpql = "SELECT v FROM Viaje v WHERE (v.conductor.id = :usuarioId OR EXISTS (SELECT 1 FROM UsuarioViaje uv " +
+                "WHERE uv.viaje = v AND uv.usuario.id = :usuarioId)) AND v.estado = :estado";
 
         // Creamos la consulta
         TypedQuery<Viaje> query = entityManager.createQuery(jpql, Viaje.class);
@@ -43,56 +61,194 @@ public class CustomViajeRepositoryImpl implements CustomViajeRepository {
         return query.getResultList();
     }
 
-    /**
-     * @param usuarioId
-     * @return
-     */
     @Override
-    public List<Viaje> mostrarViajesConductor(Long usuarioId) {
-        return null;
+    public List<ViajeResumenDTO> mostrarViajesConductor(Long usuarioId) {
+        return entityManager.createQuery(RESUMEN_VIAJE + "WHERE c.id = :usuarioId ORDER BY v.fecha DESC, v.id DESC",
+                        ViajeResumenDTO.class)
+                .setParameter("usuarioId", usuarioId)
+                .getResultList();
     }
 
-    /**
-     * @param usuarioId
-     * @return
-     */
     @Override
-    public List<Viaje> mostrarMisViajes(Long usuarioId) {
-        return null;
+    public List<ViajeResumenDTO> mostrarMisViajes(Long usuarioId) {
+        return entityManager.createQuery(RESUMEN_VIAJE + "WHERE EXISTS (SELECT 1 FROM UsuarioViaje p " +
+                                "WHERE p.viaje = v AND p.usuario.id = :usuarioId) ORDER BY v.fecha DESC, v.id DESC",
+                        ViajeResumenDTO.class)
+                .setParameter("usuarioId", usuarioId)
+                .getResultList();
     }
 
-    /**
-     * @param viaje
-     * @return
-     */
     @Override
+    @Transactional
     public Viaje actualizarViaje(Viaje viaje) {
-        return null;
+        //merge copia el estado sobre la entidad gestionada; @PreUpdate recalcula las claves de lugar
+        return entityManager.merge(viaje);
     }
 
-    /**
-     * @param viajeId
-     */
     @Override
-    public void cancelarViaje(Long viajeId) {
+    @Transactional
+    public boolean cancelarViaje(Long viajeId) {
+        //UPDATE directo: no hace falta cargar el viaje ni sus pasajeros
+        int filas = entityManager.createQuery("UPDATE Viaje v SET v.estado = :cancelado " +
+                        "WHERE v.id = :viajeId AND v.estado = :disponible")
+                .setParameter("cancelado", EstadoViaje.CANCELADO)
+                .setParameter("disponible", EstadoViaje.DISPONIBLE)
+                .setParameter("viajeId", viajeId)
+                .executeUpdate();
+        return filas == 1;
+    }
 
+    @Override
+    @Transactional
+    public boolean agregarUsuarioViaje(Long viajeId, Long usuarioId) {
+        Long yaVa = entityManager.createQuery("SELECT COUNT(uv) FROM UsuarioViaje uv " +
+                        "WHERE uv.viaje.id = :viajeId AND uv.usuario.id = :usuarioId", Long.class)
+                .setParameter("viajeId", viajeId)
+                .setParameter("usuarioId", usuarioId)
+                .getSingleResult();
+        if (yaVa > 0) {
+            return false;
+        }
+        //La plaza se ocupa con un UPDATE condicionado: la base de datos bloquea la fila, asi que dos
+        //peticiones a la vez no pueden llevarse la ultima plaza
+        int filas = entityManager.createQuery("UPDATE Viaje v SET v.plazas = v.plazas - 1 " +
+                        "WHERE v.id = :viajeId AND v.plazas > 0 AND v.estado = :disponible")
+                .setParameter("viajeId", viajeId)
+                .setParameter("disponible", EstadoViaje.DISPONIBLE)
+                .executeUpdate();
+        if (filas == 0) {
+            return false;
+        }
+        //Si el mismo usuario se apunta dos veces a la vez, la restriccion unica de usuario_viaje hace
+        //fallar el INSERT y la transaccion devuelve la plaza. El flush lanza el error aqui, como
+        //DataIntegrityViolationException, y no al confirmar
+        UsuarioViaje usuarioViaje = new UsuarioViaje();
+        usuarioViaje.setViaje(entityManager.getReference(Viaje.class, viajeId));
+        usuarioViaje.setUsuario(entityManager.getReference(Usuario.class, usuarioId));
+        entityManager.persist(usuarioViaje);
+        entityManager.flush();
+        return true;
     }
 
-    /**
-     * @param viajeId
-     * @param usuarioId
-     */
     @Override
-    public void agregarUsuarioViaje(Long viajeId, Long usuarioId) {
+    @Transactional
+    public boolean eliminarUsuarioViaje(Long viajeId, Long usuarioId) {
+        int borrados = entityManager.createQuery("DELETE FROM UsuarioViaje uv " +
+                        "WHERE uv.viaje.id = :viajeId AND uv.usuario.id = :usuarioId")
+                .setParameter("viajeId", viajeId)
+                .setParameter("usuarioId", usuarioId)
+                .executeUpdate();
+        if (borrados == 0) {
+            return false;
+        }
+        //Se devuelve la plaza en la misma transaccion que el borrado, y solo si el viaje sigue disponible:
+        //en uno cancelado, en curso o finalizado las plazas ya no se ofrecen
+        entityManager.createQuery("UPDATE Viaje v SET v.plazas = v.plazas + :borrados " +
+                        "WHERE v.id = :viajeId AND v.estado = :disponible")
+                .setParameter("borrados", borrados)
+                .setParameter("viajeId", viajeId)
+                .setParameter("disponible", EstadoViaje.DISPONIBLE)
+                .executeUpdate();
+        return true;
+    }
 
+    @Override
+    public List<ViajeDTO> buscarViajes(String origenClave, String destinoClave, Date desde, Date hasta,
+                                       int plazasMinimas, Date despuesDeFecha, Long despuesDeId, int limite) {
+        //Las condiciones siguen el orden de idx_viajes_busqueda_salida (origen_clave, destino_clave, salida, id)
+        //y se devuelve el DTO directamente, sin cargar conductor ni vehiculo
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.calendario.trabajadores.model.dto.viaje.ViajeDTO(v.id, v.fecha, v.hora, v.origen, " +
+                        "v.destino, v.plazas, v.estado, v.conductor.id, v.vehiculo.id) FROM Viaje v " +
+                        "WHERE v.estado = :estado AND v.plazas >= :plazas AND v.salida >= :desde");
+        if (origenClave != null) {
+            jpql.append(" AND v.origenClave = :origen");
+        }
+        if (destinoClave != null) {
+            jpql.append(" AND v.destinoClave = :destino");
+        }
+        if (hasta != null) {
+            jpql.append(" AND v.salida <= :hasta");
+        }
+        if (despuesDeFecha != null && despuesDeId != null) {
+            jpql.append(" AND (v.salida > :despuesDeFecha OR (v.salida = :despuesDeFecha AND v.id > :despuesDeId))");
+        }
+        jpql.append(" ORDER BY v.salida, v.id");
+
+        TypedQuery<ViajeDTO> query = entityManager.createQuery(jpql.toString(), ViajeDTO.class)
+                .setParameter("estado", EstadoViaje.DISPONIBLE)
+                .setParameter("plazas", plazasMinimas)
+                .setParameter("desde", desde)
+                .setMaxResults(limite);
+        if (origenClave != null) {
+            query.setParameter("origen", origenClave);
+        }
+        if (destinoClave != null) {
+            query.setParameter("destino", destinoClave);
+        }
+        if (hasta != null) {
+            query.setParameter("hasta", hasta);
+        }
+        if (despuesDeFecha != null && despuesDeId != null) {
+            query.setParameter("despuesDeFecha", despuesDeFecha);
+            query.setParameter("despuesDeId", despuesDeId);
+        }
+        return query.getResultList();
     }
 
-    /**
-     * @param viajeId
-     * @param usuarioId
-     */
     @Override
-    public void eliminarUsuarioViaje(Long viajeId, Long usuarioId) {
+    public List<Object[]> contarOrigenes() {
+        return entityManager.createQuery(
+                        "SELECT v.origen, COUNT(v) FROM Viaje v WHERE v.origen IS NOT NULL GROUP BY v.origen", Object[].class)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> contarDestinos() {
+        return entityManager.createQuery(
+                        "SELECT v.destino, COUNT(v) FROM Viaje v WHERE v.destino IS NOT NULL GROUP BY v.destino", Object[].class)
+                .getResultList();
+    }
 
+    @Override
+    @Transactional
+    public int rellenarCamposCalculados() {
+        int total = 0;
+        List<Viaje> lote;
+        do {
+            lote = entityManager.createQuery("SELECT v FROM Viaje v WHERE (v.origenClave IS NULL AND v.origen IS NOT NULL) " +
+                            "OR (v.destinoClave IS NULL AND v.destino IS NOT NULL) " +
+                            "OR (v.salida IS NULL AND v.fecha IS NOT NULL) ORDER BY v.id", Viaje.class)
+                    .setMaxResults(LOTE_CLAVES)
+                    .getResultList();
+            //@PreUpdate solo se ejecuta si la entidad ya ha cambiado, asi que los campos se calculan aqui
+            lote.forEach(Viaje::calcularCampos);
+            entityManager.flush();
+            entityManager.clear();
+            total += lote.size();
+        } while (lote.size() == LOTE_CLAVES);
+        return total;
+    }
+
+    @Override
+    public List<Long> bloquearViajesSalidos(Collection<EstadoViaje> estados, Date instante, int limite) {
+        //SELECT ... FOR UPDATE: otra instancia que avance estados a la vez espera en vez de repetir los viajes.
+        //Se compara la salida (dia y hora) y no fecha, que solo lleva el dia: un viaje de esta tarde no ha salido
+        //a medianoche. Rango sobre idx_viajes_estado_salida
+        return entityManager.createQuery("SELECT v.id FROM Viaje v WHERE v.estado IN :estados " +
+                        "AND v.salida <= :instante ORDER BY v.salida, v.id", Long.class)
+                .setParameter("estados", estados)
+                .setParameter("instante", instante)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    @Override
+    public int cambiarEstadoViajes(Collection<Long> ids, EstadoViaje estado) {
+        return entityManager.createQuery("UPDATE Viaje v SET v.estado = :estado WHERE v.id IN :ids")
+                .setParameter("estado", estado)
+                .setParameter("ids", ids)
+                .executeUpdate();
     }
 }
@@ -0,0 +1,116 @@
+package com.calendario.trabajadores.services.estado;
+
+import com.calendario.trabajadores.model.database.EstadoTurno;
+import com.calendario.trabajadores.model.database.EstadoViaje;
+import com.calendario.trabajadores.repository.turno.ITurnoRepository;
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+//Avanza solos los estados segun la hora: los turnos de SIN_EMPEZAR a EN_CURSO al llegar hora_inicio y a
+//FINALIZADO al llegar hora_fin; los viajes de DISPONIBLE a EN_CURSO a la hora de salida y a FINALIZADO
+//cuando ha pasado la duracion configurada. Cada lote es un SELECT ... FOR UPDATE de ids y un UPDATE,
+//en su propia transaccion, y al confirmarse se publica un evento con los ids que han cambiado
+@Service
+public class AvanceEstadosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvanceEstadosService.class);
+
+    private final ITurnoRepository turnoRepository;
+    private final IViajeRepository viajeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${calendario.estados.enabled:true}")
+    private boolean enabled;
+    //Filas por lote (y por transaccion)
+    @Value("${calendario.estados.lote:500}")
+    private int lote;
+    //Los viajes no tienen hora de llegada: se dan por finalizados pasado este tiempo desde la salida
+    @Value("${calendario.estados.duracion-viaje:PT2H}")
+    private Duration duracionViaje;
+
+    public AvanceEstadosService(ITurnoRepository turnoRepository, IViajeRepository viajeRepository,
+                                ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.turnoRepository = turnoRepository;
+        this.viajeRepository = viajeRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${calendario.estados.intervalo:PT1M}")
+    public void avanzarProgramado() {
+        if (enabled) {
+            avanzarEstados(new Date());
+        }
+    }
+
+    //Avanza todo lo que toca en el instante dado. Primero se finaliza: lo que ya ha terminado pasa
+    //directamente a FINALIZADO aunque no llegara a pasar por EN_CURSO (por ejemplo, tras una parada)
+    public void avanzarEstados(Date ahora) {
+        long inicio = System.nanoTime();
+        int turnosFinalizados = avanzarTurnos(EstadoTurno.FINALIZADO,
+                limite -> turnoRepository.bloquearTurnosTerminados(
+                        Set.of(EstadoTurno.SIN_EMPEZAR, EstadoTurno.EN_CURSO), ahora, limite));
+        int turnosEnCurso = avanzarTurnos(EstadoTurno.EN_CURSO,
+                limite -> turnoRepository.bloquearTurnosEmpezados(Set.of(EstadoTurno.SIN_EMPEZAR), ahora, limite));
+
+        Date salidaFinalizados = new Date(ahora.getTime() - duracionViaje.toMillis());
+        int viajesFinalizados = avanzarViajes(EstadoViaje.FINALIZADO,
+                limite -> viajeRepository.bloquearViajesSalidos(
+                        Set.of(EstadoViaje.DISPONIBLE, EstadoViaje.EN_CURSO), salidaFinalizados, limite));
+        int viajesEnCurso = avanzarViajes(EstadoViaje.EN_CURSO,
+                limite -> viajeRepository.bloquearViajesSalidos(Set.of(EstadoViaje.DISPONIBLE), ahora, limite));
+
+        if (turnosFinalizados + turnosEnCurso + viajesFinalizados + viajesEnCurso > 0) {
+            logger.info("Avance de estados: {} turnos en curso, {} turnos finalizados, {} viajes en curso, " +
+                            "{} viajes finalizados en {} ms", turnosEnCurso, turnosFinalizados, viajesEnCurso,
+                    viajesFinalizados, Duration.ofNanos(System.nanoTime() - inicio).toMillis());
+        }
+    }
+
+    private int avanzarTurnos(EstadoTurno estado, Function<Integer, List<Long>> bloquear) {
+        return avanzarPorLotes(bloquear,
+                ids -> turnoRepository.cambiarEstadoTurnos(ids, estado),
+                ids -> new TurnosCambiadosEvent(ids, estado));
+    }
+
+    private int avanzarViajes(EstadoViaje estado, Function<Integer, List<Long>> bloquear) {
+        return avanzarPorLotes(bloquear,
+                ids -> viajeRepository.cambiarEstadoViajes(ids, estado),
+                ids -> new ViajesCambiadosEvent(ids, estado));
+    }
+
+    //Un lote por transaccion hasta que un lote sale incompleto. El evento se publica tras el commit
+    private int avanzarPorLotes(Function<Integer, List<Long>> bloquear, Function<List<Long>, Integer> cambiar,
+                                Function<List<Long>, Object> evento) {
+        int total = 0;
+        List<Long> ids;
+        do {
+            ids = transactionTemplate.execute(status -> {
+                List<Long> bloqueados = bloquear.apply(lote);
+                if (!bloqueados.isEmpty()) {
+                    cambiar.apply(bloqueados);
+                }
+                return bloqueados;
+            });
+            if (!ids.isEmpty()) {
+                eventPublisher.publishEvent(evento.apply(ids));
+                total += ids.size();
+            }
+        } while (ids.size() == lote);
+        return total;
+    }
+}
@@ -0,0 +1,10 @@
+package com.calendario.trabajadores.services.estado;
+
+import com.calendario.trabajadores.model.database.EstadoTurno;
+
+import java.util.List;
+
+//Evento que se publica, ya confirmada la transaccion, cuando uno o varios turnos cambian de estado
+//(avance automatico o cambio a mano), para que quien guarde turnos en memoria los invalide
+public record TurnosCambiadosEvent(List<Long> ids, EstadoTurno estado) {
+}
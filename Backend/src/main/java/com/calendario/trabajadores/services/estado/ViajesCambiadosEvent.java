@@ -0,0 +1,10 @@
+package com.calendario.trabajadores.services.estado;
+
+import com.calendario.trabajadores.model.database.EstadoViaje;
+
+import java.util.List;
+
+//Evento que se publica, ya confirmada la transaccion, cuando uno o varios viajes cambian de estado
+//(avance automatico, cambio a mano o cancelacion), para que quien guarde viajes en memoria los invalide
+public record ViajesCambiadosEvent(List<Long> ids, EstadoViaje estado) {
+}
@@ -7,13 +7,25 @@ import com.calendario.trabajadores.model.database.Usuario;
 import com.calendario.trabajadores.model.dto.turno.CrearEditarTurnoResponse;
 import com.calendario.trabajadores.model.dto.turno.CrearTurnoRequest;
 import com.calendario.trabajadores.model.dto.turno.EditarTurnoRequest;
+import com.calendario.trabajadores.model.dto.turno.VistaCalendario;
 import com.calendario.trabajadores.model.errorresponse.ErrorResponse;
 import com.calendario.trabajadores.model.errorresponse.GenericResponse;
 import com.calendario.trabajadores.repository.turno.ITurnoRepository;
 import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import com.calendario.trabajadores.services.estado.TurnosCambiadosEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -24,19 +36,34 @@ public class TurnoService {
     private final ITurnoRepository turnoRepository;
     private final ITurnoMapper turnoMapper;
     private final IUsuarioRepository usuarioRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    // La comprobacion del solape y el guardado van en la misma transaccion (ver validarHorario)
+    private final TransactionTemplate transactionTemplate;
 
     // Constructor del servicio
-    public TurnoService(ITurnoRepository turnoRepository, ITurnoMapper turnoMapper, IUsuarioRepository usuarioRepository) {
+    public TurnoService(ITurnoRepository turnoRepository, ITurnoMapper turnoMapper, IUsuarioRepository usuarioRepository,
+                        ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
         this.turnoRepository = turnoRepository;
         this.turnoMapper = turnoMapper;
         this.usuarioRepository = usuarioRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     // Crear un turno (solo deberia hacerlo un admin)
     public GenericResponse<CrearEditarTurnoResponse> crearTurno(CrearTurnoRequest request) {
+        return transactionTemplate.execute(status -> crear(request));
+    }
+
+    private GenericResponse<CrearEditarTurnoResponse> crear(CrearTurnoRequest request) {
         GenericResponse<CrearEditarTurnoResponse> responseWrapper = new GenericResponse<>();
 
-        // Añadir validaciones
+        // Validar el horario: fechas, duracion y que no se solape con otro turno del usuario
+        String error = validarHorario(request.getIdUsuario(), null, request.getHoraInicio(), request.getHoraFin());
+        if (error != null) {
+            responseWrapper.setError(new ErrorResponse(error));
+            return responseWrapper;
+        }
 
         // Crear el objeto turno desde el request
         Turno turno = turnoMapper.crearTurnoRequestToTurno(request);
@@ -54,6 +81,15 @@ public class TurnoService {
 
     // Modificar un turno
     public GenericResponse<CrearEditarTurnoResponse> modificarTurno(EditarTurnoRequest request) {
+        List<TurnosCambiadosEvent> eventos = new ArrayList<>();
+        GenericResponse<CrearEditarTurnoResponse> responseWrapper =
+                transactionTemplate.execute(status -> modificar(request, eventos));
+        // El cambio de estado se avisa cuando ya esta confirmado
+        eventos.forEach(eventPublisher::publishEvent);
+        return responseWrapper;
+    }
+
+    private GenericResponse<CrearEditarTurnoResponse> modificar(EditarTurnoRequest request, List<TurnosCambiadosEvent> eventos) {
         GenericResponse<CrearEditarTurnoResponse> responseWrapper = new GenericResponse<>();
 
         // Buscar el turno por ID
@@ -66,6 +102,18 @@ public class TurnoService {
 
         Turno turno = turnoOptional.get();
 
+        // Si cambia el horario, el nuevo no puede solaparse con otro turno del usuario
+        if (request.getHoraInicio() != null || request.getHoraFin() != null) {
+            Date inicio = request.getHoraInicio() != null ? request.getHoraInicio() : turno.getHoraInicio();
+            Date fin = request.getHoraFin() != null ? request.getHoraFin() : turno.getHoraFin();
+            String error = validarHorario(turno.getUsuario().getId(), turno.getId(), inicio, fin);
+            if (error != null) {
+                responseWrapper.setError(new ErrorResponse(error));
+                return responseWrapper;
+            }
+        }
+
+        EstadoTurno estadoAnterior = turno.getEstadoTurno();
         // Actualizar solo los campos enviados en la peticion de modificar
         if (request.getHoraInicio() != null) {
             turno.setHoraInicio(request.getHoraInicio());
@@ -85,6 +133,9 @@ public class TurnoService {
 
         // Guardamos los cambios en la base de datos
         Turno turnoActualizado = turnoRepository.save(turno);
+        if (turnoActualizado.getEstadoTurno() != estadoAnterior) {
+            eventos.add(new TurnosCambiadosEvent(List.of(turnoActualizado.getId()), turnoActualizado.getEstadoTurno()));
+        }
 
         // Mapeamos la respuesta y la devolvemos
         responseWrapper.setData(turnoMapper.turnoToCrearEditarTurnoResponse(turnoActualizado));
@@ -144,6 +195,76 @@ public class TurnoService {
         return wrapperResponse;
     }
 
+    // Turnos de un usuario en la vista de calendario (dia, semana o mes que contiene la fecha), paginados.
+    // Incluye los turnos que empiezan antes y terminan dentro del intervalo
+    public GenericResponse<Page<CrearEditarTurnoResponse>> listarTurnosCalendario(Long usuarioId, VistaCalendario vista,
+                                                                                  LocalDate fecha, Pageable pageable) {
+        LocalDate primerDia = switch (vista) {
+            case DIA -> fecha;
+            case SEMANA -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> fecha.withDayOfMonth(1);
+        };
+        LocalDate siguiente = switch (vista) {
+            case DIA -> primerDia.plusDays(1);
+            case SEMANA -> primerDia.plusWeeks(1);
+            case MES -> primerDia.plusMonths(1);
+        };
+        Date desde = inicioDelDia(primerDia);
+        Date hasta = inicioDelDia(siguiente);
+
+        Page<CrearEditarTurnoResponse> turnos = turnoRepository
+                .findTurnosEnIntervalo(usuarioId, inicioMinimo(desde), desde, hasta, pageable)
+                .map(turnoMapper::turnoToCrearEditarTurnoResponse);
+        var wrapperResponse = new GenericResponse<Page<CrearEditarTurnoResponse>>();
+        wrapperResponse.setData(turnos);
+        return wrapperResponse;
+    }
+
+    // Turnos activos que estan en curso ahora mismo, de todos los usuarios
+    public GenericResponse<Page<CrearEditarTurnoResponse>> listarTurnosEnCurso(Pageable pageable) {
+        Date ahora = new Date();
+        Page<CrearEditarTurnoResponse> turnos = turnoRepository
+                .findTurnosEnCurso(inicioMinimo(ahora), ahora, pageable)
+                .map(turnoMapper::turnoToCrearEditarTurnoResponse);
+        var wrapperResponse = new GenericResponse<Page<CrearEditarTurnoResponse>>();
+        wrapperResponse.setData(turnos);
+        return wrapperResponse;
+    }
+
+    // Comprueba el horario de un turno nuevo o editado. Devuelve el error o null si es valido.
+    // Se llama dentro de la transaccion que guarda el turno: antes de buscar solapes bloquea la fila del usuario
+    // (SELECT ... FOR UPDATE), asi dos altas o cambios a la vez del mismo usuario no pueden pasar los dos la
+    // comprobacion; el segundo espera y ya ve el turno del primero
+    private String validarHorario(Long usuarioId, Long turnoId, Date inicio, Date fin) {
+        if (usuarioId == null || inicio == null || fin == null) {
+            return "El usuario, la hora de inicio y la hora de fin son obligatorios";
+        }
+        if (!fin.after(inicio)) {
+            return "La hora de fin debe ser posterior a la de inicio";
+        }
+        if (fin.getTime() - inicio.getTime() > Turno.DURACION_MAXIMA_MS) {
+            return "Un turno no puede durar mas de 24 horas";
+        }
+        if (!usuarioRepository.bloquearUsuario(usuarioId)) {
+            return "Usuario no encontrado";
+        }
+        // Al crear no hay turno que excluir; los ids empiezan en 1
+        Long excluir = turnoId != null ? turnoId : 0L;
+        if (turnoRepository.existeSolape(usuarioId, excluir, inicioMinimo(inicio), inicio, fin)) {
+            return "El turno se solapa con otro turno del usuario";
+        }
+        return null;
+    }
+
+    // Limite inferior de hora_inicio para los turnos que pueden seguir en curso en un instante
+    private static Date inicioMinimo(Date instante) {
+        return new Date(instante.getTime() - Turno.DURACION_MAXIMA_MS);
+    }
+
+    private static Date inicioDelDia(LocalDate dia) {
+        return Date.from(dia.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
     // Borrar un turno (solo lo puede hacer un usuario admin)
     public GenericResponse<String> borrarTurno(Long idTurno, Long idUsuario) {
         GenericResponse<String> responseWrapper = new GenericResponse<>();
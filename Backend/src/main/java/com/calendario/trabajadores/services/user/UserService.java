@@ -9,15 +9,23 @@ import com.calendario.trabajadores.model.errorresponse.ErrorResponse;
 import com.calendario.trabajadores.model.errorresponse.GenericResponse;
 import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
+    //Usuarios por lote al recorrer la tabla entera (listados completos y exportacion)
+    private static final int TAMANO_LOTE = 500;
+
     // Inyección de dependencias
     private final IUsuarioRepository userRepository;
     private final IUserMapper userMapper;
@@ -209,49 +217,39 @@ public class UserService {
         return wrapperResponse;
     }
 
+    //Listar usuarios con sus viajes. Los usuarios se leen por lotes con sus viajes en la misma consulta
+    //(antes era una consulta por usuario al recorrer usuario.getViajes())
     public GenericResponse<List<UsuarioResponse>> listar(Optional<Boolean> activo) {
-        List<Usuario> lista;
-        List<UsuarioResponse> listaResponse;
+        List<UsuarioResponse> listaResponse = new ArrayList<>();
+        recorrerPorLotes(activo.orElse(null), usuario -> listaResponse.add(toUsuarioResponse(usuario)));
 
-        // Si no se pasa el parámetro activo, devolvemos todos los usuarios
-        if (activo.isEmpty()) {
-            lista = userRepository.findAll();
+        var wrapperResponse = new GenericResponse<List<UsuarioResponse>>();
+        if (listaResponse.isEmpty()) {
+            wrapperResponse.setError(new ErrorResponse("No se encontraron usuarios"));
         } else {
-            // Si se pasa el parámetro activo, devolvemos los usuarios activos o inactivos
-            lista = userRepository.findByActivo(activo.get());
+            wrapperResponse.setData(listaResponse);
         }
+        return wrapperResponse;
+    }
 
-        var wrapperResponse = new GenericResponse<List<UsuarioResponse>>();
+    //Listar una pagina de usuarios con sus viajes: una consulta para los ids de la pagina y otra
+    //para los usuarios con sus viajes (mas el COUNT del total)
+    public GenericResponse<Page<UsuarioResponse>> listar(Optional<Boolean> activo, Pageable pageable) {
+        Page<Long> ids = userRepository.findIdsByActivo(activo.orElse(null), pageable);
+        List<UsuarioResponse> contenido = cargarConViajes(ids.getContent()).stream()
+                .map(this::toUsuarioResponse)
+                .collect(Collectors.toList());
 
-        if (lista.isEmpty()) {
+        var wrapperResponse = new GenericResponse<Page<UsuarioResponse>>();
+        if (ids.getTotalElements() == 0) {
             wrapperResponse.setError(new ErrorResponse("No se encontraron usuarios"));
         } else {
-            // Mapeamos los usuarios a UsuarioResponse
-            listaResponse = lista.stream()
-                    .map(usuario -> {
-                        // Mapeo del usuario
-                        UsuarioResponse usuarioResponse = userMapper.userToCreateEditResponse(usuario);
-
-                        // Mapeo de los viajes del usuario a ViajeDTO
-                        List<ViajeDTO> viajesDTO = usuario.getViajes().stream()
-                                .map(viaje -> viajeMapper.viajeToViajeDTO(viaje)) // Aquí usamos el mapeo correcto
-                                .collect(Collectors.toList());
-
-                        // Asignamos los viajes al usuario
-                        usuarioResponse.setViajes(viajesDTO);
-
-                        return usuarioResponse;
-                    })
-                    .collect(Collectors.toList());
-
-            wrapperResponse.setData(listaResponse);
+            wrapperResponse.setData(new PageImpl<>(contenido, pageable, ids.getTotalElements()));
         }
-
         return wrapperResponse;
     }
 
 
-
 //Antiguo metodo listar *J*
 //En lugar de tener varios metodos para encontrar según los parametros que tenga, creamos un método que
 //sea capaz de devolvernos una lista de usuarios según los parametros que le pasemos
@@ -300,36 +298,24 @@ public class UserService {
         return wrapperResponse;
     }
 
-    //listar los viajes de un usuario: *F*
-    public GenericResponse<List<UsuarioViajeResponse>> listarUsuariosViajes(Boolean activo) {
-        List<UsuarioViajeResponse> lista = new ArrayList<>();
-
-        // Recuperamos los usuarios con viajes (según si están activos o no)
-        List<Usuario> usuarios;
-        if (activo == null) {
-            // Si no se pasa el parámetro activo, obtenemos todos los usuarios
-            usuarios = userRepository.findAll();
+    //Una pagina de usuarios con sus vehiculos: los usuarios con id mayor que despuesDeId, como mucho limite.
+    //Para la siguiente pagina se pasa el id del ultimo usuario devuelto
+    public GenericResponse<List<UsuarioVehiculosResponse>> listarUsuariosVehiculos(Optional<Boolean> activo,
+                                                                                   long despuesDeId, int limite) {
+        var lista = userRepository.findUsuariosVehiculos(activo.orElse(null), despuesDeId, limite);
+        var wrapperResponse = new GenericResponse<List<UsuarioVehiculosResponse>>();
+        if (lista.isEmpty()) {
+            wrapperResponse.setError(new ErrorResponse("No se encontraron usuarios"));
         } else {
-            // Si se pasa el parámetro activo, filtramos según el estado
-            usuarios = userRepository.findByActivo(activo);
+            wrapperResponse.setData(lista);
         }
+        return wrapperResponse;
+    }
 
-        // Recorremos cada usuario y mapeamos los datos a DTO
-        for (Usuario usuario : usuarios) {
-            // Usamos el mapeador para convertir el usuario a UsuarioViajeResponse
-            UsuarioViajeResponse usuarioViajeResponse = userMapper.userToUsuarioViajeResponse(usuario);
-
-            // Mapeamos los viajes del usuario a ViajeDTO
-            List<ViajeDTO> viajesDTO = usuario.getViajes().stream()
-                    .map(viaje -> viajeMapper.viajeToViajeDTO(viaje))  // Mapeamos cada viaje a ViajeDTO
-                    .collect(Collectors.toList());
-
-            // Asignamos la lista de viajes al UsuarioViajeResponse
-            usuarioViajeResponse.setViajes(viajesDTO);
-
-            // Añadimos el usuarioViajeResponse a la lista final
-            lista.add(usuarioViajeResponse);
-        }
+    //listar los viajes de un usuario: *F*
+    public GenericResponse<List<UsuarioViajeResponse>> listarUsuariosViajes(Boolean activo) {
+        List<UsuarioViajeResponse> lista = new ArrayList<>();
+        recorrerUsuariosViajes(activo, lista::add);
 
         // Creamos la respuesta genérica con los datos mapeados
         var wrapperResponse = new GenericResponse<List<UsuarioViajeResponse>>();
@@ -344,6 +330,55 @@ public class UserService {
         return wrapperResponse;
     }
 
+    //Entrega los usuarios con sus viajes de uno en uno, lote a lote, para serializarlos segun se leen
+    //(exportacion en streaming). El contexto de persistencia se vacia tras cada lote y la memoria no crece
+    //con el numero de usuarios
+    public void recorrerUsuariosViajes(Boolean activo, Consumer<UsuarioViajeResponse> consumidor) {
+        recorrerPorLotes(activo, usuario -> consumidor.accept(toUsuarioViajeResponse(usuario)));
+    }
+
+    //Recorre los usuarios en orden de id: por cada lote, una consulta de ids (por clave, sin OFFSET)
+    //y otra que trae esos usuarios con sus viajes. Con open-in-view el EntityManager de la peticion sigue
+    //abierto en el hilo del streaming, asi que se vacia tras cada lote para que no acumule toda la tabla
+    private void recorrerPorLotes(Boolean activo, Consumer<Usuario> consumidor) {
+        long ultimoId = 0;
+        while (true) {
+            List<Long> ids = userRepository.findIdsDespuesDe(ultimoId, activo, PageRequest.of(0, TAMANO_LOTE));
+            if (ids.isEmpty()) {
+                return;
+            }
+            cargarConViajes(ids).forEach(consumidor);
+            userRepository.vaciarContexto();
+            if (ids.size() < TAMANO_LOTE) {
+                return;
+            }
+            ultimoId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private List<Usuario> cargarConViajes(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : userRepository.findConViajesByIdIn(ids);
+    }
+
+    private UsuarioResponse toUsuarioResponse(Usuario usuario) {
+        UsuarioResponse usuarioResponse = userMapper.userToCreateEditResponse(usuario);
+        usuarioResponse.setViajes(toViajesDTO(usuario));
+        return usuarioResponse;
+    }
+
+    private UsuarioViajeResponse toUsuarioViajeResponse(Usuario usuario) {
+        UsuarioViajeResponse usuarioViajeResponse = userMapper.userToUsuarioViajeResponse(usuario);
+        usuarioViajeResponse.setViajes(toViajesDTO(usuario));
+        return usuarioViajeResponse;
+    }
+
+    // Los viajes ya vienen cargados por el JOIN FETCH; el id del vehiculo sale del proxy sin consultar
+    private List<ViajeDTO> toViajesDTO(Usuario usuario) {
+        return usuario.getViajes().stream()
+                .map(viajeMapper::viajeToViajeDTO)
+                .collect(Collectors.toList());
+    }
+
     //Metodo para borrar un usuario (IMPORTANTE: los usuarios no deben usar este. Riesgo de borrado de la base de datos)
     public GenericResponse<UsuarioResponse> borrar(Long id, String email) {
         var usuario = userRepository.findById(id);
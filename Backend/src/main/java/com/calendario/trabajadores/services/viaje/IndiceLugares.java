@@ -0,0 +1,109 @@
+package com.calendario.trabajadores.services.viaje;
+
+import com.calendario.trabajadores.model.common.ClaveLugar;
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+//Indice en memoria de origenes y destinos para autocompletar: se carga al arrancar y se actualiza
+//al crear o editar un viaje, sin volver a consultar la base de datos
+@Component
+public class IndiceLugares {
+
+    private final IViajeRepository viajeRepository;
+    private final IndicePrefijos origenes = new IndicePrefijos();
+    private final IndicePrefijos destinos = new IndicePrefijos();
+
+    public IndiceLugares(IViajeRepository viajeRepository) {
+        this.viajeRepository = viajeRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        //Los viajes guardados antes de existir las claves y la salida no saldrian en la busqueda
+        viajeRepository.rellenarCamposCalculados();
+        origenes.cargar(viajeRepository.contarOrigenes());
+        destinos.cargar(viajeRepository.contarDestinos());
+    }
+
+    //Origenes que empiezan por el prefijo, los de mas viajes primero
+    public List<String> sugerirOrigenes(String prefijo, int limite) {
+        return origenes.sugerir(prefijo, limite);
+    }
+
+    //Destinos que empiezan por el prefijo, los de mas viajes primero
+    public List<String> sugerirDestinos(String prefijo, int limite) {
+        return destinos.sugerir(prefijo, limite);
+    }
+
+    //Viaje creado
+    public void registrarViaje(String origen, String destino) {
+        origenes.sumar(origen, 1);
+        destinos.sumar(destino, 1);
+    }
+
+    //Viaje editado: se quita el origen/destino anterior y se anade el nuevo
+    public void actualizarViaje(String origenAnterior, String destinoAnterior, String origen, String destino) {
+        if (!Objects.equals(origenAnterior, origen)) {
+            origenes.sumar(origenAnterior, -1);
+            origenes.sumar(origen, 1);
+        }
+        if (!Objects.equals(destinoAnterior, destino)) {
+            destinos.sumar(destinoAnterior, -1);
+            destinos.sumar(destino, 1);
+        }
+    }
+
+    //Clave normalizada -> nombre a mostrar y numero de viajes. El mapa esta ordenado por clave,
+    //asi que los lugares con un prefijo son un rango contiguo
+    static class IndicePrefijos {
+
+        private record Lugar(String nombre, long viajes) {
+        }
+
+        private final ConcurrentSkipListMap<String, Lugar> lugares = new ConcurrentSkipListMap<>();
+
+        void cargar(List<Object[]> filas) {
+            lugares.clear();
+            for (Object[] fila : filas) {
+                sumar((String) fila[0], (Long) fila[1]);
+            }
+        }
+
+        void sumar(String nombre, long viajes) {
+            String clave = ClaveLugar.normalizar(nombre);
+            if (clave == null || clave.isEmpty()) {
+                return;
+            }
+            //compute es atomico por clave; con 0 viajes el lugar desaparece del indice
+            lugares.compute(clave, (c, lugar) -> {
+                long total = (lugar == null ? 0 : lugar.viajes()) + viajes;
+                if (total <= 0) {
+                    return null;
+                }
+                return new Lugar(lugar == null ? nombre.trim() : lugar.nombre(), total);
+            });
+        }
+
+        List<String> sugerir(String prefijo, int limite) {
+            String clave = ClaveLugar.normalizar(prefijo);
+            if (clave == null || clave.isEmpty()) {
+                return List.of();
+            }
+            ConcurrentNavigableMap<String, Lugar> rango = lugares.subMap(clave, true, clave + Character.MAX_VALUE, false);
+            return rango.values().stream()
+                    .sorted(Comparator.comparingLong(Lugar::viajes).reversed().thenComparing(Lugar::nombre))
+                    .limit(limite)
+                    .map(Lugar::nombre)
+                    .collect(Collectors.toList());
+        }
+    }
+}
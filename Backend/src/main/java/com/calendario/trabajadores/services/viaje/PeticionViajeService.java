@@ -0,0 +1,195 @@
+package com.calendario.trabajadores.services.viaje;
+
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
+import com.calendario.trabajadores.model.database.EstadoViaje;
+import com.calendario.trabajadores.model.database.PeticionViaje;
+import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.model.dto.viaje.PeticionViajeResponse;
+import com.calendario.trabajadores.model.dto.viaje.ProcesarPeticionesRequest;
+import com.calendario.trabajadores.model.dto.viaje.ProcesarPeticionesResponse;
+import com.calendario.trabajadores.model.errorresponse.ErrorResponse;
+import com.calendario.trabajadores.model.errorresponse.GenericResponse;
+import com.calendario.trabajadores.repository.peticionviaje.IPeticionViajeRepository;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Peticiones de plaza en un viaje: el usuario pide plaza y el conductor la acepta o la rechaza.
+//Al aceptar se ocupa la plaza (UsuarioViaje + plazas - 1) en la misma transaccion, y cuando el viaje
+//se llena el resto de peticiones pendientes se rechazan de una vez
+@Service
+public class PeticionViajeService {
+
+    private static final Set<EstadoPeticionViaje> PETICION_ACTIVA =
+            Set.of(EstadoPeticionViaje.PENDIENTE, EstadoPeticionViaje.ACEPTADA);
+
+    private final IPeticionViajeRepository peticionRepository;
+    private final IViajeRepository viajeRepository;
+    private final IUsuarioRepository usuarioRepository;
+    //Cada aceptacion va en su propia transaccion, tambien dentro de un lote
+    private final TransactionTemplate transactionTemplate;
+
+    public PeticionViajeService(IPeticionViajeRepository peticionRepository, IViajeRepository viajeRepository,
+                                IUsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager) {
+        this.peticionRepository = peticionRepository;
+        this.viajeRepository = viajeRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //Pedir plaza en un viaje
+    public GenericResponse<PeticionViajeResponse> solicitarPlaza(Long idViaje, Long idUsuario) {
+        var wrapperResponse = new GenericResponse<PeticionViajeResponse>();
+        Optional<Viaje> viaje = viajeRepository.findById(idViaje);
+        if (viaje.isEmpty() || !usuarioRepository.existsById(idUsuario)) {
+            wrapperResponse.setError(new ErrorResponse("Viaje o usuario no encontrado"));
+            return wrapperResponse;
+        }
+        if (viaje.get().getEstado() != EstadoViaje.DISPONIBLE || viaje.get().getPlazas() <= 0) {
+            wrapperResponse.setError(new ErrorResponse("El viaje no esta disponible o no tiene plazas libres"));
+            return wrapperResponse;
+        }
+        if (idUsuario.equals(viaje.get().getConductor().getId())) {
+            wrapperResponse.setError(new ErrorResponse("El conductor no puede pedir plaza en su viaje"));
+            return wrapperResponse;
+        }
+        if (peticionRepository.existePeticion(idViaje, idUsuario, PETICION_ACTIVA)) {
+            wrapperResponse.setError(new ErrorResponse("El usuario ya tiene una peticion para este viaje"));
+            return wrapperResponse;
+        }
+        var peticion = new PeticionViaje();
+        peticion.setViaje(viajeRepository.getReferenceById(idViaje));
+        peticion.setUsuario(usuarioRepository.getReferenceById(idUsuario));
+        peticion.setEstado(EstadoPeticionViaje.PENDIENTE);
+        var guardada = peticionRepository.save(peticion);
+        wrapperResponse.setData(peticionRepository.findPeticion(guardada.getId()).orElseThrow());
+        return wrapperResponse;
+    }
+
+    //Peticiones de un viaje (estado vacio = todas)
+    public GenericResponse<List<PeticionViajeResponse>> listarPeticiones(Long idViaje, Optional<EstadoPeticionViaje> estado) {
+        var wrapperResponse = new GenericResponse<List<PeticionViajeResponse>>();
+        wrapperResponse.setData(peticionRepository.findPeticionesViaje(idViaje, estado.orElse(null)));
+        return wrapperResponse;
+    }
+
+    //Aceptar una peticion: ocupa la plaza o, si el viaje ya esta lleno, la rechaza
+    public GenericResponse<PeticionViajeResponse> aceptarPeticion(Long idConductor, Long idPeticion) {
+        var wrapperResponse = new GenericResponse<PeticionViajeResponse>();
+        String error = aceptar(idConductor, idPeticion);
+        if (error != null) {
+            wrapperResponse.setError(new ErrorResponse(error));
+            return wrapperResponse;
+        }
+        wrapperResponse.setData(peticionRepository.findPeticion(idPeticion).orElseThrow());
+        return wrapperResponse;
+    }
+
+    //Rechazar una peticion
+    public GenericResponse<PeticionViajeResponse> rechazarPeticion(Long idConductor, Long idPeticion) {
+        var wrapperResponse = new GenericResponse<PeticionViajeResponse>();
+        var resultado = rechazarPeticiones(new ProcesarPeticionesRequest(idConductor, List.of(idPeticion))).getData();
+        if (!resultado.getErrores().isEmpty()) {
+            wrapperResponse.setError(new ErrorResponse(resultado.getErrores().get(idPeticion)));
+            return wrapperResponse;
+        }
+        wrapperResponse.setData(peticionRepository.findPeticion(idPeticion).orElseThrow());
+        return wrapperResponse;
+    }
+
+    //Aceptar varias peticiones en una llamada, en orden. Cada una se acepta o falla por separado
+    public GenericResponse<ProcesarPeticionesResponse> aceptarPeticiones(ProcesarPeticionesRequest request) {
+        var resultado = new ProcesarPeticionesResponse();
+        for (Long idPeticion : new LinkedHashSet<>(request.getPeticiones())) {
+            String error = aceptar(request.getIdConductor(), idPeticion);
+            if (error == null) {
+                resultado.getAceptadas().add(idPeticion);
+            } else {
+                resultado.getErrores().put(idPeticion, error);
+            }
+        }
+        var wrapperResponse = new GenericResponse<ProcesarPeticionesResponse>();
+        wrapperResponse.setData(resultado);
+        return wrapperResponse;
+    }
+
+    //Rechazar varias peticiones con un unico UPDATE
+    public GenericResponse<ProcesarPeticionesResponse> rechazarPeticiones(ProcesarPeticionesRequest request) {
+        var resultado = new ProcesarPeticionesResponse();
+        Set<Long> ids = new LinkedHashSet<>(request.getPeticiones());
+        var peticiones = ids.isEmpty() ? Map.<Long, PeticionViajeResponse>of()
+                : peticionRepository.findPeticiones(ids).stream()
+                .collect(Collectors.toMap(PeticionViajeResponse::getId, p -> p));
+        Set<Long> pendientes = new LinkedHashSet<>();
+        for (Long id : ids) {
+            PeticionViajeResponse peticion = peticiones.get(id);
+            if (peticion == null) {
+                resultado.getErrores().put(id, "Peticion no encontrada");
+            } else if (!peticion.getConductorId().equals(request.getIdConductor())) {
+                resultado.getErrores().put(id, "La peticion no es de un viaje del conductor");
+            } else if (peticion.getEstado() != EstadoPeticionViaje.PENDIENTE) {
+                resultado.getErrores().put(id, "La peticion ya no estaba pendiente");
+            } else {
+                pendientes.add(id);
+            }
+        }
+        if (!pendientes.isEmpty()) {
+            peticionRepository.rechazarPeticiones(request.getIdConductor(), pendientes);
+            //Alguna se ha podido aceptar entre la lectura y el UPDATE: se comprueba el estado final
+            for (PeticionViajeResponse peticion : peticionRepository.findPeticiones(pendientes)) {
+                if (peticion.getEstado() == EstadoPeticionViaje.RECHAZADA) {
+                    resultado.getRechazadas().add(peticion.getId());
+                } else {
+                    resultado.getErrores().put(peticion.getId(), "La peticion ya no estaba pendiente");
+                }
+            }
+        }
+        var wrapperResponse = new GenericResponse<ProcesarPeticionesResponse>();
+        wrapperResponse.setData(resultado);
+        return wrapperResponse;
+    }
+
+    //Acepta una peticion en su propia transaccion. Devuelve el motivo si no se ha podido, o null
+    private String aceptar(Long idConductor, Long idPeticion) {
+        Optional<PeticionViajeResponse> encontrada = peticionRepository.findPeticion(idPeticion);
+        if (encontrada.isEmpty()) {
+            return "Peticion no encontrada";
+        }
+        PeticionViajeResponse peticion = encontrada.get();
+        if (!peticion.getConductorId().equals(idConductor)) {
+            return "La peticion no es de un viaje del conductor";
+        }
+        if (peticion.getEstado() != EstadoPeticionViaje.PENDIENTE) {
+            return "La peticion ya no estaba pendiente";
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                //Primero la plaza: el UPDATE condicionado de plazas bloquea la fila del viaje
+                if (!viajeRepository.agregarUsuarioViaje(peticion.getViajeId(), peticion.getUsuarioId())) {
+                    peticionRepository.resolverPeticion(idPeticion, EstadoPeticionViaje.RECHAZADA);
+                    return "El viaje ya no tiene plazas libres, no esta disponible o el usuario ya va en el; peticion rechazada";
+                }
+                //Otra llamada ha resuelto la peticion mientras tanto: se devuelve la plaza
+                if (!peticionRepository.resolverPeticion(idPeticion, EstadoPeticionViaje.ACEPTADA)) {
+                    status.setRollbackOnly();
+                    return "La peticion ya no estaba pendiente";
+                }
+                peticionRepository.rechazarPendientesSiCompleto(peticion.getViajeId());
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            //El usuario ya va en el viaje (restriccion unica de usuario_viaje)
+            return "El usuario ya va en este viaje";
+        }
+    }
+}
@@ -1,24 +1,33 @@
 package com.calendario.trabajadores.services.viaje;
 
 import com.calendario.trabajadores.mappings.IViajeMapper;
+import com.calendario.trabajadores.model.common.ClaveLugar;
 import com.calendario.trabajadores.model.database.EstadoViaje;
 import com.calendario.trabajadores.model.database.Usuario;
 import com.calendario.trabajadores.model.database.Vehiculo;
 import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.model.dto.viaje.BuscarViajesRequest;
+import com.calendario.trabajadores.model.dto.viaje.BuscarViajesResponse;
 import com.calendario.trabajadores.model.dto.viaje.CrearEditarViajeResponse;
 import com.calendario.trabajadores.model.dto.viaje.CrearViajeRequest;
 import com.calendario.trabajadores.model.dto.viaje.EditarViajeRequest;
+import com.calendario.trabajadores.model.dto.viaje.ViajeDTO;
 import com.calendario.trabajadores.model.dto.viaje.ViajeResponse;
+import com.calendario.trabajadores.model.dto.viaje.ViajeResumenDTO;
 import com.calendario.trabajadores.model.errorresponse.GenericResponse;
 import com.calendario.trabajadores.model.errorresponse.ErrorResponse;
 import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
 import com.calendario.trabajadores.repository.vehiculo.IVehiculoRepository;
 import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import com.calendario.trabajadores.services.estado.ViajesCambiadosEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.stream.Collectors;
 
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,14 +38,22 @@ public class ViajeService {
     private final IUsuarioRepository usuarioRepository;
     private final IVehiculoRepository vehiculoRepository;
     private final IViajeMapper viajeMapper;
+    private final IndiceLugares indiceLugares;
+    private final ApplicationEventPublisher eventPublisher;
+
+    //Tamaño de pagina de la busqueda de viajes (por defecto y maximo)
+    private static final int TAMANO_BUSQUEDA = 20;
+    private static final int TAMANO_BUSQUEDA_MAXIMO = 100;
 
     //Constructor de ViajeService
 
-    public ViajeService(IViajeRepository viajeRepository, IUsuarioRepository usuarioRepository, IVehiculoRepository vehiculoRepository, IViajeMapper viajeMapper) {
+    public ViajeService(IViajeRepository viajeRepository, IUsuarioRepository usuarioRepository, IVehiculoRepository vehiculoRepository, IViajeMapper viajeMapper, IndiceLugares indiceLugares, ApplicationEventPublisher eventPublisher) {
         this.viajeRepository = viajeRepository;
         this.usuarioRepository = usuarioRepository;
         this.vehiculoRepository = vehiculoRepository;
         this.viajeMapper = viajeMapper;
+        this.indiceLugares = indiceLugares;
+        this.eventPublisher = eventPublisher;
     }
 
     //Crear un viaje *F*
@@ -60,9 +77,14 @@ public class ViajeService {
 
         // Creamos el nuevo viaje con los datos del request y los objetos obtenidos
         var nuevoViaje = viajeMapper.crearViajeRequestToViaje(request);
+        // El request no trae estado: un viaje nuevo esta disponible para pedir plaza
+        if (nuevoViaje.getEstado() == null) {
+            nuevoViaje.setEstado(EstadoViaje.DISPONIBLE);
+        }
 
         // Guardamos el viaje en la base de datos
         Viaje viajeGuardado = viajeRepository.save(nuevoViaje);
+        indiceLugares.registrarViaje(viajeGuardado.getOrigen(), viajeGuardado.getDestino());
 
         // Mapeamos el viaje guardado a la respuesta
         CrearEditarViajeResponse response = viajeMapper.viajeToCrearEditarViajeResponse(viajeGuardado);
@@ -136,6 +158,7 @@ public class ViajeService {
 
         // Guardamos los cambios
         Viaje viajeActualizado = viajeRepository.save(viajeModel);
+        eventPublisher.publishEvent(new ViajesCambiadosEvent(List.of(idViaje), siguienteEstado));
 
         // Mapeamos el viaje actualizado a un DTO de respuesta usando el mapper
         CrearEditarViajeResponse viajeResponse = viajeMapper.viajeToCrearEditarViajeResponse(viajeActualizado);
@@ -163,6 +186,10 @@ public class ViajeService {
             return Optional.empty();  // No se puede editar el viaje
         }
 
+        // Origen y destino antes de editar, para actualizar el indice de autocompletado
+        String origenAnterior = viaje.getOrigen();
+        String destinoAnterior = viaje.getDestino();
+
         // Actualizar solo los campos que no son nulos en el DTO
         if (param.getIdConductor() != null) {
             viaje.getConductor().setId(param.getIdConductor());
@@ -188,6 +215,8 @@ public class ViajeService {
 
         // Guardamos los cambios en la base de datos
         Viaje viajeActualizado = viajeRepository.save(viaje);
+        indiceLugares.actualizarViaje(origenAnterior, destinoAnterior,
+                viajeActualizado.getOrigen(), viajeActualizado.getDestino());
 
         // Usamos el Mapper para convertir el viaje actualizado a un DTO de respuesta
         CrearEditarViajeResponse respuesta = viajeMapper.viajeToCrearEditarViajeResponse(viajeActualizado);
@@ -273,4 +302,113 @@ private <T> void actualizarCampo(Consumer<T> setter, T value) {
         var respuesta = viajeMapper.viajeToViajeResponse(viajeTemp);
         return Optional.of(respuesta);
     }
+
+    //Buscar viajes disponibles de un origen a un destino con salida en una ventana de tiempo.
+    //Paginado por clave: la respuesta trae el cursor (fecha e id del ultimo viaje) para la siguiente pagina
+    public GenericResponse<BuscarViajesResponse> buscarViajes(BuscarViajesRequest request) {
+        var wrapperResponse = new GenericResponse<BuscarViajesResponse>();
+        Date desde = request.getDesde() != null ? request.getDesde() : new Date();
+        if (request.getHasta() != null && request.getHasta().before(desde)) {
+            wrapperResponse.setError(new ErrorResponse("La fecha hasta es anterior a la fecha desde"));
+            return wrapperResponse;
+        }
+        int plazas = request.getPlazas() != null ? Math.max(request.getPlazas(), 1) : 1;
+        int size = request.getSize() != null
+                ? Math.min(Math.max(request.getSize(), 1), TAMANO_BUSQUEDA_MAXIMO)
+                : TAMANO_BUSQUEDA;
+        String origen = ClaveLugar.normalizar(request.getOrigen());
+        String destino = ClaveLugar.normalizar(request.getDestino());
+
+        // Se pide un viaje de mas para saber si hay otra pagina
+        List<ViajeDTO> viajes = viajeRepository.buscarViajes(
+                origen == null || origen.isEmpty() ? null : origen,
+                destino == null || destino.isEmpty() ? null : destino,
+                desde, request.getHasta(), plazas, request.getDespuesDeFecha(), request.getDespuesDeId(), size + 1);
+
+        var response = new BuscarViajesResponse();
+        if (viajes.size() > size) {
+            viajes = viajes.subList(0, size);
+            ViajeDTO ultimo = viajes.get(size - 1);
+            //El cursor es la salida (dia de fecha y hora de hora), que es por lo que se ordena
+            response.setSiguienteFecha(Viaje.calcularSalida(ultimo.getFecha(), ultimo.getHora()));
+            response.setSiguienteId(ultimo.getId());
+        }
+        response.setViajes(viajes);
+        wrapperResponse.setData(response);
+        return wrapperResponse;
+    }
+
+    //Autocompletar origenes y destinos con el indice en memoria
+    public List<String> sugerirOrigenes(String prefijo, int limite) {
+        return indiceLugares.sugerirOrigenes(prefijo, Math.min(Math.max(limite, 1), TAMANO_BUSQUEDA_MAXIMO));
+    }
+
+    public List<String> sugerirDestinos(String prefijo, int limite) {
+        return indiceLugares.sugerirDestinos(prefijo, Math.min(Math.max(limite, 1), TAMANO_BUSQUEDA_MAXIMO));
+    }
+
+    //Panel del conductor: sus viajes con vehiculo y numero de pasajeros
+    public GenericResponse<List<ViajeResumenDTO>> mostrarViajesConductor(Long idUsuario) {
+        var wrapperResponse = new GenericResponse<List<ViajeResumenDTO>>();
+        wrapperResponse.setData(viajeRepository.mostrarViajesConductor(idUsuario));
+        return wrapperResponse;
+    }
+
+    //Panel del pasajero: los viajes en los que va el usuario
+    public GenericResponse<List<ViajeResumenDTO>> mostrarMisViajes(Long idUsuario) {
+        var wrapperResponse = new GenericResponse<List<ViajeResumenDTO>>();
+        wrapperResponse.setData(viajeRepository.mostrarMisViajes(idUsuario));
+        return wrapperResponse;
+    }
+
+    //Cancelar un viaje disponible
+    public GenericResponse<Boolean> cancelarViaje(Long idViaje) {
+        var wrapperResponse = new GenericResponse<Boolean>();
+        if (!viajeRepository.cancelarViaje(idViaje)) {
+            wrapperResponse.setError(new ErrorResponse("Viaje no encontrado o no disponible"));
+            return wrapperResponse;
+        }
+        eventPublisher.publishEvent(new ViajesCambiadosEvent(List.of(idViaje), EstadoViaje.CANCELADO));
+        wrapperResponse.setData(true);
+        return wrapperResponse;
+    }
+
+    //Apuntar un pasajero a un viaje, ocupando una plaza
+    public GenericResponse<Boolean> agregarPasajero(Long idViaje, Long idUsuario) {
+        var wrapperResponse = new GenericResponse<Boolean>();
+        Optional<Viaje> viaje = viajeRepository.findById(idViaje);
+        if (viaje.isEmpty() || !usuarioRepository.existsById(idUsuario)) {
+            wrapperResponse.setError(new ErrorResponse("Viaje o usuario no encontrado"));
+            return wrapperResponse;
+        }
+        if (idUsuario.equals(viaje.get().getConductor().getId())) {
+            wrapperResponse.setError(new ErrorResponse("El conductor no puede ser pasajero de su viaje"));
+            return wrapperResponse;
+        }
+        boolean agregado;
+        try {
+            agregado = viajeRepository.agregarUsuarioViaje(idViaje, idUsuario);
+        } catch (DataIntegrityViolationException e) {
+            //Otra peticion del mismo usuario lo apunto a la vez: la restriccion unica de usuario_viaje
+            //rechaza el segundo INSERT y la transaccion del repositorio ya ha devuelto la plaza
+            agregado = false;
+        }
+        if (!agregado) {
+            wrapperResponse.setError(new ErrorResponse("El viaje no tiene plazas libres, no esta disponible o el usuario ya va en el"));
+            return wrapperResponse;
+        }
+        wrapperResponse.setData(true);
+        return wrapperResponse;
+    }
+
+    //Quitar un pasajero de un viaje, liberando su plaza
+    public GenericResponse<Boolean> eliminarPasajero(Long idViaje, Long idUsuario) {
+        var wrapperResponse = new GenericResponse<Boolean>();
+        if (!viajeRepository.eliminarUsuarioViaje(idViaje, idUsuario)) {
+            wrapperResponse.setError(new ErrorResponse("El usuario no va en este viaje"));
+            return wrapperResponse;
+        }
+        wrapperResponse.setData(true);
+        return wrapperResponse;
+    }
 }
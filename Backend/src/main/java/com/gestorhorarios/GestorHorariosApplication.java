@@ -5,12 +5,28 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.gestorhorarios.config.JwtProperties;
+import com.gestorhorarios.config.CalendarioIcsProperties;
+import com.gestorhorarios.config.CoberturaProperties;
 import com.gestorhorarios.config.CorsProperties;
+import com.gestorhorarios.config.DataSourceRoutingProperties;
+import com.gestorhorarios.config.ExportacionProperties;
+import com.gestorhorarios.config.GeneradorRotaProperties;
+import com.gestorhorarios.config.HorarioArchivoProperties;
+import com.gestorhorarios.config.HorasMensualesProperties;
+import com.gestorhorarios.config.LoggingProperties;
+import com.gestorhorarios.config.MonitoringProperties;
+import com.gestorhorarios.config.ReglasLaboralesProperties;
+import com.gestorhorarios.config.SyntheticDataProperties;
 import javax.sql.DataSource;
 
 @SpringBootApplication
-@EnableConfigurationProperties({JwtProperties.class, CorsProperties.class})
+@EnableConfigurationProperties({JwtProperties.class, CorsProperties.class, LoggingProperties.class, MonitoringProperties.class,
+        DataSourceRoutingProperties.class, HorarioArchivoProperties.class, SyntheticDataProperties.class,
+        ReglasLaboralesProperties.class, GeneradorRotaProperties.class, CoberturaProperties.class,
+        HorasMensualesProperties.class, ExportacionProperties.class, CalendarioIcsProperties.class})
+@EnableScheduling
 public class GestorHorariosApplication {
     public static void main(String[] args) {
         SpringApplication.run(GestorHorariosApplication.class, args);
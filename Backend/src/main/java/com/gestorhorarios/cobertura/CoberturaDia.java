@@ -0,0 +1,13 @@
+package com.gestorhorarios.cobertura;
+
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Personas de cada rol en cada tipo de turno de un día (solo las combinaciones con alguien)
+ */
+public record CoberturaDia(LocalDate fecha, Map<Horario.TipoTurno, Map<Role, Integer>> turnos) {
+}
@@ -0,0 +1,183 @@
+package com.gestorhorarios.cobertura;
+
+import com.gestorhorarios.config.CoberturaProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mapa de cobertura: cuántas personas de cada rol hay en cada tipo de turno por día, contando
+ * los horarios guardados y los días de las plantillas de rota.
+ *
+ * Los días se guardan en memoria ya contados. Los que faltan de un periodo se cuentan con una
+ * sola consulta agrupada por (fecha, tipo de turno, rol); después cada alta, cambio o borrado de
+ * un horario en esta instancia suma o resta en su día al confirmarse la transacción, sin volver a
+ * consultar. Los cambios hechos desde otras instancias se ven cuando el día caduca.
+ *
+ * Un recuento que coincide con una transacción que está confirmando cambios no se guarda (podría
+ * contar dos veces el mismo horario o ninguna): se devuelve y el siguiente lo vuelve a leer.
+ */
+@Service
+public class CoberturaService {
+
+    private final HorarioRepository horarioRepository;
+    private final ExpansionRota expansionRota;
+    private final CoberturaProperties properties;
+    private final Cache<LocalDate, ConteoDia> dias;
+    // Transacciones con cambios entre beforeCommit y su fin, y cambios terminados
+    private final AtomicInteger confirmando = new AtomicInteger();
+    private final AtomicLong cambios = new AtomicLong();
+
+    public CoberturaService(HorarioRepository horarioRepository, ExpansionRota expansionRota,
+                            CoberturaProperties properties) {
+        this.horarioRepository = horarioRepository;
+        this.expansionRota = expansionRota;
+        this.properties = properties;
+        this.dias = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxDiasCacheados())
+                .expireAfterWrite(properties.getCaducidad())
+                .build();
+    }
+
+    /**
+     * Cobertura de los próximos días desde hoy (app.horarios.cobertura.dias-por-defecto)
+     */
+    public List<CoberturaDia> getCobertura() {
+        LocalDate hoy = LocalDate.now();
+        return getCobertura(hoy, hoy.plusDays(properties.getDiasPorDefecto() - 1L));
+    }
+
+    /**
+     * Cobertura de cada día de [desde, hasta], también de los días sin nadie
+     */
+    public List<CoberturaDia> getCobertura(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= properties.getMaxDias()) {
+            throw new IllegalArgumentException("El periodo no puede superar los " + properties.getMaxDias() + " días");
+        }
+
+        List<LocalDate> fechas = desde.datesUntil(hasta.plusDays(1)).toList();
+        Map<LocalDate, ConteoDia> conteos = new HashMap<>(dias.getAllPresent(fechas));
+        if (conteos.size() < fechas.size()) {
+            // Una sola consulta desde el primer día que falta hasta el último
+            LocalDate primero = null;
+            LocalDate ultimo = null;
+            for (LocalDate fecha : fechas) {
+                if (!conteos.containsKey(fecha)) {
+                    primero = primero == null ? fecha : primero;
+                    ultimo = fecha;
+                }
+            }
+            conteos.putAll(contar(primero, ultimo));
+        }
+
+        List<CoberturaDia> cobertura = new ArrayList<>(fechas.size());
+        for (LocalDate fecha : fechas) {
+            cobertura.add(conteos.get(fecha).toCobertura(fecha));
+        }
+        return cobertura;
+    }
+
+    /**
+     * Suma el horario en su día al confirmarse la transacción
+     */
+    public void sumar(TurnoCubierto turno) {
+        cambiar(turno, 1);
+    }
+
+    /**
+     * Resta el horario de su día al confirmarse la transacción
+     */
+    public void restar(TurnoCubierto turno) {
+        cambiar(turno, -1);
+    }
+
+    /**
+     * Descarta los días de [desde, hasta] al confirmarse la transacción (ha cambiado una
+     * plantilla de rota y afecta a muchos días); se vuelven a contar en la siguiente lectura
+     * @param hasta último día, o null si no tiene fin
+     */
+    public void olvidar(LocalDate desde, LocalDate hasta) {
+        alConfirmar(() -> dias.asMap().keySet().removeIf(fecha ->
+                !fecha.isBefore(desde) && (hasta == null || !fecha.isAfter(hasta))));
+    }
+
+    private void cambiar(TurnoCubierto turno, int cambio) {
+        if (turno == null) {
+            return;
+        }
+        alConfirmar(() -> dias.asMap().computeIfPresent(turno.fecha(),
+                (fecha, conteo) -> conteo.con(turno.tipoTurno(), turno.rol(), cambio)));
+    }
+
+    // Cuenta los días de [desde, hasta] y los guarda si ninguna transacción ha confirmado cambios mientras
+    private Map<LocalDate, ConteoDia> contar(LocalDate desde, LocalDate hasta) {
+        long cambiosAntes = cambios.get();
+        boolean estable = confirmando.get() == 0;
+
+        Map<LocalDate, ConteoDia> conteos = new HashMap<>();
+        desde.datesUntil(hasta.plusDays(1)).forEach(fecha -> conteos.put(fecha, ConteoDia.VACIO));
+        for (HorarioRepository.ConteoTurnos fila : horarioRepository.countPorFechaTipoYRol(desde, hasta)) {
+            conteos.compute(fila.getFecha(), (fecha, conteo) ->
+                    conteo.con(fila.getTipoTurno(), fila.getRol(), fila.getTotal().intValue()));
+        }
+        for (Horario horario : expansionRota.horariosPeriodo(desde, hasta)) {
+            TurnoCubierto turno = TurnoCubierto.de(horario);
+            if (turno != null) {
+                conteos.compute(turno.fecha(), (fecha, conteo) -> conteo.con(turno.tipoTurno(), turno.rol(), 1));
+            }
+        }
+
+        if (estable && confirmando.get() == 0 && cambios.get() == cambiosAntes) {
+            dias.putAll(conteos);
+        }
+        return conteos;
+    }
+
+    // Aplica la acción tras el commit. Mientras la transacción confirma, los recuentos no se guardan
+    private void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            cambios.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean contada;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                confirmando.incrementAndGet();
+                contada = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (contada) {
+                    cambios.incrementAndGet();
+                    confirmando.decrementAndGet();
+                }
+            }
+        });
+    }
+}
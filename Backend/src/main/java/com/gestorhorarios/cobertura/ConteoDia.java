@@ -0,0 +1,47 @@
+package com.gestorhorarios.cobertura;
+
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Contadores de un día por tipo de turno y rol. Es inmutable: cada cambio crea una copia, así
+ * que se puede leer desde la caché sin sincronizar.
+ */
+final class ConteoDia {
+
+    private static final Horario.TipoTurno[] TIPOS = Horario.TipoTurno.values();
+    private static final Role[] ROLES = Role.values();
+
+    static final ConteoDia VACIO = new ConteoDia(new int[TIPOS.length * ROLES.length]);
+
+    private final int[] personas;
+
+    private ConteoDia(int[] personas) {
+        this.personas = personas;
+    }
+
+    ConteoDia con(Horario.TipoTurno tipoTurno, Role rol, int cambio) {
+        int[] copia = personas.clone();
+        int posicion = tipoTurno.ordinal() * ROLES.length + rol.ordinal();
+        // Un cambio que llega antes que el recuento que lo incluye no puede dejarlo en negativo
+        copia[posicion] = Math.max(0, copia[posicion] + cambio);
+        return new ConteoDia(copia);
+    }
+
+    CoberturaDia toCobertura(LocalDate fecha) {
+        Map<Horario.TipoTurno, Map<Role, Integer>> turnos = new EnumMap<>(Horario.TipoTurno.class);
+        for (Horario.TipoTurno tipo : TIPOS) {
+            for (Role rol : ROLES) {
+                int total = personas[tipo.ordinal() * ROLES.length + rol.ordinal()];
+                if (total > 0) {
+                    turnos.computeIfAbsent(tipo, t -> new EnumMap<>(Role.class)).put(rol, total);
+                }
+            }
+        }
+        return new CoberturaDia(fecha, turnos);
+    }
+}
@@ -0,0 +1,22 @@
+package com.gestorhorarios.cobertura;
+
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+
+import java.time.LocalDate;
+
+/**
+ * Lo que cuenta el mapa de cobertura de un horario: día, tipo de turno y rol
+ */
+public record TurnoCubierto(LocalDate fecha, Horario.TipoTurno tipoTurno, Role rol) {
+
+    /**
+     * Clave de un horario, o null si no cuenta en el mapa (le falta la fecha, el tipo o el rol)
+     */
+    public static TurnoCubierto de(Horario horario) {
+        if (horario == null || horario.getFecha() == null || horario.getTipoTurno() == null || horario.getRol() == null) {
+            return null;
+        }
+        return new TurnoCubierto(horario.getFecha(), horario.getTipoTurno(), horario.getRol());
+    }
+}
@@ -0,0 +1,84 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+/**
+ * Propiedades de las suscripciones de calendario ICS de cada usuario (prefijo app.horarios.calendario).
+ */
+@ConfigurationProperties(prefix = "app.horarios.calendario")
+public class CalendarioIcsProperties {
+    // Días antes y después de hoy que incluye el feed (los anteriores a la retención del archivo no se ven)
+    private int diasAtras = 31;
+    private int diasAdelante = 120;
+    // Zona horaria de las horas de los horarios; en el feed se escriben en UTC
+    private ZoneId zona = ZoneId.of("Europe/Madrid");
+    // Frecuencia de actualización que se sugiere a las aplicaciones de calendario
+    private Duration refresco = Duration.ofHours(1);
+    // Feeds generados en memoria a la vez y tiempo sin consultas tras el que se descartan
+    private int maxFeedsCacheados = 10_000;
+    private Duration caducidad = Duration.ofHours(6);
+
+    // Getters and Setters
+    public int getDiasAtras() {
+        return diasAtras;
+    }
+
+    public void setDiasAtras(int diasAtras) {
+        this.diasAtras = diasAtras;
+    }
+
+    public int getDiasAdelante() {
+        return diasAdelante;
+    }
+
+    public void setDiasAdelante(int diasAdelante) {
+        this.diasAdelante = diasAdelante;
+    }
+
+    public ZoneId getZona() {
+        return zona;
+    }
+
+    public void setZona(ZoneId zona) {
+        this.zona = zona;
+    }
+
+    public Duration getRefresco() {
+        return refresco;
+    }
+
+    public void setRefresco(Duration refresco) {
+        this.refresco = refresco;
+    }
+
+    public int getMaxFeedsCacheados() {
+        return maxFeedsCacheados;
+    }
+
+    public void setMaxFeedsCacheados(int maxFeedsCacheados) {
+        this.maxFeedsCacheados = maxFeedsCacheados;
+    }
+
+    public Duration getCaducidad() {
+        return caducidad;
+    }
+
+    public void setCaducidad(Duration caducidad) {
+        this.caducidad = caducidad;
+    }
+
+    @Override
+    public String toString() {
+        return "CalendarioIcsProperties{" +
+                "diasAtras=" + diasAtras +
+                ", diasAdelante=" + diasAdelante +
+                ", zona=" + zona +
+                ", refresco=" + refresco +
+                ", maxFeedsCacheados=" + maxFeedsCacheados +
+                ", caducidad=" + caducidad +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del mapa de cobertura de turnos (prefijo app.horarios.cobertura).
+ */
+@ConfigurationProperties(prefix = "app.horarios.cobertura")
+public class CoberturaProperties {
+    // Días que se devuelven desde hoy si la petición no indica el periodo
+    private int diasPorDefecto = 60;
+    // Días como máximo en una petición
+    private int maxDias = 366;
+    // Días en memoria a la vez
+    private int maxDiasCacheados = 2_000;
+    // Tiempo tras el que se vuelve a contar un día (cambios hechos desde otras instancias)
+    private Duration caducidad = Duration.ofMinutes(10);
+
+    // Getters and Setters
+    public int getDiasPorDefecto() {
+        return diasPorDefecto;
+    }
+
+    public void setDiasPorDefecto(int diasPorDefecto) {
+        this.diasPorDefecto = diasPorDefecto;
+    }
+
+    public int getMaxDias() {
+        return maxDias;
+    }
+
+    public void setMaxDias(int maxDias) {
+        this.maxDias = maxDias;
+    }
+
+    public int getMaxDiasCacheados() {
+        return maxDiasCacheados;
+    }
+
+    public void setMaxDiasCacheados(int maxDiasCacheados) {
+        this.maxDiasCacheados = maxDiasCacheados;
+    }
+
+    public Duration getCaducidad() {
+        return caducidad;
+    }
+
+    public void setCaducidad(Duration caducidad) {
+        this.caducidad = caducidad;
+    }
+
+    @Override
+    public String toString() {
+        return "CoberturaProperties{" +
+                "diasPorDefecto=" + diasPorDefecto +
+                ", maxDias=" + maxDias +
+                ", maxDiasCacheados=" + maxDiasCacheados +
+                ", caducidad=" + caducidad +
+                '}';
+    }
+}
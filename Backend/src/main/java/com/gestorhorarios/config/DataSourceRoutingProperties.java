@@ -0,0 +1,102 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propiedades del enrutado de lecturas a réplicas (prefijo app.datasource.routing).
+ * La base de datos principal se sigue configurando con spring.datasource.*
+ */
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingProperties {
+    // Si es false se usa el DataSource único de Spring Boot
+    private boolean enabled = false;
+    // Tras una escritura, las lecturas del mismo usuario van a la principal durante estos segundos
+    private long readYourWritesSeconds = 5;
+    private List<Replica> replicas = new ArrayList<>();
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getReadYourWritesSeconds() {
+        return readYourWritesSeconds;
+    }
+
+    public void setReadYourWritesSeconds(long readYourWritesSeconds) {
+        this.readYourWritesSeconds = readYourWritesSeconds;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Replica{" +
+                    "url='" + url + '\'' +
+                    ", username='" + username + '\'' +
+                    ", password='[PROTECTED]'" +
+                    ", maximumPoolSize=" + maximumPoolSize +
+                    '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DataSourceRoutingProperties{" +
+                "enabled=" + enabled +
+                ", readYourWritesSeconds=" + readYourWritesSeconds +
+                ", replicas=" + replicas +
+                '}';
+    }
+}
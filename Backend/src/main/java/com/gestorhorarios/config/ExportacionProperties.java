@@ -0,0 +1,50 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Propiedades de la exportación de horarios a CSV y Excel (prefijo app.horarios.exportacion)
+ */
+@ConfigurationProperties(prefix = "app.horarios.exportacion")
+public class ExportacionProperties {
+    // Días como máximo en una exportación
+    private int maxDias = 366;
+    // Filas que pide cada vez el cursor (en MySQL las filas se reciben de una en una, ver ExportacionHorariosService)
+    private int fetchSize = 1_000;
+    // Filas de la hoja Excel que se mantienen en memoria; las anteriores se vuelcan a un fichero temporal
+    private int filasEnMemoria = 100;
+
+    // Getters and Setters
+    public int getMaxDias() {
+        return maxDias;
+    }
+
+    public void setMaxDias(int maxDias) {
+        this.maxDias = maxDias;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFilasEnMemoria() {
+        return filasEnMemoria;
+    }
+
+    public void setFilasEnMemoria(int filasEnMemoria) {
+        this.filasEnMemoria = filasEnMemoria;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportacionProperties{" +
+                "maxDias=" + maxDias +
+                ", fetchSize=" + fetchSize +
+                ", filasEnMemoria=" + filasEnMemoria +
+                '}';
+    }
+}
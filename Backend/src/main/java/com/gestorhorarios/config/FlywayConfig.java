@@ -1,31 +1,50 @@
 package com.gestorhorarios.config;
 
 import org.flywaydb.core.Flyway;
-import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
-// Flyway temporalmente deshabilitado
-// @Configuration
-// @Profile("!test") // Don't run this in tests
+/**
+ * El esquema base (hasta la versión 3) lo crea Hibernate con ddl-auto=update, así que las
+ * migraciones V2/V3 son anteriores a Flyway y nunca se han ejecutado con él. Si la base de datos
+ * no tiene historial se marca la línea base (spring.flyway.baseline-version) tanto si está vacía
+ * como si no, y a partir de ahí solo se aplican las migraciones nuevas.
+ *
+ * Las migraciones posteriores (tabla de archivo, índices...) se apoyan en las tablas que genera
+ * Hibernate, por eso se ejecutan después de crear el EntityManagerFactory y no antes como hace
+ * Spring Boot por defecto.
+ */
+@Configuration
 public class FlywayConfig {
-    
-    // @Bean
-    public Flyway flyway(DataSource dataSource) {
-        // Flyway deshabilitado temporalmente
-        return null;
-        /*
-        // First configure Flyway with clean disabled
-        Flyway flyway = Flyway.configure()
-            .dataSource(dataSource)
-            .baselineOnMigrate(true)
-            .outOfOrder(true)
-            .validateOnMigrate(false)
-            .cleanDisabled(true) // Keep clean disabled
-            .load();
-            
-        // Run migrations
-        flyway.migrate();
-        
-        return flyway;
-        */
+
+    private static final Logger logger = LoggerFactory.getLogger(FlywayConfig.class);
+
+    /**
+     * Sustituye la migración que Spring Boot lanza antes de JPA: se hace en {@link #flywayMigration}
+     */
+    @Bean
+    public FlywayMigrationStrategy deferredFlywayMigration() {
+        return flyway -> logger.debug("Migración de Flyway aplazada hasta después de inicializar JPA");
+    }
+
+    /**
+     * Se ejecuta cuando ya están creados todos los singletons, incluido el EntityManagerFactory
+     */
+    @Bean
+    public SmartInitializingSingleton flywayMigration(ObjectProvider<Flyway> flywayProvider) {
+        return () -> {
+            Flyway flyway = flywayProvider.getObject();
+            if (flyway.info().applied().length == 0) {
+                logger.info("Base de datos sin historial de Flyway: se marca la línea base {}",
+                        flyway.getConfiguration().getBaselineVersion());
+                flyway.baseline();
+            }
+            flyway.migrate();
+        };
     }
 }
@@ -0,0 +1,74 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del generador automático de rotas (prefijo app.horarios.generador).
+ */
+@ConfigurationProperties(prefix = "app.horarios.generador")
+public class GeneradorRotaProperties {
+    // Búsquedas en paralelo por generación (0 = una por núcleo)
+    private int hilos = 0;
+    // Tiempo de búsqueda si la petición no indica otro
+    private Duration tiempo = Duration.ofSeconds(20);
+    // Tiempo máximo que puede pedir una petición
+    private Duration tiempoMaximo = Duration.ofMinutes(2);
+    // Huecos (personas x turno x día) como máximo en una generación
+    private int maxHuecos = 5_000;
+    // Tiempo que se guarda en memoria un borrador sin confirmar
+    private Duration caducidad = Duration.ofHours(1);
+
+    // Getters and Setters
+    public int getHilos() {
+        return hilos;
+    }
+
+    public void setHilos(int hilos) {
+        this.hilos = hilos;
+    }
+
+    public Duration getTiempo() {
+        return tiempo;
+    }
+
+    public void setTiempo(Duration tiempo) {
+        this.tiempo = tiempo;
+    }
+
+    public Duration getTiempoMaximo() {
+        return tiempoMaximo;
+    }
+
+    public void setTiempoMaximo(Duration tiempoMaximo) {
+        this.tiempoMaximo = tiempoMaximo;
+    }
+
+    public int getMaxHuecos() {
+        return maxHuecos;
+    }
+
+    public void setMaxHuecos(int maxHuecos) {
+        this.maxHuecos = maxHuecos;
+    }
+
+    public Duration getCaducidad() {
+        return caducidad;
+    }
+
+    public void setCaducidad(Duration caducidad) {
+        this.caducidad = caducidad;
+    }
+
+    @Override
+    public String toString() {
+        return "GeneradorRotaProperties{" +
+                "hilos=" + hilos +
+                ", tiempo=" + tiempo +
+                ", tiempoMaximo=" + tiempoMaximo +
+                ", maxHuecos=" + maxHuecos +
+                ", caducidad=" + caducidad +
+                '}';
+    }
+}
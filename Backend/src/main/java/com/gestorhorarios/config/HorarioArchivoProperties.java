@@ -0,0 +1,61 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Propiedades del archivado de horarios antiguos (prefijo app.horarios.archivo)
+ */
+@ConfigurationProperties(prefix = "app.horarios.archivo")
+public class HorarioArchivoProperties {
+    // Si es false el job no mueve nada (las lecturas siguen consultando el archivo existente)
+    private boolean enabled = true;
+    // Meses completos anteriores al actual que se quedan en la tabla horarios
+    private int retentionMonths = 3;
+    // Filas movidas por transacción
+    private int batchSize = 1000;
+    // Expresión cron del job (por defecto de madrugada)
+    private String cron = "0 30 3 * * *";
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRetentionMonths() {
+        return retentionMonths;
+    }
+
+    public void setRetentionMonths(int retentionMonths) {
+        this.retentionMonths = retentionMonths;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+
+    @Override
+    public String toString() {
+        return "HorarioArchivoProperties{" +
+                "enabled=" + enabled +
+                ", retentionMonths=" + retentionMonths +
+                ", batchSize=" + batchSize +
+                ", cron='" + cron + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalTime;
+
+/**
+ * Propiedades del registro de horas trabajadas por usuario y mes (prefijo app.horarios.horas).
+ */
+@ConfigurationProperties(prefix = "app.horarios.horas")
+public class HorasMensualesProperties {
+    // Franja de trabajo nocturno; si el fin no es posterior al inicio termina al día siguiente
+    private LocalTime inicioNocturno = LocalTime.of(22, 0);
+    private LocalTime finNocturno = LocalTime.of(6, 0);
+    // Si es false no se reconstruye el registro ni de madrugada ni al arrancar con la tabla vacía
+    private boolean reconstruccionEnabled = true;
+    // Expresión cron de la reconstrucción programada (después del archivado de horarios)
+    private String cron = "0 0 4 * * *";
+    // Meses anteriores y posteriores al actual que se reconstruyen cada vez
+    private int mesesAtras = 1;
+    private int mesesAdelante = 2;
+    // Meses como máximo en una consulta o una reconstrucción pedida a mano
+    private int maxMeses = 36;
+
+    // Getters and Setters
+    public LocalTime getInicioNocturno() {
+        return inicioNocturno;
+    }
+
+    public void setInicioNocturno(LocalTime inicioNocturno) {
+        this.inicioNocturno = inicioNocturno;
+    }
+
+    public LocalTime getFinNocturno() {
+        return finNocturno;
+    }
+
+    public void setFinNocturno(LocalTime finNocturno) {
+        this.finNocturno = finNocturno;
+    }
+
+    public boolean isReconstruccionEnabled() {
+        return reconstruccionEnabled;
+    }
+
+    public void setReconstruccionEnabled(boolean reconstruccionEnabled) {
+        this.reconstruccionEnabled = reconstruccionEnabled;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+
+    public int getMesesAtras() {
+        return mesesAtras;
+    }
+
+    public void setMesesAtras(int mesesAtras) {
+        this.mesesAtras = mesesAtras;
+    }
+
+    public int getMesesAdelante() {
+        return mesesAdelante;
+    }
+
+    public void setMesesAdelante(int mesesAdelante) {
+        this.mesesAdelante = mesesAdelante;
+    }
+
+    public int getMaxMeses() {
+        return maxMeses;
+    }
+
+    public void setMaxMeses(int maxMeses) {
+        this.maxMeses = maxMeses;
+    }
+
+    @Override
+    public String toString() {
+        return "HorasMensualesProperties{" +
+                "inicioNocturno=" + inicioNocturno +
+                ", finNocturno=" + finNocturno +
+                ", reconstruccionEnabled=" + reconstruccionEnabled +
+                ", cron='" + cron + '\'' +
+                ", mesesAtras=" + mesesAtras +
+                ", mesesAdelante=" + mesesAdelante +
+                ", maxMeses=" + maxMeses +
+                '}';
+    }
+}
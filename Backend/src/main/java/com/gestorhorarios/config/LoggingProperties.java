@@ -0,0 +1,72 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Propiedades del subsistema de logging (prefijo app.logging)
+ */
+@ConfigurationProperties(prefix = "app.logging")
+public class LoggingProperties {
+    // Cabecera HTTP de la que se lee (y a la que se devuelve) el id de correlación
+    private String correlationHeader = "X-Correlation-Id";
+    // Máximo de eventos por segundo que puede emitir cada clave limitada
+    private int rateLimitPerSecond = 20;
+    // Las consultas que tarden al menos este tiempo se registran siempre (WARN)
+    private long sqlSlowThresholdMs = 250;
+    // Fracción de peticiones (0.0 - 1.0) cuyas consultas se registran todas (INFO)
+    private double sqlSampleRate = 0.0;
+    // Emitir una línea de resumen con el número y tiempo de consultas de cada petición
+    private boolean sqlSummaryEnabled = true;
+
+    // Getters and Setters
+    public String getCorrelationHeader() {
+        return correlationHeader;
+    }
+
+    public void setCorrelationHeader(String correlationHeader) {
+        this.correlationHeader = correlationHeader;
+    }
+
+    public int getRateLimitPerSecond() {
+        return rateLimitPerSecond;
+    }
+
+    public void setRateLimitPerSecond(int rateLimitPerSecond) {
+        this.rateLimitPerSecond = rateLimitPerSecond;
+    }
+
+    public long getSqlSlowThresholdMs() {
+        return sqlSlowThresholdMs;
+    }
+
+    public void setSqlSlowThresholdMs(long sqlSlowThresholdMs) {
+        this.sqlSlowThresholdMs = sqlSlowThresholdMs;
+    }
+
+    public double getSqlSampleRate() {
+        return sqlSampleRate;
+    }
+
+    public void setSqlSampleRate(double sqlSampleRate) {
+        this.sqlSampleRate = sqlSampleRate;
+    }
+
+    public boolean isSqlSummaryEnabled() {
+        return sqlSummaryEnabled;
+    }
+
+    public void setSqlSummaryEnabled(boolean sqlSummaryEnabled) {
+        this.sqlSummaryEnabled = sqlSummaryEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return "LoggingProperties{" +
+                "correlationHeader='" + correlationHeader + '\'' +
+                ", rateLimitPerSecond=" + rateLimitPerSecond +
+                ", sqlSlowThresholdMs=" + sqlSlowThresholdMs +
+                ", sqlSampleRate=" + sqlSampleRate +
+                ", sqlSummaryEnabled=" + sqlSummaryEnabled +
+                '}';
+    }
+}
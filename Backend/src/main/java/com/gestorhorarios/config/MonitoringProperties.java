@@ -0,0 +1,61 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Propiedades de la instrumentación de repositorios (prefijo app.monitoring)
+ */
+@ConfigurationProperties(prefix = "app.monitoring")
+public class MonitoringProperties {
+    // Llamadas a repositorio que tarden al menos este tiempo se consideran lentas
+    private long repositorySlowThresholdMs = 200;
+    // Lanzar EXPLAIN (en segundo plano) sobre la consulta más lenta de cada llamada lenta
+    private boolean explainEnabled = true;
+    // Número máximo de planes de ejecución que se conservan en memoria
+    private int planBufferSize = 50;
+    // Tiempo mínimo entre dos EXPLAIN de la misma sentencia SQL
+    private long explainCooldownMs = 300_000;
+
+    // Getters and Setters
+    public long getRepositorySlowThresholdMs() {
+        return repositorySlowThresholdMs;
+    }
+
+    public void setRepositorySlowThresholdMs(long repositorySlowThresholdMs) {
+        this.repositorySlowThresholdMs = repositorySlowThresholdMs;
+    }
+
+    public boolean isExplainEnabled() {
+        return explainEnabled;
+    }
+
+    public void setExplainEnabled(boolean explainEnabled) {
+        this.explainEnabled = explainEnabled;
+    }
+
+    public int getPlanBufferSize() {
+        return planBufferSize;
+    }
+
+    public void setPlanBufferSize(int planBufferSize) {
+        this.planBufferSize = planBufferSize;
+    }
+
+    public long getExplainCooldownMs() {
+        return explainCooldownMs;
+    }
+
+    public void setExplainCooldownMs(long explainCooldownMs) {
+        this.explainCooldownMs = explainCooldownMs;
+    }
+
+    @Override
+    public String toString() {
+        return "MonitoringProperties{" +
+                "repositorySlowThresholdMs=" + repositorySlowThresholdMs +
+                ", explainEnabled=" + explainEnabled +
+                ", planBufferSize=" + planBufferSize +
+                ", explainCooldownMs=" + explainCooldownMs +
+                '}';
+    }
+}
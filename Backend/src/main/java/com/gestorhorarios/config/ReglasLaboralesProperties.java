@@ -0,0 +1,97 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de las reglas laborales que se comprueban al asignar horarios (prefijo app.horarios.reglas).
+ * Un límite a cero desactiva su regla.
+ */
+@ConfigurationProperties(prefix = "app.horarios.reglas")
+public class ReglasLaboralesProperties {
+    // Si es false no se comprueba ninguna regla
+    private boolean enabled = true;
+    // Descanso mínimo entre el fin de un turno y el inicio del siguiente
+    private Duration descansoMinimo = Duration.ofHours(12);
+    // Máximo de horas trabajadas en cualquier periodo de 7 días seguidos
+    private int maxHorasSemana = 48;
+    // Máximo de turnos de noche en días consecutivos
+    private int maxNochesConsecutivas = 3;
+    // Días como máximo que se guardan en memoria por usuario (la ventana se mueve con las comprobaciones)
+    private int ventanaDias = 56;
+    // Usuarios con ventana en memoria a la vez
+    private int maxUsuarios = 10_000;
+    // Tiempo tras el que se vuelve a leer la ventana de la base de datos (cambios de otras instancias)
+    private Duration caducidad = Duration.ofMinutes(10);
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getDescansoMinimo() {
+        return descansoMinimo;
+    }
+
+    public void setDescansoMinimo(Duration descansoMinimo) {
+        this.descansoMinimo = descansoMinimo;
+    }
+
+    public int getMaxHorasSemana() {
+        return maxHorasSemana;
+    }
+
+    public void setMaxHorasSemana(int maxHorasSemana) {
+        this.maxHorasSemana = maxHorasSemana;
+    }
+
+    public int getMaxNochesConsecutivas() {
+        return maxNochesConsecutivas;
+    }
+
+    public void setMaxNochesConsecutivas(int maxNochesConsecutivas) {
+        this.maxNochesConsecutivas = maxNochesConsecutivas;
+    }
+
+    public int getVentanaDias() {
+        return ventanaDias;
+    }
+
+    public void setVentanaDias(int ventanaDias) {
+        this.ventanaDias = ventanaDias;
+    }
+
+    public int getMaxUsuarios() {
+        return maxUsuarios;
+    }
+
+    public void setMaxUsuarios(int maxUsuarios) {
+        this.maxUsuarios = maxUsuarios;
+    }
+
+    public Duration getCaducidad() {
+        return caducidad;
+    }
+
+    public void setCaducidad(Duration caducidad) {
+        this.caducidad = caducidad;
+    }
+
+    @Override
+    public String toString() {
+        return "ReglasLaboralesProperties{" +
+                "enabled=" + enabled +
+                ", descansoMinimo=" + descansoMinimo +
+                ", maxHorasSemana=" + maxHorasSemana +
+                ", maxNochesConsecutivas=" + maxNochesConsecutivas +
+                ", ventanaDias=" + ventanaDias +
+                ", maxUsuarios=" + maxUsuarios +
+                ", caducidad=" + caducidad +
+                '}';
+    }
+}
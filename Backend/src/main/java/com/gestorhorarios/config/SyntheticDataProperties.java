@@ -0,0 +1,157 @@
+package com.gestorhorarios.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propiedades del generador de datos sintéticos para pruebas de carga (prefijo app.datagen)
+ */
+@ConfigurationProperties(prefix = "app.datagen")
+public class SyntheticDataProperties {
+    // Si es true se generan los datos al arrancar (antes que DatabaseInitializer)
+    private boolean enabled = false;
+    // No generar nada si ya hay usuarios en la base de datos
+    private boolean skipIfNotEmpty = true;
+    private int centros = 10;
+    // Trabajadores de cada rol en cada centro
+    private int workersPerRole = 50;
+    private List<String> roles = new ArrayList<>(List.of("ROLE_MEDICO", "ROLE_ENFERMERO", "ROLE_TCAE"));
+    // Años de cuadrante hacia atrás desde hoy, más futureMonths hacia delante
+    private int years = 2;
+    private int futureMonths = 2;
+    // Fracción de trabajadores con vehículo propio
+    private double vehicleOwnerRatio = 0.3;
+    private double swapRequestsPerWorkerPerMonth = 1.0;
+    // Contraseña (sin codificar) de todos los usuarios generados
+    private String password = "password";
+    private long seed = 42;
+    private int batchSize = 1000;
+    // Hilos de escritura; 0 = número de procesadores (no debe superar el tamaño del pool de conexiones)
+    private int threads = 0;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isSkipIfNotEmpty() {
+        return skipIfNotEmpty;
+    }
+
+    public void setSkipIfNotEmpty(boolean skipIfNotEmpty) {
+        this.skipIfNotEmpty = skipIfNotEmpty;
+    }
+
+    public int getCentros() {
+        return centros;
+    }
+
+    public void setCentros(int centros) {
+        this.centros = centros;
+    }
+
+    public int getWorkersPerRole() {
+        return workersPerRole;
+    }
+
+    public void setWorkersPerRole(int workersPerRole) {
+        this.workersPerRole = workersPerRole;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+
+    public int getYears() {
+        return years;
+    }
+
+    public void setYears(int years) {
+        this.years = years;
+    }
+
+    public int getFutureMonths() {
+        return futureMonths;
+    }
+
+    public void setFutureMonths(int futureMonths) {
+        this.futureMonths = futureMonths;
+    }
+
+    public double getVehicleOwnerRatio() {
+        return vehicleOwnerRatio;
+    }
+
+    public void setVehicleOwnerRatio(double vehicleOwnerRatio) {
+        this.vehicleOwnerRatio = vehicleOwnerRatio;
+    }
+
+    public double getSwapRequestsPerWorkerPerMonth() {
+        return swapRequestsPerWorkerPerMonth;
+    }
+
+    public void setSwapRequestsPerWorkerPerMonth(double swapRequestsPerWorkerPerMonth) {
+        this.swapRequestsPerWorkerPerMonth = swapRequestsPerWorkerPerMonth;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticDataProperties{" +
+                "enabled=" + enabled +
+                ", skipIfNotEmpty=" + skipIfNotEmpty +
+                ", centros=" + centros +
+                ", workersPerRole=" + workersPerRole +
+                ", roles=" + roles +
+                ", years=" + years +
+                ", futureMonths=" + futureMonths +
+                ", vehicleOwnerRatio=" + vehicleOwnerRatio +
+                ", swapRequestsPerWorkerPerMonth=" + swapRequestsPerWorkerPerMonth +
+                ", password='[PROTECTED]'" +
+                ", seed=" + seed +
+                ", batchSize=" + batchSize +
+                ", threads=" + threads +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.gestorhorarios.controller;
+
+import com.gestorhorarios.ics.CalendarioIcsService;
+import com.gestorhorarios.ics.SuscripcionIcs;
+import com.gestorhorarios.security.CurrentUser;
+import com.gestorhorarios.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Suscripción de calendario (ICS) a los turnos propios. El feed no usa JWT: la aplicación de
+ * calendario se autentica con el token de la URL, que el usuario genera o revoca desde aquí.
+ */
+@RestController
+@RequestMapping("/api/calendario")
+public class CalendarioController {
+
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    @Autowired
+    private CalendarioIcsService calendarioIcsService;
+
+    /**
+     * Crea o cambia el token del usuario actual y devuelve la URL del feed. El token solo se
+     * muestra esta vez; la URL anterior deja de funcionar.
+     */
+    @PostMapping("/token")
+    public ResponseEntity<Map<String, String>> generarToken(@CurrentUser UserPrincipal currentUser) {
+        String token = calendarioIcsService.generarToken(currentUser.getId());
+        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/calendario/feed/{token}.ics")
+                .buildAndExpand(token)
+                .toUriString();
+        return ResponseEntity.ok(Map.of("token", token, "url", url));
+    }
+
+    @DeleteMapping("/token")
+    public ResponseEntity<Void> revocarToken(@CurrentUser UserPrincipal currentUser) {
+        calendarioIcsService.revocarToken(currentUser.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Turnos del dueño del token en formato iCalendar. Con If-None-Match o If-Modified-Since
+     * responde 304 sin generar el calendario.
+     */
+    @GetMapping("/feed/{token}.ics")
+    public ResponseEntity<byte[]> obtenerFeed(@PathVariable String token, WebRequest request) {
+        Optional<SuscripcionIcs> suscripcion = calendarioIcsService.suscripcion(token);
+        if (suscripcion.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        SuscripcionIcs feed = suscripcion.get();
+        if (request.checkNotModified(feed.etag(), feed.ultimaModificacion().toEpochMilli())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(feed.etag())
+                .lastModified(feed.ultimaModificacion())
+                .body(calendarioIcsService.contenido(feed));
+    }
+}
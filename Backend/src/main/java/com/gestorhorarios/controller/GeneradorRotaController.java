@@ -0,0 +1,50 @@
+package com.gestorhorarios.controller;
+
+import com.gestorhorarios.dto.BorradorRotaResponse;
+import com.gestorhorarios.dto.GenerarRotaRequest;
+import com.gestorhorarios.generador.GeneradorRotaService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Generación automática de rotas: se lanza en segundo plano, se consulta su progreso y el
+ * borrador, y se confirma (guardando los horarios) o se descarta.
+ */
+@RestController
+@RequestMapping("/api/rotas/generador")
+@PreAuthorize("hasRole('ADMIN')")
+public class GeneradorRotaController {
+
+    @Autowired
+    private GeneradorRotaService generadorRotaService;
+
+    @PostMapping
+    public ResponseEntity<BorradorRotaResponse> generar(@Valid @RequestBody GenerarRotaRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(BorradorRotaResponse.fromTrabajo(generadorRotaService.generar(request), false));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BorradorRotaResponse> obtener(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "true") boolean turnos) {
+        return ResponseEntity.ok(BorradorRotaResponse.fromTrabajo(generadorRotaService.obtener(id), turnos));
+    }
+
+    @PostMapping("/{id}/confirmar")
+    public ResponseEntity<Map<String, Integer>> confirmar(@PathVariable String id) {
+        return ResponseEntity.ok(Map.of("creados", generadorRotaService.confirmar(id)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> descartar(@PathVariable String id) {
+        generadorRotaService.descartar(id);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,24 +1,33 @@
 package com.gestorhorarios.controller;
 
+import com.gestorhorarios.cobertura.CoberturaDia;
+import com.gestorhorarios.cobertura.CoberturaService;
 import com.gestorhorarios.dto.HorarioRequest;
+import com.gestorhorarios.exportacion.ExportacionHorariosService;
+import com.gestorhorarios.exportacion.FormatoExportacion;
 import com.gestorhorarios.model.Horario;
 import com.gestorhorarios.model.Role;
 import com.gestorhorarios.model.User;
+import com.gestorhorarios.rota.PlantillaRotaService;
 import com.gestorhorarios.security.CurrentUser;
 import com.gestorhorarios.security.UserPrincipal;
 import com.gestorhorarios.service.HorarioService;
 import com.gestorhorarios.service.UserService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +43,15 @@ public class HorarioController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PlantillaRotaService plantillaRotaService;
+
+    @Autowired
+    private CoberturaService coberturaService;
+
+    @Autowired
+    private ExportacionHorariosService exportacionHorariosService;
+
     @GetMapping("/mis-horarios")
     @PreAuthorize("hasRole('MEDICO') or hasRole('ENFERMERO') or hasRole('TCAE')")
     public ResponseEntity<List<Horario>> obtenerMisHorarios(
@@ -77,6 +95,45 @@ public class HorarioController {
         return ResponseEntity.ok(horarios);
     }
     
+    /**
+     * Personas de cada rol por día y tipo de turno (por defecto los próximos 60 días), sin
+     * descargar los horarios
+     */
+    @GetMapping("/cobertura")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CoberturaDia>> obtenerCobertura(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+
+        if (inicio != null && fin != null) {
+            return ResponseEntity.ok(coberturaService.getCobertura(inicio, fin));
+        }
+        return ResponseEntity.ok(coberturaService.getCobertura());
+    }
+
+    /**
+     * Descarga los horarios de un periodo (hasta un año) en CSV o Excel para nómina. Las filas se
+     * escriben según se leen de la base de datos, sin cargar el periodo en memoria.
+     */
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportarHorarios(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(defaultValue = "csv") String formato,
+            HttpServletResponse response) throws IOException {
+
+        // Los errores de parámetros se devuelven antes de empezar la descarga
+        FormatoExportacion formatoExportacion = FormatoExportacion.de(formato);
+        exportacionHorariosService.validarPeriodo(inicio, fin);
+
+        response.setContentType(formatoExportacion.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("horarios_" + inicio + "_" + fin + "." + formatoExportacion.getExtension())
+                .build().toString());
+        exportacionHorariosService.exportar(inicio, fin, formatoExportacion, response.getOutputStream());
+    }
+
     @GetMapping("/fecha/{fecha}")
     @PreAuthorize("hasRole('MEDICO') or hasRole('ENFERMERO') or hasRole('TCAE')")
     public ResponseEntity<List<Horario>> obtenerHorariosPorFecha(
@@ -153,11 +210,10 @@ public class HorarioController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado");
         }
         
-        // Validar que la hora de fin sea posterior a la hora de inicio
-        if (horarioRequest.getHoraFin().isBefore(horarioRequest.getHoraInicio()) || 
-            horarioRequest.getHoraFin().equals(horarioRequest.getHoraInicio())) {
+        // Validar que las horas no coincidan; si la de fin es anterior, el turno acaba al día siguiente
+        if (horarioRequest.getHoraFin().equals(horarioRequest.getHoraInicio())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                "La hora de fin debe ser posterior a la hora de inicio");
+                "La hora de fin no puede ser igual a la de inicio");
         }
         
         // Crear un nuevo horario a partir de la solicitud
@@ -208,6 +264,9 @@ public class HorarioController {
             
             return ResponseEntity.ok(horarioGuardado);
             
+        } catch (IllegalArgumentException e) {
+            // Datos no válidos o reglas laborales incumplidas: GlobalExceptionHandler devuelve 400
+            throw e;
         } catch (Exception e) {
             // Log the error for debugging
             e.printStackTrace();
@@ -215,6 +274,44 @@ public class HorarioController {
         }
     }
 
+    /**
+     * Carga de golpe los horarios de un trabajador. Si alguno incumple las reglas laborales
+     * no se guarda ninguno (400 con todos los incumplimientos).
+     */
+    @PostMapping("/importar/{usuarioId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Horario>> importarHorarios(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) String rol,
+            @Valid @RequestBody List<HorarioRequest> horarioRequests) {
+
+        List<Horario> horarios = horarioRequests.stream().map(request -> {
+            Horario horario = new Horario();
+            horario.setFecha(request.getFecha());
+            horario.setHoraInicio(request.getHoraInicio());
+            horario.setHoraFin(request.getHoraFin());
+            horario.setTipoTurno(request.getTipoTurno());
+            horario.setDisponible(request.isDisponible());
+            horario.setNotas(request.getNotas());
+            return horario;
+        }).collect(Collectors.toList());
+
+        return ResponseEntity.ok(horarioService.importarHorarios(usuarioId, horarios, rol));
+    }
+
+    /**
+     * Guarda como horario el día de rota del usuario actual (los días de rota se devuelven sin id)
+     * para poder cambiarlo, ofrecerlo para intercambio o borrarlo.
+     */
+    @PostMapping("/rota/{fecha}")
+    @PreAuthorize("hasRole('MEDICO') or hasRole('ENFERMERO') or hasRole('TCAE')")
+    public ResponseEntity<Horario> materializarDiaRota(
+            @CurrentUser UserPrincipal currentUser,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+
+        return ResponseEntity.ok(plantillaRotaService.materializarDia(currentUser.getId(), fecha));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('MEDICO') or hasRole('ENFERMERO') or hasRole('TCAE')")
     public ResponseEntity<Horario> actualizarHorario(
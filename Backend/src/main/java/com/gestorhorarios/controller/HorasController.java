@@ -0,0 +1,78 @@
+package com.gestorhorarios.controller;
+
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.horas.ResumenHoras;
+import com.gestorhorarios.security.CurrentUser;
+import com.gestorhorarios.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Horas trabajadas por mes (total, nocturnas y por tipo de turno) para nómina y horas extra.
+ * Los meses se indican como yyyy-MM.
+ */
+@RestController
+@RequestMapping("/api/horas")
+public class HorasController {
+
+    @Autowired
+    private HorasMensualesService horasMensualesService;
+
+    /**
+     * Horas del usuario actual, por defecto las del mes en curso
+     */
+    @GetMapping("/mias")
+    @PreAuthorize("hasRole('MEDICO') or hasRole('ENFERMERO') or hasRole('TCAE')")
+    public ResponseEntity<List<ResumenHoras>> obtenerMisHoras(
+            @CurrentUser UserPrincipal currentUser,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth desde,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth hasta) {
+
+        return ResponseEntity.ok(horasUsuario(currentUser.getId(), desde, hasta));
+    }
+
+    @GetMapping("/usuario/{usuarioId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ResumenHoras>> obtenerHorasUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth desde,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth hasta) {
+
+        return ResponseEntity.ok(horasUsuario(usuarioId, desde, hasta));
+    }
+
+    /**
+     * Horas de todos los trabajadores en un mes
+     */
+    @GetMapping("/mes/{mes}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ResumenHoras>> obtenerHorasMes(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+
+        return ResponseEntity.ok(horasMensualesService.getHorasMes(mes));
+    }
+
+    /**
+     * Vuelve a calcular el registro de los meses indicados a partir de los horarios
+     */
+    @PostMapping("/reconstruir")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> reconstruir(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth desde,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth hasta) {
+
+        return ResponseEntity.ok(Map.of("filas", horasMensualesService.reconstruir(desde, hasta)));
+    }
+
+    private List<ResumenHoras> horasUsuario(Long usuarioId, YearMonth desde, YearMonth hasta) {
+        YearMonth inicio = desde != null ? desde : YearMonth.now();
+        return horasMensualesService.getHorasUsuario(usuarioId, inicio, hasta != null ? hasta : inicio);
+    }
+}
@@ -0,0 +1,77 @@
+package com.gestorhorarios.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Endpoints de administración para consultar y cambiar el nivel de log en caliente.
+ * El acceso queda restringido a ROLE_ADMIN en SecurityConfig.
+ */
+@RestController
+@RequestMapping("/api/admin/logging")
+public class LoggingAdminController {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingAdminController.class);
+
+    @Autowired
+    private LoggingSystem loggingSystem;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getConfiguredLevels() {
+        Map<String, Object> levels = new LinkedHashMap<>();
+        for (LoggerConfiguration configuration : loggingSystem.getLoggerConfigurations()) {
+            // Solo se devuelven los loggers con nivel explícito para no listar cientos de entradas
+            if (configuration.getConfiguredLevel() != null) {
+                levels.put(configuration.getName(), configuration.getConfiguredLevel());
+            }
+        }
+        return ResponseEntity.ok(levels);
+    }
+
+    @GetMapping("/{loggerName}")
+    public ResponseEntity<?> getLevel(@PathVariable String loggerName) {
+        LoggerConfiguration configuration = loggingSystem.getLoggerConfiguration(loggerName);
+        if (configuration == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toMap(configuration));
+    }
+
+    @PutMapping("/{loggerName}")
+    public ResponseEntity<?> setLevel(@PathVariable String loggerName, @RequestParam(required = false) String level) {
+        LogLevel logLevel = null;
+        if (level != null && !level.isBlank()) {
+            try {
+                logLevel = LogLevel.valueOf(level.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Nivel de log no válido: " + level);
+            }
+        }
+
+        // Un nivel nulo elimina la configuración explícita y el logger vuelve a heredar del padre
+        loggingSystem.setLogLevel(loggerName, logLevel);
+        logger.atWarn()
+                .addKeyValue("logger", loggerName)
+                .addKeyValue("level", logLevel)
+                .log("Nivel de log modificado en caliente");
+
+        return ResponseEntity.ok(toMap(loggingSystem.getLoggerConfiguration(loggerName)));
+    }
+
+    private Map<String, Object> toMap(LoggerConfiguration configuration) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("name", configuration.getName());
+        response.put("configuredLevel", configuration.getConfiguredLevel());
+        response.put("effectiveLevel", configuration.getEffectiveLevel());
+        return response;
+    }
+}
@@ -0,0 +1,64 @@
+package com.gestorhorarios.controller;
+
+import com.gestorhorarios.monitoring.QueryPlan;
+import com.gestorhorarios.monitoring.QueryPlanBuffer;
+import com.gestorhorarios.monitoring.RepositoryMetrics;
+import com.gestorhorarios.monitoring.SecondLevelCacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoints de administración con las latencias de los repositorios, los planes de
+ * ejecución capturados para las consultas lentas y las estadísticas de la caché
+ * de segundo nivel (solo ROLE_ADMIN).
+ */
+@RestController
+@RequestMapping("/api/admin/monitoring")
+public class MonitoringAdminController {
+
+    @Autowired
+    private RepositoryMetrics repositoryMetrics;
+
+    @Autowired
+    private QueryPlanBuffer queryPlanBuffer;
+
+    @Autowired
+    private SecondLevelCacheStats secondLevelCacheStats;
+
+    @GetMapping("/repositories")
+    public ResponseEntity<Map<String, Map<String, Object>>> getRepositoryMetrics() {
+        return ResponseEntity.ok(repositoryMetrics.snapshot());
+    }
+
+    @DeleteMapping("/repositories")
+    public ResponseEntity<Void> resetRepositoryMetrics() {
+        repositoryMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/query-plans")
+    public ResponseEntity<List<QueryPlan>> getQueryPlans() {
+        return ResponseEntity.ok(queryPlanBuffer.list());
+    }
+
+    @DeleteMapping("/query-plans")
+    public ResponseEntity<Void> clearQueryPlans() {
+        queryPlanBuffer.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStatistics() {
+        return ResponseEntity.ok(secondLevelCacheStats.snapshot());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> evictCache() {
+        secondLevelCacheStats.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+}
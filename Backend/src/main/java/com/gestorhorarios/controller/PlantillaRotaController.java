@@ -0,0 +1,87 @@
+package com.gestorhorarios.controller;
+
+import com.gestorhorarios.dto.PlantillaRotaRequest;
+import com.gestorhorarios.model.PlantillaRota;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.rota.PlantillaRotaService;
+import com.gestorhorarios.security.CurrentUser;
+import com.gestorhorarios.security.UserPrincipal;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plantillas de rota: ciclos de turnos que se repiten y que se leen junto a los horarios
+ * sin guardar una fila por día (ver {@link PlantillaRota}).
+ */
+@RestController
+@RequestMapping("/api/plantillas-rota")
+public class PlantillaRotaController {
+
+    @Autowired
+    private PlantillaRotaService plantillaRotaService;
+
+    // Un administrador ve las plantillas de cualquiera; el resto, solo las suyas
+    @GetMapping("/usuario/{usuarioId}")
+    @PreAuthorize("hasRole('ADMIN') or #usuarioId == principal.id")
+    public ResponseEntity<List<PlantillaRota>> obtenerPlantillas(
+            @CurrentUser UserPrincipal currentUser,
+            @PathVariable Long usuarioId) {
+        if (!esAdmin(currentUser) && !usuarioId.equals(currentUser.getId())) {
+            throw new AccessDeniedException("No tienes permiso para ver las plantillas de este usuario");
+        }
+        return ResponseEntity.ok(plantillaRotaService.getPlantillasPorUsuarioId(usuarioId));
+    }
+
+    @PostMapping("/usuario/{usuarioId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PlantillaRota> crearPlantilla(
+            @CurrentUser UserPrincipal currentUser,
+            @PathVariable Long usuarioId,
+            @Valid @RequestBody PlantillaRotaRequest request) {
+        verificarAdmin(currentUser);
+
+        PlantillaRota plantilla = new PlantillaRota();
+        plantilla.setFechaInicio(request.getFechaInicio());
+        plantilla.setFechaFin(request.getFechaFin());
+        plantilla.setCiclo(new ArrayList<>(request.getCiclo()));
+        return ResponseEntity.ok(plantillaRotaService.crearPlantilla(usuarioId, plantilla, request.getRol()));
+    }
+
+    @PutMapping("/{id}/fin")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PlantillaRota> terminarPlantilla(
+            @CurrentUser UserPrincipal currentUser,
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        verificarAdmin(currentUser);
+        return ResponseEntity.ok(plantillaRotaService.terminarPlantilla(id, fechaFin));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> eliminarPlantilla(@CurrentUser UserPrincipal currentUser, @PathVariable Long id) {
+        verificarAdmin(currentUser);
+        plantillaRotaService.eliminarPlantilla(id);
+        return ResponseEntity.ok().build();
+    }
+
+    // La seguridad por método no está activada, así que los permisos se comprueban aquí también
+    private void verificarAdmin(UserPrincipal currentUser) {
+        if (!esAdmin(currentUser)) {
+            throw new AccessDeniedException("Solo un administrador puede gestionar plantillas de rota");
+        }
+    }
+
+    private boolean esAdmin(UserPrincipal currentUser) {
+        return currentUser != null && currentUser.getRoles().contains(Role.ROLE_ADMIN);
+    }
+}
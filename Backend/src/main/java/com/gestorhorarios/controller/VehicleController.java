@@ -3,6 +3,8 @@ package com.gestorhorarios.controller;
 import com.gestorhorarios.dto.VehicleDTO;
 import com.gestorhorarios.dto.VehicleResponseDTO;
 import com.gestorhorarios.service.VehicleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +16,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/vehicles")
 public class VehicleController {
+    private static final Logger logger = LoggerFactory.getLogger(VehicleController.class);
     
     @Autowired
     private VehicleService vehicleService;
@@ -23,8 +26,10 @@ public class VehicleController {
             @RequestBody VehicleDTO vehicleDTO,
             @CurrentUser UserPrincipal currentUser) {
         
-        System.out.println("Received vehicle creation request from user: " + currentUser.getUsername());
-        System.out.println("Vehicle data: " + vehicleDTO);
+        logger.atDebug()
+                .addKeyValue("userId", currentUser.getId())
+                .addKeyValue("licensePlate", vehicleDTO.getLicensePlate())
+                .log("Petición de creación de vehículo");
         
         try {
             VehicleDTO createdVehicle = vehicleService.createVehicle(vehicleDTO, currentUser.getId());
@@ -0,0 +1,541 @@
+package com.gestorhorarios.datagen;
+
+import com.gestorhorarios.config.SyntheticDataProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.SolicitudCambio;
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Generador de datos sintéticos a escala de producción para pruebas de rendimiento:
+ * centros con trabajadores por rol, años de cuadrante, vehículos con pasajeros y solicitudes
+ * de cambio. Escribe con JDBC por lotes en varios hilos (un bloque de trabajo por centro o por
+ * centro y rol) y asigna los ids en memoria, así que no hace ninguna lectura por fila.
+ *
+ * En MySQL conviene añadir rewriteBatchedStatements=true a la URL para que cada lote viaje
+ * como una única sentencia.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String INSERT_USER = "INSERT INTO users (id, username, password, nombre, apellidos, email, " +
+            "centro_trabajo, localidad, telefono, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role) VALUES (?, ?)";
+    private static final String INSERT_VEHICLE = "INSERT INTO vehicles (id, brand, model, license_plate, color, " +
+            "total_seats, available_seats, active, owner_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PASSENGER = "INSERT INTO user_vehicle_passengers (user_id, vehicle_id) VALUES (?, ?)";
+    private static final String INSERT_HORARIO = "INSERT INTO horarios (id, usuario_id, fecha, hora_inicio, hora_fin, " +
+            "tipo_turno, disponible, intercambiado, rol, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SOLICITUD = "INSERT INTO solicitudes_cambio (id, solicitante_id, receptor_id, " +
+            "horario_origen_id, horario_destino_id, estado, mensaje, fecha_creacion, fecha_respuesta) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String[] NOMBRES = {"Ana", "Juan", "María", "Carlos", "Lucía", "Javier", "Elena", "Pablo",
+            "Marta", "David", "Laura", "Sergio", "Carmen", "Raúl", "Paula", "Álvaro"};
+    private static final String[] APELLIDOS = {"García", "Martínez", "López", "Sánchez", "Pérez", "Gómez", "Martín",
+            "Jiménez", "Ruiz", "Hernández", "Díaz", "Moreno", "Álvarez", "Romero"};
+    private static final String[] LOCALIDADES = {"Madrid", "Barcelona", "Valencia", "Sevilla", "Zaragoza", "Málaga",
+            "Murcia", "Bilbao", "Valladolid", "Vigo"};
+    private static final String[][] MODELOS = {{"Seat", "Ibiza"}, {"Renault", "Clio"}, {"Toyota", "Corolla"},
+            {"Volkswagen", "Golf"}, {"Peugeot", "308"}, {"Dacia", "Sandero"}, {"Kia", "Sportage"}};
+    private static final String[] COLORES = {"Blanco", "Negro", "Gris", "Rojo", "Azul"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+    private final SyntheticDataProperties properties;
+
+    public SyntheticDataGenerator(DataSource dataSource,
+                                  PasswordEncoder passwordEncoder,
+                                  EntityManagerFactory entityManagerFactory,
+                                  SyntheticDataProperties properties) {
+        // La carga masiva no pasa por datasource-proxy: no es tráfico de la aplicación y llenaría
+        // el log de "consultas lentas" y las métricas con los lotes de INSERT
+        DataSource target = dataSource instanceof ProxyDataSource proxy ? proxy.getDataSource() : dataSource;
+        this.jdbcTemplate = new JdbcTemplate(target);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(target));
+        this.passwordEncoder = passwordEncoder;
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+    }
+
+    public record Resultado(long usuarios, long vehiculos, long pasajeros, long horarios, long solicitudes,
+                            long duracionMs) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.isSkipIfNotEmpty() && count("users") > 0) {
+            logger.info("Generación de datos sintéticos omitida: la base de datos ya tiene usuarios");
+            return;
+        }
+        generate();
+    }
+
+    public Resultado generate() {
+        long inicio = System.nanoTime();
+        logger.info("Generando datos sintéticos: {}", properties);
+        warnIfBatchRewriteDisabled();
+
+        Plan plan = new Plan(properties, maxId("users") + 1, passwordEncoder.encode(properties.getPassword()));
+        AtomicLong nextVehicleId = new AtomicLong(maxId("vehicles") + 1);
+        AtomicLong nextHorarioId = new AtomicLong(maxId("horarios") + 1);
+        AtomicLong nextSolicitudId = new AtomicLong(maxId("solicitudes_cambio") + 1);
+
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long usuarios = runParallel(executor, "usuarios", properties.getCentros(), centro -> writeUsers(plan, centro));
+
+            long[] pasajeros = new long[1];
+            long vehiculos = runParallel(executor, "vehículos", properties.getCentros(), centro -> {
+                long[] escritos = writeVehicles(plan, centro, nextVehicleId);
+                synchronized (pasajeros) {
+                    pasajeros[0] += escritos[1];
+                }
+                return escritos[0];
+            });
+
+            long[] solicitudes = new long[1];
+            long horarios = runParallel(executor, "horarios", plan.bloques(), bloque -> {
+                long[] escritos = writeRota(plan, bloque, nextHorarioId, nextSolicitudId);
+                synchronized (solicitudes) {
+                    solicitudes[0] += escritos[1];
+                }
+                return escritos[0];
+            });
+
+            finish(plan, nextVehicleId.get(), nextHorarioId.get(), nextSolicitudId.get());
+
+            Resultado resultado = new Resultado(usuarios, vehiculos, pasajeros[0], horarios, solicitudes[0],
+                    (System.nanoTime() - inicio) / 1_000_000);
+            logger.atInfo()
+                    .addKeyValue("usuarios", resultado.usuarios())
+                    .addKeyValue("vehiculos", resultado.vehiculos())
+                    .addKeyValue("pasajeros", resultado.pasajeros())
+                    .addKeyValue("horarios", resultado.horarios())
+                    .addKeyValue("solicitudes", resultado.solicitudes())
+                    .addKeyValue("ms", resultado.duracionMs())
+                    .log("Datos sintéticos generados");
+            return resultado;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ---------------------------------------------------------------- usuarios
+
+    private long writeUsers(Plan plan, int centro) {
+        return inTransaction(() -> {
+            BatchWriter users = new BatchWriter(INSERT_USER);
+            BatchWriter roles = new BatchWriter(INSERT_USER_ROLE);
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            for (int rol = 0; rol < plan.roles.size(); rol++) {
+                for (int n = 0; n < plan.workersPerRole; n++) {
+                    int worker = plan.worker(centro, rol, n);
+                    long id = plan.userId(worker);
+                    SplittableRandom random = plan.random("usuario", worker);
+                    String username = plan.username(centro, rol, n);
+                    users.add(id, username, plan.passwordHash,
+                            NOMBRES[random.nextInt(NOMBRES.length)],
+                            APELLIDOS[random.nextInt(APELLIDOS.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)],
+                            username + "@synthetic.local", plan.centroTrabajo(centro),
+                            LOCALIDADES[centro % LOCALIDADES.length],
+                            String.format("6%08d", random.nextInt(100_000_000)), ahora, ahora);
+                    roles.add(id, plan.roles.get(rol));
+                }
+            }
+            users.flush();
+            roles.flush();
+            return users.count();
+        });
+    }
+
+    // ---------------------------------------------------------------- vehículos
+
+    /**
+     * Una parte de los trabajadores del centro tiene coche; los pasajeros se eligen entre
+     * el resto de trabajadores del mismo centro y cada uno va como mucho en un vehículo.
+     * @return {vehículos, pasajeros}
+     */
+    private long[] writeVehicles(Plan plan, int centro, AtomicLong nextVehicleId) {
+        return inTransaction(() -> {
+            SplittableRandom random = plan.random("vehiculos", centro);
+            int trabajadores = plan.roles.size() * plan.workersPerRole;
+            List<Integer> propietarios = new ArrayList<>();
+            List<Integer> libres = new ArrayList<>();
+            for (int i = 0; i < trabajadores; i++) {
+                int worker = centro * trabajadores + i;
+                if (random.nextDouble() < properties.getVehicleOwnerRatio()) {
+                    propietarios.add(worker);
+                } else {
+                    libres.add(worker);
+                }
+            }
+            shuffle(libres, random);
+
+            long firstId = nextVehicleId.getAndAdd(propietarios.size());
+            BatchWriter vehicles = new BatchWriter(INSERT_VEHICLE);
+            BatchWriter passengers = new BatchWriter(INSERT_PASSENGER);
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            int siguienteLibre = 0;
+            for (int i = 0; i < propietarios.size(); i++) {
+                long vehicleId = firstId + i;
+                double p = random.nextDouble();
+                int plazas = p < 0.5 ? 4 : p < 0.85 ? 5 : 7;
+                // Entre 0 y plazas - 1 pasajeros (el conductor ocupa una plaza), sesgado hacia pocos
+                int ocupadas = Math.min((int) (random.nextDouble() * random.nextDouble() * plazas), libres.size() - siguienteLibre);
+                for (int j = 0; j < ocupadas; j++) {
+                    passengers.add(plan.userId(libres.get(siguienteLibre++)), vehicleId);
+                }
+                String[] modelo = MODELOS[random.nextInt(MODELOS.length)];
+                vehicles.add(vehicleId, modelo[0], modelo[1], "SYN-" + vehicleId,
+                        COLORES[random.nextInt(COLORES.length)], plazas, plazas - ocupadas,
+                        random.nextDouble() < 0.95, plan.userId(propietarios.get(i)), ahora, ahora);
+            }
+            // Los vehículos antes que los pasajeros por la clave foránea
+            vehicles.flush();
+            passengers.flush();
+            return new long[]{vehicles.count(), passengers.count()};
+        });
+    }
+
+    // ---------------------------------------------------------------- cuadrante y solicitudes
+
+    /**
+     * Genera el cuadrante de todos los trabajadores de un centro y rol, y las solicitudes de cambio
+     * entre ellos (origen y destino son horarios del propio bloque, así que no hay que consultarlos).
+     * @return {horarios, solicitudes}
+     */
+    private long[] writeRota(Plan plan, int bloque, AtomicLong nextHorarioId, AtomicLong nextSolicitudId) {
+        return inTransaction(() -> {
+            int rol = bloque % plan.roles.size();
+            int centro = bloque / plan.roles.size();
+            String rolNombre = plan.roles.get(rol);
+            LocalDate hoy = LocalDate.now();
+
+            List<List<LocalDate>> fechas = new ArrayList<>();
+            long[] primerHorario = new long[plan.workersPerRole];
+            BatchWriter horarios = new BatchWriter(INSERT_HORARIO);
+            for (int n = 0; n < plan.workersPerRole; n++) {
+                int worker = plan.worker(centro, rol, n);
+                SplittableRandom random = plan.random("cuadrante", worker);
+                List<LocalDate> dias = new ArrayList<>();
+                for (LocalDate dia = plan.desde; dia.isBefore(plan.hasta); dia = dia.plusDays(1)) {
+                    boolean finDeSemana = dia.getDayOfWeek() == DayOfWeek.SATURDAY || dia.getDayOfWeek() == DayOfWeek.SUNDAY;
+                    if (random.nextDouble() < (finDeSemana ? 0.25 : 0.8)) {
+                        dias.add(dia);
+                    }
+                }
+                fechas.add(dias);
+                // Ids contiguos por trabajador: las solicitudes solo necesitan el primero y el índice
+                long firstId = nextHorarioId.getAndAdd(dias.size());
+                primerHorario[n] = firstId;
+
+                Timestamp creado = Timestamp.valueOf(plan.desde.atStartOfDay());
+                for (int i = 0; i < dias.size(); i++) {
+                    LocalDate dia = dias.get(i);
+                    Horario.TipoTurno turno = tipoTurno(random);
+                    boolean futuro = dia.isAfter(hoy);
+                    horarios.add(firstId + i, plan.userId(worker), Date.valueOf(dia),
+                            Time.valueOf(horaInicio(turno)), Time.valueOf(horaFin(turno)), turno.name(),
+                            random.nextDouble() < (futuro ? 0.08 : 0.01), random.nextDouble() < 0.03,
+                            rolNombre, creado, creado);
+                }
+            }
+            horarios.flush();
+
+            BatchWriter solicitudes = new BatchWriter(INSERT_SOLICITUD);
+            if (plan.workersPerRole > 1) {
+                double porTrabajador = plan.meses * properties.getSwapRequestsPerWorkerPerMonth();
+                LocalDateTime ahora = LocalDateTime.now();
+                for (int n = 0; n < plan.workersPerRole; n++) {
+                    SplittableRandom random = plan.random("solicitudes", plan.worker(centro, rol, n));
+                    List<LocalDate> propios = fechas.get(n);
+                    int total = (int) porTrabajador + (random.nextDouble() < porTrabajador % 1 ? 1 : 0);
+                    if (propios.isEmpty()) {
+                        continue;
+                    }
+                    long firstId = nextSolicitudId.getAndAdd(total);
+                    for (int i = 0; i < total; i++) {
+                        int origen = random.nextInt(propios.size());
+                        int receptor = (n + 1 + random.nextInt(plan.workersPerRole - 1)) % plan.workersPerRole;
+                        List<LocalDate> ajenos = fechas.get(receptor);
+                        Long destino = null;
+                        if (!ajenos.isEmpty() && random.nextDouble() < 0.7) {
+                            // Un horario del receptor de fecha parecida a la del origen
+                            int aprox = (int) ((long) origen * ajenos.size() / propios.size());
+                            destino = primerHorario[receptor] + Math.min(ajenos.size() - 1, aprox + random.nextInt(3));
+                        }
+                        LocalDate fechaOrigen = propios.get(origen);
+                        LocalDateTime creada = fechaOrigen.minusDays(1 + random.nextInt(20))
+                                .atTime(8 + random.nextInt(12), random.nextInt(60));
+                        if (creada.isAfter(ahora)) {
+                            creada = ahora.minusMinutes(random.nextInt(60 * 24 * 7));
+                        }
+                        SolicitudCambio.EstadoSolicitud estado = estado(random, fechaOrigen.isAfter(hoy));
+                        LocalDateTime respondida = estado == SolicitudCambio.EstadoSolicitud.ACEPTADA
+                                || estado == SolicitudCambio.EstadoSolicitud.RECHAZADA
+                                ? creada.plusHours(1 + random.nextInt(48)) : null;
+                        solicitudes.add(firstId + i, plan.userId(plan.worker(centro, rol, n)),
+                                plan.userId(plan.worker(centro, rol, receptor)), primerHorario[n] + origen, destino,
+                                estado.name(), "Solicitud generada", Timestamp.valueOf(creada),
+                                respondida != null ? Timestamp.valueOf(respondida) : null);
+                    }
+                }
+            }
+            solicitudes.flush();
+            return new long[]{horarios.count(), solicitudes.count()};
+        });
+    }
+
+    private static Horario.TipoTurno tipoTurno(SplittableRandom random) {
+        double p = random.nextDouble();
+        if (p < 0.45) {
+            return Horario.TipoTurno.MANANA;
+        }
+        if (p < 0.78) {
+            return Horario.TipoTurno.TARDE;
+        }
+        return p < 0.95 ? Horario.TipoTurno.NOCHE : Horario.TipoTurno.COMPLETO;
+    }
+
+    private static LocalTime horaInicio(Horario.TipoTurno turno) {
+        return switch (turno) {
+            case TARDE -> LocalTime.of(15, 0);
+            case NOCHE -> LocalTime.of(22, 0);
+            default -> LocalTime.of(8, 0);
+        };
+    }
+
+    private static LocalTime horaFin(Horario.TipoTurno turno) {
+        return switch (turno) {
+            case MANANA -> LocalTime.of(15, 0);
+            case TARDE -> LocalTime.of(22, 0);
+            case NOCHE -> LocalTime.of(8, 0);
+            default -> LocalTime.of(20, 0);
+        };
+    }
+
+    private static SolicitudCambio.EstadoSolicitud estado(SplittableRandom random, boolean futura) {
+        double p = random.nextDouble();
+        if (futura) {
+            return p < 0.7 ? SolicitudCambio.EstadoSolicitud.PENDIENTE
+                    : p < 0.85 ? SolicitudCambio.EstadoSolicitud.ACEPTADA
+                    : p < 0.9 ? SolicitudCambio.EstadoSolicitud.RECHAZADA
+                    : SolicitudCambio.EstadoSolicitud.CANCELADA;
+        }
+        return p < 0.55 ? SolicitudCambio.EstadoSolicitud.ACEPTADA
+                : p < 0.8 ? SolicitudCambio.EstadoSolicitud.RECHAZADA
+                : p < 0.92 ? SolicitudCambio.EstadoSolicitud.CANCELADA
+                : SolicitudCambio.EstadoSolicitud.PENDIENTE;
+    }
+
+    // ---------------------------------------------------------------- infraestructura
+
+    /**
+     * Ajusta los contadores de identidad, actualiza estadísticas y vacía la caché de segundo nivel,
+     * que no se entera de las escrituras hechas con JDBC
+     */
+    private void finish(Plan plan, long nextVehicleId, long nextHorarioId, long nextSolicitudId) {
+        String producto = jdbcTemplate.execute((Connection connection) ->
+                connection.getMetaData().getDatabaseProductName()).toLowerCase(Locale.ROOT);
+        if (producto.contains("h2")) {
+            // H2 no avanza la identidad al insertar ids explícitos (MySQL sí)
+            restartIdentity("users", plan.userId(plan.workers));
+            restartIdentity("vehicles", nextVehicleId);
+            restartIdentity("horarios", nextHorarioId);
+            restartIdentity("solicitudes_cambio", nextSolicitudId);
+            jdbcTemplate.execute("ANALYZE");
+        } else if (producto.contains("mysql")) {
+            jdbcTemplate.execute("ANALYZE TABLE users, user_roles, vehicles, user_vehicle_passengers, horarios, solicitudes_cambio");
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private void restartIdentity(String table, long next) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    private void warnIfBatchRewriteDisabled() {
+        String url = jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getURL());
+        if (url != null && url.startsWith("jdbc:mysql") && !url.contains("rewriteBatchedStatements=true")) {
+            logger.warn("La URL de MySQL no incluye rewriteBatchedStatements=true: los lotes se enviarán fila a fila");
+        }
+    }
+
+    private long runParallel(ExecutorService executor, String fase, int tareas, IntToLongFunction tarea) {
+        long inicio = System.nanoTime();
+        List<Future<Long>> futuros = new ArrayList<>(tareas);
+        for (int i = 0; i < tareas; i++) {
+            int indice = i;
+            futuros.add(executor.submit(() -> tarea.applyAsLong(indice)));
+        }
+        long total = 0;
+        try {
+            for (Future<Long> futuro : futuros) {
+                total += futuro.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación interrumpida en la fase de " + fase, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error generando " + fase, e.getCause());
+        }
+        logger.info("Fase de {} completada: {} filas en {} ms", fase, total, (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    private <T> T inTransaction(Supplier<T> trabajo) {
+        return transactionTemplate.execute(status -> trabajo.get());
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private static <T> void shuffle(List<T> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T tmp = list.get(i);
+            list.set(i, list.get(j));
+            list.set(j, tmp);
+        }
+    }
+
+    /**
+     * Acumula filas y las envía con batchUpdate cada batchSize
+     */
+    private final class BatchWriter {
+        private final String sql;
+        private final List<Object[]> filas = new ArrayList<>();
+        private long count;
+
+        private BatchWriter(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... valores) {
+            filas.add(valores);
+            if (filas.size() >= properties.getBatchSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!filas.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, filas);
+                count += filas.size();
+                filas.clear();
+            }
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    /**
+     * Disposición de los trabajadores: índice = (centro * roles + rol) * workersPerRole + n,
+     * y id de usuario = primer id libre + índice
+     */
+    private static final class Plan {
+        private final List<String> roles;
+        private final int workersPerRole;
+        private final int workers;
+        private final long firstUserId;
+        private final String passwordHash;
+        private final long seed;
+        private final LocalDate desde;
+        private final LocalDate hasta;
+        private final int meses;
+
+        private Plan(SyntheticDataProperties properties, long firstUserId, String passwordHash) {
+            this.roles = List.copyOf(properties.getRoles());
+            this.workersPerRole = properties.getWorkersPerRole();
+            this.workers = properties.getCentros() * roles.size() * workersPerRole;
+            this.firstUserId = firstUserId;
+            this.passwordHash = passwordHash;
+            this.seed = properties.getSeed();
+            LocalDate hoy = LocalDate.now();
+            this.desde = hoy.minusYears(properties.getYears()).withDayOfMonth(1);
+            this.hasta = hoy.plusMonths(properties.getFutureMonths()).withDayOfMonth(1);
+            this.meses = properties.getYears() * 12 + properties.getFutureMonths();
+        }
+
+        int bloques() {
+            return workers / workersPerRole;
+        }
+
+        int worker(int centro, int rol, int n) {
+            return (centro * roles.size() + rol) * workersPerRole + n;
+        }
+
+        long userId(int worker) {
+            return firstUserId + worker;
+        }
+
+        String username(int centro, int rol, int n) {
+            String corto = roles.get(rol).replace("ROLE_", "").toLowerCase(Locale.ROOT);
+            String username = "c" + (centro + 1) + "_" + corto + "_" + (n + 1);
+            // Si ya había usuarios (skipIfNotEmpty=false) se añade el primer id para no repetir nombres
+            return firstUserId == 1 ? username : username + "_" + firstUserId;
+        }
+
+        String centroTrabajo(int centro) {
+            return "Centro " + (centro + 1);
+        }
+
+        /**
+         * Semilla derivada por tipo de dato y trabajador: el resultado no depende del reparto entre hilos
+         */
+        SplittableRandom random(String tipo, int indice) {
+            return new SplittableRandom(seed * 1_000_003L + tipo.hashCode() * 31L + indice);
+        }
+    }
+}
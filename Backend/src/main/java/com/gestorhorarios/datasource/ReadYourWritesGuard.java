@@ -0,0 +1,34 @@
+package com.gestorhorarios.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Protección frente al retraso de replicación: recuerda qué usuarios han escrito
+ * recientemente para que sus lecturas vayan a la base de datos principal durante
+ * una ventana de tiempo y así vean siempre sus propios cambios.
+ */
+public class ReadYourWritesGuard {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesGuard(Duration window) {
+        // Las entradas caducan solas al terminar la ventana; el tamaño máximo acota la memoria
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public void recordWrite(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    public boolean requiresPrimary(String username) {
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.gestorhorarios.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que envía las transacciones {@code @Transactional(readOnly = true)} a las réplicas
+ * (en round-robin) y todo lo demás a la principal. Debe usarse detrás de un
+ * LazyConnectionDataSourceProxy: la conexión física se pide en la primera sentencia, cuando
+ * Spring ya ha marcado la transacción como de solo lectura.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final List<DataSource> replicas;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                    ReadYourWritesGuard readYourWritesGuard) {
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesGuard = readYourWritesGuard;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // Una clave desconocida es un error de programación, no debe acabar silenciosamente en la principal
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean transactionActive = TransactionSynchronizationManager.isActualTransactionActive();
+        String username = currentUsername();
+
+        if (transactionActive && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!replicaKeys.isEmpty() && !readYourWritesGuard.requiresPrimary(username)) {
+                String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+                logger.trace("Transacción de solo lectura enrutada a {}", key);
+                return key;
+            }
+            logger.trace("Lectura de {} enrutada a la principal (escritura reciente)", username);
+            return PRIMARY;
+        }
+
+        if (transactionActive && username != null) {
+            markWriteOnCommit(username);
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Registra (una sola vez por transacción) que el usuario ha escrito, en cuanto la transacción se confirme
+     */
+    private void markWriteOnCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteMarker) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteMarker(username));
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    @Override
+    public void destroy() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+
+    private final class WriteMarker implements TransactionSynchronization {
+        private final String username;
+
+        private WriteMarker(String username) {
+            this.username = username;
+        }
+
+        @Override
+        public void afterCommit() {
+            readYourWritesGuard.recordWrite(username);
+        }
+    }
+}
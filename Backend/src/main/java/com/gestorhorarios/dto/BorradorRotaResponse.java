@@ -0,0 +1,90 @@
+package com.gestorhorarios.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gestorhorarios.generador.Hueco;
+import com.gestorhorarios.generador.ProblemaRota;
+import com.gestorhorarios.generador.Solucion;
+import com.gestorhorarios.generador.TrabajoGeneracion;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progreso de una generación de rota y el mejor borrador encontrado hasta ahora
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BorradorRotaResponse {
+    private String id;
+    private TrabajoGeneracion.Estado estado;
+    private String error;
+    private String centro;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private long iteraciones;
+    private long milisegundos;
+    private int huecos;
+    private int cubiertos;
+    private Double penalizacion;
+    private List<TurnoPropuesto> turnos;
+    private List<TurnoPropuesto> sinCubrir;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class TurnoPropuesto {
+        // Null en los huecos sin cubrir
+        private Long usuarioId;
+        private LocalDate fecha;
+        private Role rol;
+        private Horario.TipoTurno tipoTurno;
+        private LocalTime horaInicio;
+        private LocalTime horaFin;
+    }
+
+    /**
+     * @param conTurnos incluir el borrador completo y no solo el progreso
+     */
+    public static BorradorRotaResponse fromTrabajo(TrabajoGeneracion trabajo, boolean conTurnos) {
+        ProblemaRota problema = trabajo.getProblema();
+        Solucion mejor = trabajo.getMejor();
+
+        BorradorRotaResponse response = new BorradorRotaResponse();
+        response.setId(trabajo.getId());
+        response.setEstado(trabajo.getEstado());
+        response.setError(trabajo.getError());
+        response.setCentro(trabajo.getCentro());
+        response.setDesde(problema.getDesde());
+        response.setHasta(problema.getHasta());
+        response.setIteraciones(trabajo.getIteraciones());
+        response.setMilisegundos(trabajo.getTranscurrido().toMillis());
+        response.setHuecos(problema.numHuecos());
+        if (mejor == null) {
+            return response;
+        }
+        response.setCubiertos(problema.numHuecos() - mejor.sinCubrir());
+        response.setPenalizacion(mejor.penalizacion());
+        if (conTurnos) {
+            List<TurnoPropuesto> turnos = new ArrayList<>();
+            List<TurnoPropuesto> sinCubrir = new ArrayList<>();
+            for (Hueco hueco : problema.getHuecos()) {
+                int trabajador = mejor.asignacion()[hueco.indice()];
+                TurnoPropuesto turno = new TurnoPropuesto(trabajador >= 0 ? problema.usuarioId(trabajador) : null,
+                        hueco.fecha(), hueco.rol(), hueco.tipoTurno(), hueco.horaInicio(), hueco.horaFin());
+                (trabajador >= 0 ? turnos : sinCubrir).add(turno);
+            }
+            response.setTurnos(turnos);
+            response.setSinCubrir(sinCubrir);
+        }
+        return response;
+    }
+}
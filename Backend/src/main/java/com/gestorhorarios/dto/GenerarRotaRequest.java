@@ -0,0 +1,55 @@
+package com.gestorhorarios.dto;
+
+import com.gestorhorarios.model.Horario;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+public class GenerarRotaRequest {
+    @NotBlank(message = "El centro de trabajo es obligatorio")
+    private String centro;
+
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    private LocalDate desde;
+
+    @NotNull(message = "La fecha de fin es obligatoria")
+    private LocalDate hasta;
+
+    // Tiempo de búsqueda; sin indicar se usa app.horarios.generador.tiempo
+    @Min(value = 1, message = "El tiempo de búsqueda debe ser de al menos un segundo")
+    private Integer segundos;
+
+    @NotEmpty(message = "La demanda es obligatoria")
+    private List<@Valid Demanda> demandas;
+
+    /**
+     * Personas que hacen falta de un rol en un tipo de turno
+     */
+    @Data
+    public static class Demanda {
+        // Sin fecha la demanda se repite todos los días del rango
+        private LocalDate fecha;
+
+        @NotBlank(message = "El rol es obligatorio")
+        private String rol;
+
+        @NotNull(message = "El tipo de turno es obligatorio")
+        private Horario.TipoTurno tipoTurno;
+
+        // Sin horas se usan las habituales del tipo de turno
+        private LocalTime horaInicio;
+
+        private LocalTime horaFin;
+
+        @Min(value = 1, message = "Hace falta al menos una persona")
+        private int personas = 1;
+    }
+}
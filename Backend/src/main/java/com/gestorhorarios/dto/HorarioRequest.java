@@ -26,6 +26,7 @@ public class HorarioRequest {
     @NotNull(message = "La hora de inicio es obligatoria")
     private LocalTime horaInicio;
     
+    // Si es anterior a la hora de inicio, el turno acaba al día siguiente; no puede ser igual
     @NotNull(message = "La hora de fin es obligatoria")
     private LocalTime horaFin;
     
@@ -0,0 +1,24 @@
+package com.gestorhorarios.dto;
+
+import com.gestorhorarios.model.TurnoPlantilla;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class PlantillaRotaRequest {
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    private LocalDate fechaInicio;
+
+    // Sin fecha fin la plantilla sigue vigente hasta que se termine
+    private LocalDate fechaFin;
+
+    private String rol;
+
+    // Un elemento por día del ciclo; los días libres llevan libre = true
+    @NotEmpty(message = "El ciclo es obligatorio")
+    private List<TurnoPlantilla> ciclo;
+}
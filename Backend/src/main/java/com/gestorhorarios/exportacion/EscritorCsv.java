@@ -0,0 +1,74 @@
+package com.gestorhorarios.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV según RFC 4180 (separado por comas, UTF-8, fin de línea CRLF)
+ */
+class EscritorCsv implements EscritorHorarios {
+
+    private final Writer writer;
+
+    EscritorCsv(OutputStream salida) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        linea(FilaHorario.CABECERA);
+    }
+
+    @Override
+    public void escribir(FilaHorario fila) throws IOException {
+        linea(String.valueOf(fila.usuarioId()), texto(fila.usuario()), texto(fila.nombre()), texto(fila.apellidos()),
+                fila.rol(), String.valueOf(fila.fecha()), hora(fila), horaFin(fila), fila.tipoTurno(),
+                String.valueOf(fila.intercambiado()));
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        // La salida es de la respuesta: no se cierra aquí
+    }
+
+    private void linea(String... campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(campo(campos[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String hora(FilaHorario fila) {
+        return fila.horaInicio() != null ? fila.horaInicio().toString() : null;
+    }
+
+    private static String horaFin(FilaHorario fila) {
+        return fila.horaFin() != null ? fila.horaFin().toString() : null;
+    }
+
+    // Los textos que escribe el usuario no pueden empezar como una fórmula al abrirlos en una hoja de cálculo
+    static String texto(String valor) {
+        if (valor != null && !valor.isEmpty() && "=+-@\t\r".indexOf(valor.charAt(0)) >= 0) {
+            return "'" + valor;
+        }
+        return valor;
+    }
+
+    static String campo(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,15 @@
+package com.gestorhorarios.exportacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escribe las filas de la exportación según llegan, sin guardarlas
+ */
+interface EscritorHorarios extends Closeable {
+
+    void escribir(FilaHorario fila) throws IOException;
+
+    /** Termina el fichero en la salida (no cierra la salida) */
+    void terminar() throws IOException;
+}
@@ -0,0 +1,105 @@
+package com.gestorhorarios.exportacion;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalTime;
+
+/**
+ * Hoja Excel con SXSSF: en memoria solo quedan las últimas filas (app.horarios.exportacion.filas-en-memoria),
+ * las demás se escriben comprimidas en un fichero temporal que se copia a la salida al terminar.
+ * Si se llega al máximo de filas de una hoja se sigue en otra.
+ */
+class EscritorXlsx implements EscritorHorarios {
+
+    // Filas de datos por hoja: el máximo de Excel menos la cabecera
+    static final int MAX_FILAS_HOJA = 1_048_575;
+
+    private final SXSSFWorkbook workbook;
+    private final OutputStream salida;
+    private final CellStyle estiloFecha;
+    private final CellStyle estiloHora;
+    private final int maxFilasHoja;
+    private Sheet hoja;
+    private int filas;
+
+    EscritorXlsx(OutputStream salida, int filasEnMemoria) {
+        this(salida, filasEnMemoria, MAX_FILAS_HOJA);
+    }
+
+    EscritorXlsx(OutputStream salida, int filasEnMemoria, int maxFilasHoja) {
+        this.salida = salida;
+        this.maxFilasHoja = maxFilasHoja;
+        this.workbook = new SXSSFWorkbook(filasEnMemoria);
+        this.workbook.setCompressTempFiles(true);
+        short formatoFecha = workbook.createDataFormat().getFormat("yyyy-mm-dd");
+        short formatoHora = workbook.createDataFormat().getFormat("hh:mm");
+        this.estiloFecha = workbook.createCellStyle();
+        this.estiloFecha.setDataFormat(formatoFecha);
+        this.estiloHora = workbook.createCellStyle();
+        this.estiloHora.setDataFormat(formatoHora);
+        nuevaHoja();
+    }
+
+    @Override
+    public void escribir(FilaHorario fila) {
+        if (filas == maxFilasHoja) {
+            nuevaHoja();
+        }
+        Row row = hoja.createRow(++filas);
+        row.createCell(0).setCellValue(fila.usuarioId());
+        texto(row, 1, fila.usuario());
+        texto(row, 2, fila.nombre());
+        texto(row, 3, fila.apellidos());
+        texto(row, 4, fila.rol());
+        Cell fecha = row.createCell(5);
+        fecha.setCellValue(fila.fecha());
+        fecha.setCellStyle(estiloFecha);
+        hora(row, 6, fila.horaInicio());
+        hora(row, 7, fila.horaFin());
+        texto(row, 8, fila.tipoTurno());
+        row.createCell(9).setCellValue(fila.intercambiado());
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        workbook.write(salida);
+        salida.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Borra los ficheros temporales de las hojas
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void nuevaHoja() {
+        hoja = workbook.createSheet("Horarios" + (workbook.getNumberOfSheets() > 0 ? " " + (workbook.getNumberOfSheets() + 1) : ""));
+        Row cabecera = hoja.createRow(0);
+        for (int i = 0; i < FilaHorario.CABECERA.length; i++) {
+            cabecera.createCell(i).setCellValue(FilaHorario.CABECERA[i]);
+        }
+        filas = 0;
+    }
+
+    private static void texto(Row row, int columna, String valor) {
+        if (valor != null) {
+            row.createCell(columna).setCellValue(valor);
+        }
+    }
+
+    // Las horas son fracciones de día con formato de hora
+    private void hora(Row row, int columna, LocalTime valor) {
+        if (valor != null) {
+            Cell cell = row.createCell(columna);
+            cell.setCellValue(valor.toSecondOfDay() / 86_400.0);
+            cell.setCellStyle(estiloHora);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.gestorhorarios.exportacion;
+
+import com.gestorhorarios.config.ExportacionProperties;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.gestorhorarios.service.HorarioArchivoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Exporta los horarios de un periodo a CSV o Excel escribiendo cada fila según llega del cursor,
+ * sin cargar el periodo en memoria. Se lee mes a mes: cada mes es una consulta ordenada por fecha
+ * (horarios y, si hace falta, horarios_archivo) que se mezcla en orden con los días de las
+ * plantillas de rota de ese mes, así que en memoria solo hay como mucho un mes de días de rota.
+ *
+ * El cursor es de solo avance y lectura. En MySQL se pide con fetchSize = Integer.MIN_VALUE, que es
+ * como Connector/J envía las filas de una en una en lugar de leer el resultado entero; los demás
+ * drivers usan app.horarios.exportacion.fetch-size.
+ */
+@Service
+public class ExportacionHorariosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionHorariosService.class);
+
+    private static final String SELECT_HORARIOS = "SELECT h.usuario_id, u.username, u.nombre, u.apellidos, h.rol, " +
+            "h.fecha, h.hora_inicio, h.hora_fin, h.tipo_turno, h.intercambiado " +
+            "FROM horarios h JOIN users u ON u.id = h.usuario_id WHERE h.fecha BETWEEN ? AND ?";
+
+    // El archivo no tiene clave foránea: se conservan las filas de usuarios borrados
+    private static final String SELECT_ARCHIVO = "SELECT a.usuario_id, u.username, u.nombre, u.apellidos, a.rol, " +
+            "a.fecha, a.hora_inicio, a.hora_fin, a.tipo_turno, a.intercambiado " +
+            "FROM horarios_archivo a LEFT JOIN users u ON u.id = a.usuario_id WHERE a.fecha BETWEEN ? AND ?";
+
+    private static final String ORDEN = " ORDER BY fecha, hora_inicio, usuario_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HorarioArchivoService horarioArchivoService;
+    private final ExpansionRota expansionRota;
+    private final ExportacionProperties properties;
+    private volatile Boolean mysql;
+
+    public ExportacionHorariosService(JdbcTemplate jdbcTemplate,
+                                      HorarioArchivoService horarioArchivoService,
+                                      ExpansionRota expansionRota,
+                                      ExportacionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.horarioArchivoService = horarioArchivoService;
+        this.expansionRota = expansionRota;
+        this.properties = properties;
+    }
+
+    public void validarPeriodo(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= properties.getMaxDias()) {
+            throw new IllegalArgumentException("El periodo no puede superar los " + properties.getMaxDias() + " días");
+        }
+    }
+
+    /**
+     * Escribe en la salida los horarios de [desde, hasta] ordenados por fecha, hora de inicio y usuario
+     * @return filas escritas
+     */
+    public long exportar(LocalDate desde, LocalDate hasta, FormatoExportacion formato, OutputStream salida) throws IOException {
+        validarPeriodo(desde, hasta);
+        long inicio = System.nanoTime();
+        long filas = 0;
+        try (EscritorHorarios escritor = formato == FormatoExportacion.CSV
+                ? new EscritorCsv(salida)
+                : new EscritorXlsx(salida, properties.getFilasEnMemoria())) {
+            for (LocalDate mes = desde; !mes.isAfter(hasta); mes = mes.withDayOfMonth(1).plusMonths(1)) {
+                LocalDate finMes = mes.withDayOfMonth(mes.lengthOfMonth());
+                filas += exportarTramo(mes, finMes.isBefore(hasta) ? finMes : hasta, escritor);
+            }
+            escritor.terminar();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.atInfo()
+                .addKeyValue("desde", desde)
+                .addKeyValue("hasta", hasta)
+                .addKeyValue("formato", formato)
+                .addKeyValue("filas", filas)
+                .addKeyValue("ms", Duration.ofNanos(System.nanoTime() - inicio).toMillis())
+                .log("Exportación de horarios completada");
+        return filas;
+    }
+
+    // Filas guardadas del tramo por el cursor, con los días de rota intercalados en su sitio
+    private long exportarTramo(LocalDate desde, LocalDate hasta, EscritorHorarios escritor) {
+        List<FilaHorario> rota = expansionRota.horariosPeriodo(desde, hasta).stream()
+                .map(FilaHorario::de)
+                .sorted(FilaHorario.POR_FECHA)
+                .toList();
+        boolean conArchivo = horarioArchivoService.incluyeArchivo(desde);
+        String sql = conArchivo ? SELECT_HORARIOS + " UNION ALL " + SELECT_ARCHIVO + ORDEN : SELECT_HORARIOS + ORDEN;
+        Object[] parametros = conArchivo
+                ? new Object[]{Date.valueOf(desde), Date.valueOf(hasta), Date.valueOf(desde), Date.valueOf(hasta)}
+                : new Object[]{Date.valueOf(desde), Date.valueOf(hasta)};
+
+        long[] filas = {0};
+        int[] siguienteRota = {0};
+        jdbcTemplate.query(cursor(sql, parametros), (ResultSet rs) -> {
+            FilaHorario fila = FilaHorario.de(rs);
+            while (siguienteRota[0] < rota.size() && FilaHorario.POR_FECHA.compare(rota.get(siguienteRota[0]), fila) < 0) {
+                escribir(escritor, rota.get(siguienteRota[0]++));
+                filas[0]++;
+            }
+            escribir(escritor, fila);
+            filas[0]++;
+        });
+        for (int i = siguienteRota[0]; i < rota.size(); i++) {
+            escribir(escritor, rota.get(i));
+            filas[0]++;
+        }
+        return filas[0];
+    }
+
+    private PreparedStatementCreator cursor(String sql, Object[] parametros) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(esMysql(con) ? Integer.MIN_VALUE : properties.getFetchSize());
+            for (int i = 0; i < parametros.length; i++) {
+                ps.setObject(i + 1, parametros[i]);
+            }
+            return ps;
+        };
+    }
+
+    private boolean esMysql(Connection con) throws SQLException {
+        if (mysql == null) {
+            mysql = con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        }
+        return mysql;
+    }
+
+    private static void escribir(EscritorHorarios escritor, FilaHorario fila) {
+        try {
+            escritor.escribir(fila);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
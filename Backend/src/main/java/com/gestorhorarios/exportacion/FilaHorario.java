@@ -0,0 +1,41 @@
+package com.gestorhorarios.exportacion;
+
+import com.gestorhorarios.model.Horario;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+
+/**
+ * Una fila de la exportación: un horario guardado, archivado o un día de plantilla de rota
+ */
+public record FilaHorario(Long usuarioId, String usuario, String nombre, String apellidos, String rol,
+                          LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, String tipoTurno,
+                          boolean intercambiado) {
+
+    static final String[] CABECERA = {"usuario_id", "usuario", "nombre", "apellidos", "rol", "fecha",
+            "hora_inicio", "hora_fin", "tipo_turno", "intercambiado"};
+
+    /** Mismo orden que el ORDER BY de la consulta */
+    static final Comparator<FilaHorario> POR_FECHA = Comparator.comparing(FilaHorario::fecha)
+            .thenComparing(FilaHorario::horaInicio, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(FilaHorario::usuarioId);
+
+    static FilaHorario de(ResultSet rs) throws SQLException {
+        return new FilaHorario(rs.getLong("usuario_id"), rs.getString("username"), rs.getString("nombre"),
+                rs.getString("apellidos"), rs.getString("rol"), rs.getObject("fecha", LocalDate.class),
+                rs.getObject("hora_inicio", LocalTime.class), rs.getObject("hora_fin", LocalTime.class),
+                rs.getString("tipo_turno"), rs.getBoolean("intercambiado"));
+    }
+
+    /** Día de rota sin guardar (con el usuario ya cargado) */
+    static FilaHorario de(Horario horario) {
+        return new FilaHorario(horario.getUsuario().getId(), horario.getUsuario().getUsername(),
+                horario.getUsuario().getNombre(), horario.getUsuario().getApellidos(),
+                horario.getRol() != null ? horario.getRol().name() : null, horario.getFecha(),
+                horario.getHoraInicio(), horario.getHoraFin(),
+                horario.getTipoTurno() != null ? horario.getTipoTurno().name() : null, horario.isIntercambiado());
+    }
+}
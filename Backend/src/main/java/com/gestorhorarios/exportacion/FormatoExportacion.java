@@ -0,0 +1,35 @@
+package com.gestorhorarios.exportacion;
+
+import java.util.Locale;
+
+public enum FormatoExportacion {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Formato a partir del parámetro de la petición (csv o xlsx, sin distinguir mayúsculas)
+     */
+    public static FormatoExportacion de(String formato) {
+        try {
+            return valueOf(formato.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato de exportación no válido: " + formato, e);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.gestorhorarios.generador;
+
+import com.gestorhorarios.reglas.ReglaLaboral;
+import com.gestorhorarios.reglas.TurnoLaboral;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * Búsqueda local sobre un {@link ProblemaRota}: parte de un reparto voraz (primero los huecos con
+ * menos candidatos) y lo mejora con recocido simulado hasta agotar el tiempo. Los movimientos son
+ * cubrir un hueco libre, quitarle a un trabajador un turno cercano para que pueda cubrir otro,
+ * pasar un turno a otro trabajador e intercambiar los turnos de dos trabajadores.
+ *
+ * Nunca se acepta un estado que incumpla las reglas laborales: cada turno nuevo se comprueba con
+ * los turnos del trabajador dentro del alcance de las reglas, igual que en ReglasLaboralesService
+ * pero en memoria. Quitar un turno siempre cumple las reglas.
+ *
+ * Cada instancia tiene su propio estado y su semilla; se lanzan varias en paralelo sobre el mismo
+ * problema y el trabajo se queda con la mejor solución.
+ */
+final class BusquedaLocal {
+
+    // Un hueco sin cubrir pesa más que cualquier desequilibrio del reparto
+    private static final double PESO_HUECO = 1e7;
+    private static final double PESO_NOCHE = 64;
+    private static final double PESO_FINDE = 64;
+    // Temperatura inicial del recocido, del orden de lo que cuesta pasar un turno de 8 h a quien tiene 8 h más
+    private static final double TEMPERATURA_INICIAL = 100;
+    private static final long REPORTE_NANOS = Duration.ofMillis(250).toNanos();
+    private static final int ITERACIONES_POR_COMPROBACION = 256;
+
+    private final ProblemaRota problema;
+    private final SplittableRandom random;
+    private final List<ReglaLaboral> reglas;
+    private final Duration alcance;
+
+    private final int[] asignacion;
+    private final List<TreeSet<TurnoLaboral>> turnos;
+    private final long[] minutos;
+    private final int[] noches;
+    private final int[] findes;
+    // Huecos sin cubrir, con la posición de cada uno para quitarlos en O(1)
+    private final int[] libres;
+    private final int[] posicionLibre;
+    private int numLibres;
+    private double penalizacion;
+
+    // Cambios del movimiento en curso (hueco, trabajador anterior) para deshacerlo
+    private final List<int[]> cambios = new ArrayList<>();
+
+    BusquedaLocal(ProblemaRota problema, long semilla) {
+        this.problema = problema;
+        this.random = new SplittableRandom(semilla);
+        this.reglas = problema.getReglas();
+        this.alcance = problema.getAlcance();
+
+        int numHuecos = problema.numHuecos();
+        int numTrabajadores = problema.numTrabajadores();
+        asignacion = new int[numHuecos];
+        Arrays.fill(asignacion, -1);
+        libres = new int[numHuecos];
+        posicionLibre = new int[numHuecos];
+        for (int h = 0; h < numHuecos; h++) {
+            libres[h] = h;
+            posicionLibre[h] = h;
+        }
+        numLibres = numHuecos;
+
+        turnos = new ArrayList<>(numTrabajadores);
+        minutos = new long[numTrabajadores];
+        noches = new int[numTrabajadores];
+        findes = new int[numTrabajadores];
+        for (int t = 0; t < numTrabajadores; t++) {
+            TreeSet<TurnoLaboral> propios = new TreeSet<>(TurnoLaboral.POR_INICIO);
+            propios.addAll(problema.fijos(t));
+            turnos.add(propios);
+            minutos[t] = problema.minutosBase(t);
+            noches[t] = problema.nochesBase(t);
+            findes[t] = problema.findesBase(t);
+            penalizacion += termino(t);
+        }
+    }
+
+    /**
+     * Busca durante el tiempo dado (o hasta que se cancele el trabajo) e informa al trabajo de las
+     * mejoras cada poco
+     * @return la mejor solución de esta búsqueda
+     */
+    Solucion ejecutar(long duracionNanos, TrabajoGeneracion trabajo) {
+        long inicio = System.nanoTime();
+        long fin = inicio + duracionNanos;
+        construir();
+
+        Solucion mejor = foto();
+        double mejorCoste = coste();
+        trabajo.ofrecer(mejor);
+        boolean pendiente = false;
+        long ultimoReporte = inicio;
+        double temperatura = TEMPERATURA_INICIAL;
+
+        long iteracion = 0;
+        while (true) {
+            if (iteracion % ITERACIONES_POR_COMPROBACION == 0) {
+                long ahora = System.nanoTime();
+                if (iteracion > 0) {
+                    trabajo.sumarIteraciones(ITERACIONES_POR_COMPROBACION);
+                }
+                if (ahora >= fin || trabajo.isCancelado()) {
+                    break;
+                }
+                // Enfriamiento lineal con el tiempo que queda
+                temperatura = TEMPERATURA_INICIAL * (fin - ahora) / duracionNanos;
+                if (pendiente && ahora - ultimoReporte >= REPORTE_NANOS) {
+                    trabajo.ofrecer(mejor);
+                    pendiente = false;
+                    ultimoReporte = ahora;
+                }
+            }
+            iteracion++;
+
+            double antes = coste();
+            cambios.clear();
+            if (!mover()) {
+                continue;
+            }
+            double delta = coste() - antes;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperatura)) {
+                if (coste() < mejorCoste - 1e-6) {
+                    mejor = foto();
+                    mejorCoste = coste();
+                    pendiente = true;
+                }
+            } else {
+                deshacer();
+            }
+        }
+        trabajo.ofrecer(mejor);
+        return mejor;
+    }
+
+    // Reparto voraz: los huecos con menos candidatos primero, cada uno al candidato que menos
+    // empeora el reparto. El desempate aleatorio hace que cada búsqueda empiece en otro sitio
+    private void construir() {
+        Integer[] orden = new Integer[problema.numHuecos()];
+        for (int h = 0; h < orden.length; h++) {
+            orden[h] = h;
+        }
+        for (int i = orden.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = orden[i];
+            orden[i] = orden[j];
+            orden[j] = tmp;
+        }
+        Arrays.sort(orden, Comparator.comparingInt(h -> problema.candidatos(h).length));
+
+        for (int h : orden) {
+            int[] candidatos = problema.candidatos(h);
+            Hueco hueco = problema.getHuecos().get(h);
+            int elegido = -1;
+            double menor = Double.MAX_VALUE;
+            int desplazamiento = candidatos.length > 0 ? random.nextInt(candidatos.length) : 0;
+            for (int i = 0; i < candidatos.length; i++) {
+                int t = candidatos[(i + desplazamiento) % candidatos.length];
+                double incremento = incremento(t, hueco);
+                if (incremento < menor && cabe(h, t)) {
+                    elegido = t;
+                    menor = incremento;
+                }
+            }
+            if (elegido >= 0) {
+                asignar(h, elegido);
+            }
+        }
+        cambios.clear();
+    }
+
+    // Aplica un movimiento al azar; devuelve false si no ha cambiado nada
+    private boolean mover() {
+        int tipo = random.nextInt(4);
+        if (numLibres > 0 && tipo < 2) {
+            return tipo == 0 ? cubrir() : expulsar();
+        }
+        return tipo == 3 ? intercambiar() : reasignar();
+    }
+
+    private boolean cubrir() {
+        int h = libres[random.nextInt(numLibres)];
+        int[] candidatos = problema.candidatos(h);
+        if (candidatos.length == 0) {
+            return false;
+        }
+        int desplazamiento = random.nextInt(candidatos.length);
+        for (int i = 0; i < candidatos.length; i++) {
+            int t = candidatos[(i + desplazamiento) % candidatos.length];
+            if (cabe(h, t)) {
+                asignar(h, t);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Quita a un candidato un turno suyo cercano al hueco libre, le da el hueco y prueba a darle
+    // el turno quitado a otro
+    private boolean expulsar() {
+        int h = libres[random.nextInt(numLibres)];
+        int[] candidatos = problema.candidatos(h);
+        if (candidatos.length == 0) {
+            return false;
+        }
+        int t = candidatos[random.nextInt(candidatos.length)];
+        TurnoLaboral turno = problema.getHuecos().get(h).turno();
+        List<Integer> cercanos = new ArrayList<>();
+        for (TurnoLaboral otro : entorno(t, turno)) {
+            int otroHueco = hueco(otro);
+            if (otroHueco >= 0) {
+                cercanos.add(otroHueco);
+            }
+        }
+        if (cercanos.isEmpty()) {
+            return false;
+        }
+        int expulsado = cercanos.get(random.nextInt(cercanos.size()));
+        asignar(expulsado, -1);
+        if (!cabe(h, t)) {
+            deshacer();
+            return false;
+        }
+        asignar(h, t);
+        int[] otros = problema.candidatos(expulsado);
+        int desplazamiento = random.nextInt(otros.length);
+        for (int i = 0; i < otros.length; i++) {
+            int otro = otros[(i + desplazamiento) % otros.length];
+            if (otro != t && cabe(expulsado, otro)) {
+                asignar(expulsado, otro);
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean reasignar() {
+        int h = cubiertoAlAzar();
+        if (h < 0) {
+            return false;
+        }
+        int[] candidatos = problema.candidatos(h);
+        int actual = asignacion[h];
+        int t = candidatos[random.nextInt(candidatos.length)];
+        if (t == actual) {
+            return false;
+        }
+        asignar(h, -1);
+        if (!cabe(h, t)) {
+            deshacer();
+            return false;
+        }
+        asignar(h, t);
+        return true;
+    }
+
+    private boolean intercambiar() {
+        int h1 = cubiertoAlAzar();
+        int h2 = cubiertoAlAzar();
+        if (h1 < 0 || h2 < 0) {
+            return false;
+        }
+        int t1 = asignacion[h1];
+        int t2 = asignacion[h2];
+        if (t1 == t2 || Arrays.binarySearch(problema.candidatos(h1), t2) < 0
+                || Arrays.binarySearch(problema.candidatos(h2), t1) < 0) {
+            return false;
+        }
+        asignar(h1, -1);
+        asignar(h2, -1);
+        if (cabe(h1, t2)) {
+            asignar(h1, t2);
+            if (cabe(h2, t1)) {
+                asignar(h2, t1);
+                return true;
+            }
+        }
+        deshacer();
+        return false;
+    }
+
+    private int cubiertoAlAzar() {
+        int numHuecos = problema.numHuecos();
+        if (numLibres == numHuecos) {
+            return -1;
+        }
+        for (int intento = 0; intento < 8; intento++) {
+            int h = random.nextInt(numHuecos);
+            if (asignacion[h] >= 0) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Comprueba si el trabajador puede hacer el turno del hueco con lo que tiene asignado ahora:
+     * sin solapes y cumpliendo todas las reglas
+     */
+    private boolean cabe(int h, int t) {
+        TurnoLaboral turno = problema.getHuecos().get(h).turno();
+        TreeSet<TurnoLaboral> propios = turnos.get(t);
+        // Un turno dura como mucho un día, así que solo pueden solaparse los que empiezan desde el día anterior
+        for (TurnoLaboral otro : propios.subSet(cota(turno.inicio().minusDays(1)), true, cota(turno.fin()), false)) {
+            if (otro.seSolapaCon(turno)) {
+                return false;
+            }
+        }
+        if (reglas.isEmpty()) {
+            return true;
+        }
+        NavigableSet<TurnoLaboral> vecinos = entorno(t, turno);
+        for (ReglaLaboral regla : reglas) {
+            if (regla.evaluar(turno, vecinos) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Turnos del trabajador que empiezan dentro del alcance de las reglas alrededor del turno
+    private NavigableSet<TurnoLaboral> entorno(int t, TurnoLaboral turno) {
+        return turnos.get(t).subSet(cota(turno.inicio().minus(alcance)), true, cota(turno.fin().plus(alcance)), false);
+    }
+
+    // Turno vacío que queda antes de cualquier otro que empiece a la misma hora
+    private static TurnoLaboral cota(LocalDateTime instante) {
+        return new TurnoLaboral(Long.MIN_VALUE, instante.toLocalDate(), instante, instante, false);
+    }
+
+    // Posición del hueco de un turno asignado por la búsqueda, o -1 si es un turno que ya tenía
+    private int hueco(TurnoLaboral turno) {
+        long id = turno.id();
+        return id < 0 && id >= -problema.numHuecos() ? (int) (-id - 1) : -1;
+    }
+
+    /**
+     * Pone el hueco al trabajador t (o lo deja libre con -1) y apunta el cambio para poder deshacerlo
+     */
+    private void asignar(int h, int t) {
+        cambios.add(new int[]{h, asignacion[h]});
+        aplicar(h, t);
+    }
+
+    private void deshacer() {
+        for (int i = cambios.size() - 1; i >= 0; i--) {
+            int[] cambio = cambios.get(i);
+            aplicar(cambio[0], cambio[1]);
+        }
+        cambios.clear();
+    }
+
+    private void aplicar(int h, int t) {
+        Hueco hueco = problema.getHuecos().get(h);
+        int anterior = asignacion[h];
+        if (anterior >= 0) {
+            actualizar(anterior, hueco, -1);
+            turnos.get(anterior).remove(hueco.turno());
+        } else {
+            quitarLibre(h);
+        }
+        asignacion[h] = t;
+        if (t >= 0) {
+            actualizar(t, hueco, 1);
+            turnos.get(t).add(hueco.turno());
+        } else {
+            ponerLibre(h);
+        }
+    }
+
+    private void actualizar(int t, Hueco hueco, int signo) {
+        penalizacion -= termino(t);
+        minutos[t] += signo * hueco.minutos();
+        noches[t] += hueco.noche() ? signo : 0;
+        findes[t] += hueco.finDeSemana() ? signo : 0;
+        penalizacion += termino(t);
+    }
+
+    private void quitarLibre(int h) {
+        int posicion = posicionLibre[h];
+        int ultimo = libres[--numLibres];
+        libres[posicion] = ultimo;
+        posicionLibre[ultimo] = posicion;
+    }
+
+    private void ponerLibre(int h) {
+        libres[numLibres] = h;
+        posicionLibre[h] = numLibres++;
+    }
+
+    private double incremento(int t, Hueco hueco) {
+        double horas = minutos[t] / 60.0;
+        double horasDespues = (minutos[t] + hueco.minutos()) / 60.0;
+        int n = hueco.noche() ? 1 : 0;
+        int f = hueco.finDeSemana() ? 1 : 0;
+        return horasDespues * horasDespues - horas * horas
+                + PESO_NOCHE * ((noches[t] + n) * (noches[t] + n) - noches[t] * noches[t])
+                + PESO_FINDE * ((findes[t] + f) * (findes[t] + f) - findes[t] * findes[t]);
+    }
+
+    // Contribución del trabajador a la penalización: crece con el cuadrado de horas, noches y fines de semana
+    private double termino(int t) {
+        double horas = minutos[t] / 60.0;
+        return horas * horas + PESO_NOCHE * noches[t] * noches[t] + PESO_FINDE * findes[t] * findes[t];
+    }
+
+    private double coste() {
+        return numLibres * PESO_HUECO + penalizacion;
+    }
+
+    // Copia del estado actual, con la penalización recalculada para no arrastrar errores de redondeo
+    private Solucion foto() {
+        double exacta = 0;
+        for (int t = 0; t < problema.numTrabajadores(); t++) {
+            exacta += termino(t);
+        }
+        return new Solucion(asignacion.clone(), numLibres, exacta);
+    }
+}
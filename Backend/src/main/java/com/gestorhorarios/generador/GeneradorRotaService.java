@@ -0,0 +1,326 @@
+package com.gestorhorarios.generador;
+
+import com.gestorhorarios.cobertura.CoberturaService;
+import com.gestorhorarios.cobertura.TurnoCubierto;
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.ics.CalendarioIcsService;
+import com.gestorhorarios.horas.TurnoTrabajado;
+import com.gestorhorarios.config.GeneradorRotaProperties;
+import com.gestorhorarios.dto.GenerarRotaRequest;
+import com.gestorhorarios.exception.ResourceNotFoundException;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.reglas.ReglaLaboralException;
+import com.gestorhorarios.reglas.ReglasLaboralesService;
+import com.gestorhorarios.reglas.TurnoLaboral;
+import com.gestorhorarios.repository.UserRepository;
+import com.gestorhorarios.service.HorarioService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera borradores de rota para un centro: reparte la demanda de personal (rol, tipo de turno y
+ * día) entre sus trabajadores cumpliendo las reglas laborales y equilibrando horas, noches y
+ * fines de semana.
+ *
+ * La búsqueda se lanza en segundo plano con varias {@link BusquedaLocal} en paralelo, una por
+ * hilo y con distinta semilla, y se consulta por id mientras avanza. El borrador vive en memoria
+ * de esta instancia hasta que caduca; al confirmarlo se vuelven a comprobar las reglas contra la
+ * base de datos y se inserta con un único batch JDBC.
+ */
+@Service
+public class GeneradorRotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorRotaService.class);
+
+    private static final int MAX_DIAS = 366;
+
+    private static final String INSERT_HORARIO = "INSERT INTO horarios (usuario_id, fecha, hora_inicio, hora_fin, " +
+            "tipo_turno, disponible, intercambiado, rol, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Horas de cada tipo de turno cuando la demanda no las indica
+    private static final Map<Horario.TipoTurno, LocalTime[]> HORAS_TIPO = new EnumMap<>(Map.of(
+            Horario.TipoTurno.MANANA, new LocalTime[]{LocalTime.of(8, 0), LocalTime.of(15, 0)},
+            Horario.TipoTurno.TARDE, new LocalTime[]{LocalTime.of(15, 0), LocalTime.of(22, 0)},
+            Horario.TipoTurno.NOCHE, new LocalTime[]{LocalTime.of(22, 0), LocalTime.of(8, 0)},
+            Horario.TipoTurno.COMPLETO, new LocalTime[]{LocalTime.of(8, 0), LocalTime.of(20, 0)}));
+
+    private final UserRepository userRepository;
+    private final HorarioService horarioService;
+    private final ReglasLaboralesService reglasLaboralesService;
+    private final CoberturaService coberturaService;
+    private final HorasMensualesService horasMensualesService;
+    private final CalendarioIcsService calendarioIcsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GeneradorRotaProperties properties;
+    private final int hilos;
+    private final ExecutorService executor;
+    private final Cache<String, TrabajoGeneracion> trabajos;
+
+    public GeneradorRotaService(UserRepository userRepository,
+                                HorarioService horarioService,
+                                ReglasLaboralesService reglasLaboralesService,
+                                CoberturaService coberturaService,
+                                HorasMensualesService horasMensualesService,
+                                CalendarioIcsService calendarioIcsService,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                GeneradorRotaProperties properties) {
+        this.userRepository = userRepository;
+        this.horarioService = horarioService;
+        this.reglasLaboralesService = reglasLaboralesService;
+        this.coberturaService = coberturaService;
+        this.horasMensualesService = horasMensualesService;
+        this.calendarioIcsService = calendarioIcsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.hilos = properties.getHilos() > 0 ? properties.getHilos() : Runtime.getRuntime().availableProcessors();
+        // Las generaciones simultáneas se reparten los mismos hilos: una espera a que otra los suelte
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(hilos, runnable -> {
+            Thread thread = new Thread(runnable, "generador-rota-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.trabajos = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getCaducidad())
+                .removalListener((String id, TrabajoGeneracion trabajo, RemovalCause causa) -> {
+                    if (trabajo != null && trabajo.getEstado() == TrabajoGeneracion.Estado.EN_CURSO) {
+                        trabajo.descartar();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Lee la demanda, los trabajadores del centro y sus turnos, y lanza la búsqueda en segundo plano
+     * @return la generación recién empezada, para consultar su progreso por id
+     */
+    public TrabajoGeneracion generar(GenerarRotaRequest request) {
+        LocalDate desde = request.getDesde();
+        LocalDate hasta = request.getHasta();
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS) {
+            throw new IllegalArgumentException("La rota no puede abarcar más de " + MAX_DIAS + " días");
+        }
+
+        List<Hueco> huecos = huecos(request);
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        huecos.forEach(hueco -> roles.add(hueco.rol()));
+        Map<Long, Set<Role>> rolesPorUsuario = new LinkedHashMap<>();
+        for (UserRepository.TrabajadorRol trabajador : userRepository.findTrabajadoresPorCentro(request.getCentro(), roles)) {
+            rolesPorUsuario.computeIfAbsent(trabajador.getId(), id -> EnumSet.noneOf(Role.class)).add(trabajador.getRol());
+        }
+        if (rolesPorUsuario.isEmpty()) {
+            throw new IllegalArgumentException("El centro " + request.getCentro() + " no tiene trabajadores con esos roles");
+        }
+
+        long diasAlcance = reglasLaboralesService.getAlcance().toDays();
+        Map<Long, List<TurnoLaboral>> turnos = reglasLaboralesService.turnosDeUsuarios(rolesPorUsuario.keySet(),
+                desde.minusDays(diasAlcance), hasta.plusDays(diasAlcance));
+        ProblemaRota problema = new ProblemaRota(desde, hasta, huecos, rolesPorUsuario, turnos,
+                reglasLaboralesService.getReglas(), reglasLaboralesService.getAlcance());
+
+        Duration tiempo = request.getSegundos() != null ? Duration.ofSeconds(request.getSegundos()) : properties.getTiempo();
+        if (tiempo.compareTo(properties.getTiempoMaximo()) > 0) {
+            tiempo = properties.getTiempoMaximo();
+        }
+        TrabajoGeneracion trabajo = new TrabajoGeneracion(UUID.randomUUID().toString(), request.getCentro(), problema, tiempo);
+        trabajos.put(trabajo.getId(), trabajo);
+        lanzar(trabajo);
+        return trabajo;
+    }
+
+    private void lanzar(TrabajoGeneracion trabajo) {
+        long duracionNanos = trabajo.getTiempo().toNanos();
+        long semillaBase = System.nanoTime();
+        CompletableFuture<?>[] busquedas = new CompletableFuture<?>[hilos];
+        for (int i = 0; i < hilos; i++) {
+            long semilla = semillaBase + i;
+            busquedas[i] = CompletableFuture.runAsync(
+                    () -> new BusquedaLocal(trabajo.getProblema(), semilla).ejecutar(duracionNanos, trabajo), executor);
+        }
+        CompletableFuture.allOf(busquedas).whenComplete((resultado, fallo) -> {
+            trabajo.terminar(fallo);
+            Solucion mejor = trabajo.getMejor();
+            logger.atInfo()
+                    .addKeyValue("generacion", trabajo.getId())
+                    .addKeyValue("centro", trabajo.getCentro())
+                    .addKeyValue("estado", trabajo.getEstado())
+                    .addKeyValue("huecos", trabajo.getProblema().numHuecos())
+                    .addKeyValue("sinCubrir", mejor != null ? mejor.sinCubrir() : null)
+                    .addKeyValue("iteraciones", trabajo.getIteraciones())
+                    .addKeyValue("ms", trabajo.getTranscurrido().toMillis())
+                    .log("Generación de rota terminada");
+            if (fallo != null) {
+                logger.error("Error en la generación de rota {}", trabajo.getId(), fallo);
+            }
+        });
+    }
+
+    public TrabajoGeneracion obtener(String id) {
+        TrabajoGeneracion trabajo = trabajos.getIfPresent(id);
+        if (trabajo == null) {
+            throw new ResourceNotFoundException("Generación de rota", "id", id);
+        }
+        return trabajo;
+    }
+
+    /**
+     * Para la búsqueda si sigue en curso y olvida el borrador
+     */
+    public void descartar(String id) {
+        TrabajoGeneracion trabajo = obtener(id);
+        if (trabajo.getEstado() == TrabajoGeneracion.Estado.CONFIRMADA) {
+            throw new IllegalArgumentException("La generación ya está confirmada");
+        }
+        trabajo.descartar();
+        trabajos.invalidate(id);
+    }
+
+    /**
+     * Guarda como horarios los turnos asignados del borrador. Antes vuelve a comprobar las reglas
+     * de cada trabajador con lo que hay ahora en la base de datos, por si ha cambiado algo desde
+     * que se generó; si alguno no cumple no se guarda nada.
+     * @return número de horarios creados
+     */
+    public int confirmar(String id) {
+        TrabajoGeneracion trabajo = obtener(id);
+        Solucion mejor = trabajo.getMejor();
+        if (!trabajo.empezarConfirmacion()) {
+            throw new IllegalArgumentException("Solo se puede confirmar una generación terminada y sin confirmar (estado "
+                    + trabajo.getEstado() + ")");
+        }
+        try {
+            ProblemaRota problema = trabajo.getProblema();
+            Map<Long, List<Hueco>> porUsuario = new HashMap<>();
+            for (Hueco hueco : problema.getHuecos()) {
+                int trabajador = mejor.asignacion()[hueco.indice()];
+                if (trabajador >= 0) {
+                    porUsuario.computeIfAbsent(problema.usuarioId(trabajador), usuarioId -> new ArrayList<>()).add(hueco);
+                }
+            }
+            Integer creados = transactionTemplate.execute(status -> guardar(porUsuario));
+            logger.atInfo()
+                    .addKeyValue("generacion", id)
+                    .addKeyValue("horarios", creados)
+                    .addKeyValue("usuarios", porUsuario.size())
+                    .log("Generación de rota confirmada");
+            return creados != null ? creados : 0;
+        } catch (RuntimeException e) {
+            trabajo.deshacerConfirmacion();
+            throw e;
+        }
+    }
+
+    private int guardar(Map<Long, List<Hueco>> porUsuario) {
+        // Como al crear horarios: los trabajadores se bloquean antes de comprobar sus reglas
+        reglasLaboralesService.bloquear(porUsuario.keySet());
+        List<String> incumplimientos = new ArrayList<>();
+        for (Map.Entry<Long, List<Hueco>> entrada : porUsuario.entrySet()) {
+            List<TurnoLaboral> turnos = entrada.getValue().stream().map(Hueco::turno).toList();
+            for (String incumplimiento : reglasLaboralesService.evaluar(entrada.getKey(), turnos, List.of())) {
+                incumplimientos.add("Usuario " + entrada.getKey() + ": " + incumplimiento);
+            }
+        }
+        if (!incumplimientos.isEmpty()) {
+            throw new ReglaLaboralException(incumplimientos);
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> filas = new ArrayList<>();
+        List<TurnoTrabajado> trabajados = new ArrayList<>();
+        porUsuario.forEach((usuarioId, huecos) -> {
+            for (Hueco hueco : huecos) {
+                filas.add(new Object[]{usuarioId, Date.valueOf(hueco.fecha()), Time.valueOf(hueco.horaInicio()),
+                        Time.valueOf(hueco.horaFin()), hueco.tipoTurno().name(), false, false, hueco.rol().name(),
+                        ahora, ahora});
+                coberturaService.sumar(new TurnoCubierto(hueco.fecha(), hueco.tipoTurno(), hueco.rol()));
+                trabajados.add(new TurnoTrabajado(usuarioId, hueco.fecha(), hueco.horaInicio(), hueco.horaFin(), hueco.tipoTurno()));
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_HORARIO, filas);
+        horasMensualesService.sumar(trabajados);
+        calendarioIcsService.horariosCambiados(porUsuario.keySet());
+        // Las ventanas de las reglas no ven los horarios insertados por JDBC: se recargan
+        porUsuario.keySet().forEach(reglasLaboralesService::olvidar);
+        return filas.size();
+    }
+
+    // Un hueco por persona, día y demanda; el rol se normaliza como en los horarios
+    private List<Hueco> huecos(GenerarRotaRequest request) {
+        List<Hueco> huecos = new ArrayList<>();
+        for (GenerarRotaRequest.Demanda demanda : request.getDemandas()) {
+            Role rol = horarioService.rolPermitido(demanda.getRol());
+            LocalTime[] horas = horas(demanda);
+            LocalDate primero = demanda.getFecha() != null ? demanda.getFecha() : request.getDesde();
+            LocalDate ultimo = demanda.getFecha() != null ? demanda.getFecha() : request.getHasta();
+            if (primero.isBefore(request.getDesde()) || ultimo.isAfter(request.getHasta())) {
+                throw new IllegalArgumentException("La demanda del " + demanda.getFecha() + " está fuera del rango de la rota");
+            }
+            for (LocalDate fecha = primero; !fecha.isAfter(ultimo); fecha = fecha.plusDays(1)) {
+                for (int i = 0; i < demanda.getPersonas(); i++) {
+                    if (huecos.size() == properties.getMaxHuecos()) {
+                        throw new IllegalArgumentException("La demanda supera el máximo de " + properties.getMaxHuecos() +
+                                " turnos por generación");
+                    }
+                    huecos.add(new Hueco(huecos.size(), fecha, rol, demanda.getTipoTurno(), horas[0], horas[1]));
+                }
+            }
+        }
+        return huecos;
+    }
+
+    private static LocalTime[] horas(GenerarRotaRequest.Demanda demanda) {
+        if (demanda.getHoraInicio() != null && demanda.getHoraFin() != null) {
+            if (demanda.getHoraInicio().equals(demanda.getHoraFin())) {
+                throw new IllegalArgumentException("La hora de fin no puede ser igual a la de inicio");
+            }
+            return new LocalTime[]{demanda.getHoraInicio(), demanda.getHoraFin()};
+        }
+        LocalTime[] horas = HORAS_TIPO.get(demanda.getTipoTurno());
+        if (horas == null) {
+            throw new IllegalArgumentException("Los turnos de tipo " + demanda.getTipoTurno() + " necesitan hora de inicio y de fin");
+        }
+        return horas;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package com.gestorhorarios.generador;
+
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.reglas.TurnoLaboral;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Una persona que falta en un turno: lo que pide la demanda de un centro para un rol, tipo de
+ * turno y día. Una demanda de tres personas son tres huecos.
+ *
+ * @param indice posición en el problema; el turno usa -(indice + 1) como id provisional
+ */
+public record Hueco(int indice, LocalDate fecha, Role rol, Horario.TipoTurno tipoTurno,
+                    LocalTime horaInicio, LocalTime horaFin, TurnoLaboral turno) {
+
+    public Hueco(int indice, LocalDate fecha, Role rol, Horario.TipoTurno tipoTurno, LocalTime horaInicio, LocalTime horaFin) {
+        this(indice, fecha, rol, tipoTurno, horaInicio, horaFin,
+                new TurnoLaboral(-(indice + 1L), fecha, horaInicio, horaFin, tipoTurno));
+    }
+
+    public boolean noche() {
+        return turno.noche();
+    }
+
+    public boolean finDeSemana() {
+        return esFinDeSemana(fecha);
+    }
+
+    public long minutos() {
+        return Duration.between(turno.inicio(), turno.fin()).toMinutes();
+    }
+
+    static boolean esFinDeSemana(LocalDate fecha) {
+        return fecha.getDayOfWeek() == DayOfWeek.SATURDAY || fecha.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+}
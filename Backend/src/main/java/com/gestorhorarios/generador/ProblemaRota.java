@@ -0,0 +1,133 @@
+package com.gestorhorarios.generador;
+
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.reglas.ReglaLaboral;
+import com.gestorhorarios.reglas.TurnoLaboral;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Datos de una generación de rota, ya leídos y sin cambios: huecos que cubrir, trabajadores que
+ * pueden cubrir cada uno, turnos que ya tienen y reglas laborales. Lo comparten sin copiarlo
+ * todas las búsquedas en paralelo, así que no se modifica después de crearlo.
+ *
+ * Los trabajadores se identifican por su posición en {@link #getUsuarioIds()}.
+ */
+public final class ProblemaRota {
+
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final List<Hueco> huecos;
+    private final long[] usuarioIds;
+    private final int[][] candidatos;
+    private final List<List<TurnoLaboral>> fijos;
+    private final long[] minutosBase;
+    private final int[] nochesBase;
+    private final int[] findesBase;
+    private final List<ReglaLaboral> reglas;
+    private final Duration alcance;
+
+    /**
+     * @param roles  roles de cada trabajador del centro
+     * @param turnos turnos que ya tiene cada trabajador (guardados y de rota), al menos dentro del
+     *               rango ampliado con el alcance de las reglas
+     */
+    public ProblemaRota(LocalDate desde, LocalDate hasta, List<Hueco> huecos, Map<Long, Set<Role>> roles,
+                        Map<Long, List<TurnoLaboral>> turnos, List<ReglaLaboral> reglas, Duration alcance) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.huecos = List.copyOf(huecos);
+        this.reglas = List.copyOf(reglas);
+        this.alcance = alcance;
+
+        usuarioIds = roles.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        fijos = new ArrayList<>(usuarioIds.length);
+        minutosBase = new long[usuarioIds.length];
+        nochesBase = new int[usuarioIds.length];
+        findesBase = new int[usuarioIds.length];
+        for (int t = 0; t < usuarioIds.length; t++) {
+            List<TurnoLaboral> propios = List.copyOf(turnos.getOrDefault(usuarioIds[t], List.of()));
+            fijos.add(propios);
+            // Lo que ya trabaja dentro del rango cuenta para el reparto
+            for (TurnoLaboral turno : propios) {
+                if (!turno.fecha().isBefore(desde) && !turno.fecha().isAfter(hasta)) {
+                    minutosBase[t] += Duration.between(turno.inicio(), turno.fin()).toMinutes();
+                    nochesBase[t] += turno.noche() ? 1 : 0;
+                    findesBase[t] += Hueco.esFinDeSemana(turno.fecha()) ? 1 : 0;
+                }
+            }
+        }
+
+        candidatos = new int[this.huecos.size()][];
+        for (Hueco hueco : this.huecos) {
+            List<Integer> validos = new ArrayList<>();
+            for (int t = 0; t < usuarioIds.length; t++) {
+                if (roles.get(usuarioIds[t]).contains(hueco.rol())) {
+                    validos.add(t);
+                }
+            }
+            candidatos[hueco.indice()] = validos.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    public List<Hueco> getHuecos() {
+        return huecos;
+    }
+
+    public int numHuecos() {
+        return huecos.size();
+    }
+
+    public int numTrabajadores() {
+        return usuarioIds.length;
+    }
+
+    public long[] getUsuarioIds() {
+        return usuarioIds.clone();
+    }
+
+    public long usuarioId(int trabajador) {
+        return usuarioIds[trabajador];
+    }
+
+    int[] candidatos(int hueco) {
+        return candidatos[hueco];
+    }
+
+    List<TurnoLaboral> fijos(int trabajador) {
+        return fijos.get(trabajador);
+    }
+
+    long minutosBase(int trabajador) {
+        return minutosBase[trabajador];
+    }
+
+    int nochesBase(int trabajador) {
+        return nochesBase[trabajador];
+    }
+
+    int findesBase(int trabajador) {
+        return findesBase[trabajador];
+    }
+
+    List<ReglaLaboral> getReglas() {
+        return reglas;
+    }
+
+    Duration getAlcance() {
+        return alcance;
+    }
+}
@@ -0,0 +1,21 @@
+package com.gestorhorarios.generador;
+
+/**
+ * Borrador de rota: trabajador asignado a cada hueco.
+ *
+ * @param asignacion   posición del trabajador en el problema por cada hueco, o -1 si sigue sin cubrir
+ * @param sinCubrir    huecos sin trabajador
+ * @param penalizacion desequilibrio del reparto de horas, noches y fines de semana (menor es mejor)
+ */
+public record Solucion(int[] asignacion, int sinCubrir, double penalizacion) {
+
+    /**
+     * Primero cuenta la cobertura y después el reparto
+     */
+    public boolean mejorQue(Solucion otra) {
+        if (otra == null || sinCubrir != otra.sinCubrir) {
+            return otra == null || sinCubrir < otra.sinCubrir;
+        }
+        return penalizacion < otra.penalizacion;
+    }
+}
@@ -0,0 +1,132 @@
+package com.gestorhorarios.generador;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Una generación de rota en memoria: progreso de las búsquedas, mejor borrador encontrado y si
+ * ya se ha confirmado. Las búsquedas la actualizan desde sus hilos y los controladores la leen.
+ */
+public class TrabajoGeneracion {
+
+    public enum Estado {
+        EN_CURSO,
+        TERMINADA,
+        CONFIRMADA,
+        DESCARTADA,
+        ERROR
+    }
+
+    private final String id;
+    private final String centro;
+    private final ProblemaRota problema;
+    private final Duration tiempo;
+    private final long inicioNanos = System.nanoTime();
+    private final LongAdder iteraciones = new LongAdder();
+    private final AtomicReference<Estado> estado = new AtomicReference<>(Estado.EN_CURSO);
+    private volatile boolean cancelado;
+    private volatile long duracionNanos = -1;
+    private volatile String error;
+    private Solucion mejor;
+
+    public TrabajoGeneracion(String id, String centro, ProblemaRota problema, Duration tiempo) {
+        this.id = id;
+        this.centro = centro;
+        this.problema = problema;
+        this.tiempo = tiempo;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCentro() {
+        return centro;
+    }
+
+    public ProblemaRota getProblema() {
+        return problema;
+    }
+
+    public Duration getTiempo() {
+        return tiempo;
+    }
+
+    public Estado getEstado() {
+        return estado.get();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getIteraciones() {
+        return iteraciones.sum();
+    }
+
+    /**
+     * Tiempo de búsqueda hasta ahora, o el total si ya terminó
+     */
+    public Duration getTranscurrido() {
+        long duracion = duracionNanos;
+        return Duration.ofNanos(duracion >= 0 ? duracion : System.nanoTime() - inicioNanos);
+    }
+
+    public synchronized Solucion getMejor() {
+        return mejor;
+    }
+
+    /**
+     * Se queda con la solución si mejora la que hay (la llaman todas las búsquedas)
+     */
+    public synchronized void ofrecer(Solucion solucion) {
+        if (solucion.mejorQue(mejor)) {
+            mejor = solucion;
+        }
+    }
+
+    void sumarIteraciones(long n) {
+        iteraciones.add(n);
+    }
+
+    boolean isCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * Para las búsquedas en curso; el borrador ya no se puede confirmar
+     */
+    public void descartar() {
+        cancelado = true;
+        estado.set(Estado.DESCARTADA);
+    }
+
+    /**
+     * Marca el fin de todas las búsquedas (con el error de la primera que falló, si alguna falló)
+     */
+    public void terminar(Throwable fallo) {
+        duracionNanos = System.nanoTime() - inicioNanos;
+        if (fallo != null) {
+            error = fallo.getMessage();
+            estado.compareAndSet(Estado.EN_CURSO, Estado.ERROR);
+        } else {
+            estado.compareAndSet(Estado.EN_CURSO, Estado.TERMINADA);
+        }
+    }
+
+    /**
+     * Pasa a CONFIRMADA si estaba TERMINADA, para que dos peticiones no guarden el mismo borrador
+     * @return false si no estaba terminada o ya se había confirmado
+     */
+    public boolean empezarConfirmacion() {
+        return estado.compareAndSet(Estado.TERMINADA, Estado.CONFIRMADA);
+    }
+
+    /**
+     * Vuelve a TERMINADA cuando falla el guardado del borrador
+     */
+    public void deshacerConfirmacion() {
+        estado.compareAndSet(Estado.CONFIRMADA, Estado.TERMINADA);
+    }
+}
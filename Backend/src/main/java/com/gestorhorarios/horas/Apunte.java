@@ -0,0 +1,21 @@
+package com.gestorhorarios.horas;
+
+/**
+ * Minutos y turnos acumulados (o por sumar, si son negativos) de una fila del registro de horas
+ */
+final class Apunte {
+
+    long minutos;
+    long minutosNocturnos;
+    int turnos;
+
+    void sumar(long minutos, long minutosNocturnos, int turnos) {
+        this.minutos += minutos;
+        this.minutosNocturnos += minutosNocturnos;
+        this.turnos += turnos;
+    }
+
+    boolean vacio() {
+        return minutos == 0 && minutosNocturnos == 0 && turnos == 0;
+    }
+}
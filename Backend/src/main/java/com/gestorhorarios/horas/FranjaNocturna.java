@@ -0,0 +1,31 @@
+package com.gestorhorarios.horas;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Franja diaria de trabajo nocturno (por defecto de 22:00 a 06:00). Si el fin no es posterior al
+ * inicio la franja termina al día siguiente.
+ */
+public record FranjaNocturna(LocalTime inicio, LocalTime fin) {
+
+    /**
+     * Minutos de [desde, hasta) que caen en la franja de algún día
+     */
+    public long minutosEntre(LocalDateTime desde, LocalDateTime hasta) {
+        long minutos = 0;
+        // La franja que empieza el día anterior puede cubrir la madrugada de desde
+        for (LocalDate dia = desde.toLocalDate().minusDays(1); !dia.isAfter(hasta.toLocalDate()); dia = dia.plusDays(1)) {
+            LocalDateTime noche = dia.atTime(inicio);
+            LocalDateTime finNoche = fin.isAfter(inicio) ? dia.atTime(fin) : dia.plusDays(1).atTime(fin);
+            LocalDateTime a = desde.isAfter(noche) ? desde : noche;
+            LocalDateTime b = hasta.isBefore(finNoche) ? hasta : finNoche;
+            if (a.isBefore(b)) {
+                minutos += Duration.between(a, b).toMinutes();
+            }
+        }
+        return minutos;
+    }
+}
@@ -0,0 +1,335 @@
+package com.gestorhorarios.horas;
+
+import com.gestorhorarios.config.HorasMensualesProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.HorasMes;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.repository.HorasMesRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.gestorhorarios.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Registro de horas trabajadas por usuario, mes y tipo de turno (tabla horas_mensuales), para que
+ * los informes de nómina y de horas extra se lean por clave en lugar de sumar todos los horarios.
+ *
+ * Cada alta, cambio, borrado o intercambio de horarios suma o resta su diferencia en la misma
+ * transacción, con un INSERT ... ON DUPLICATE KEY UPDATE por fila afectada: si la transacción se
+ * deshace el registro también. Antes se vuelcan los cambios pendientes de horarios, de modo que
+ * todas las transacciones bloquean primero horarios y después el registro, igual que la
+ * reconstrucción.
+ *
+ * La reconstrucción vuelve a calcular meses enteros desde horarios y horarios_archivo (corrige lo
+ * escrito por otras vías, como el generador de datos sintéticos). Lee los horarios del mes con
+ * FOR UPDATE, así que los cambios de ese mes esperan a que termine en vez de perderse.
+ * Los días de plantillas de rota no se guardan: se suman al leer.
+ */
+@Service
+public class HorasMensualesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HorasMensualesService.class);
+
+    private static final String COLUMNAS = "usuario_id, mes, tipo_turno, minutos, minutos_nocturnos, turnos";
+
+    private static final String SUMAR = "INSERT INTO horas_mensuales (" + COLUMNAS + ") VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE minutos = minutos + VALUES(minutos), " +
+            "minutos_nocturnos = minutos_nocturnos + VALUES(minutos_nocturnos), turnos = turnos + VALUES(turnos)";
+
+    private static final String INSERT = "INSERT INTO horas_mensuales (" + COLUMNAS + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_MES = "DELETE FROM horas_mensuales WHERE mes = ?";
+
+    private static final String SELECT_HORARIOS_MES = "SELECT usuario_id, fecha, hora_inicio, hora_fin, tipo_turno " +
+            "FROM horarios WHERE fecha BETWEEN ? AND ? FOR UPDATE";
+
+    private static final String SELECT_ARCHIVO_MES = "SELECT usuario_id, fecha, hora_inicio, hora_fin, tipo_turno " +
+            "FROM horarios_archivo WHERE fecha BETWEEN ? AND ?";
+
+    // Orden de las filas al escribir: dos transacciones que tocan las mismas filas las bloquean igual
+    private static final Comparator<HorasMes.Clave> POR_CLAVE = Comparator.comparing(HorasMes.Clave::getUsuarioId)
+            .thenComparing(HorasMes.Clave::getMes)
+            .thenComparing(HorasMes.Clave::getTipoTurno);
+
+    private final HorasMesRepository horasMesRepository;
+    private final HorarioRepository horarioRepository;
+    private final UserService userService;
+    private final ExpansionRota expansionRota;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HorasMensualesProperties properties;
+    private final FranjaNocturna franja;
+
+    public HorasMensualesService(HorasMesRepository horasMesRepository,
+                                 HorarioRepository horarioRepository,
+                                 UserService userService,
+                                 ExpansionRota expansionRota,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 HorasMensualesProperties properties) {
+        this.horasMesRepository = horasMesRepository;
+        this.horarioRepository = horarioRepository;
+        this.userService = userService;
+        this.expansionRota = expansionRota;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.franja = new FranjaNocturna(properties.getInicioNocturno(), properties.getFinNocturno());
+    }
+
+    /**
+     * Horas de un usuario en cada mes de [desde, hasta], también los meses sin turnos
+     */
+    @Transactional(readOnly = true)
+    public List<ResumenHoras> getHorasUsuario(Long usuarioId, YearMonth desde, YearMonth hasta) {
+        validarMeses(desde, hasta);
+        User usuario = userService.findUserById(usuarioId);
+
+        Map<HorasMes.Clave, Apunte> apuntes = new HashMap<>();
+        horasMesRepository.findByUsuarioIdAndMesBetween(usuarioId, desde.atDay(1), hasta.atDay(1))
+                .forEach(fila -> acumular(apuntes, fila));
+        expansionRota.horariosUsuario(usuario, desde.atDay(1), hasta.atEndOfMonth())
+                .forEach(horario -> apuntar(apuntes, TurnoTrabajado.de(horario), 1));
+
+        Map<YearMonth, ResumenHoras> porMes = new HashMap<>();
+        resumir(apuntes).forEach(resumen -> porMes.put(resumen.mes(), resumen));
+        List<ResumenHoras> resumenes = new ArrayList<>();
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            ResumenHoras resumen = porMes.get(mes);
+            resumenes.add(resumen != null ? resumen : resumen(usuarioId, mes, Map.of()));
+        }
+        return resumenes;
+    }
+
+    /**
+     * Horas de cada usuario que ha trabajado en el mes, ordenadas por usuario
+     */
+    @Transactional(readOnly = true)
+    public List<ResumenHoras> getHorasMes(YearMonth mes) {
+        Map<HorasMes.Clave, Apunte> apuntes = new HashMap<>();
+        horasMesRepository.findByMes(mes.atDay(1)).forEach(fila -> acumular(apuntes, fila));
+        expansionRota.horariosPeriodo(mes.atDay(1), mes.atEndOfMonth())
+                .forEach(horario -> apuntar(apuntes, TurnoTrabajado.de(horario), 1));
+        return resumir(apuntes);
+    }
+
+    /**
+     * Suma un turno nuevo (debe llamarse dentro de la transacción que lo guarda)
+     */
+    public void sumar(TurnoTrabajado turno) {
+        cambiar(null, turno);
+    }
+
+    /**
+     * Suma de una vez los turnos de un lote
+     */
+    public void sumar(Collection<TurnoTrabajado> turnos) {
+        aplicar(List.of(), turnos);
+    }
+
+    /**
+     * Resta un turno borrado
+     */
+    public void restar(TurnoTrabajado turno) {
+        cambiar(turno, null);
+    }
+
+    /**
+     * Resta el turno como era y suma el turno como ha quedado; no escribe nada si lo que cuenta
+     * no ha cambiado
+     */
+    public void cambiar(TurnoTrabajado antes, TurnoTrabajado despues) {
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        aplicar(antes != null ? List.of(antes) : List.of(), despues != null ? List.of(despues) : List.of());
+    }
+
+    /**
+     * Resta los turnos quitados y suma los nuevos con una escritura por fila del registro que
+     * cambia (un intercambio entre dos personas del mismo mes y tipo son dos filas)
+     */
+    public void aplicar(Collection<TurnoTrabajado> quitados, Collection<TurnoTrabajado> nuevos) {
+        Map<HorasMes.Clave, Apunte> cambios = new HashMap<>();
+        quitados.forEach(turno -> apuntar(cambios, turno, -1));
+        nuevos.forEach(turno -> apuntar(cambios, turno, 1));
+        cambios.values().removeIf(Apunte::vacio);
+        if (cambios.isEmpty()) {
+            return;
+        }
+        horarioRepository.flush();
+        jdbcTemplate.batchUpdate(SUMAR, filas(cambios));
+    }
+
+    @Scheduled(cron = "${app.horarios.horas.cron:0 0 4 * * *}")
+    public void reconstruirProgramado() {
+        if (properties.isReconstruccionEnabled()) {
+            YearMonth actual = YearMonth.now();
+            reconstruirMeses(actual.minusMonths(properties.getMesesAtras()), actual.plusMonths(properties.getMesesAdelante()));
+        }
+    }
+
+    /**
+     * Con la tabla vacía (recién creada) se reconstruye entera, del primer horario al último
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirSiVacio() {
+        if (!properties.isReconstruccionEnabled()
+                || !jdbcTemplate.queryForList("SELECT 1 FROM horas_mensuales LIMIT 1", Integer.class).isEmpty()) {
+            return;
+        }
+        LocalDate primero = limite("MIN", true);
+        LocalDate ultimo = limite("MAX", false);
+        if (primero == null) {
+            return;
+        }
+        reconstruirMeses(YearMonth.from(primero), YearMonth.from(ultimo));
+    }
+
+    /**
+     * Vuelve a calcular los meses de [desde, hasta], uno por transacción
+     * @return filas escritas en el registro
+     */
+    public int reconstruir(YearMonth desde, YearMonth hasta) {
+        validarMeses(desde, hasta);
+        return reconstruirMeses(desde, hasta);
+    }
+
+    private int reconstruirMeses(YearMonth desde, YearMonth hasta) {
+        long inicio = System.nanoTime();
+        int filas = 0;
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            YearMonth actual = mes;
+            filas += transactionTemplate.execute(status -> reconstruirMes(actual));
+        }
+        logger.atInfo()
+                .addKeyValue("desde", desde)
+                .addKeyValue("hasta", hasta)
+                .addKeyValue("filas", filas)
+                .addKeyValue("ms", Duration.ofNanos(System.nanoTime() - inicio).toMillis())
+                .log("Registro de horas reconstruido");
+        return filas;
+    }
+
+    private int reconstruirMes(YearMonth mes) {
+        LocalDate primero = mes.atDay(1);
+        LocalDate ultimo = mes.atEndOfMonth();
+        Map<HorasMes.Clave, Apunte> apuntes = new HashMap<>();
+        RowCallbackHandler fila = rs -> {
+            String tipo = rs.getString("tipo_turno");
+            apuntar(apuntes, new TurnoTrabajado(rs.getLong("usuario_id"), rs.getObject("fecha", LocalDate.class),
+                    rs.getObject("hora_inicio", LocalTime.class), rs.getObject("hora_fin", LocalTime.class),
+                    tipo != null ? Horario.TipoTurno.valueOf(tipo) : null), 1);
+        };
+        // Primero horarios: si el archivado mueve filas del mes a la vez, se esperan y se leen en el archivo
+        jdbcTemplate.query(SELECT_HORARIOS_MES, fila, primero, ultimo);
+        jdbcTemplate.query(SELECT_ARCHIVO_MES, fila, primero, ultimo);
+
+        jdbcTemplate.update(DELETE_MES, Date.valueOf(primero));
+        apuntes.values().removeIf(Apunte::vacio);
+        jdbcTemplate.batchUpdate(INSERT, filas(apuntes));
+        return apuntes.size();
+    }
+
+    private void validarMeses(YearMonth desde, YearMonth hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El mes final no puede ser anterior al inicial");
+        }
+        if (ChronoUnit.MONTHS.between(desde, hasta) >= properties.getMaxMeses()) {
+            throw new IllegalArgumentException("El periodo no puede superar los " + properties.getMaxMeses() + " meses");
+        }
+    }
+
+    private void apuntar(Map<HorasMes.Clave, Apunte> apuntes, TurnoTrabajado turno, int signo) {
+        if (turno == null) {
+            return;
+        }
+        apuntes.computeIfAbsent(new HorasMes.Clave(turno.usuarioId(), turno.mes(), turno.tipoApuntado()), clave -> new Apunte())
+                .sumar(signo * turno.minutos(), signo * turno.minutosNocturnos(franja), signo);
+    }
+
+    private static void acumular(Map<HorasMes.Clave, Apunte> apuntes, HorasMes fila) {
+        apuntes.computeIfAbsent(new HorasMes.Clave(fila.getUsuarioId(), fila.getMes(), fila.getTipoTurno()), clave -> new Apunte())
+                .sumar(fila.getMinutos(), fila.getMinutosNocturnos(), fila.getTurnos());
+    }
+
+    private static List<Object[]> filas(Map<HorasMes.Clave, Apunte> apuntes) {
+        List<Object[]> filas = new ArrayList<>(apuntes.size());
+        apuntes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(POR_CLAVE))
+                .forEach(entrada -> {
+                    HorasMes.Clave clave = entrada.getKey();
+                    Apunte apunte = entrada.getValue();
+                    filas.add(new Object[]{clave.getUsuarioId(), Date.valueOf(clave.getMes()), clave.getTipoTurno().name(),
+                            apunte.minutos, apunte.minutosNocturnos, apunte.turnos});
+                });
+        return filas;
+    }
+
+    // Un resumen por usuario y mes, ordenados por usuario y mes
+    private static List<ResumenHoras> resumir(Map<HorasMes.Clave, Apunte> apuntes) {
+        Map<Long, Map<YearMonth, Map<Horario.TipoTurno, Apunte>>> porUsuario = new TreeMap<>();
+        apuntes.forEach((clave, apunte) -> {
+            if (!apunte.vacio()) {
+                porUsuario.computeIfAbsent(clave.getUsuarioId(), id -> new TreeMap<>())
+                        .computeIfAbsent(YearMonth.from(clave.getMes()), mes -> new EnumMap<>(Horario.TipoTurno.class))
+                        .put(clave.getTipoTurno(), apunte);
+            }
+        });
+        List<ResumenHoras> resumenes = new ArrayList<>();
+        porUsuario.forEach((usuarioId, meses) ->
+                meses.forEach((mes, porTipo) -> resumenes.add(resumen(usuarioId, mes, porTipo))));
+        return resumenes;
+    }
+
+    private static ResumenHoras resumen(Long usuarioId, YearMonth mes, Map<Horario.TipoTurno, Apunte> porTipo) {
+        Map<Horario.TipoTurno, ResumenHoras.PorTipo> detalle = new EnumMap<>(Horario.TipoTurno.class);
+        int turnos = 0;
+        long minutos = 0;
+        long minutosNocturnos = 0;
+        for (Map.Entry<Horario.TipoTurno, Apunte> entrada : porTipo.entrySet()) {
+            Apunte apunte = entrada.getValue();
+            detalle.put(entrada.getKey(), new ResumenHoras.PorTipo(apunte.turnos, apunte.minutos, apunte.minutosNocturnos));
+            turnos += apunte.turnos;
+            minutos += apunte.minutos;
+            minutosNocturnos += apunte.minutosNocturnos;
+        }
+        return new ResumenHoras(usuarioId, mes, turnos, minutos, minutosNocturnos, detalle);
+    }
+
+    // Primera o última fecha con horarios contando el archivo (MIN/MAX sobre el índice de fecha de cada tabla)
+    private LocalDate limite(String funcion, boolean menor) {
+        LocalDate vigente = jdbcTemplate.queryForObject("SELECT " + funcion + "(fecha) FROM horarios", LocalDate.class);
+        LocalDate archivada = jdbcTemplate.queryForObject("SELECT " + funcion + "(fecha) FROM horarios_archivo", LocalDate.class);
+        if (vigente == null || archivada == null) {
+            return vigente != null ? vigente : archivada;
+        }
+        return menor == vigente.isBefore(archivada) ? vigente : archivada;
+    }
+}
@@ -0,0 +1,17 @@
+package com.gestorhorarios.horas;
+
+import com.gestorhorarios.model.Horario;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Horas trabajadas por un usuario en un mes, en total y por tipo de turno. Incluye los días de
+ * las plantillas de rota que aún no se han guardado como horarios.
+ */
+public record ResumenHoras(Long usuarioId, YearMonth mes, int turnos, long minutos, long minutosNocturnos,
+                           Map<Horario.TipoTurno, PorTipo> porTipo) {
+
+    public record PorTipo(int turnos, long minutos, long minutosNocturnos) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.gestorhorarios.horas;
+
+import com.gestorhorarios.model.Horario;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Lo que cuenta de un horario en el registro de horas. Se toma antes de cambiar un horario para
+ * poder restar lo que tenía. Si la hora de fin no es posterior a la de inicio el turno termina al
+ * día siguiente, pero todo él se apunta en el mes del día en que empieza.
+ */
+public record TurnoTrabajado(Long usuarioId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin,
+                             Horario.TipoTurno tipoTurno) {
+
+    /**
+     * Turno de un horario, o null si no tiene usuario o fecha
+     */
+    public static TurnoTrabajado de(Horario horario) {
+        if (horario == null || horario.getUsuario() == null || horario.getFecha() == null) {
+            return null;
+        }
+        return new TurnoTrabajado(horario.getUsuario().getId(), horario.getFecha(), horario.getHoraInicio(),
+                horario.getHoraFin(), horario.getTipoTurno());
+    }
+
+    /** Primer día del mes en que se apunta */
+    public LocalDate mes() {
+        return fecha.withDayOfMonth(1);
+    }
+
+    /** Tipo con el que se apunta: OTRO si el horario no tiene */
+    public Horario.TipoTurno tipoApuntado() {
+        return tipoTurno != null ? tipoTurno : Horario.TipoTurno.OTRO;
+    }
+
+    /** Minutos del turno; 0 si le faltan las horas (cuenta como turno sin horas) */
+    public long minutos() {
+        return tieneHoras() ? Duration.between(inicio(), fin()).toMinutes() : 0;
+    }
+
+    /** Minutos del turno dentro de la franja nocturna */
+    public long minutosNocturnos(FranjaNocturna franja) {
+        return tieneHoras() ? franja.minutosEntre(inicio(), fin()) : 0;
+    }
+
+    private boolean tieneHoras() {
+        return horaInicio != null && horaFin != null;
+    }
+
+    private LocalDateTime inicio() {
+        return fecha.atTime(horaInicio);
+    }
+
+    private LocalDateTime fin() {
+        return horaFin.isAfter(horaInicio) ? fecha.atTime(horaFin) : fecha.plusDays(1).atTime(horaFin);
+    }
+}
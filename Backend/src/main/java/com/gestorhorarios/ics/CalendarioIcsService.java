@@ -0,0 +1,205 @@
+package com.gestorhorarios.ics;
+
+import com.gestorhorarios.config.CalendarioIcsProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.gestorhorarios.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Suscripciones de calendario ICS: cada usuario puede tener un token opaco con el que una
+ * aplicación de calendario descarga sus turnos sin iniciar sesión. Del token solo se guarda el
+ * hash SHA-256 en calendario_feeds, junto a una versión de los horarios del usuario.
+ *
+ * Cada alta, cambio, borrado o intercambio de horarios y cada cambio de plantillas de rota sube
+ * la versión de los usuarios afectados en la misma transacción. El calendario generado se guarda
+ * en memoria con su versión y el día de la ventana de fechas, y solo se vuelve a generar cuando
+ * alguno no coincide; así una consulta de una aplicación de calendario cuesta una lectura por
+ * clave de calendario_feeds, o nada más si responde 304 al GET condicional. Como la versión está
+ * en la base de datos, los cambios hechos desde otras instancias se ven en la siguiente consulta.
+ */
+@Service
+public class CalendarioIcsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarioIcsService.class);
+
+    private static final String SELECT_SUSCRIPCION = "SELECT usuario_id, version, fecha_actualizacion " +
+            "FROM calendario_feeds WHERE token_hash = ?";
+
+    // Un token nuevo sustituye al anterior y cambia la versión (el ETag de la URL antigua ya no vale)
+    private static final String GUARDAR_TOKEN = "INSERT INTO calendario_feeds " +
+            "(usuario_id, token_hash, version, fecha_actualizacion) VALUES (?, ?, 0, ?) " +
+            "ON DUPLICATE KEY UPDATE token_hash = VALUES(token_hash), version = version + 1, " +
+            "fecha_actualizacion = VALUES(fecha_actualizacion)";
+
+    private static final String BORRAR_TOKEN = "DELETE FROM calendario_feeds WHERE usuario_id = ?";
+
+    private static final String SUBIR_VERSION = "UPDATE calendario_feeds SET version = version + 1, " +
+            "fecha_actualizacion = ? WHERE usuario_id IN (";
+
+    private static final int USUARIOS_POR_UPDATE = 500;
+    private static final int BYTES_TOKEN = 32;
+    // 32 bytes en Base64 URL sin relleno
+    private static final Pattern FORMATO_TOKEN = Pattern.compile("[A-Za-z0-9_-]{43}");
+
+    private static final Comparator<Horario> POR_FECHA = Comparator.comparing(Horario::getFecha)
+            .thenComparing(Horario::getHoraInicio, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HorarioRepository horarioRepository;
+    private final UserService userService;
+    private final ExpansionRota expansionRota;
+    private final TransactionTemplate lectura;
+    private final CalendarioIcsProperties properties;
+    private final EscritorIcs escritor;
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<Long, FeedIcs> feeds;
+
+    public CalendarioIcsService(JdbcTemplate jdbcTemplate,
+                                HorarioRepository horarioRepository,
+                                UserService userService,
+                                ExpansionRota expansionRota,
+                                PlatformTransactionManager transactionManager,
+                                CalendarioIcsProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.horarioRepository = horarioRepository;
+        this.userService = userService;
+        this.expansionRota = expansionRota;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.properties = properties;
+        this.escritor = new EscritorIcs(properties.getZona(), properties.getRefresco());
+        this.feeds = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxFeedsCacheados())
+                .expireAfterAccess(properties.getCaducidad())
+                .build();
+    }
+
+    /**
+     * Crea el token del usuario o lo cambia por uno nuevo; la URL anterior deja de funcionar.
+     * El token no se puede volver a consultar: solo se guarda su hash.
+     */
+    @Transactional
+    public String generarToken(Long usuarioId) {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        jdbcTemplate.update(GUARDAR_TOKEN, usuarioId, hash(token), Timestamp.from(Instant.now()));
+        logger.atInfo().addKeyValue("usuarioId", usuarioId).log("Token de calendario generado");
+        return token;
+    }
+
+    @Transactional
+    public void revocarToken(Long usuarioId) {
+        jdbcTemplate.update(BORRAR_TOKEN, usuarioId);
+        feeds.invalidate(usuarioId);
+    }
+
+    /**
+     * Estado del feed del token, sin leer horarios; vacío si el token no existe
+     */
+    public Optional<SuscripcionIcs> suscripcion(String token) {
+        if (token == null || !FORMATO_TOKEN.matcher(token).matches()) {
+            return Optional.empty();
+        }
+        LocalDate hoy = LocalDate.now(properties.getZona());
+        Instant inicioDia = hoy.atStartOfDay(properties.getZona()).toInstant();
+        List<SuscripcionIcs> filas = jdbcTemplate.query(SELECT_SUSCRIPCION, (rs, i) -> {
+            Instant actualizado = rs.getTimestamp("fecha_actualizacion").toInstant();
+            return new SuscripcionIcs(rs.getLong("usuario_id"), rs.getLong("version"), hoy,
+                    (actualizado.isAfter(inicioDia) ? actualizado : inicioDia).truncatedTo(ChronoUnit.SECONDS));
+        }, hash(token));
+        return filas.stream().findFirst();
+    }
+
+    /**
+     * Calendario del usuario de la suscripción: el guardado si sigue valiendo o uno nuevo con los
+     * horarios y días de rota de diasAtras a diasAdelante desde hoy
+     */
+    public byte[] contenido(SuscripcionIcs suscripcion) {
+        FeedIcs feed = feeds.getIfPresent(suscripcion.usuarioId());
+        if (feed != null && feed.vale(suscripcion)) {
+            return feed.contenido();
+        }
+        byte[] contenido = lectura.execute(estado -> generar(suscripcion));
+        // Si otra petición ya guardó uno más reciente se conserva ese
+        feeds.asMap().merge(suscripcion.usuarioId(), new FeedIcs(suscripcion.version(), suscripcion.dia(), contenido),
+                (actual, nuevo) -> actual.version() > nuevo.version() || actual.dia().isAfter(nuevo.dia()) ? actual : nuevo);
+        return contenido;
+    }
+
+    /**
+     * Sube la versión del feed de los usuarios cuyos horarios o plantillas cambian en la
+     * transacción actual. Se llama después de guardar los horarios: como en el registro de horas,
+     * se vuelcan antes los cambios pendientes para bloquear siempre primero horarios
+     */
+    public void horariosCambiados(Collection<Long> usuarioIds) {
+        List<Long> ids = usuarioIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        horarioRepository.flush();
+        Timestamp ahora = Timestamp.from(Instant.now());
+        for (int desde = 0; desde < ids.size(); desde += USUARIOS_POR_UPDATE) {
+            List<Long> tramo = ids.subList(desde, Math.min(ids.size(), desde + USUARIOS_POR_UPDATE));
+            List<Object> parametros = new ArrayList<>(tramo.size() + 1);
+            parametros.add(ahora);
+            parametros.addAll(tramo);
+            jdbcTemplate.update(SUBIR_VERSION + String.join(", ", Collections.nCopies(tramo.size(), "?")) + ")",
+                    parametros.toArray());
+        }
+    }
+
+    public void horariosCambiados(Long usuarioId) {
+        horariosCambiados(Collections.singletonList(usuarioId));
+    }
+
+    private byte[] generar(SuscripcionIcs suscripcion) {
+        User usuario = userService.findUserById(suscripcion.usuarioId());
+        LocalDate desde = suscripcion.dia().minusDays(properties.getDiasAtras());
+        LocalDate hasta = suscripcion.dia().plusDays(properties.getDiasAdelante());
+        List<Horario> horarios = new ArrayList<>(horarioRepository.findByUsuarioAndFechaBetween(usuario, desde, hasta));
+        horarios.addAll(expansionRota.horariosUsuario(usuario, desde, hasta));
+        horarios.sort(POR_FECHA);
+        return escritor.escribir(usuario.getId(), "Turnos de " + usuario.getNombre() + " " + usuario.getApellidos(),
+                horarios, suscripcion.ultimaModificacion());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
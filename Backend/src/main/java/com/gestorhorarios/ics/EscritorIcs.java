@@ -0,0 +1,129 @@
+package com.gestorhorarios.ics;
+
+import com.gestorhorarios.model.Horario;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Escribe un calendario iCalendar (RFC 5545) con un evento por horario. Las horas se pasan de la
+ * zona de los horarios a UTC, así que no hace falta VTIMEZONE; si la hora de fin no es posterior a
+ * la de inicio el turno termina al día siguiente y los horarios sin horas son eventos de día entero.
+ * Las líneas terminan en CRLF y se pliegan a 75 octetos.
+ */
+final class EscritorIcs {
+
+    private static final DateTimeFormatter UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DIA = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String FIN_LINEA = "\r\n";
+    private static final int MAX_OCTETOS = 75;
+    private static final String DOMINIO = "@gestorhorarios";
+
+    private final ZoneId zona;
+    private final Duration refresco;
+
+    EscritorIcs(ZoneId zona, Duration refresco) {
+        this.zona = zona;
+        this.refresco = refresco;
+    }
+
+    /**
+     * @param usuarioId dueño de los horarios, para los UID de los días de rota (sin id)
+     * @param nombre nombre del calendario
+     * @param generado DTSTAMP de los eventos; con la misma versión debe ser el mismo para que el
+     *                 contenido no cambie entre instancias
+     */
+    byte[] escribir(Long usuarioId, String nombre, List<Horario> horarios, Instant generado) {
+        StringBuilder ics = new StringBuilder(256 + horarios.size() * 256);
+        linea(ics, "BEGIN:VCALENDAR");
+        linea(ics, "VERSION:2.0");
+        linea(ics, "PRODID:-//Gestor Horarios//Turnos//ES");
+        linea(ics, "CALSCALE:GREGORIAN");
+        linea(ics, "METHOD:PUBLISH");
+        linea(ics, "X-WR-CALNAME:" + texto(nombre));
+        linea(ics, "REFRESH-INTERVAL;VALUE=DURATION:" + refresco);
+        linea(ics, "X-PUBLISHED-TTL:" + refresco);
+        String dtstamp = UTC.format(generado);
+        for (Horario horario : horarios) {
+            linea(ics, "BEGIN:VEVENT");
+            linea(ics, "UID:" + uid(usuarioId, horario));
+            linea(ics, "DTSTAMP:" + dtstamp);
+            if (horario.getHoraInicio() == null || horario.getHoraFin() == null) {
+                linea(ics, "DTSTART;VALUE=DATE:" + DIA.format(horario.getFecha()));
+                linea(ics, "DTEND;VALUE=DATE:" + DIA.format(horario.getFecha().plusDays(1)));
+            } else {
+                LocalDateTime inicio = horario.getFecha().atTime(horario.getHoraInicio());
+                LocalDateTime fin = horario.getHoraFin().isAfter(horario.getHoraInicio())
+                        ? horario.getFecha().atTime(horario.getHoraFin())
+                        : horario.getFecha().plusDays(1).atTime(horario.getHoraFin());
+                linea(ics, "DTSTART:" + UTC.format(inicio.atZone(zona)));
+                linea(ics, "DTEND:" + UTC.format(fin.atZone(zona)));
+            }
+            linea(ics, "SUMMARY:" + texto(resumen(horario)));
+            if (horario.getNotas() != null && !horario.getNotas().isBlank()) {
+                linea(ics, "DESCRIPTION:" + texto(horario.getNotas()));
+            }
+            linea(ics, "TRANSP:OPAQUE");
+            linea(ics, "END:VEVENT");
+        }
+        linea(ics, "END:VCALENDAR");
+        return ics.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // El de un día de rota se mantiene mientras la plantilla lo genere; al guardarlo como horario cambia
+    private static String uid(Long usuarioId, Horario horario) {
+        return horario.getId() != null
+                ? "horario-" + horario.getId() + DOMINIO
+                : "rota-" + usuarioId + "-" + DIA.format(horario.getFecha()) + DOMINIO;
+    }
+
+    private static String resumen(Horario horario) {
+        String resumen = horario.getTipoTurno() == null ? "Turno" : switch (horario.getTipoTurno()) {
+            case MANANA -> "Turno de mañana";
+            case TARDE -> "Turno de tarde";
+            case NOCHE -> "Turno de noche";
+            case COMPLETO -> "Turno completo";
+            case OTRO -> "Turno";
+        };
+        return horario.isIntercambiado() ? resumen + " (intercambiado)" : resumen;
+    }
+
+    // Valor TEXT: se escapan \ ; , y los saltos de línea
+    static String texto(String valor) {
+        StringBuilder escapado = new StringBuilder(valor.length() + 8);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> escapado.append('\\').append(c);
+                case '\n' -> escapado.append("\\n");
+                case '\r' -> { }
+                default -> escapado.append(c);
+            }
+        }
+        return escapado.toString();
+    }
+
+    // Pliega la línea sin partir caracteres: cada continuación empieza por un espacio, que también cuenta
+    static void linea(StringBuilder ics, String contenido) {
+        int octetos = 0;
+        for (int i = 0; i < contenido.length(); ) {
+            int codigo = contenido.codePointAt(i);
+            int longitud = codigo < 0x80 ? 1 : codigo < 0x800 ? 2 : codigo < 0x10000 ? 3 : 4;
+            if (octetos + longitud > MAX_OCTETOS) {
+                ics.append(FIN_LINEA).append(' ');
+                octetos = 1;
+            }
+            ics.appendCodePoint(codigo);
+            octetos += longitud;
+            i += Character.charCount(codigo);
+        }
+        ics.append(FIN_LINEA);
+    }
+}
@@ -0,0 +1,13 @@
+package com.gestorhorarios.ics;
+
+import java.time.LocalDate;
+
+/**
+ * Calendario generado de un usuario, válido mientras coincidan la versión y el día
+ */
+record FeedIcs(long version, LocalDate dia, byte[] contenido) {
+
+    boolean vale(SuscripcionIcs suscripcion) {
+        return version == suscripcion.version() && dia.equals(suscripcion.dia());
+    }
+}
@@ -0,0 +1,20 @@
+package com.gestorhorarios.ics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Estado del feed de un token: versión de los horarios del usuario y día en que se calcula la
+ * ventana de fechas. Basta para responder a un GET condicional sin generar el calendario.
+ * @param ultimaModificacion último cambio de la versión o comienzo del día, lo que sea posterior
+ */
+public record SuscripcionIcs(Long usuarioId, long version, LocalDate dia, Instant ultimaModificacion) {
+
+    /**
+     * ETag del feed (sin comillas): mismo contenido mientras no cambien la versión ni el día
+     */
+    public String etag() {
+        return version + "-" + DateTimeFormatter.BASIC_ISO_DATE.format(dia);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gestorhorarios.logging;
+
+import com.gestorhorarios.config.LoggingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Asigna un id de correlación a cada petición y lo deja en el MDC, de forma que
+ * todas las líneas de log de la petición (incluidas las del appender asíncrono)
+ * se puedan agrupar. Se ejecuta antes que la cadena de Spring Security.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+    public static final String MDC_KEY = "correlationId";
+    // Longitud máxima aceptada para ids recibidos del cliente
+    private static final int MAX_LENGTH = 64;
+
+    private final LoggingProperties loggingProperties;
+
+    public CorrelationIdFilter(LoggingProperties loggingProperties) {
+        this.loggingProperties = loggingProperties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = loggingProperties.getCorrelationHeader();
+        String correlationId = sanitize(request.getHeader(header));
+        if (correlationId == null) {
+            correlationId = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        }
+
+        MDC.put(MDC_KEY, correlationId);
+        response.setHeader(header, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    // Solo se aceptan ids cortos y alfanuméricos para no permitir inyectar texto en los logs
+    private String sanitize(String value) {
+        if (!StringUtils.hasText(value) || value.length() > MAX_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return null;
+            }
+        }
+        return value;
+    }
+}
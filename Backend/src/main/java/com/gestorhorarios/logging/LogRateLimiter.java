@@ -0,0 +1,56 @@
+package com.gestorhorarios.logging;
+
+import com.gestorhorarios.config.LoggingProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Limitador de eventos de log por clave (normalmente el nombre del logger más el tipo de evento).
+ * Usa ventanas fijas de un segundo: dentro de cada ventana se dejan pasar como mucho
+ * {@code app.logging.rate-limit-per-second} eventos y el resto se cuentan como suprimidos,
+ * para informar de ellos en el siguiente evento que sí se escriba.
+ */
+@Component
+public class LogRateLimiter {
+    private static final long WINDOW_MS = 1000L;
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final int limitPerWindow;
+
+    public LogRateLimiter(LoggingProperties loggingProperties) {
+        this.limitPerWindow = Math.max(1, loggingProperties.getRateLimitPerSecond());
+    }
+
+    /**
+     * Intenta obtener permiso para escribir un evento.
+     * @param key Clave del evento
+     * @return -1 si el evento debe descartarse; en otro caso, el número de eventos
+     *         suprimidos desde el último que se escribió con esta clave
+     */
+    public long tryAcquire(String key) {
+        return windows.computeIfAbsent(key, k -> new Window()).tryAcquire(System.currentTimeMillis());
+    }
+
+    private final class Window {
+        private long start;
+        private int count;
+        private long suppressed;
+
+        synchronized long tryAcquire(long now) {
+            if (now - start >= WINDOW_MS) {
+                start = now;
+                count = 0;
+            }
+            if (count >= limitPerWindow) {
+                suppressed++;
+                return -1;
+            }
+            count++;
+            long dropped = suppressed;
+            suppressed = 0;
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.gestorhorarios.logging;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Envuelve el DataSource de la aplicación con datasource-proxy para que los
+ * QueryExecutionListener registrados ({@link SqlLoggingListener}, RecentSqlCapture...)
+ * vean cada consulta con su tiempo de ejecución.
+ * Solo se envuelve el bean "dataSource" (el que usa JPA): si hay enrutado a réplicas,
+ * los pools internos quedan detrás de él y no deben medirse dos veces.
+ */
+@Component
+public class SqlLoggingDataSourcePostProcessor implements BeanPostProcessor {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    private final ObjectProvider<QueryExecutionListener> queryExecutionListeners;
+
+    public SqlLoggingDataSourcePostProcessor(ObjectProvider<QueryExecutionListener> queryExecutionListeners) {
+        this.queryExecutionListeners = queryExecutionListeners;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource
+                && !(bean instanceof ProxyDataSource)) {
+            ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource).name(beanName);
+            queryExecutionListeners.orderedStream().forEach(builder::listener);
+            return builder.build();
+        }
+        return bean;
+    }
+}
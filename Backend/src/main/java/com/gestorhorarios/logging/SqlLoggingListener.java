@@ -0,0 +1,84 @@
+package com.gestorhorarios.logging;
+
+import com.gestorhorarios.config.LoggingProperties;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Registra las consultas SQL en modo producción: solo las lentas (WARN) y, si la petición
+ * ha sido muestreada, todas las de esa petición (INFO). Nunca se escriben los valores
+ * de los parámetros, solo cuántos hay; los literales de texto del SQL también se ocultan.
+ */
+@Component
+public class SqlLoggingListener implements QueryExecutionListener {
+    private static final Logger logger = LoggerFactory.getLogger("com.gestorhorarios.sql");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private final LoggingProperties loggingProperties;
+
+    public SqlLoggingListener(LoggingProperties loggingProperties) {
+        this.loggingProperties = loggingProperties;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Nada que hacer antes de la ejecución
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedMs = execInfo.getElapsedTime();
+        boolean slow = elapsedMs >= loggingProperties.getSqlSlowThresholdMs();
+
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.record(elapsedMs, slow);
+        }
+
+        if (slow) {
+            logger.atWarn()
+                    .addKeyValue("elapsedMs", elapsedMs)
+                    .addKeyValue("batchSize", execInfo.isBatch() ? execInfo.getBatchSize() : null)
+                    .addKeyValue("params", countParameters(queryInfoList))
+                    .addKeyValue("success", execInfo.isSuccess())
+                    .log("Consulta SQL lenta: {}", redact(queryInfoList));
+        } else if (stats != null && stats.isSampled() && logger.isInfoEnabled()) {
+            logger.atInfo()
+                    .addKeyValue("elapsedMs", elapsedMs)
+                    .addKeyValue("params", countParameters(queryInfoList))
+                    .log("Consulta SQL: {}", redact(queryInfoList));
+        }
+    }
+
+    static String redact(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .map(SqlLoggingListener::redact)
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Oculta los literales de texto de una sentencia y la deja en una sola línea
+     */
+    public static String redact(String sql) {
+        return STRING_LITERAL.matcher(sql).replaceAll("'?'").replaceAll("\\s+", " ").trim();
+    }
+
+    private int countParameters(List<QueryInfo> queryInfoList) {
+        int total = 0;
+        for (QueryInfo queryInfo : queryInfoList) {
+            for (List<?> parameters : queryInfo.getParametersList()) {
+                total += parameters.size();
+            }
+        }
+        return total;
+    }
+}
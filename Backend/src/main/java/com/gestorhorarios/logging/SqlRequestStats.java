@@ -0,0 +1,61 @@
+package com.gestorhorarios.logging;
+
+/**
+ * Acumulador por petición del número y tiempo de las consultas SQL.
+ * Vive en un ThreadLocal entre {@link SqlSummaryFilter} (que lo abre y lo cierra)
+ * y {@link SqlLoggingListener} (que registra cada consulta ejecutada en el hilo).
+ */
+public final class SqlRequestStats {
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private final boolean sampled;
+    private int queryCount;
+    private int slowQueryCount;
+    private long elapsedMs;
+
+    private SqlRequestStats(boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    public static SqlRequestStats begin(boolean sampled) {
+        SqlRequestStats stats = new SqlRequestStats(sampled);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return Las estadísticas de la petición en curso, o null si la consulta
+     *         se ejecuta fuera de una petición HTTP (tareas programadas, arranque...)
+     */
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void record(long elapsedMs, boolean slow) {
+        this.queryCount++;
+        this.elapsedMs += elapsedMs;
+        if (slow) {
+            this.slowQueryCount++;
+        }
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public int getQueryCount() {
+        return queryCount;
+    }
+
+    public int getSlowQueryCount() {
+        return slowQueryCount;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+}
@@ -0,0 +1,68 @@
+package com.gestorhorarios.logging;
+
+import com.gestorhorarios.config.LoggingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Abre las estadísticas SQL de cada petición, decide si la petición se muestrea
+ * y al terminar emite una única línea de resumen (número de consultas y tiempo total).
+ * Se ejecuta justo después de {@link CorrelationIdFilter} para que el resumen lleve el id de correlación.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SqlSummaryFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger("com.gestorhorarios.sql.summary");
+    private static final String FEED_CALENDARIO = "/api/calendario/feed/";
+
+    private final LoggingProperties loggingProperties;
+
+    public SqlSummaryFilter(LoggingProperties loggingProperties) {
+        this.loggingProperties = loggingProperties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        double sampleRate = loggingProperties.getSqlSampleRate();
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+
+        long start = System.nanoTime();
+        SqlRequestStats stats = SqlRequestStats.begin(sampled);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlRequestStats.end();
+            // Las peticiones sin acceso a base de datos (health, preflight...) no generan línea
+            if (loggingProperties.isSqlSummaryEnabled() && stats.getQueryCount() > 0) {
+                logger.atInfo()
+                        .addKeyValue("method", request.getMethod())
+                        .addKeyValue("uri", uri(request))
+                        .addKeyValue("status", response.getStatus())
+                        .addKeyValue("sqlCount", stats.getQueryCount())
+                        .addKeyValue("sqlTimeMs", stats.getElapsedMs())
+                        .addKeyValue("slowSql", stats.getSlowQueryCount())
+                        .addKeyValue("sampled", stats.isSampled())
+                        .addKeyValue("elapsedMs", (System.nanoTime() - start) / 1_000_000)
+                        .log("Resumen SQL de la petición");
+            }
+        }
+    }
+
+    // El token del feed de calendario da acceso a los turnos: no se escribe en el log
+    private static String uri(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith(FEED_CALENDARIO) ? FEED_CALENDARIO + "***" : uri;
+    }
+}
@@ -0,0 +1,34 @@
+package com.gestorhorarios.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Día de una plantilla de rota que ya no se calcula a partir del ciclo: se ha guardado en
+ * horarios para cambiarlo o intercambiarlo (y, si luego se borra, ese día queda libre).
+ */
+@Data
+@Entity
+@Table(name = "plantillas_rota_excepciones",
+        uniqueConstraints = @UniqueConstraint(name = "uk_plantillas_rota_excepciones", columnNames = {"plantilla_id", "fecha"}))
+public class ExcepcionPlantilla {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "plantilla_id", nullable = false)
+    private PlantillaRota plantilla;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -38,6 +38,7 @@ public class Horario {
     @Column(name = "hora_inicio")
     private LocalTime horaInicio;
     
+    // Si no es posterior a la hora de inicio, el turno acaba al día siguiente
     @Column(name = "hora_fin")
     private LocalTime horaFin;
     
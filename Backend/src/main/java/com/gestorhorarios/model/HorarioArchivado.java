@@ -0,0 +1,84 @@
+package com.gestorhorarios.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Horario movido a la tabla de archivo (ver V4__create_horarios_archivo.sql).
+ * Solo lectura: las filas las escribe HorarioArchivoService con SQL directo.
+ */
+@Data
+@Entity
+@Immutable
+@Table(name = "horarios_archivo")
+public class HorarioArchivado {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User usuario;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "hora_inicio")
+    private LocalTime horaInicio;
+
+    @Column(name = "hora_fin")
+    private LocalTime horaFin;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_turno")
+    private Horario.TipoTurno tipoTurno;
+
+    private boolean disponible;
+
+    private boolean intercambiado;
+
+    @Column(length = 500)
+    private String notas;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rol")
+    private Role rol;
+
+    @Column(columnDefinition = "TEXT")
+    private String observaciones;
+
+    @Column(name = "fecha_archivado", nullable = false)
+    private LocalDateTime archivadoEn;
+
+    /**
+     * Copia no gestionada con la forma de un Horario, para devolverla junto a los horarios vigentes
+     */
+    public Horario toHorario() {
+        Horario horario = new Horario();
+        horario.setId(id);
+        horario.setUsuario(usuario);
+        horario.setFecha(fecha);
+        horario.setHoraInicio(horaInicio);
+        horario.setHoraFin(horaFin);
+        horario.setCreatedAt(createdAt);
+        horario.setUpdatedAt(updatedAt);
+        horario.setTipoTurno(tipoTurno);
+        horario.setDisponible(disponible);
+        horario.setIntercambiado(intercambiado);
+        horario.setNotas(notas);
+        horario.setRol(rol);
+        horario.setObservaciones(observaciones);
+        return horario;
+    }
+}
@@ -0,0 +1,56 @@
+package com.gestorhorarios.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Horas trabajadas por un usuario en un mes y tipo de turno (ver V7__create_horas_mensuales.sql).
+ * Solo lectura: las filas las escribe HorasMensualesService con SQL directo en la misma
+ * transacción que cambia los horarios.
+ */
+@Data
+@Entity
+@Immutable
+@Table(name = "horas_mensuales")
+@IdClass(HorasMes.Clave.class)
+public class HorasMes {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    // Primer día del mes
+    @Id
+    @Column(name = "mes")
+    private LocalDate mes;
+
+    // Los horarios sin tipo se apuntan como OTRO
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_turno", length = 20)
+    private Horario.TipoTurno tipoTurno;
+
+    @Column(name = "minutos", nullable = false)
+    private long minutos;
+
+    @Column(name = "minutos_nocturnos", nullable = false)
+    private long minutosNocturnos;
+
+    @Column(name = "turnos", nullable = false)
+    private int turnos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long usuarioId;
+        private LocalDate mes;
+        private Horario.TipoTurno tipoTurno;
+    }
+}
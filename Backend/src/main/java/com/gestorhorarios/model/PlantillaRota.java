@@ -0,0 +1,91 @@
+package com.gestorhorarios.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rota fija de un trabajador: un ciclo de días que se repite desde la fecha de inicio.
+ * Los días de la rota no se guardan en horarios; se calculan al leer un rango de fechas.
+ * Solo se crea una fila en horarios cuando un día se cambia o se intercambia, y ese día
+ * queda apuntado como {@link ExcepcionPlantilla} para que la plantilla ya no lo genere.
+ */
+@Data
+@Entity
+@Table(name = "plantillas_rota")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class PlantillaRota {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    @JsonIgnoreProperties({"password", "vehiculosComoPasajero"})
+    private User usuario;
+
+    @NotNull
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDate fechaInicio;
+
+    // Null mientras la plantilla siga vigente
+    @Column(name = "fecha_fin")
+    private LocalDate fechaFin;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rol")
+    private Role rol;
+
+    @ElementCollection
+    @CollectionTable(name = "plantillas_rota_turnos", joinColumns = @JoinColumn(name = "plantilla_id"))
+    @OrderColumn(name = "posicion")
+    private List<TurnoPlantilla> ciclo = new ArrayList<>();
+
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Turno del ciclo que toca en la fecha, o null si es día libre o la plantilla no está vigente
+     */
+    public TurnoPlantilla turnoEn(LocalDate fecha) {
+        if (ciclo.isEmpty() || fecha.isBefore(fechaInicio) || (fechaFin != null && fecha.isAfter(fechaFin))) {
+            return null;
+        }
+        TurnoPlantilla turno = ciclo.get((int) (ChronoUnit.DAYS.between(fechaInicio, fecha) % ciclo.size()));
+        return turno.isLibre() ? null : turno;
+    }
+
+    /**
+     * Horario sin guardar (id null) del día de la rota, o null si ese día no hay turno
+     */
+    public Horario horarioEn(LocalDate fecha) {
+        TurnoPlantilla turno = turnoEn(fecha);
+        if (turno == null) {
+            return null;
+        }
+        Horario horario = new Horario();
+        horario.setUsuario(usuario);
+        horario.setFecha(fecha);
+        horario.setHoraInicio(turno.getHoraInicio());
+        horario.setHoraFin(turno.getHoraFin());
+        horario.setTipoTurno(turno.getTipoTurno());
+        horario.setRol(rol);
+        return horario;
+    }
+}
@@ -0,0 +1,39 @@
+package com.gestorhorarios.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * Un día del ciclo de una {@link PlantillaRota}: un turno o un día libre.
+ * Si la hora de fin no es posterior a la de inicio el turno termina al día siguiente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class TurnoPlantilla {
+
+    @Column(name = "libre", nullable = false)
+    private boolean libre;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_turno")
+    private Horario.TipoTurno tipoTurno;
+
+    @Column(name = "hora_inicio")
+    private LocalTime horaInicio;
+
+    @Column(name = "hora_fin")
+    private LocalTime horaFin;
+
+    public static TurnoPlantilla diaLibre() {
+        return new TurnoPlantilla(true, null, null, null);
+    }
+}
@@ -2,6 +2,8 @@ package com.gestorhorarios.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -16,6 +18,8 @@ import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "vehicles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vehicles")
 @Data
 @Builder(toBuilder = true)
 @NoArgsConstructor
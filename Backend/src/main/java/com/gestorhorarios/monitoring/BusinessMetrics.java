@@ -0,0 +1,87 @@
+package com.gestorhorarios.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Contadores de negocio exportados por Micrometer (ver /actuator/prometheus).
+ * Centraliza los nombres y etiquetas para que todos los servicios los registren igual.
+ */
+@Component
+public class BusinessMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter jwtValid;
+
+    public BusinessMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.jwtValid = Counter.builder("app.jwt.validations")
+                .description("Validaciones de tokens JWT")
+                .tag("result", "valid")
+                .tag("reason", "none")
+                .register(meterRegistry);
+    }
+
+    public void jwtValidated() {
+        jwtValid.increment();
+    }
+
+    /**
+     * @param reason Motivo del rechazo (expired, malformed, ...)
+     */
+    public void jwtRejected(String reason) {
+        Counter.builder("app.jwt.validations")
+                .description("Validaciones de tokens JWT")
+                .tag("result", "rejected")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Cuenta un cambio de estado de una solicitud de cambio de turno.
+     * Si hay una transacción en curso solo se cuenta cuando se confirma.
+     */
+    public void swapTransition(Object from, Object to) {
+        Counter counter = Counter.builder("app.swap.transitions")
+                .description("Cambios de estado de las solicitudes de cambio de turno")
+                .tag("from", String.valueOf(from))
+                .tag("to", String.valueOf(to))
+                .register(meterRegistry);
+        afterCommit(counter::increment);
+    }
+
+    /**
+     * @param action  join o leave
+     * @param success Si la operación terminó correctamente
+     */
+    public void vehicleMembership(String action, boolean success) {
+        Counter counter = Counter.builder("app.vehicle.membership")
+                .description("Altas y bajas de pasajeros en vehículos")
+                .tag("action", action)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry);
+        // Los fallos hacen rollback, así que se cuentan en el momento
+        if (success) {
+            afterCommit(counter::increment);
+        } else {
+            counter.increment();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
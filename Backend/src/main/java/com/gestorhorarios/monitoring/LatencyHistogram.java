@@ -0,0 +1,98 @@
+package com.gestorhorarios.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas fijas en milisegundos.
+ * Sin bloqueos: cada cubeta es un LongAdder, así que se puede registrar desde
+ * cualquier hilo de petición sin contención apreciable. Los percentiles se
+ * aproximan por el límite superior de la cubeta en la que caen.
+ */
+public class LatencyHistogram {
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    // Una cubeta más para los valores por encima del último límite
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMs = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAccumulator maxMs = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long elapsedMs, boolean error) {
+        buckets[bucketIndex(elapsedMs)].increment();
+        count.increment();
+        totalMs.add(elapsedMs);
+        maxMs.accumulate(elapsedMs);
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @param quantile Valor entre 0 y 1 (p. ej. 0.95)
+     * @return Límite superior de la cubeta que contiene el percentil, o el máximo observado
+     *         si cae en la última cubeta
+     */
+    public long percentile(double quantile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxMs.get()) : maxMs.get();
+            }
+        }
+        return maxMs.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        long n = count.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", n);
+        snapshot.put("errors", errors.sum());
+        snapshot.put("meanMs", n == 0 ? 0 : totalMs.sum() / n);
+        snapshot.put("p50Ms", percentile(0.50));
+        snapshot.put("p95Ms", percentile(0.95));
+        snapshot.put("p99Ms", percentile(0.99));
+        snapshot.put("maxMs", maxMs.get());
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            String label = i < BUCKET_BOUNDS_MS.length ? "le" + BUCKET_BOUNDS_MS[i] : "inf";
+            histogram.put(label, buckets[i].sum());
+        }
+        snapshot.put("buckets", histogram);
+        return snapshot;
+    }
+
+    private static int bucketIndex(long elapsedMs) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (elapsedMs <= BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+}
@@ -0,0 +1,24 @@
+package com.gestorhorarios.monitoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan de ejecución capturado para una llamada lenta a repositorio
+ */
+@Getter
+@AllArgsConstructor
+public class QueryPlan {
+    private LocalDateTime capturedAt;
+    private String repositoryMethod;
+    private long repositoryElapsedMs;
+    private long sqlElapsedMs;
+    // SQL con los literales ocultos; los valores de los parámetros no se guardan
+    private String sql;
+    private List<Map<String, Object>> plan;
+    private String error;
+}
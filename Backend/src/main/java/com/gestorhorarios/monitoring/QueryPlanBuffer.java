@@ -0,0 +1,44 @@
+package com.gestorhorarios.monitoring;
+
+import com.gestorhorarios.config.MonitoringProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Buffer circular con los últimos planes de ejecución capturados.
+ * Al llenarse se descarta el más antiguo, así que la memoria usada está acotada.
+ */
+@Component
+public class QueryPlanBuffer {
+    private final Deque<QueryPlan> plans = new ArrayDeque<>();
+    private final int capacity;
+
+    public QueryPlanBuffer(MonitoringProperties monitoringProperties) {
+        this.capacity = Math.max(1, monitoringProperties.getPlanBufferSize());
+    }
+
+    public synchronized void add(QueryPlan plan) {
+        if (plans.size() == capacity) {
+            plans.removeFirst();
+        }
+        plans.addLast(plan);
+    }
+
+    /**
+     * @return Copia de los planes guardados, del más reciente al más antiguo
+     */
+    public synchronized List<QueryPlan> list() {
+        List<QueryPlan> copy = new ArrayList<>(plans);
+        Collections.reverse(copy);
+        return copy;
+    }
+
+    public synchronized void clear() {
+        plans.clear();
+    }
+}
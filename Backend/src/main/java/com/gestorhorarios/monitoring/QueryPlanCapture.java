@@ -0,0 +1,168 @@
+package com.gestorhorarios.monitoring;
+
+import com.gestorhorarios.config.MonitoringProperties;
+import com.gestorhorarios.logging.SqlLoggingListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecuta EXPLAIN sobre las consultas lentas en un hilo propio, fuera del hilo de la petición.
+ * La cola es pequeña y descarta trabajo si se llena: capturar planes nunca debe competir
+ * con el tráfico normal por conexiones del pool.
+ *
+ * Los valores de los parámetros no se guardan: cada parámetro se enlaza con un valor neutro de su
+ * tipo (0, cadena vacía, fecha de hoy...) o NULL. El plan muestra los índices y el tipo de acceso
+ * de la sentencia, aunque las estimaciones de filas pueden diferir de las del valor original.
+ */
+@Component
+public class QueryPlanCapture {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanCapture.class);
+    private static final int QUEUE_SIZE = 16;
+    private static final int MAX_PLAN_ROWS = 50;
+    // Sentencias distintas recordadas a la vez para el periodo de espera entre dos EXPLAIN
+    private static final int MAX_EXPLAINED = 1_000;
+
+    private final DataSource dataSource;
+    private final QueryPlanBuffer queryPlanBuffer;
+    private final MonitoringProperties monitoringProperties;
+    private final Cache<String, Long> lastExplained;
+    private final ThreadPoolExecutor executor;
+
+    public QueryPlanCapture(DataSource dataSource, QueryPlanBuffer queryPlanBuffer,
+                            MonitoringProperties monitoringProperties) {
+        this.dataSource = dataSource;
+        this.queryPlanBuffer = queryPlanBuffer;
+        this.monitoringProperties = monitoringProperties;
+        this.lastExplained = Caffeine.newBuilder()
+                .maximumSize(MAX_EXPLAINED)
+                .expireAfterWrite(Duration.ofMillis(monitoringProperties.getExplainCooldownMs()))
+                .build();
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "query-plan-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Encola la captura del plan si EXPLAIN está activado y la misma sentencia
+     * no se ha analizado dentro del periodo de espera configurado.
+     */
+    public void explainAsync(String repositoryMethod, long repositoryElapsedMs, RecentSqlCapture.CapturedStatement statement) {
+        if (!monitoringProperties.isExplainEnabled()) {
+            return;
+        }
+        // La entrada caduca al terminar el periodo de espera
+        if (lastExplained.asMap().putIfAbsent(statement.sql(), System.currentTimeMillis()) != null) {
+            return;
+        }
+
+        executor.execute(() -> queryPlanBuffer.add(explain(repositoryMethod, repositoryElapsedMs, statement)));
+    }
+
+    private QueryPlan explain(String repositoryMethod, long repositoryElapsedMs, RecentSqlCapture.CapturedStatement statement) {
+        String redactedSql = SqlLoggingListener.redact(statement.sql());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            connection.setReadOnly(true);
+            for (RecentSqlCapture.ParameterSlot parameter : statement.parameters()) {
+                Object value = neutralValue(parameter.type());
+                if (value == null) {
+                    explain.setNull(parameter.index(), Types.NULL);
+                } else {
+                    explain.setObject(parameter.index(), value);
+                }
+            }
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            try (ResultSet resultSet = explain.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next() && rows.size() < MAX_PLAN_ROWS) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        row.put(metaData.getColumnLabel(i), resultSet.getObject(i));
+                    }
+                    rows.add(row);
+                }
+            }
+            logger.atInfo()
+                    .addKeyValue("repositoryMethod", repositoryMethod)
+                    .addKeyValue("rows", rows.size())
+                    .log("Plan de ejecución capturado");
+            return new QueryPlan(LocalDateTime.now(), repositoryMethod, repositoryElapsedMs,
+                    statement.elapsedMs(), redactedSql, rows, null);
+        } catch (Exception e) {
+            logger.warn("No se pudo obtener el plan de ejecución para {}: {}", repositoryMethod, e.getMessage());
+            return new QueryPlan(LocalDateTime.now(), repositoryMethod, repositoryElapsedMs,
+                    statement.elapsedMs(), redactedSql, List.of(), e.getMessage());
+        }
+    }
+
+    // Valor del mismo tipo que el original sin ningún dato de la petición; null si no hay uno sencillo
+    static Object neutralValue(Class<?> type) {
+        if (type == null) {
+            return null;
+        }
+        if (type == Integer.class || type == Short.class || type == Byte.class) {
+            return 0;
+        }
+        if (type == Long.class) {
+            return 0L;
+        }
+        if (type == Double.class || type == Float.class) {
+            return 0.0d;
+        }
+        if (type == BigDecimal.class) {
+            return BigDecimal.ZERO;
+        }
+        if (type == Boolean.class) {
+            return false;
+        }
+        if (type == String.class) {
+            return "";
+        }
+        if (type == LocalDate.class || type == java.sql.Date.class) {
+            return java.sql.Date.valueOf(LocalDate.now());
+        }
+        if (type == LocalDateTime.class || type == Timestamp.class || type == java.util.Date.class) {
+            return Timestamp.valueOf(LocalDateTime.now());
+        }
+        if (type == LocalTime.class || type == Time.class) {
+            return Time.valueOf(LocalTime.MIDNIGHT);
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
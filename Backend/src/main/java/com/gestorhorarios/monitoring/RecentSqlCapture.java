@@ -0,0 +1,97 @@
+package com.gestorhorarios.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Guarda, por hilo, las últimas sentencias SELECT ejecutadas junto con el tipo de sus parámetros.
+ * {@link RepositoryMetrics} las consulta cuando una llamada a repositorio es lenta para
+ * saber qué SQL lanzó y poder pedir su plan de ejecución. Los valores de los parámetros no se
+ * guardan (pueden ser datos personales o tokens): EXPLAIN se repite con valores neutros del
+ * mismo tipo (ver {@link QueryPlanCapture}).
+ */
+@Component
+public class RecentSqlCapture implements QueryExecutionListener {
+    private static final int CAPACITY = 8;
+
+    private static final ThreadLocal<Deque<CapturedStatement>> RECENT = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Nada que hacer antes de la ejecución
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.isBatch() || queryInfoList.size() != 1) {
+            return;
+        }
+        QueryInfo queryInfo = queryInfoList.get(0);
+        String sql = queryInfo.getQuery();
+        if (sql == null || !sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+            return;
+        }
+
+        List<ParameterSlot> parameters = queryInfo.getParametersList().isEmpty()
+                ? List.of()
+                : slots(queryInfo.getParametersList().get(0));
+        if (parameters == null) {
+            return;
+        }
+        long elapsedMs = execInfo.getElapsedTime();
+
+        Deque<CapturedStatement> recent = RECENT.get();
+        if (recent.size() == CAPACITY) {
+            recent.removeFirst();
+        }
+        recent.addLast(new CapturedStatement(System.currentTimeMillis() - elapsedMs, elapsedMs, sql, parameters));
+    }
+
+    /**
+     * @return Las sentencias del hilo actual que empezaron en o después del instante indicado
+     */
+    public List<CapturedStatement> statementsSince(long startedAtMillis) {
+        List<CapturedStatement> statements = new ArrayList<>();
+        for (CapturedStatement statement : RECENT.get()) {
+            if (statement.startedAt() >= startedAtMillis) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    // Posición y tipo de cada parámetro; null si alguno no es posicional (no se puede repetir)
+    private static List<ParameterSlot> slots(List<ParameterSetOperation> operations) {
+        List<ParameterSlot> slots = new ArrayList<>(operations.size());
+        for (ParameterSetOperation operation : operations) {
+            Object[] args = operation.getArgs();
+            if (args == null || args.length == 0 || !(args[0] instanceof Integer index)) {
+                return null;
+            }
+            Class<?> type = ParameterSetOperation.isSetNullParameterOperation(operation) || args.length < 2 || args[1] == null
+                    ? null
+                    : args[1].getClass();
+            slots.add(new ParameterSlot(index, type));
+        }
+        return List.copyOf(slots);
+    }
+
+    public record CapturedStatement(long startedAt, long elapsedMs, String sql, List<ParameterSlot> parameters) {
+    }
+
+    /**
+     * Parámetro de una sentencia sin su valor
+     * @param type clase del valor enlazado, o null si era NULL
+     */
+    public record ParameterSlot(int index, Class<?> type) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.gestorhorarios.monitoring;
+
+import com.gestorhorarios.config.MonitoringProperties;
+import com.gestorhorarios.logging.LogRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cada llamada a un repositorio de Spring Data y guarda un histograma de latencias
+ * por método (p. ej. HorarioRepository.findConflictingSchedules). Cuando una llamada supera
+ * el umbral, busca la consulta SELECT más lenta que lanzó y pide su plan de ejecución.
+ */
+@Component
+public class RepositoryMetrics implements RepositoryMethodInvocationListener {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryMetrics.class);
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final MonitoringProperties monitoringProperties;
+    private final RecentSqlCapture recentSqlCapture;
+    private final QueryPlanCapture queryPlanCapture;
+    private final LogRateLimiter logRateLimiter;
+
+    public RepositoryMetrics(MonitoringProperties monitoringProperties, RecentSqlCapture recentSqlCapture,
+                             QueryPlanCapture queryPlanCapture, LogRateLimiter logRateLimiter) {
+        this.monitoringProperties = monitoringProperties;
+        this.recentSqlCapture = recentSqlCapture;
+        this.queryPlanCapture = queryPlanCapture;
+        this.logRateLimiter = logRateLimiter;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        long elapsedMs = invocation.getDuration(TimeUnit.MILLISECONDS);
+        String method = invocation.getRepositoryInterface().getSimpleName() + "." + invocation.getMethod().getName();
+        boolean error = invocation.getResult() != null
+                && invocation.getResult().getState() == RepositoryMethodInvocationResult.State.ERROR;
+
+        histograms.computeIfAbsent(method, m -> new LatencyHistogram()).record(elapsedMs, error);
+
+        if (elapsedMs >= monitoringProperties.getRepositorySlowThresholdMs()) {
+            onSlowInvocation(method, elapsedMs);
+        }
+    }
+
+    private void onSlowInvocation(String method, long elapsedMs) {
+        // Margen de 1 ms por el redondeo de las dos mediciones
+        long startedAt = System.currentTimeMillis() - elapsedMs - 1;
+        List<RecentSqlCapture.CapturedStatement> statements = recentSqlCapture.statementsSince(startedAt);
+
+        long suppressed = logRateLimiter.tryAcquire("repository.slow");
+        if (suppressed >= 0) {
+            logger.atWarn()
+                    .addKeyValue("repositoryMethod", method)
+                    .addKeyValue("elapsedMs", elapsedMs)
+                    .addKeyValue("statements", statements.size())
+                    .addKeyValue("suppressed", suppressed)
+                    .log("Llamada lenta a repositorio");
+        }
+
+        statements.stream()
+                .max(Comparator.comparingLong(RecentSqlCapture.CapturedStatement::elapsedMs))
+                .ifPresent(statement -> queryPlanCapture.explainAsync(method, elapsedMs, statement));
+    }
+
+    /**
+     * @return Resumen del histograma de cada método, ordenado por nombre
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        histograms.forEach((method, histogram) -> snapshot.put(method, histogram.snapshot()));
+        return snapshot;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+}
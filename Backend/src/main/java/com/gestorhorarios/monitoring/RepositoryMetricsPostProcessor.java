@@ -0,0 +1,30 @@
+package com.gestorhorarios.monitoring;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registra {@link RepositoryMetrics} como listener de invocaciones en todas las
+ * factorías de repositorios de Spring Data, antes de que creen sus proxies.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<RepositoryMetrics> repositoryMetrics;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<RepositoryMetrics> repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(
+                    factory -> factory.addInvocationListener(repositoryMetrics.getObject()));
+        }
+        return bean;
+    }
+}
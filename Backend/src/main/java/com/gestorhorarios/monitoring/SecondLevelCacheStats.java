@@ -0,0 +1,58 @@
+package com.gestorhorarios.monitoring;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Estadísticas por región de la caché de segundo nivel de Hibernate, para poder
+ * dimensionar las regiones definidas en application.conf.
+ */
+@Component
+public class SecondLevelCacheStats {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Map<String, Object>> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long hits = region.getHitCount();
+            long misses = region.getMissCount();
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("hits", hits);
+            values.put("misses", misses);
+            values.put("puts", region.getPutCount());
+            values.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            // JCache no informa del número de elementos: Hibernate devuelve un valor negativo
+            long elements = region.getElementCountInMemory();
+            values.put("elementsInMemory", elements < 0 ? null : elements);
+            regions.put(regionName, values);
+        }
+        return regions;
+    }
+
+    /**
+     * Vacía todas las regiones (entidades, colecciones y consultas). Solo es necesario
+     * tras modificar la base de datos por fuera de Hibernate (scripts SQL manuales).
+     */
+    public void evictAll() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+    }
+}
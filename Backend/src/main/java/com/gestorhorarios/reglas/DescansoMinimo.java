@@ -0,0 +1,46 @@
+package com.gestorhorarios.reglas;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.NavigableSet;
+
+/**
+ * Descanso mínimo entre el fin de un turno y el inicio del siguiente (los solapes tampoco se permiten)
+ */
+public class DescansoMinimo implements ReglaLaboral {
+
+    private final Duration descanso;
+
+    public DescansoMinimo(Duration descanso) {
+        this.descanso = descanso;
+    }
+
+    @Override
+    public Duration alcance() {
+        // Un turno anterior puede empezar hasta un día antes de terminar
+        return descanso.plusDays(1);
+    }
+
+    @Override
+    public String evaluar(TurnoLaboral candidato, NavigableSet<TurnoLaboral> vecinos) {
+        for (TurnoLaboral vecino : vecinos) {
+            if (vecino.seSolapaCon(candidato)) {
+                return "Se solapa con el turno del " + vecino.fecha() + " (" + vecino.inicio().toLocalTime() +
+                        " - " + vecino.fin().toLocalTime() + ")";
+            }
+            Duration hueco = vecino.inicio().isBefore(candidato.inicio())
+                    ? Duration.between(vecino.fin(), candidato.inicio())
+                    : Duration.between(candidato.fin(), vecino.inicio());
+            if (hueco.compareTo(descanso) < 0) {
+                return "Deja " + horas(hueco) + " h de descanso con el turno del " + vecino.fecha() +
+                        " y el mínimo es " + horas(descanso) + " h";
+            }
+        }
+        return null;
+    }
+
+    private static String horas(Duration duracion) {
+        return duracion.toMinutes() % 60 == 0 ? String.valueOf(duracion.toHours())
+                : String.format(Locale.ROOT, "%.1f", duracion.toMinutes() / 60.0);
+    }
+}
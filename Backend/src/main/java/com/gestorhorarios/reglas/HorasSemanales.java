@@ -0,0 +1,67 @@
+package com.gestorhorarios.reglas;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * Máximo de horas trabajadas en cualquier periodo de 7 días seguidos que incluya al candidato.
+ * El peor periodo empieza en el inicio de algún turno o termina en el fin de alguno, así que
+ * basta con probar esos.
+ */
+public class HorasSemanales implements ReglaLaboral {
+
+    private static final Duration PERIODO = Duration.ofDays(7);
+
+    private final Duration maximo;
+
+    public HorasSemanales(int maxHoras) {
+        this.maximo = Duration.ofHours(maxHoras);
+    }
+
+    @Override
+    public Duration alcance() {
+        return PERIODO;
+    }
+
+    @Override
+    public String evaluar(TurnoLaboral candidato, NavigableSet<TurnoLaboral> vecinos) {
+        List<TurnoLaboral> turnos = new ArrayList<>(vecinos);
+        turnos.add(candidato);
+        Duration peor = Duration.ZERO;
+        for (TurnoLaboral turno : turnos) {
+            // Periodo que empieza con este turno y periodo que termina con él, si incluyen al candidato
+            LocalDateTime desde = turno.inicio();
+            if (!desde.isAfter(candidato.inicio()) && desde.plus(PERIODO).isAfter(candidato.inicio())) {
+                peor = max(peor, trabajado(turnos, desde, desde.plus(PERIODO)));
+            }
+            LocalDateTime hasta = turno.fin();
+            if (!hasta.isBefore(candidato.fin()) && hasta.minus(PERIODO).isBefore(candidato.fin())) {
+                peor = max(peor, trabajado(turnos, hasta.minus(PERIODO), hasta));
+            }
+        }
+        if (peor.compareTo(maximo) > 0) {
+            return "Suma " + peor.toHours() + " h en 7 días y el máximo es " + maximo.toHours() + " h";
+        }
+        return null;
+    }
+
+    // Tiempo de los turnos dentro de [desde, hasta)
+    private static Duration trabajado(List<TurnoLaboral> turnos, LocalDateTime desde, LocalDateTime hasta) {
+        Duration total = Duration.ZERO;
+        for (TurnoLaboral turno : turnos) {
+            LocalDateTime inicio = turno.inicio().isAfter(desde) ? turno.inicio() : desde;
+            LocalDateTime fin = turno.fin().isBefore(hasta) ? turno.fin() : hasta;
+            if (inicio.isBefore(fin)) {
+                total = total.plus(Duration.between(inicio, fin));
+            }
+        }
+        return total;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
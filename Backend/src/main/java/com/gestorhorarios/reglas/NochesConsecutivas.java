@@ -0,0 +1,48 @@
+package com.gestorhorarios.reglas;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.NavigableSet;
+import java.util.Set;
+
+/**
+ * Máximo de turnos de noche en días consecutivos
+ */
+public class NochesConsecutivas implements ReglaLaboral {
+
+    private final int maximo;
+
+    public NochesConsecutivas(int maximo) {
+        this.maximo = maximo;
+    }
+
+    @Override
+    public Duration alcance() {
+        return Duration.ofDays(maximo + 1L);
+    }
+
+    @Override
+    public String evaluar(TurnoLaboral candidato, NavigableSet<TurnoLaboral> vecinos) {
+        if (!candidato.noche()) {
+            return null;
+        }
+        Set<LocalDate> noches = new HashSet<>();
+        for (TurnoLaboral vecino : vecinos) {
+            if (vecino.noche()) {
+                noches.add(vecino.fecha());
+            }
+        }
+        int seguidas = 1;
+        for (LocalDate dia = candidato.fecha().minusDays(1); noches.contains(dia); dia = dia.minusDays(1)) {
+            seguidas++;
+        }
+        for (LocalDate dia = candidato.fecha().plusDays(1); noches.contains(dia); dia = dia.plusDays(1)) {
+            seguidas++;
+        }
+        if (seguidas > maximo) {
+            return "Serían " + seguidas + " noches seguidas y el máximo es " + maximo;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.gestorhorarios.reglas;
+
+import java.time.Duration;
+import java.util.NavigableSet;
+
+/**
+ * Regla que debe cumplir un turno nuevo respecto a los turnos cercanos del mismo trabajador.
+ * Las reglas solo miran los turnos dentro de su alcance, así que cada comprobación cuesta
+ * lo que ocupe la ventana y no una consulta a la base de datos.
+ */
+public interface ReglaLaboral {
+
+    /**
+     * Tiempo antes del inicio y después del fin del candidato que necesita ver la regla
+     */
+    Duration alcance();
+
+    /**
+     * @param candidato turno que se quiere asignar
+     * @param vecinos   turnos del trabajador dentro del alcance, ordenados por inicio (sin el candidato)
+     * @return descripción del incumplimiento, o null si el candidato cumple la regla
+     */
+    String evaluar(TurnoLaboral candidato, NavigableSet<TurnoLaboral> vecinos);
+}
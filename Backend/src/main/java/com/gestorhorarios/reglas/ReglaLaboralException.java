@@ -0,0 +1,21 @@
+package com.gestorhorarios.reglas;
+
+import java.util.List;
+
+/**
+ * Uno o varios turnos incumplen las reglas laborales. Es un IllegalArgumentException para que
+ * GlobalExceptionHandler lo devuelva como 400.
+ */
+public class ReglaLaboralException extends IllegalArgumentException {
+
+    private final List<String> incumplimientos;
+
+    public ReglaLaboralException(List<String> incumplimientos) {
+        super("El turno incumple las reglas laborales: " + String.join("; ", incumplimientos));
+        this.incumplimientos = List.copyOf(incumplimientos);
+    }
+
+    public List<String> getIncumplimientos() {
+        return incumplimientos;
+    }
+}
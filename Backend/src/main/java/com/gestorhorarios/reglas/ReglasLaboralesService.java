@@ -0,0 +1,324 @@
+package com.gestorhorarios.reglas;
+
+import com.gestorhorarios.config.ReglasLaboralesProperties;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.function.Consumer;
+
+/**
+ * Comprueba las reglas laborales (descanso mínimo, horas en 7 días y noches seguidas) de los turnos
+ * que se asignan a un trabajador.
+ *
+ * Cada trabajador tiene en memoria una ventana con sus turnos cercanos a las últimas comprobaciones
+ * (los horarios guardados y los días de su plantilla de rota) y la versión de sus turnos con la que
+ * se cargó ({@link VersionesTurnos}). Quien asigna turnos llama antes a {@link #bloquear}, que
+ * serializa las asignaciones de un mismo trabajador y compara esa versión con la de la base de
+ * datos: si coincide, la comprobación solo consulta los días que aún no están en la ventana y
+ * evalúa contra los turnos en memoria; si otra instancia ha cambiado algo, la ventana se vuelve a
+ * cargar. Cada cambio sube la versión en su transacción y se aplica a la ventana al confirmarse.
+ */
+@Service
+public class ReglasLaboralesService {
+
+    // Versión de una ventana creada sin bloquear al trabajador: la siguiente vez que se bloquee se recarga
+    private static final long SIN_VERSION = -1;
+
+    private final HorarioRepository horarioRepository;
+    private final VersionesTurnos versionesTurnos;
+    private final ExpansionRota expansionRota;
+    private final ReglasLaboralesProperties properties;
+    private final List<ReglaLaboral> reglas = new ArrayList<>();
+    // Días antes y después de un turno que tiene que haber en la ventana para evaluarlo
+    private final int diasAlcance;
+    private final Cache<Long, VentanaTurnos> ventanas;
+
+    public ReglasLaboralesService(HorarioRepository horarioRepository, VersionesTurnos versionesTurnos,
+                                  ExpansionRota expansionRota, ReglasLaboralesProperties properties) {
+        this.horarioRepository = horarioRepository;
+        this.versionesTurnos = versionesTurnos;
+        this.expansionRota = expansionRota;
+        this.properties = properties;
+        if (!properties.getDescansoMinimo().isZero()) {
+            reglas.add(new DescansoMinimo(properties.getDescansoMinimo()));
+        }
+        if (properties.getMaxHorasSemana() > 0) {
+            reglas.add(new HorasSemanales(properties.getMaxHorasSemana()));
+        }
+        if (properties.getMaxNochesConsecutivas() > 0) {
+            reglas.add(new NochesConsecutivas(properties.getMaxNochesConsecutivas()));
+        }
+        Duration alcance = reglas.stream().map(ReglaLaboral::alcance).max(Duration::compareTo).orElse(Duration.ZERO);
+        // Se redondea hacia arriba y se suma un día por los turnos que pasan de medianoche
+        this.diasAlcance = (int) ((alcance.toHours() + 23) / 24) + 1;
+        this.ventanas = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxUsuarios())
+                .expireAfterWrite(properties.getCaducidad())
+                .build();
+    }
+
+    /**
+     * Reglas activas (ninguna si están desactivadas), para quien evalúa muchos turnos en memoria
+     */
+    public List<ReglaLaboral> getReglas() {
+        return properties.isEnabled() ? List.copyOf(reglas) : List.of();
+    }
+
+    /**
+     * Margen alrededor de un turno dentro del cual están todos los vecinos que miran las reglas
+     */
+    public Duration getAlcance() {
+        return Duration.ofDays(diasAlcance);
+    }
+
+    /**
+     * Turnos guardados y de rota de varios trabajadores entre dos fechas, sin pasar por las ventanas
+     * (los horarios y las plantillas se leen en una consulta cada uno)
+     */
+    public Map<Long, List<TurnoLaboral>> turnosDeUsuarios(Collection<Long> usuarioIds, LocalDate desde, LocalDate hasta) {
+        Map<Long, List<TurnoLaboral>> turnos = new HashMap<>();
+        usuarioIds.forEach(id -> turnos.put(id, new ArrayList<>()));
+        if (usuarioIds.isEmpty()) {
+            return turnos;
+        }
+        for (HorarioRepository.TurnoUsuario t : horarioRepository.findTurnosLaboralesDeUsuarios(usuarioIds, desde, hasta)) {
+            turnos.get(t.getUsuarioId()).add(
+                    new TurnoLaboral(t.getId(), t.getFecha(), t.getHoraInicio(), t.getHoraFin(), t.getTipoTurno()));
+        }
+        expansionRota.turnosLaborales(usuarioIds, desde, hasta).forEach((id, deRota) -> turnos.get(id).addAll(deRota));
+        return turnos;
+    }
+
+    /**
+     * Bloquea las filas de los trabajadores en users hasta que termine la transacción y descarta las
+     * ventanas que no tienen su última versión. Se llama dentro de la transacción que asigna los turnos
+     * y antes de validarlos: dos asignaciones a la vez al mismo trabajador, también desde instancias
+     * distintas, se comprueban una detrás de otra, y la segunda ve los turnos que ya ha guardado la
+     * primera (de la ventana si los guardó esta instancia, o de la base de datos si no).
+     */
+    public void bloquear(Collection<Long> usuarioIds) {
+        if (!activas() || usuarioIds.isEmpty()) {
+            return;
+        }
+        versionesTurnos.bloquear(usuarioIds).forEach((usuarioId, version) -> {
+            VentanaTurnos ventana = ventanas.getIfPresent(usuarioId);
+            if (ventana == null || !alDia(ventana, version)) {
+                ventanas.put(usuarioId, new VentanaTurnos(version));
+            }
+        });
+    }
+
+    /**
+     * Lanza ReglaLaboralException si el turno incumple alguna regla (un turno null, sin horas, no se comprueba)
+     *
+     * @param excluidos horarios que no cuentan (el propio horario al editarlo, el que se cede en un cambio)
+     */
+    public void validar(Long usuarioId, TurnoLaboral candidato, Collection<Long> excluidos) {
+        if (candidato == null) {
+            return;
+        }
+        List<String> incumplimientos = evaluar(usuarioId, List.of(candidato), excluidos);
+        if (!incumplimientos.isEmpty()) {
+            throw new ReglaLaboralException(incumplimientos);
+        }
+    }
+
+    /**
+     * Evalúa varios turnos nuevos del mismo trabajador en orden; cada uno cuenta para los siguientes
+     *
+     * @return incumplimientos, con la fecha del turno al que se refieren (vacía si todos cumplen)
+     */
+    public List<String> evaluar(Long usuarioId, List<TurnoLaboral> candidatos, Collection<Long> excluidos) {
+        List<String> incumplimientos = new ArrayList<>();
+        if (!activas() || candidatos.isEmpty()) {
+            return incumplimientos;
+        }
+        Duration alcance = Duration.ofDays(diasAlcance);
+        List<TurnoLaboral> anteriores = new ArrayList<>();
+        VentanaTurnos ventana = ventanas.get(usuarioId, id -> new VentanaTurnos(SIN_VERSION));
+        synchronized (ventana) {
+            for (TurnoLaboral candidato : candidatos) {
+                cargar(ventana, usuarioId, candidato.fecha().minusDays(diasAlcance), candidato.fecha().plusDays(diasAlcance));
+                NavigableSet<TurnoLaboral> vecinos = ventana.entre(candidato.inicio().minus(alcance),
+                        candidato.fin().plus(alcance));
+                vecinos.removeIf(turno -> excluidos.contains(turno.id()) || turno.id().equals(candidato.id()));
+                for (TurnoLaboral anterior : anteriores) {
+                    if (Math.abs(ChronoUnit.DAYS.between(anterior.fecha(), candidato.fecha())) <= diasAlcance) {
+                        vecinos.add(anterior);
+                    }
+                }
+                boolean cumple = true;
+                for (ReglaLaboral regla : reglas) {
+                    String incumplimiento = regla.evaluar(candidato, vecinos);
+                    if (incumplimiento != null) {
+                        incumplimientos.add("Turno del " + candidato.fecha() + ": " + incumplimiento);
+                        cumple = false;
+                    }
+                }
+                if (cumple) {
+                    anteriores.add(candidato);
+                }
+            }
+        }
+        return incumplimientos;
+    }
+
+    /**
+     * Apunta en la ventana del trabajador un turno guardado (o modificado), al confirmarse la transacción
+     */
+    public void registrar(Long usuarioId, TurnoLaboral turno) {
+        if (turno != null) {
+            cambiar(usuarioId, ventana -> ventana.poner(turno));
+        }
+    }
+
+    /**
+     * Quita de la ventana del trabajador un horario borrado o cedido, al confirmarse la transacción
+     */
+    public void quitar(Long usuarioId, Long horarioId) {
+        cambiar(usuarioId, ventana -> ventana.quitar(horarioId));
+    }
+
+    /**
+     * Descarta la ventana del trabajador al confirmarse la transacción (se ha creado, acortado o
+     * borrado una plantilla de rota, o se han insertado horarios sin pasar por la ventana); la
+     * siguiente comprobación la vuelve a cargar
+     */
+    public void olvidar(Long usuarioId) {
+        cambiar(usuarioId, null);
+    }
+
+    // Sube la versión del trabajador una vez por transacción y, al confirmarse, aplica los cambios a su
+    // ventana si esta tenía la versión anterior; si no (o si cambio es null) la descarta
+    private void cambiar(Long usuarioId, Consumer<VentanaTurnos> cambio) {
+        if (!activas()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aplicar(usuarioId, new CambiosUsuario(versionesTurnos.subir(usuarioId), cambio));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Long, CambiosUsuario> cambios = (Map<Long, CambiosUsuario>) TransactionSynchronizationManager.getResource(this);
+        if (cambios == null) {
+            Map<Long, CambiosUsuario> nuevos = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, nuevos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    nuevos.forEach(ReglasLaboralesService.this::aplicar);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReglasLaboralesService.this);
+                }
+            });
+            cambios = nuevos;
+        }
+        CambiosUsuario delUsuario = cambios.get(usuarioId);
+        if (delUsuario == null) {
+            cambios.put(usuarioId, new CambiosUsuario(versionesTurnos.subir(usuarioId), cambio));
+        } else {
+            delUsuario.anadir(cambio);
+        }
+    }
+
+    private void aplicar(Long usuarioId, CambiosUsuario cambios) {
+        VentanaTurnos ventana = ventanas.getIfPresent(usuarioId);
+        if (ventana == null) {
+            return;
+        }
+        synchronized (ventana) {
+            if (cambios.olvidar || !ventana.tieneVersion(cambios.version - 1)) {
+                ventanas.asMap().remove(usuarioId, ventana);
+                return;
+            }
+            cambios.cambios.forEach(cambio -> cambio.accept(ventana));
+            ventana.setVersion(cambios.version);
+        }
+    }
+
+    private static boolean alDia(VentanaTurnos ventana, long version) {
+        synchronized (ventana) {
+            return ventana.tieneVersion(version);
+        }
+    }
+
+    private boolean activas() {
+        return properties.isEnabled() && !reglas.isEmpty();
+    }
+
+    // Lee de la base de datos solo los días de [desde, hasta] que faltan en la ventana. Si la ventana
+    // quedaría más larga que ventanaDias, se descarta y se carga solo el rango pedido
+    private void cargar(VentanaTurnos ventana, Long usuarioId, LocalDate desde, LocalDate hasta) {
+        if (ventana.cubre(desde, hasta)) {
+            return;
+        }
+        if (ventana.getDesde() == null
+                || ChronoUnit.DAYS.between(min(desde, ventana.getDesde()), max(hasta, ventana.getHasta())) >= properties.getVentanaDias()
+                || hasta.isBefore(ventana.getDesde().minusDays(1)) || desde.isAfter(ventana.getHasta().plusDays(1))) {
+            ventana.reiniciar(desde, hasta, leer(usuarioId, desde, hasta));
+            return;
+        }
+        if (desde.isBefore(ventana.getDesde())) {
+            LocalDate fin = ventana.getDesde().minusDays(1);
+            ventana.ampliar(desde, fin, leer(usuarioId, desde, fin));
+        }
+        if (hasta.isAfter(ventana.getHasta())) {
+            LocalDate inicio = ventana.getHasta().plusDays(1);
+            ventana.ampliar(inicio, hasta, leer(usuarioId, inicio, hasta));
+        }
+    }
+
+    // Horarios guardados más los días de rota sin excepción
+    private List<TurnoLaboral> leer(Long usuarioId, LocalDate desde, LocalDate hasta) {
+        List<TurnoLaboral> turnos = new ArrayList<>(horarioRepository.findTurnosLaborales(usuarioId, desde, hasta));
+        turnos.addAll(expansionRota.turnosLaborales(usuarioId, desde, hasta));
+        return turnos;
+    }
+
+    // Cambios de la ventana de un trabajador en una transacción y la versión que deja en la base de datos
+    private static class CambiosUsuario {
+
+        private final long version;
+        private final List<Consumer<VentanaTurnos>> cambios = new ArrayList<>();
+        private boolean olvidar;
+
+        CambiosUsuario(long version, Consumer<VentanaTurnos> cambio) {
+            this.version = version;
+            anadir(cambio);
+        }
+
+        void anadir(Consumer<VentanaTurnos> cambio) {
+            if (cambio == null) {
+                olvidar = true;
+            } else {
+                cambios.add(cambio);
+            }
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
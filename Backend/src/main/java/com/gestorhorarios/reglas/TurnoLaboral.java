@@ -0,0 +1,45 @@
+package com.gestorhorarios.reglas;
+
+import com.gestorhorarios.model.Horario;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+
+/**
+ * Turno de un trabajador como intervalo de tiempo, que es lo que miran las reglas laborales.
+ * Si la hora de fin no es posterior a la de inicio el turno termina al día siguiente.
+ *
+ * @param id    id del horario (negativo para turnos que aún no se han guardado)
+ * @param fecha día en que empieza el turno
+ * @param noche turno de noche: de tipo NOCHE o que pasa de medianoche
+ */
+public record TurnoLaboral(Long id, LocalDate fecha, LocalDateTime inicio, LocalDateTime fin, boolean noche) {
+
+    /** Orden por inicio y, a igual inicio, por id */
+    public static final Comparator<TurnoLaboral> POR_INICIO =
+            Comparator.comparing(TurnoLaboral::inicio).thenComparing(TurnoLaboral::id);
+
+    /** Constructor de la proyección JPQL de HorarioRepository.findTurnosLaborales */
+    public TurnoLaboral(Long id, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin, Horario.TipoTurno tipoTurno) {
+        this(id, fecha, fecha.atTime(horaInicio),
+                horaFin.isAfter(horaInicio) ? fecha.atTime(horaFin) : fecha.plusDays(1).atTime(horaFin),
+                tipoTurno == Horario.TipoTurno.NOCHE || !horaFin.isAfter(horaInicio));
+    }
+
+    /**
+     * Turno de un horario, o null si le faltan la fecha o las horas (las reglas no se le aplican)
+     */
+    public static TurnoLaboral de(Horario horario, Long id) {
+        if (horario.getFecha() == null || horario.getHoraInicio() == null || horario.getHoraFin() == null) {
+            return null;
+        }
+        return new TurnoLaboral(id, horario.getFecha(), horario.getHoraInicio(), horario.getHoraFin(),
+                horario.getTipoTurno());
+    }
+
+    public boolean seSolapaCon(TurnoLaboral otro) {
+        return inicio.isBefore(otro.fin) && otro.inicio.isBefore(fin);
+    }
+}
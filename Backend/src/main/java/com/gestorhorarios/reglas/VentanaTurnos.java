@@ -0,0 +1,106 @@
+package com.gestorhorarios.reglas;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Turnos de un trabajador entre dos fechas, en memoria y ordenados por inicio. Solo guarda los
+ * turnos que empiezan dentro del rango cargado; el resto se leen de la base de datos cuando una
+ * comprobación los necesita. No es thread-safe: ReglasLaboralesService sincroniza sobre la ventana.
+ */
+class VentanaTurnos {
+
+    private final TreeSet<TurnoLaboral> turnos = new TreeSet<>(TurnoLaboral.POR_INICIO);
+    private final Map<Long, TurnoLaboral> porId = new HashMap<>();
+    private LocalDate desde;
+    private LocalDate hasta;
+    // Versión de los turnos del trabajador que refleja la ventana (ver VersionesTurnos)
+    private long version;
+
+    VentanaTurnos(long version) {
+        this.version = version;
+    }
+
+    boolean tieneVersion(long version) {
+        return this.version == version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    LocalDate getDesde() {
+        return desde;
+    }
+
+    LocalDate getHasta() {
+        return hasta;
+    }
+
+    boolean cubre(LocalDate inicio, LocalDate fin) {
+        return desde != null && !inicio.isBefore(desde) && !fin.isAfter(hasta);
+    }
+
+    /**
+     * Descarta lo cargado y empieza de nuevo con los turnos de [inicio, fin]
+     */
+    void reiniciar(LocalDate inicio, LocalDate fin, Collection<TurnoLaboral> cargados) {
+        turnos.clear();
+        porId.clear();
+        desde = inicio;
+        hasta = fin;
+        cargados.forEach(this::poner);
+    }
+
+    /**
+     * Añade los turnos de un rango contiguo al cargado ([inicio, desde) o (hasta, fin])
+     */
+    void ampliar(LocalDate inicio, LocalDate fin, Collection<TurnoLaboral> cargados) {
+        desde = inicio.isBefore(desde) ? inicio : desde;
+        hasta = fin.isAfter(hasta) ? fin : hasta;
+        cargados.forEach(this::poner);
+    }
+
+    /**
+     * Añade o sustituye un turno; se ignora si empieza fuera del rango cargado
+     */
+    void poner(TurnoLaboral turno) {
+        quitar(turno.id());
+        if (desde != null && !turno.fecha().isBefore(desde) && !turno.fecha().isAfter(hasta)) {
+            turnos.add(turno);
+            porId.put(turno.id(), turno);
+        }
+    }
+
+    void quitar(Long id) {
+        TurnoLaboral anterior = porId.remove(id);
+        if (anterior != null) {
+            turnos.remove(anterior);
+        }
+    }
+
+    /**
+     * Copia de los turnos que empiezan en [inicio, fin)
+     */
+    NavigableSet<TurnoLaboral> entre(LocalDateTime inicio, LocalDateTime fin) {
+        TreeSet<TurnoLaboral> copia = new TreeSet<>(TurnoLaboral.POR_INICIO);
+        for (TurnoLaboral turno : turnos) {
+            if (!turno.inicio().isBefore(fin)) {
+                break;
+            }
+            if (!turno.inicio().isBefore(inicio)) {
+                copia.add(turno);
+            }
+        }
+        return copia;
+    }
+
+    int size() {
+        return turnos.size();
+    }
+}
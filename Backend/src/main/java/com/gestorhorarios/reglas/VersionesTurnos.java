@@ -0,0 +1,55 @@
+package com.gestorhorarios.reglas;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Versión de los turnos de cada trabajador (users.version_turnos). Sube en la misma transacción que
+ * cualquier cambio de sus horarios o de sus plantillas de rota, así que una ventana de
+ * {@link ReglasLaboralesService} cargada con otra versión ya no está al día.
+ *
+ * Va por JDBC y no por el repositorio: la columna no está en la entidad User y una sentencia nativa
+ * de Hibernate vaciaría la caché de segundo nivel de los usuarios.
+ */
+@Component
+public class VersionesTurnos {
+
+    private static final String BLOQUEAR = "SELECT id, version_turnos FROM users WHERE id IN (%s) ORDER BY id FOR UPDATE";
+    private static final String SUBIR = "UPDATE users SET version_turnos = version_turnos + 1 WHERE id = ?";
+    private static final String LEER = "SELECT version_turnos FROM users WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VersionesTurnos(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Bloquea las filas de los trabajadores (SELECT ... FOR UPDATE, en orden de id para no provocar
+     * interbloqueos) hasta que termine la transacción
+     * @return versión de cada trabajador; al ser una lectura con bloqueo es la última confirmada
+     */
+    public Map<Long, Long> bloquear(Collection<Long> usuarioIds) {
+        String sql = String.format(BLOQUEAR, String.join(",", Collections.nCopies(usuarioIds.size(), "?")));
+        Map<Long, Long> versiones = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, fila -> {
+            versiones.put(fila.getLong(1), fila.getLong(2));
+        }, usuarioIds.toArray());
+        return versiones;
+    }
+
+    /**
+     * Sube la versión del trabajador (la fila queda bloqueada hasta que termine la transacción)
+     * @return la versión nueva
+     */
+    public long subir(Long usuarioId) {
+        jdbcTemplate.update(SUBIR, usuarioId);
+        Long version = jdbcTemplate.queryForObject(LEER, Long.class, usuarioId);
+        return version != null ? version : 0;
+    }
+}
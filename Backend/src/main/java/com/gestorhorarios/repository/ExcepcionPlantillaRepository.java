@@ -0,0 +1,29 @@
+package com.gestorhorarios.repository;
+
+import com.gestorhorarios.model.ExcepcionPlantilla;
+import com.gestorhorarios.model.PlantillaRota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExcepcionPlantillaRepository extends JpaRepository<ExcepcionPlantilla, Long> {
+
+    // Días modificados de varias plantillas en un rango (uk_plantillas_rota_excepciones)
+    @Query("SELECT e FROM ExcepcionPlantilla e WHERE e.plantilla.id IN :plantillaIds AND e.fecha BETWEEN :desde AND :hasta")
+    List<ExcepcionPlantilla> findEnRango(@Param("plantillaIds") Collection<Long> plantillaIds,
+                                         @Param("desde") LocalDate desde,
+                                         @Param("hasta") LocalDate hasta);
+
+    boolean existsByPlantillaAndFecha(PlantillaRota plantilla, LocalDate fecha);
+
+    @Modifying
+    @Query("DELETE FROM ExcepcionPlantilla e WHERE e.plantilla = :plantilla")
+    int deleteByPlantilla(@Param("plantilla") PlantillaRota plantilla);
+}
@@ -0,0 +1,22 @@
+package com.gestorhorarios.repository;
+
+import com.gestorhorarios.model.HorarioArchivado;
+import com.gestorhorarios.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HorarioArchivadoRepository extends JpaRepository<HorarioArchivado, Long> {
+
+    List<HorarioArchivado> findByUsuarioAndFechaBetween(User usuario, LocalDate fechaInicio, LocalDate fechaFin);
+
+    List<HorarioArchivado> findByFechaBetween(LocalDate fechaInicio, LocalDate fechaFin);
+
+    // Fecha más reciente archivada (usa el índice sobre fecha)
+    @Query("SELECT MAX(h.fecha) FROM HorarioArchivado h")
+    LocalDate findMaxFecha();
+}
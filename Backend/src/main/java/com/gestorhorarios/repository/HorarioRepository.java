@@ -3,6 +3,7 @@ package com.gestorhorarios.repository;
 import com.gestorhorarios.model.Horario;
 import com.gestorhorarios.model.Role;
 import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.TurnoLaboral;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,6 +59,44 @@ public interface HorarioRepository extends JpaRepository<Horario, Long> {
             @Param("startDate") LocalDate startDate, 
             @Param("endDate") LocalDate endDate);
     
+    // Turnos de un usuario como intervalos, para la ventana de las reglas laborales (idx_horarios_usuario_fecha)
+    @Query("SELECT new com.gestorhorarios.reglas.TurnoLaboral(h.id, h.fecha, h.horaInicio, h.horaFin, h.tipoTurno) " +
+           "FROM Horario h WHERE h.usuario.id = :usuarioId AND h.fecha BETWEEN :desde AND :hasta " +
+           "AND h.horaInicio IS NOT NULL AND h.horaFin IS NOT NULL")
+    List<TurnoLaboral> findTurnosLaborales(@Param("usuarioId") Long usuarioId,
+                                           @Param("desde") LocalDate desde,
+                                           @Param("hasta") LocalDate hasta);
+
+    // Lo mismo para varios usuarios en una sola consulta
+    @Query("SELECT h.usuario.id AS usuarioId, h.id AS id, h.fecha AS fecha, h.horaInicio AS horaInicio, " +
+           "h.horaFin AS horaFin, h.tipoTurno AS tipoTurno FROM Horario h WHERE h.usuario.id IN :usuarioIds " +
+           "AND h.fecha BETWEEN :desde AND :hasta AND h.horaInicio IS NOT NULL AND h.horaFin IS NOT NULL")
+    List<TurnoUsuario> findTurnosLaboralesDeUsuarios(@Param("usuarioIds") Collection<Long> usuarioIds,
+                                                     @Param("desde") LocalDate desde,
+                                                     @Param("hasta") LocalDate hasta);
+
+    interface TurnoUsuario {
+        Long getUsuarioId();
+        Long getId();
+        LocalDate getFecha();
+        LocalTime getHoraInicio();
+        LocalTime getHoraFin();
+        Horario.TipoTurno getTipoTurno();
+    }
+
+    // Personas por día, tipo de turno y rol para el mapa de cobertura (idx_horarios_fecha_tipo_rol)
+    @Query("SELECT h.fecha AS fecha, h.tipoTurno AS tipoTurno, h.rol AS rol, COUNT(h) AS total FROM Horario h " +
+           "WHERE h.fecha BETWEEN :desde AND :hasta AND h.tipoTurno IS NOT NULL AND h.rol IS NOT NULL " +
+           "GROUP BY h.fecha, h.tipoTurno, h.rol")
+    List<ConteoTurnos> countPorFechaTipoYRol(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    interface ConteoTurnos {
+        LocalDate getFecha();
+        Horario.TipoTurno getTipoTurno();
+        Role getRol();
+        Long getTotal();
+    }
+
     // Schedule conflict detection
     @Query("SELECT h FROM Horario h WHERE h.usuario = :usuario AND h.fecha = :fecha AND " +
            "((h.horaInicio <= :horaInicio AND h.horaFin > :horaInicio) OR " +
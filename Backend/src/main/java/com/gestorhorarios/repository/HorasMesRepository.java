@@ -0,0 +1,18 @@
+package com.gestorhorarios.repository;
+
+import com.gestorhorarios.model.HorasMes;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HorasMesRepository extends JpaRepository<HorasMes, HorasMes.Clave> {
+
+    // Meses de un usuario (clave primaria usuario_id, mes, tipo_turno)
+    List<HorasMes> findByUsuarioIdAndMesBetween(Long usuarioId, LocalDate desde, LocalDate hasta);
+
+    // Todos los usuarios en un mes (idx_horas_mensuales_mes)
+    List<HorasMes> findByMes(LocalDate mes);
+}
@@ -0,0 +1,40 @@
+package com.gestorhorarios.repository;
+
+import com.gestorhorarios.model.PlantillaRota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlantillaRotaRepository extends JpaRepository<PlantillaRota, Long> {
+
+    List<PlantillaRota> findByUsuarioIdOrderByFechaInicio(Long usuarioId);
+
+    @Query("SELECT DISTINCT p.usuario.id FROM PlantillaRota p")
+    List<Long> findUsuariosConPlantilla();
+
+    // Plantillas de un usuario vigentes en algún día del rango, con el ciclo
+    @Query("SELECT DISTINCT p FROM PlantillaRota p LEFT JOIN FETCH p.ciclo WHERE p.usuario.id = :usuarioId " +
+           "AND p.fechaInicio <= :hasta AND (p.fechaFin IS NULL OR p.fechaFin >= :desde)")
+    List<PlantillaRota> findVigentes(@Param("usuarioId") Long usuarioId,
+                                     @Param("desde") LocalDate desde,
+                                     @Param("hasta") LocalDate hasta);
+
+    // Plantillas de varios usuarios vigentes en algún día del rango, con el ciclo
+    @Query("SELECT DISTINCT p FROM PlantillaRota p LEFT JOIN FETCH p.ciclo WHERE p.usuario.id IN :usuarioIds " +
+           "AND p.fechaInicio <= :hasta AND (p.fechaFin IS NULL OR p.fechaFin >= :desde)")
+    List<PlantillaRota> findVigentesDeUsuarios(@Param("usuarioIds") Collection<Long> usuarioIds,
+                                               @Param("desde") LocalDate desde,
+                                               @Param("hasta") LocalDate hasta);
+
+    // Plantillas de todos los usuarios vigentes en algún día del rango, con el usuario y el ciclo
+    @Query("SELECT DISTINCT p FROM PlantillaRota p JOIN FETCH p.usuario LEFT JOIN FETCH p.ciclo " +
+           "WHERE p.fechaInicio <= :hasta AND (p.fechaFin IS NULL OR p.fechaFin >= :desde)")
+    List<PlantillaRota> findVigentesConUsuario(@Param("desde") LocalDate desde,
+                                               @Param("hasta") LocalDate hasta);
+}
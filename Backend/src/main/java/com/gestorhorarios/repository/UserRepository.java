@@ -4,22 +4,40 @@ import com.gestorhorarios.model.Role;
 import com.gestorhorarios.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Se usan en cada petición autenticada (JwtAuthenticationFilter): el resultado va a la caché
+    // de consultas y se invalida automáticamente con cualquier escritura en la tabla users
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsernameOrEmail(String username, String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     List<User> findByRolesIn(Set<Role> roles);
     List<User> findByRolesContaining(Role role);
+
+    // Trabajadores de un centro con alguno de los roles, sin cargar las entidades (generador de rotas)
+    @Query("SELECT u.id AS id, r AS rol FROM User u JOIN u.roles r WHERE u.centroTrabajo = :centro " +
+           "AND r IN :roles ORDER BY u.id")
+    List<TrabajadorRol> findTrabajadoresPorCentro(@Param("centro") String centro, @Param("roles") Collection<Role> roles);
+
+    interface TrabajadorRol {
+        Long getId();
+        Role getRol();
+    }
     
     /**
      * Check if a user is a passenger of a specific vehicle
@@ -0,0 +1,172 @@
+package com.gestorhorarios.rota;
+
+import com.gestorhorarios.model.ExcepcionPlantilla;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.PlantillaRota;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.TurnoLaboral;
+import com.gestorhorarios.repository.ExcepcionPlantillaRepository;
+import com.gestorhorarios.repository.PlantillaRotaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Calcula los días de las plantillas de rota en un rango de fechas. Cada lectura cuesta una
+ * consulta de plantillas y, solo si hay alguna vigente, otra de sus excepciones; el número de
+ * filas leídas depende de los días modificados y no de los días del rango.
+ *
+ * Para mostrar horarios, los usuarios que tienen alguna plantilla se guardan en memoria, así que
+ * leer los horarios de alguien sin plantillas no añade ninguna consulta. Ese conjunto se recarga
+ * cada pocos minutos: una plantilla creada desde otra instancia tarda hasta entonces en verse en
+ * estas lecturas. Los turnos para las reglas laborales no pasan por él y siempre buscan las
+ * plantillas del trabajador (por el índice de usuario y fecha de inicio).
+ */
+@Component
+public class ExpansionRota {
+
+    private static final long REFRESCO_NANOS = Duration.ofMinutes(5).toNanos();
+
+    private final PlantillaRotaRepository plantillaRotaRepository;
+    private final ExcepcionPlantillaRepository excepcionPlantillaRepository;
+    private volatile Set<Long> usuariosConPlantilla;
+    private volatile long cargadoEn;
+
+    public ExpansionRota(PlantillaRotaRepository plantillaRotaRepository,
+                         ExcepcionPlantillaRepository excepcionPlantillaRepository) {
+        this.plantillaRotaRepository = plantillaRotaRepository;
+        this.excepcionPlantillaRepository = excepcionPlantillaRepository;
+    }
+
+    /**
+     * Id de un turno de rota sin guardar en la ventana de las reglas laborales. Un trabajador no
+     * tiene dos plantillas vigentes el mismo día, así que la fecha lo identifica; queda muy por
+     * debajo de los ids provisionales (-1, -2...) de los turnos que se están validando.
+     */
+    public static long idTurnoRota(LocalDate fecha) {
+        return Long.MIN_VALUE + fecha.toEpochDay();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarUsuarios() {
+        Set<Long> usuarios = ConcurrentHashMap.newKeySet();
+        usuarios.addAll(plantillaRotaRepository.findUsuariosConPlantilla());
+        usuariosConPlantilla = usuarios;
+        cargadoEn = System.nanoTime();
+    }
+
+    /**
+     * Apunta que el usuario tiene plantilla para que esta instancia la muestre sin esperar a la
+     * recarga (se llama al crearla, antes del commit: si la transacción falla solo cuesta alguna
+     * consulta de más hasta la siguiente recarga)
+     */
+    public void anotarUsuario(Long usuarioId) {
+        usuarios().add(usuarioId);
+    }
+
+    /**
+     * Días de rota sin guardar de un usuario en el rango (horarios con id null)
+     */
+    public List<Horario> horariosUsuario(User usuario, LocalDate desde, LocalDate hasta) {
+        List<PlantillaRota> plantillas = plantillasUsuario(usuario.getId(), desde, hasta);
+        List<Horario> horarios = new ArrayList<>();
+        recorrer(plantillas, desde, hasta, (plantilla, fecha) -> {
+            Horario horario = plantilla.horarioEn(fecha);
+            horario.setUsuario(usuario);
+            horarios.add(horario);
+        });
+        return horarios;
+    }
+
+    /**
+     * Días de rota sin guardar de todos los usuarios en el rango (horarios con id null)
+     */
+    public List<Horario> horariosPeriodo(LocalDate desde, LocalDate hasta) {
+        List<PlantillaRota> plantillas = plantillaRotaRepository.findVigentesConUsuario(desde, hasta);
+        List<Horario> horarios = new ArrayList<>();
+        recorrer(plantillas, desde, hasta, (plantilla, fecha) -> horarios.add(plantilla.horarioEn(fecha)));
+        return horarios;
+    }
+
+    /**
+     * Días de rota sin guardar de un usuario como turnos para las reglas laborales. Consulta siempre
+     * sus plantillas: una recién creada en otra instancia cuenta desde el commit
+     */
+    public List<TurnoLaboral> turnosLaborales(Long usuarioId, LocalDate desde, LocalDate hasta) {
+        List<TurnoLaboral> turnos = new ArrayList<>();
+        recorrer(plantillaRotaRepository.findVigentes(usuarioId, desde, hasta), desde, hasta,
+                (plantilla, fecha) -> anadirTurno(turnos, plantilla, fecha));
+        return turnos;
+    }
+
+    /**
+     * Días de rota sin guardar de varios usuarios como turnos para las reglas laborales, con una
+     * consulta de plantillas y otra de excepciones para todos (todos los usuarios están en el mapa)
+     */
+    public Map<Long, List<TurnoLaboral>> turnosLaborales(Collection<Long> usuarioIds, LocalDate desde, LocalDate hasta) {
+        Map<Long, List<TurnoLaboral>> turnos = new HashMap<>();
+        usuarioIds.forEach(id -> turnos.put(id, new ArrayList<>()));
+        if (usuarioIds.isEmpty()) {
+            return turnos;
+        }
+        List<PlantillaRota> plantillas = plantillaRotaRepository.findVigentesDeUsuarios(usuarioIds, desde, hasta);
+        recorrer(plantillas, desde, hasta,
+                (plantilla, fecha) -> anadirTurno(turnos.get(plantilla.getUsuario().getId()), plantilla, fecha));
+        return turnos;
+    }
+
+    private static void anadirTurno(List<TurnoLaboral> turnos, PlantillaRota plantilla, LocalDate fecha) {
+        TurnoLaboral turno = TurnoLaboral.de(plantilla.horarioEn(fecha), idTurnoRota(fecha));
+        if (turno != null) {
+            turnos.add(turno);
+        }
+    }
+
+    private List<PlantillaRota> plantillasUsuario(Long usuarioId, LocalDate desde, LocalDate hasta) {
+        if (!usuarios().contains(usuarioId)) {
+            return List.of();
+        }
+        return plantillaRotaRepository.findVigentes(usuarioId, desde, hasta);
+    }
+
+    private Set<Long> usuarios() {
+        if (usuariosConPlantilla == null || System.nanoTime() - cargadoEn > REFRESCO_NANOS) {
+            cargarUsuarios();
+        }
+        return usuariosConPlantilla;
+    }
+
+    // Llama a la acción por cada día de [desde, hasta] en que una plantilla tiene turno y no hay excepción
+    private void recorrer(List<PlantillaRota> plantillas, LocalDate desde, LocalDate hasta, BiConsumer<PlantillaRota, LocalDate> accion) {
+        if (plantillas.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<LocalDate>> excepciones = new HashMap<>();
+        List<Long> ids = plantillas.stream().map(PlantillaRota::getId).toList();
+        for (ExcepcionPlantilla excepcion : excepcionPlantillaRepository.findEnRango(ids, desde, hasta)) {
+            excepciones.computeIfAbsent(excepcion.getPlantilla().getId(), id -> new HashSet<>()).add(excepcion.getFecha());
+        }
+        for (PlantillaRota plantilla : plantillas) {
+            Set<LocalDate> modificados = excepciones.getOrDefault(plantilla.getId(), Set.of());
+            LocalDate fin = plantilla.getFechaFin() != null && plantilla.getFechaFin().isBefore(hasta) ? plantilla.getFechaFin() : hasta;
+            for (LocalDate fecha = plantilla.getFechaInicio().isAfter(desde) ? plantilla.getFechaInicio() : desde;
+                 !fecha.isAfter(fin); fecha = fecha.plusDays(1)) {
+                if (!modificados.contains(fecha) && plantilla.turnoEn(fecha) != null) {
+                    accion.accept(plantilla, fecha);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.gestorhorarios.rota;
+
+import com.gestorhorarios.cobertura.CoberturaService;
+import com.gestorhorarios.exception.ResourceNotFoundException;
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.horas.TurnoTrabajado;
+import com.gestorhorarios.ics.CalendarioIcsService;
+import com.gestorhorarios.model.ExcepcionPlantilla;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.PlantillaRota;
+import com.gestorhorarios.model.TurnoPlantilla;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.ReglaLaboralException;
+import com.gestorhorarios.reglas.ReglasLaboralesService;
+import com.gestorhorarios.reglas.TurnoLaboral;
+import com.gestorhorarios.repository.ExcepcionPlantillaRepository;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.repository.PlantillaRotaRepository;
+import com.gestorhorarios.service.HorarioService;
+import com.gestorhorarios.service.UserService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alta, fin y borrado de plantillas de rota, y paso a horarios de los días que se van a cambiar.
+ * La lectura de los días de rota junto a los horarios guardados la hace {@link ExpansionRota}.
+ */
+@Service
+public class PlantillaRotaService {
+
+    // Fecha con la que se buscan solapes de una plantilla sin fin
+    private static final LocalDate SIN_FIN = LocalDate.of(9999, 12, 31);
+    private static final int MAX_DIAS_CICLO = 366;
+    // Días desde el inicio de una plantilla nueva que se comprueban con las reglas laborales
+    private static final int MIN_DIAS_COMPROBADOS = 14;
+
+    private final PlantillaRotaRepository plantillaRotaRepository;
+    private final ExcepcionPlantillaRepository excepcionPlantillaRepository;
+    private final HorarioRepository horarioRepository;
+    private final HorarioService horarioService;
+    private final UserService userService;
+    private final ReglasLaboralesService reglasLaboralesService;
+    private final ExpansionRota expansionRota;
+    private final CoberturaService coberturaService;
+    private final HorasMensualesService horasMensualesService;
+    private final CalendarioIcsService calendarioIcsService;
+
+    public PlantillaRotaService(PlantillaRotaRepository plantillaRotaRepository,
+                                ExcepcionPlantillaRepository excepcionPlantillaRepository,
+                                HorarioRepository horarioRepository,
+                                HorarioService horarioService,
+                                UserService userService,
+                                ReglasLaboralesService reglasLaboralesService,
+                                ExpansionRota expansionRota,
+                                CoberturaService coberturaService,
+                                HorasMensualesService horasMensualesService,
+                                CalendarioIcsService calendarioIcsService) {
+        this.plantillaRotaRepository = plantillaRotaRepository;
+        this.excepcionPlantillaRepository = excepcionPlantillaRepository;
+        this.horarioRepository = horarioRepository;
+        this.horarioService = horarioService;
+        this.userService = userService;
+        this.reglasLaboralesService = reglasLaboralesService;
+        this.expansionRota = expansionRota;
+        this.coberturaService = coberturaService;
+        this.horasMensualesService = horasMensualesService;
+        this.calendarioIcsService = calendarioIcsService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PlantillaRota> getPlantillasPorUsuarioId(Long usuarioId) {
+        return plantillaRotaRepository.findByUsuarioIdOrderByFechaInicio(usuarioId);
+    }
+
+    public PlantillaRota obtenerPlantillaPorId(Long id) {
+        return plantillaRotaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Plantilla de rota", "id", id));
+    }
+
+    /**
+     * Asigna una plantilla de rota a un trabajador. No puede solaparse con otra plantilla suya, y
+     * los primeros ciclos (al menos dos semanas) se comprueban con las reglas laborales junto a los
+     * horarios que ya tiene.
+     * @param usuarioId trabajador
+     * @param plantilla fechas y ciclo (sin usuario)
+     * @param rol rol de los turnos; si es null se usa el del trabajador
+     * @return plantilla guardada
+     */
+    @Transactional
+    public PlantillaRota crearPlantilla(Long usuarioId, PlantillaRota plantilla, String rol) {
+        User usuario = userService.findUserById(usuarioId);
+        validarPlantilla(plantilla);
+        plantilla.setUsuario(usuario);
+        plantilla.setRol(horarioService.rolPermitido(rol == null || rol.trim().isEmpty() ? usuario.getRole().name() : rol));
+
+        // Con el trabajador bloqueado, otra asignación a la vez (horario o plantilla) espera a que
+        // esta termine y la comprobación de solapes y reglas ve lo último guardado
+        reglasLaboralesService.bloquear(List.of(usuarioId));
+        LocalDate hasta = plantilla.getFechaFin() != null ? plantilla.getFechaFin() : SIN_FIN;
+        if (!plantillaRotaRepository.findVigentes(usuarioId, plantilla.getFechaInicio(), hasta).isEmpty()) {
+            throw new IllegalArgumentException("El trabajador ya tiene una plantilla de rota en esas fechas");
+        }
+
+        List<TurnoLaboral> turnos = new ArrayList<>();
+        long idProvisional = -1L;
+        LocalDate fin = plantilla.getFechaInicio().plusDays(Math.max(2L * plantilla.getCiclo().size(), MIN_DIAS_COMPROBADOS) - 1);
+        for (LocalDate fecha = plantilla.getFechaInicio(); !fecha.isAfter(fin) && !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+            Horario horario = plantilla.horarioEn(fecha);
+            if (horario != null) {
+                turnos.add(TurnoLaboral.de(horario, idProvisional--));
+            }
+        }
+        List<String> incumplimientos = reglasLaboralesService.evaluar(usuarioId, turnos, List.of());
+        if (!incumplimientos.isEmpty()) {
+            throw new ReglaLaboralException(incumplimientos);
+        }
+
+        PlantillaRota guardada = plantillaRotaRepository.save(plantilla);
+        expansionRota.anotarUsuario(usuarioId);
+        reglasLaboralesService.olvidar(usuarioId);
+        coberturaService.olvidar(guardada.getFechaInicio(), guardada.getFechaFin());
+        calendarioIcsService.horariosCambiados(usuarioId);
+        return guardada;
+    }
+
+    /**
+     * Adelanta el último día de una plantilla. Para alargarla se crea otra a continuación.
+     */
+    @Transactional
+    public PlantillaRota terminarPlantilla(Long id, LocalDate fechaFin) {
+        PlantillaRota plantilla = obtenerPlantillaPorId(id);
+        if (fechaFin.isBefore(plantilla.getFechaInicio())) {
+            throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (plantilla.getFechaFin() != null && fechaFin.isAfter(plantilla.getFechaFin())) {
+            throw new IllegalArgumentException("Solo se puede adelantar el fin de la plantilla");
+        }
+        LocalDate finAnterior = plantilla.getFechaFin();
+        plantilla.setFechaFin(fechaFin);
+        PlantillaRota guardada = plantillaRotaRepository.save(plantilla);
+        reglasLaboralesService.olvidar(plantilla.getUsuario().getId());
+        coberturaService.olvidar(fechaFin.plusDays(1), finAnterior);
+        calendarioIcsService.horariosCambiados(plantilla.getUsuario().getId());
+        return guardada;
+    }
+
+    /**
+     * Borra una plantilla y sus excepciones. Los días que ya se pasaron a horarios se conservan.
+     */
+    @Transactional
+    public void eliminarPlantilla(Long id) {
+        PlantillaRota plantilla = obtenerPlantillaPorId(id);
+        Long usuarioId = plantilla.getUsuario().getId();
+        excepcionPlantillaRepository.deleteByPlantilla(plantilla);
+        plantillaRotaRepository.delete(plantilla);
+        reglasLaboralesService.olvidar(usuarioId);
+        coberturaService.olvidar(plantilla.getFechaInicio(), plantilla.getFechaFin());
+        calendarioIcsService.horariosCambiados(usuarioId);
+    }
+
+    /**
+     * Guarda en horarios el día de rota de un trabajador para poder cambiarlo, intercambiarlo o
+     * borrarlo con las operaciones de horarios. Desde ese momento la plantilla ya no genera ese día.
+     * @return el horario guardado, igual al día de la rota
+     */
+    @Transactional
+    public Horario materializarDia(Long usuarioId, LocalDate fecha) {
+        PlantillaRota plantilla = plantillaRotaRepository.findVigentes(usuarioId, fecha, fecha).stream()
+                .filter(p -> p.turnoEn(fecha) != null)
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Turno de rota", "fecha", fecha));
+        if (excepcionPlantillaRepository.existsByPlantillaAndFecha(plantilla, fecha)) {
+            throw new IllegalArgumentException("Ese día de la rota ya está guardado como horario");
+        }
+
+        ExcepcionPlantilla excepcion = new ExcepcionPlantilla();
+        excepcion.setPlantilla(plantilla);
+        excepcion.setFecha(fecha);
+        excepcionPlantillaRepository.save(excepcion);
+        Horario guardado = horarioRepository.save(plantilla.horarioEn(fecha));
+
+        // Mismo turno: en la ventana de las reglas solo cambia el id
+        reglasLaboralesService.quitar(usuarioId, ExpansionRota.idTurnoRota(fecha));
+        reglasLaboralesService.registrar(usuarioId, TurnoLaboral.de(guardado, guardado.getId()));
+        // Las horas del día se leían de la plantilla; desde ahora salen del registro
+        horasMensualesService.sumar(TurnoTrabajado.de(guardado));
+        // Mismo turno, pero en el feed pasa a tener el UID del horario guardado
+        calendarioIcsService.horariosCambiados(usuarioId);
+        return guardado;
+    }
+
+    private static void validarPlantilla(PlantillaRota plantilla) {
+        if (plantilla.getFechaInicio() == null) {
+            throw new IllegalArgumentException("La fecha de inicio de la plantilla es obligatoria");
+        }
+        if (plantilla.getFechaFin() != null && plantilla.getFechaFin().isBefore(plantilla.getFechaInicio())) {
+            throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        List<TurnoPlantilla> ciclo = plantilla.getCiclo();
+        if (ciclo == null || ciclo.isEmpty() || ciclo.size() > MAX_DIAS_CICLO) {
+            throw new IllegalArgumentException("El ciclo de la plantilla debe tener entre 1 y " + MAX_DIAS_CICLO + " días");
+        }
+        for (TurnoPlantilla turno : ciclo) {
+            if (turno == null) {
+                throw new IllegalArgumentException("Los días del ciclo no pueden estar vacíos");
+            }
+            if (turno.isLibre()) {
+                turno.setTipoTurno(null);
+                turno.setHoraInicio(null);
+                turno.setHoraFin(null);
+            } else if (turno.getHoraInicio() == null || turno.getHoraFin() == null) {
+                throw new IllegalArgumentException("Los días de trabajo del ciclo necesitan hora de inicio y de fin");
+            } else if (turno.getHoraInicio().equals(turno.getHoraFin())) {
+                throw new IllegalArgumentException("La hora de fin no puede ser igual a la de inicio");
+            }
+        }
+        if (ciclo.stream().allMatch(TurnoPlantilla::isLibre)) {
+            throw new IllegalArgumentException("El ciclo de la plantilla no tiene ningún turno");
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.gestorhorarios.security;
 
 import com.gestorhorarios.model.User;
 import com.gestorhorarios.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -10,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
     private final UserRepository userRepository;
 
@@ -21,26 +24,30 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
         try {
-            System.out.println("Buscando usuario por username o email: " + usernameOrEmail);
+            logger.debug("Buscando usuario por username o email: {}", usernameOrEmail);
             
             // Buscar usuario por nombre de usuario o email
             User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
                     .orElseThrow(() -> {
                         String errorMsg = "Usuario no encontrado con el nombre de usuario o email: " + usernameOrEmail;
-                        System.err.println("ERROR: " + errorMsg);
+                        logger.atWarn()
+                                .addKeyValue("usernameOrEmail", usernameOrEmail)
+                                .log("Usuario no encontrado");
                         return new UsernameNotFoundException(errorMsg);
                     });
             
-            System.out.println("Usuario encontrado: " + user.getUsername());
-            System.out.println("Contraseña almacenada: " + user.getPassword());
+            // Nunca se escribe la contraseña (ni su hash) en el log
+            logger.atDebug()
+                    .addKeyValue("userId", user.getId())
+                    .addKeyValue("username", user.getUsername())
+                    .log("Usuario encontrado");
             
             return UserPrincipal.create(user);
             
         } catch (UsernameNotFoundException e) {
             throw e; // Relanzar excepciones específicas
         } catch (Exception e) {
-            System.err.println("Error inesperado cargando usuario: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error inesperado cargando usuario: {}", usernameOrEmail, e);
             throw new UsernameNotFoundException("Error al cargar el usuario", e);
         }
     }
@@ -39,7 +39,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         logRequestDetails(request);
         final String requestURI = request.getRequestURI();
-        logger.info("Processing request to: {}", requestURI);
+        logger.debug("Processing request to: {}", requestURI);
         
         // Handle CORS preflight requests
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
@@ -73,7 +73,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                                     
                                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                                    logger.info("Successfully authenticated user: {} for URI: {}", username, requestURI);
+                                    logger.debug("Successfully authenticated user: {} for URI: {}", username, requestURI);
                                 } else {
                                     logger.error("User details not found for username: {}", username);
                                     response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User details not found");
@@ -123,9 +123,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         // Add paths that don't require authentication
         return !path.startsWith("/api/auth/") && 
+               !path.startsWith("/api/calendario/feed/") &&
                !path.startsWith("/v3/api-docs") && 
                !path.startsWith("/swagger-ui") &&
-               !path.startsWith("/swagger-ui.html");
+               !path.startsWith("/swagger-ui.html") &&
+               !path.startsWith("/actuator/health") &&
+               !path.equals("/actuator/prometheus");
     }
 
     private String getJwtFromRequest(HttpServletRequest request) {
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import com.gestorhorarios.config.JwtProperties;
+import com.gestorhorarios.logging.LogRateLimiter;
+import com.gestorhorarios.monitoring.BusinessMetrics;
 
 import java.security.Key;
 import java.util.Date;
@@ -21,31 +23,34 @@ public class JwtTokenProvider {
     private final String jwtSecret;
     private final long jwtExpirationInMs;
     private final Key key;
+    private final LogRateLimiter logRateLimiter;
+    private final BusinessMetrics businessMetrics;
 
-    public JwtTokenProvider(JwtProperties jwtProperties) {
+    public JwtTokenProvider(JwtProperties jwtProperties, LogRateLimiter logRateLimiter, BusinessMetrics businessMetrics) {
+        this.logRateLimiter = logRateLimiter;
+        this.businessMetrics = businessMetrics;
         this.jwtSecret = jwtProperties.getSecret();
         this.jwtExpirationInMs = jwtProperties.getExpirationMs();
         
         try {
-            System.out.println("Inicializando clave JWT con secreto de longitud: " + this.jwtSecret.length());
+            logger.info("Inicializando clave JWT con secreto de longitud: {}", this.jwtSecret.length());
             
             // Verify minimum key length for HS512 (64 bytes = 512 bits)
             int minKeyLength = 64; // 512 bits / 8 = 64 bytes
             if (this.jwtSecret.length() < minKeyLength) {
-                System.err.println("ADVERTENCIA: El secreto JWT es demasiado corto para HS512. Se generará una clave segura.");
+                logger.warn("El secreto JWT es demasiado corto para HS512. Se generará una clave segura.");
                 // Generate a secure random key
                 this.key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
-                System.out.println("Clave JWT generada automáticamente para HS512");
+                logger.info("Clave JWT generada automáticamente para HS512");
             } else {
                 // Use the provided secret if it's long enough
                 this.key = Keys.hmacShaKeyFor(this.jwtSecret.getBytes());
-                System.out.println("Clave JWT inicializada correctamente desde la configuración");
+                logger.info("Clave JWT inicializada correctamente desde la configuración");
             }
             
-            System.out.println("Tiempo de expiración configurado: " + this.jwtExpirationInMs + " ms");
+            logger.info("Tiempo de expiración configurado: {} ms", this.jwtExpirationInMs);
         } catch (Exception e) {
-            System.err.println("Error al inicializar la clave JWT: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error al inicializar la clave JWT: {}", e.getMessage(), e);
             throw new RuntimeException("No se pudo inicializar el proveedor JWT", e);
         }
     }
@@ -53,19 +58,14 @@ public class JwtTokenProvider {
 
     public String generateToken(Authentication authentication) {
         try {
-            System.out.println("Generando token JWT para: " + authentication.getName());
-            System.out.println("Autoridades del usuario: " + authentication.getAuthorities());
-            
             UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-            System.out.println("UserDetails obtenido: " + userPrincipal.getUsername());
             
             Date now = new Date();
             Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
-            System.out.println("Token válido hasta: " + expiryDate);
             
             // Verificar que la clave secreta no sea nula
             if (key == null) {
-                System.err.println("ERROR: La clave JWT es nula. La inicialización falló.");
+                logger.error("La clave JWT es nula. La inicialización falló.");
                 throw new IllegalStateException("La clave JWT no está inicializada correctamente");
             }
             
@@ -76,11 +76,14 @@ public class JwtTokenProvider {
                     .signWith(key, SignatureAlgorithm.HS512)
                     .compact();
                     
-            System.out.println("Token JWT generado exitosamente");
+            logger.atDebug()
+                    .addKeyValue("username", userPrincipal.getUsername())
+                    .addKeyValue("authorities", authentication.getAuthorities())
+                    .addKeyValue("expiresAt", expiryDate.toInstant())
+                    .log("Token JWT generado");
             return token;
         } catch (Exception e) {
-            System.err.println("Error al generar token JWT: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error al generar token JWT para {}: {}", authentication.getName(), e.getMessage(), e);
             throw e;
         }
     }
@@ -97,13 +100,10 @@ public class JwtTokenProvider {
     public boolean validateToken(String authToken) {
         try {
             if (!StringUtils.hasText(authToken)) {
-                logger.warn("JWT token is empty or null");
+                logRejected("empty", "JWT token is empty or null", null);
                 return false;
             }
             
-            logger.info("Validating JWT token");
-            logger.debug("Token to validate: {}", authToken);
-            
             // First, try to parse the token to check its structure
             Jws<Claims> jws = Jwts.parserBuilder()
                 .setSigningKey(key)
@@ -113,44 +113,63 @@ public class JwtTokenProvider {
             // Get claims
             Claims claims = jws.getBody();
             
-            // Log token details
-            logger.info("JWT Token validated for user: {}", claims.getSubject());
-            logger.debug("Token issued at: {}", claims.getIssuedAt());
-            logger.debug("Token expires at: {}", claims.getExpiration());
-            
             // Check expiration
             if (claims.getExpiration() == null) {
-                logger.error("Token has no expiration date");
+                logRejected("no_expiration", "Token has no expiration date", claims.getSubject());
                 return false;
             }
             
             if (claims.getExpiration().before(new Date())) {
-                logger.error("Token expired on: {}", claims.getExpiration());
+                logRejected("expired", "Token expired on: " + claims.getExpiration(), claims.getSubject());
                 return false;
             }
             
             // Additional validation - check required claims
             if (claims.getSubject() == null || claims.getSubject().isEmpty()) {
-                logger.error("Token has no subject (username)");
+                logRejected("no_subject", "Token has no subject (username)", null);
                 return false;
             }
             
-            logger.info("JWT token is valid");
+            // Se ejecuta en cada petición autenticada: solo a nivel DEBUG
+            if (logger.isDebugEnabled()) {
+                logger.atDebug()
+                        .addKeyValue("username", claims.getSubject())
+                        .addKeyValue("issuedAt", claims.getIssuedAt())
+                        .addKeyValue("expiresAt", claims.getExpiration())
+                        .log("JWT token is valid");
+            }
+            businessMetrics.jwtValidated();
             return true;
             
         } catch (MalformedJwtException ex) {
-            logger.error("Invalid JWT token: {}", ex.getMessage());
-            logger.debug("Token parsing failed", ex);
+            logRejected("malformed", "Invalid JWT token: " + ex.getMessage(), null);
         } catch (ExpiredJwtException ex) {
-            logger.error("Expired JWT token: {}", ex.getMessage());
-            logger.debug("Token expired at: {}", ex.getClaims().getExpiration());
+            logRejected("expired", "Expired JWT token: " + ex.getMessage(), ex.getClaims().getSubject());
         } catch (UnsupportedJwtException ex) {
-            logger.error("Unsupported JWT token: {}", ex.getMessage());
+            logRejected("unsupported", "Unsupported JWT token: " + ex.getMessage(), null);
         } catch (IllegalArgumentException ex) {
-            logger.error("JWT claims string is empty: {}", ex.getMessage());
+            logRejected("empty", "JWT claims string is empty: " + ex.getMessage(), null);
         } catch (Exception ex) {
+            businessMetrics.jwtRejected("error");
             logger.error("Unexpected error validating JWT token: {}", ex.getMessage(), ex);
         }
         return false;
     }
+
+    /**
+     * Registra un token rechazado. Un cliente (o un ataque) puede enviar miles de tokens inválidos
+     * por segundo, así que estos avisos pasan por el limitador y se informa de los descartados.
+     */
+    private void logRejected(String reason, String message, String username) {
+        businessMetrics.jwtRejected(reason);
+        long suppressed = logRateLimiter.tryAcquire("jwt.rejected");
+        if (suppressed < 0) {
+            return;
+        }
+        logger.atWarn()
+                .addKeyValue("reason", reason)
+                .addKeyValue("username", username)
+                .addKeyValue("suppressed", suppressed)
+                .log(message);
+    }
 }
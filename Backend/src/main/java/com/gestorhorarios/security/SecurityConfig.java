@@ -49,11 +49,23 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(
                     "/api/auth/**",
+                    // El feed de calendario se autentica con el token de la URL
+                    "/api/calendario/feed/**",
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
-                    "/swagger-ui.html"
+                    "/swagger-ui.html",
+                    // Solo se sirven en el puerto de gestión, ligado a localhost
+                    "/actuator/health/**",
+                    "/actuator/prometheus"
                 ).permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
+                // La seguridad por método no está activada: los endpoints de administración que no
+                // cuelgan de /api/admin exigen el rol aquí
+                .requestMatchers(HttpMethod.POST, "/api/horarios/importar/**").hasAuthority("ROLE_ADMIN")
+                .requestMatchers("/api/rotas/generador/**").hasAuthority("ROLE_ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/horarios/cobertura", "/api/horarios/exportar").hasAuthority("ROLE_ADMIN")
+                .requestMatchers("/api/horas/usuario/**", "/api/horas/mes/**", "/api/horas/reconstruir").hasAuthority("ROLE_ADMIN")
                 .anyRequest().authenticated()
             )
             .authenticationProvider(authenticationProvider())
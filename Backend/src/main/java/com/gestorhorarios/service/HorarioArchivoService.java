@@ -0,0 +1,155 @@
+package com.gestorhorarios.service;
+
+import com.gestorhorarios.config.HorarioArchivoProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.HorarioArchivado;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioArchivadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene pequeña la tabla horarios moviendo los horarios antiguos a horarios_archivo
+ * y ofrece la lectura conjunta de ambas tablas para las consultas históricas.
+ * Las consultas del periodo vigente no tocan el archivo.
+ */
+@Service
+public class HorarioArchivoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HorarioArchivoService.class);
+
+    // Cada cuánto se vuelve a leer la fecha más reciente archivada (puede archivar otra instancia)
+    private static final Duration WATERMARK_TTL = Duration.ofMinutes(1);
+
+    private static final String COLUMNAS = "id, usuario_id, fecha, hora_inicio, hora_fin, fecha_creacion, " +
+            "fecha_actualizacion, tipo_turno, disponible, intercambiado, notas, rol, observaciones";
+
+    // Los horarios que siguen referenciados por una solicitud de cambio no se archivan
+    private static final String SELECT_CANDIDATOS = "SELECT h.id FROM horarios h WHERE h.fecha < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM solicitudes_cambio s " +
+            "WHERE s.horario_origen_id = h.id OR s.horario_destino_id = h.id) LIMIT ?";
+
+    private static final String INSERT_ARCHIVO = "INSERT INTO horarios_archivo (" + COLUMNAS + ", fecha_archivado) " +
+            "SELECT " + COLUMNAS + ", :archivadoEn FROM horarios WHERE id IN (:ids)";
+
+    private static final String DELETE_HORARIOS = "DELETE FROM horarios WHERE id IN (:ids)";
+
+    private final HorarioArchivadoRepository horarioArchivadoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HorarioArchivoProperties properties;
+
+    private volatile LocalDate archivadoHasta;
+    private volatile Instant archivadoHastaLeido = Instant.EPOCH;
+
+    public HorarioArchivoService(HorarioArchivadoRepository horarioArchivadoRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 HorarioArchivoProperties properties) {
+        this.horarioArchivadoRepository = horarioArchivadoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Primer día que se conserva en la tabla horarios
+     */
+    public LocalDate fechaCorte() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(properties.getRetentionMonths());
+    }
+
+    @Scheduled(cron = "${app.horarios.archivo.cron:0 30 3 * * *}")
+    public void archivarProgramado() {
+        if (properties.isEnabled()) {
+            archivarAnterioresA(fechaCorte());
+        }
+    }
+
+    /**
+     * Mueve por lotes (una transacción por lote) los horarios anteriores a la fecha dada
+     * @return número de horarios archivados
+     */
+    public int archivarAnterioresA(LocalDate corte) {
+        long inicio = System.nanoTime();
+        int total = 0;
+        int movidos;
+        do {
+            movidos = transactionTemplate.execute(status -> moverLote(corte));
+            total += movidos;
+        } while (movidos == properties.getBatchSize());
+
+        refrescarArchivadoHasta();
+        logger.atInfo()
+                .addKeyValue("corte", corte)
+                .addKeyValue("archivados", total)
+                .addKeyValue("ms", Duration.ofNanos(System.nanoTime() - inicio).toMillis())
+                .log("Archivado de horarios completado");
+        return total;
+    }
+
+    private int moverLote(LocalDate corte) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_CANDIDATOS, Long.class, corte, properties.getBatchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivadoEn", Timestamp.valueOf(LocalDateTime.now()));
+        namedJdbcTemplate.update(INSERT_ARCHIVO, params);
+        namedJdbcTemplate.update(DELETE_HORARIOS, params);
+        return ids.size();
+    }
+
+    /**
+     * Indica si un rango que empieza en la fecha dada puede tener horarios en el archivo
+     */
+    public boolean incluyeArchivo(LocalDate desde) {
+        if (desde.isBefore(fechaCorte())) {
+            return true;
+        }
+        LocalDate hasta = archivadoHasta();
+        return hasta != null && !desde.isAfter(hasta);
+    }
+
+    public List<Horario> findArchivadosPorUsuario(User usuario, LocalDate fechaInicio, LocalDate fechaFin) {
+        return horarioArchivadoRepository.findByUsuarioAndFechaBetween(usuario, fechaInicio, fechaFin).stream()
+                .map(HorarioArchivado::toHorario)
+                .collect(Collectors.toList());
+    }
+
+    public List<Horario> findArchivadosPorPeriodo(LocalDate fechaInicio, LocalDate fechaFin) {
+        return horarioArchivadoRepository.findByFechaBetween(fechaInicio, fechaFin).stream()
+                .map(HorarioArchivado::toHorario)
+                .collect(Collectors.toList());
+    }
+
+    private LocalDate archivadoHasta() {
+        if (Instant.now().isAfter(archivadoHastaLeido.plus(WATERMARK_TTL))) {
+            refrescarArchivadoHasta();
+        }
+        return archivadoHasta;
+    }
+
+    private void refrescarArchivadoHasta() {
+        archivadoHasta = horarioArchivadoRepository.findMaxFecha();
+        archivadoHastaLeido = Instant.now();
+    }
+}
@@ -1,44 +1,81 @@
 package com.gestorhorarios.service;
 
+import com.gestorhorarios.cobertura.CoberturaService;
+import com.gestorhorarios.cobertura.TurnoCubierto;
 import com.gestorhorarios.exception.ResourceNotFoundException;
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.horas.TurnoTrabajado;
+import com.gestorhorarios.ics.CalendarioIcsService;
 import com.gestorhorarios.model.Horario;
 import com.gestorhorarios.model.Role;
 import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.ReglaLaboralException;
+import com.gestorhorarios.reglas.ReglasLaboralesService;
+import com.gestorhorarios.reglas.TurnoLaboral;
 import com.gestorhorarios.repository.HorarioRepository;
-import jakarta.transaction.Transactional;
+import com.gestorhorarios.rota.ExpansionRota;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class HorarioService {
 
+    // Id provisional de los turnos que se comprueban antes de guardarlos
+    private static final long NUEVO = -1L;
+
     @Autowired
     private HorarioRepository horarioRepository;
     
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private HorarioArchivoService horarioArchivoService;
+
+    @Autowired
+    private ReglasLaboralesService reglasLaboralesService;
+
+    @Autowired
+    private ExpansionRota expansionRota;
+
+    @Autowired
+    private CoberturaService coberturaService;
+
+    @Autowired
+    private HorasMensualesService horasMensualesService;
+
+    @Autowired
+    private CalendarioIcsService calendarioIcsService;
+
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosPorUsuario(User usuario) {
         return horarioRepository.findByUsuario(usuario);
     }
     
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosPorUsuarioId(Long usuarioId) {
         User usuario = userService.findUserById(usuarioId);
         return horarioRepository.findByUsuario(usuario);
     }
     
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosPorUsuarioId(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
         if (fechaFin.isBefore(fechaInicio)) {
             throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
         }
         User usuario = userService.findUserById(usuarioId);
-        return horarioRepository.findByUsuarioAndFechaBetween(usuario, fechaInicio, fechaFin);
+        return findByUsuarioEnRango(usuario, fechaInicio, fechaFin);
     }
 
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosDisponibles(User usuario, LocalDate fechaInicio, LocalDate fechaFin) {
         if (fechaInicio != null && fechaFin != null) {
             if (fechaFin.isBefore(fechaInicio)) {
@@ -49,6 +86,7 @@ public class HorarioService {
         return horarioRepository.findByDisponibleTrueAndUsuarioNot(usuario);
     }
     
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosDisponiblesPorRolYFecha(String rol, LocalDate fecha) {
         if (rol == null || rol.isEmpty()) {
             throw new IllegalArgumentException("El rol no puede estar vacío");
@@ -66,15 +104,24 @@ public class HorarioService {
         }
     }
     
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosPorFecha(LocalDate fecha) {
-        return horarioRepository.findByFecha(fecha);
+        return conRota(horarioRepository.findByFecha(fecha), expansionRota.horariosPeriodo(fecha, fecha));
     }
     
+    @Transactional(readOnly = true)
     public List<Horario> getHorariosPorPeriodo(LocalDate fechaInicio, LocalDate fechaFin) {
         if (fechaFin.isBefore(fechaInicio)) {
             throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
         }
-        return horarioRepository.findByFechaBetween(fechaInicio, fechaFin);
+        List<Horario> horarios = conRota(horarioRepository.findByFechaBetween(fechaInicio, fechaFin),
+                expansionRota.horariosPeriodo(fechaInicio, fechaFin));
+        if (!horarioArchivoService.incluyeArchivo(fechaInicio)) {
+            return horarios;
+        }
+        List<Horario> conArchivo = new ArrayList<>(horarioArchivoService.findArchivadosPorPeriodo(fechaInicio, fechaFin));
+        conArchivo.addAll(horarios);
+        return conArchivo;
     }
 
     @Transactional
@@ -86,9 +133,7 @@ public class HorarioService {
         if (horario.getHoraInicio() == null || horario.getHoraFin() == null) {
             throw new IllegalArgumentException("Las horas de inicio y fin son obligatorias");
         }
-        if (horario.getHoraFin().isBefore(horario.getHoraInicio())) {
-            throw new IllegalArgumentException("La hora de fin no puede ser anterior a la hora de inicio");
-        }
+        validarHoras(horario);
         
         // Asegurarse de que el usuario existe
         if (horario.getUsuario() == null || horario.getUsuario().getId() == null) {
@@ -105,30 +150,72 @@ public class HorarioService {
             throw new IllegalArgumentException("El rol es obligatorio");
         }
         
-        // Normalizar el rol
-        String normalizedRol = rol.trim().toUpperCase();
-        if (!normalizedRol.startsWith("ROLE_")) {
-            normalizedRol = "ROLE_" + normalizedRol;
-        }
-        
-        // Verificar que el rol sea uno de los permitidos
-        try {
-            Role role = Role.valueOf(normalizedRol);
-            if (role != Role.ROLE_TCAE && role != Role.ROLE_MEDICO && role != Role.ROLE_ENFERMERO) {
-                throw new IllegalArgumentException("Rol no permitido. Los roles permitidos son: ROLE_TCAE, ROLE_MEDICO, ROLE_ENFERMERO");
+        horario.setRol(rolPermitido(rol));
+
+        // Descanso, horas semanales y noches seguidas del trabajador, con el trabajador bloqueado
+        reglasLaboralesService.bloquear(List.of(usuario.getId()));
+        reglasLaboralesService.validar(usuario.getId(), TurnoLaboral.de(horario, NUEVO), List.of());
+
+        // Guardar el horario
+        Horario guardado = horarioRepository.save(horario);
+        reglasLaboralesService.registrar(usuario.getId(), TurnoLaboral.de(guardado, guardado.getId()));
+        coberturaService.sumar(TurnoCubierto.de(guardado));
+        horasMensualesService.sumar(TurnoTrabajado.de(guardado));
+        calendarioIcsService.horariosCambiados(usuario.getId());
+        return guardado;
+    }
+
+    /**
+     * Crea de una vez los horarios de un trabajador. Las reglas laborales se comprueban con los
+     * horarios que ya tiene y con los anteriores del propio lote; si alguno las incumple no se
+     * guarda ninguno y se devuelven todos los incumplimientos.
+     * @param usuarioId trabajador al que se asignan los horarios
+     * @param horarios horarios a crear (sin usuario)
+     * @param rol rol de los horarios; si es null se usa el del trabajador
+     * @return horarios guardados
+     */
+    @Transactional
+    public List<Horario> importarHorarios(Long usuarioId, List<Horario> horarios, String rol) {
+        User usuario = userService.findUserById(usuarioId);
+        Role role = rolPermitido(rol == null || rol.trim().isEmpty() ? usuario.getRole().name() : rol);
+
+        List<Horario> ordenados = new ArrayList<>(horarios);
+        ordenados.sort(Comparator.comparing(Horario::getFecha, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Horario::getHoraInicio, Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<TurnoLaboral> turnos = new ArrayList<>();
+        long idProvisional = NUEVO;
+        for (Horario horario : ordenados) {
+            if (horario.getFecha() == null || horario.getHoraInicio() == null || horario.getHoraFin() == null) {
+                throw new IllegalArgumentException("La fecha y las horas de inicio y fin son obligatorias");
             }
+            validarHoras(horario);
+            horario.setUsuario(usuario);
             horario.setRol(role);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Rol no válido. Los roles permitidos son: ROLE_TCAE, ROLE_MEDICO, ROLE_ENFERMERO");
+            turnos.add(TurnoLaboral.de(horario, idProvisional--));
         }
-        
-        // Guardar el horario
-        return horarioRepository.save(horario);
+
+        reglasLaboralesService.bloquear(List.of(usuarioId));
+        List<String> incumplimientos = reglasLaboralesService.evaluar(usuarioId, turnos, List.of());
+        if (!incumplimientos.isEmpty()) {
+            throw new ReglaLaboralException(incumplimientos);
+        }
+        List<Horario> guardados = horarioRepository.saveAll(ordenados);
+        guardados.forEach(h -> {
+            reglasLaboralesService.registrar(usuarioId, TurnoLaboral.de(h, h.getId()));
+            coberturaService.sumar(TurnoCubierto.de(h));
+        });
+        horasMensualesService.sumar(guardados.stream().map(TurnoTrabajado::de).toList());
+        calendarioIcsService.horariosCambiados(usuarioId);
+        return guardados;
     }
 
     @Transactional
     public Horario actualizarHorario(Horario horario) {
+        validarHoras(horario);
         Horario horarioExistente = obtenerHorarioPorId(horario.getId());
+        TurnoLaboral anterior = TurnoLaboral.de(horarioExistente, horarioExistente.getId());
+        TurnoCubierto cubiertoAntes = TurnoCubierto.de(horarioExistente);
+        TurnoTrabajado trabajadoAntes = TurnoTrabajado.de(horarioExistente);
         
         // Actualizar los campos permitidos
         horarioExistente.setFecha(horario.getFecha());
@@ -137,14 +224,39 @@ public class HorarioService {
         horarioExistente.setDisponible(horario.isDisponible());
         horarioExistente.setTipoTurno(horario.getTipoTurno());
         horarioExistente.setNotas(horario.getNotas());
-        
-        return horarioRepository.save(horarioExistente);
+
+        // Si cambian el día, las horas o el tipo se vuelven a comprobar las reglas laborales
+        Long usuarioId = horarioExistente.getUsuario().getId();
+        TurnoLaboral turno = TurnoLaboral.de(horarioExistente, horarioExistente.getId());
+        if (turno != null && !turno.equals(anterior)) {
+            reglasLaboralesService.bloquear(List.of(usuarioId));
+            reglasLaboralesService.validar(usuarioId, turno, List.of());
+        }
+
+        Horario guardado = horarioRepository.save(horarioExistente);
+        if (turno == null) {
+            reglasLaboralesService.quitar(usuarioId, guardado.getId());
+        } else {
+            reglasLaboralesService.registrar(usuarioId, turno);
+        }
+        TurnoCubierto cubierto = TurnoCubierto.de(guardado);
+        if (!Objects.equals(cubiertoAntes, cubierto)) {
+            coberturaService.restar(cubiertoAntes);
+            coberturaService.sumar(cubierto);
+        }
+        horasMensualesService.cambiar(trabajadoAntes, TurnoTrabajado.de(guardado));
+        calendarioIcsService.horariosCambiados(usuarioId);
+        return guardado;
     }
 
     @Transactional
     public void eliminarHorario(Long id) {
         Horario horario = obtenerHorarioPorId(id);
         horarioRepository.delete(horario);
+        reglasLaboralesService.quitar(horario.getUsuario().getId(), id);
+        coberturaService.restar(TurnoCubierto.de(horario));
+        horasMensualesService.restar(TurnoTrabajado.de(horario));
+        calendarioIcsService.horariosCambiados(horario.getUsuario().getId());
     }
     
     /**
@@ -170,13 +282,48 @@ public class HorarioService {
         }
     }
 
+    /**
+     * Una hora de fin anterior a la de inicio es un turno que acaba al día siguiente (como en las
+     * plantillas de rota, el generador y las reglas laborales); solo se rechazan horas iguales.
+     *
+     * Antes también se rechazaba una hora de fin anterior, pero el generador de rotas guarda las
+     * noches de 22:00 a 08:00 en una sola fila: con esa comprobación las noches confirmadas no se
+     * podían editar ni importar, y partirlas en dos filas rompería las reglas laborales y las horas.
+     */
+    private static void validarHoras(Horario horario) {
+        if (horario.getHoraInicio() != null && horario.getHoraInicio().equals(horario.getHoraFin())) {
+            throw new IllegalArgumentException("La hora de fin no puede ser igual a la de inicio");
+        }
+    }
+
+    /**
+     * Rol normalizado (con prefijo ROLE_) si es uno de los que pueden tener horarios
+     * @throws IllegalArgumentException si no es válido o no puede tener horarios
+     */
+    public Role rolPermitido(String rol) {
+        String normalizedRol = rol.trim().toUpperCase();
+        if (!normalizedRol.startsWith("ROLE_")) {
+            normalizedRol = "ROLE_" + normalizedRol;
+        }
+        try {
+            Role role = Role.valueOf(normalizedRol);
+            if (role != Role.ROLE_TCAE && role != Role.ROLE_MEDICO && role != Role.ROLE_ENFERMERO) {
+                throw new IllegalArgumentException("Rol no permitido. Los roles permitidos son: ROLE_TCAE, ROLE_MEDICO, ROLE_ENFERMERO");
+            }
+            return role;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Rol no válido. Los roles permitidos son: ROLE_TCAE, ROLE_MEDICO, ROLE_ENFERMERO");
+        }
+    }
+
     public Horario obtenerHorarioPorId(Long id) {
         return horarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Horario", "id", id));
     }
     
     /**
-     * Obtiene todos los horarios de un usuario.
+     * Obtiene todos los horarios vigentes de un usuario (los archivados y los días de su
+     * plantilla de rota solo se devuelven en las consultas por rango de fechas).
      * 
      * @param usuario Usuario del que se quieren obtener los horarios
      * @return Lista de horarios del usuario
@@ -200,6 +347,34 @@ public class HorarioService {
         if (fechaFin.isBefore(fechaInicio)) {
             throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio");
         }
-        return horarioRepository.findByUsuarioAndFechaBetween(usuario, fechaInicio, fechaFin);
+        return findByUsuarioEnRango(usuario, fechaInicio, fechaFin);
+    }
+
+    /**
+     * Horarios de un usuario en un rango, con los días de su plantilla de rota; solo consulta
+     * horarios_archivo si el rango empieza antes de la fecha más reciente archivada.
+     */
+    private List<Horario> findByUsuarioEnRango(User usuario, LocalDate fechaInicio, LocalDate fechaFin) {
+        List<Horario> horarios = conRota(horarioRepository.findByUsuarioAndFechaBetween(usuario, fechaInicio, fechaFin),
+                expansionRota.horariosUsuario(usuario, fechaInicio, fechaFin));
+        if (!horarioArchivoService.incluyeArchivo(fechaInicio)) {
+            return horarios;
+        }
+        List<Horario> conArchivo = new ArrayList<>(
+                horarioArchivoService.findArchivadosPorUsuario(usuario, fechaInicio, fechaFin));
+        conArchivo.addAll(horarios);
+        return conArchivo;
+    }
+
+    /**
+     * Horarios guardados seguidos de los días de rota (sin id) que no se han pasado a horarios
+     */
+    private static List<Horario> conRota(List<Horario> horarios, List<Horario> rota) {
+        if (rota.isEmpty()) {
+            return horarios;
+        }
+        List<Horario> todos = new ArrayList<>(horarios);
+        todos.addAll(rota);
+        return todos;
     }
-}
+}
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.gestorhorarios.service;
 
 import com.gestorhorarios.exception.ResourceNotFoundException;
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.horas.TurnoTrabajado;
+import com.gestorhorarios.ics.CalendarioIcsService;
 import com.gestorhorarios.model.*;
+import com.gestorhorarios.monitoring.BusinessMetrics;
+import com.gestorhorarios.reglas.ReglasLaboralesService;
+import com.gestorhorarios.reglas.TurnoLaboral;
 import com.gestorhorarios.repository.HorarioRepository;
 import com.gestorhorarios.repository.SolicitudCambioRepository;
 import jakarta.transaction.Transactional;
@@ -27,6 +33,18 @@ public class SolicitudCambioService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private BusinessMetrics businessMetrics;
+
+    @Autowired
+    private ReglasLaboralesService reglasLaboralesService;
+
+    @Autowired
+    private HorasMensualesService horasMensualesService;
+
+    @Autowired
+    private CalendarioIcsService calendarioIcsService;
+
     public List<SolicitudCambio> obtenerSolicitudesEnviadas(User usuario) {
         return solicitudCambioRepository.findBySolicitante(usuario);
     }
@@ -86,7 +104,9 @@ public class SolicitudCambioService {
         solicitud.setEstado(SolicitudCambio.EstadoSolicitud.PENDIENTE);
         solicitud.setFechaRespuesta(null);
 
-        return solicitudCambioRepository.save(solicitud);
+        SolicitudCambio guardada = solicitudCambioRepository.save(solicitud);
+        businessMetrics.swapTransition("NUEVA", SolicitudCambio.EstadoSolicitud.PENDIENTE);
+        return guardada;
     }
 
     @Transactional
@@ -115,6 +135,17 @@ public class SolicitudCambioService {
                 throw new IllegalStateException("El horario de destino ya no pertenece al receptor");
             }
 
+            // Cada uno recibe el horario del otro: las reglas laborales se comprueban sin el que cede
+            Long solicitanteId = horarioOrigen.getUsuario().getId();
+            Long receptorId = horarioDestino.getUsuario().getId();
+            TurnoLaboral turnoOrigen = TurnoLaboral.de(horarioOrigen, horarioOrigen.getId());
+            TurnoLaboral turnoDestino = TurnoLaboral.de(horarioDestino, horarioDestino.getId());
+            reglasLaboralesService.bloquear(List.of(solicitanteId, receptorId));
+            reglasLaboralesService.validar(solicitanteId, turnoDestino, List.of(horarioOrigen.getId()));
+            reglasLaboralesService.validar(receptorId, turnoOrigen, List.of(horarioDestino.getId()));
+
+            List<TurnoTrabajado> trabajadosAntes = List.of(TurnoTrabajado.de(horarioOrigen), TurnoTrabajado.de(horarioDestino));
+
             // Intercambiar los usuarios de los horarios
             User solicitante = horarioOrigen.getUsuario();
             horarioOrigen.setUsuario(horarioDestino.getUsuario());
@@ -123,6 +154,15 @@ public class SolicitudCambioService {
             // Actualizar los horarios
             horarioRepository.save(horarioOrigen);
             horarioRepository.save(horarioDestino);
+            reglasLaboralesService.quitar(solicitanteId, horarioOrigen.getId());
+            reglasLaboralesService.quitar(receptorId, horarioDestino.getId());
+            reglasLaboralesService.registrar(solicitanteId, turnoDestino);
+            reglasLaboralesService.registrar(receptorId, turnoOrigen);
+            // El mapa de cobertura no cambia: cada horario conserva su día, tipo de turno y rol
+            // Las horas pasan de un trabajador al otro
+            horasMensualesService.aplicar(trabajadosAntes,
+                    List.of(TurnoTrabajado.de(horarioOrigen), TurnoTrabajado.de(horarioDestino)));
+            calendarioIcsService.horariosCambiados(List.of(solicitanteId, receptorId));
 
             solicitud.setEstado(SolicitudCambio.EstadoSolicitud.ACEPTADA);
         } else {
@@ -130,7 +170,9 @@ public class SolicitudCambioService {
         }
 
         solicitud.setFechaRespuesta(LocalDateTime.now());
-        return solicitudCambioRepository.save(solicitud);
+        SolicitudCambio guardada = solicitudCambioRepository.save(solicitud);
+        businessMetrics.swapTransition(SolicitudCambio.EstadoSolicitud.PENDIENTE, guardada.getEstado());
+        return guardada;
     }
     
     @Transactional
@@ -150,5 +192,6 @@ public class SolicitudCambioService {
         solicitud.setEstado(SolicitudCambio.EstadoSolicitud.CANCELADA);
         solicitud.setFechaRespuesta(LocalDateTime.now());
         solicitudCambioRepository.save(solicitud);
+        businessMetrics.swapTransition(SolicitudCambio.EstadoSolicitud.PENDIENTE, SolicitudCambio.EstadoSolicitud.CANCELADA);
     }
 }
@@ -6,13 +6,15 @@ import com.gestorhorarios.repository.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.List;
 import java.util.Optional;
-import java.util.logging.Logger;
 
 @Service
 public class UserService {
-    private static final Logger logger = Logger.getLogger(UserService.class.getName());
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
 
     public UserService(UserRepository userRepository) {
@@ -43,11 +45,11 @@ public class UserService {
             
             // Guardar el usuario
             User savedUser = userRepository.save(user);
-            logger.info("Usuario creado exitosamente con ID: " + savedUser.getId());
+            logger.info("Usuario creado exitosamente con ID: {}", savedUser.getId());
             return savedUser;
             
         } catch (Exception e) {
-            logger.severe("Error al registrar usuario: " + e.getMessage());
+            logger.error("Error al registrar usuario: {}", e.getMessage());
             throw new RuntimeException("Error al registrar el usuario: " + e.getMessage(), e);
         }
     }
@@ -67,15 +69,24 @@ public class UserService {
     }
     
     public Optional<User> findByUsernameOrEmail(String username, String email) {
-        System.out.println("Buscando usuario por username o email: " + username + " / " + email);
+        logger.atDebug()
+                .addKeyValue("username", username)
+                .addKeyValue("email", email)
+                .log("Buscando usuario por username o email");
         return userRepository.findByUsernameOrEmail(username, email);
     }
     
     public User getUserByUsernameOrEmail(String username, String email) {
-        System.out.println("Buscando usuario por username o email: " + username + " / " + email);
+        logger.atDebug()
+                .addKeyValue("username", username)
+                .addKeyValue("email", email)
+                .log("Buscando usuario por username o email");
         return userRepository.findByUsernameOrEmail(username, email)
                 .orElseThrow(() -> {
-                    System.err.println("Usuario no encontrado con username o email: " + username + " / " + email);
+                    logger.atWarn()
+                            .addKeyValue("username", username)
+                            .addKeyValue("email", email)
+                            .log("Usuario no encontrado");
                     return new RuntimeException("Usuario no encontrado con username o email: " + username + " / " + email);
                 });
     }
@@ -85,6 +96,7 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con el id: " + id));
     }
 
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
         return userRepository.findAll();
     }
@@ -126,7 +138,7 @@ public class UserService {
             
             // Actualizar contraseña si se proporciona una nueva
             if (user.getPassword() != null && !user.getPassword().isEmpty()) {
-                logger.warning("ATENCIÓN: Actualizando contraseña en texto plano - NO USAR EN PRODUCCIÓN");
+                logger.warn("ATENCIÓN: Actualizando contraseña en texto plano - NO USAR EN PRODUCCIÓN");
                 existingUser.setPassword(user.getPassword());
             }
             
@@ -136,7 +148,7 @@ public class UserService {
             return userRepository.save(existingUser);
             
         } catch (Exception e) {
-            logger.severe("Error al actualizar usuario: " + e.getMessage());
+            logger.error("Error al actualizar usuario: {}", e.getMessage());
             throw new RuntimeException("Error al actualizar el usuario: " + e.getMessage(), e);
         }
     }
@@ -164,10 +176,10 @@ public class UserService {
             return user.getRole() == targetRole;
         } catch (IllegalArgumentException e) {
             // Role name doesn't match any enum value
-            logger.warning("Invalid role name: " + roleName);
+            logger.warn("Invalid role name: {}", roleName);
             return false;
         } catch (Exception e) {
-            logger.severe("Error checking user role: " + e.getMessage());
+            logger.error("Error checking user role: {}", e.getMessage());
             return false;
         }
     }
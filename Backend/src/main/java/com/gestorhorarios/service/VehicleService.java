@@ -4,8 +4,11 @@ import com.gestorhorarios.dto.VehicleDTO;
 import com.gestorhorarios.dto.VehicleResponseDTO;
 import com.gestorhorarios.model.User;
 import com.gestorhorarios.model.Vehicle;
+import com.gestorhorarios.monitoring.BusinessMetrics;
 import com.gestorhorarios.repository.UserRepository;
 import com.gestorhorarios.repository.VehicleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +19,7 @@ import java.util.stream.Collectors;
 
 @Service
 public class VehicleService {
+    private static final Logger logger = LoggerFactory.getLogger(VehicleService.class);
     
     @Autowired
     private VehicleRepository vehicleRepository;
@@ -23,23 +27,27 @@ public class VehicleService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private BusinessMetrics businessMetrics;
+    
     @Transactional
     public VehicleDTO createVehicle(VehicleDTO vehicleDTO, Long userId) {
-        System.out.println("=== INICIO createVehicle ===");
-        System.out.println("Vehicle DTO recibido: " + vehicleDTO);
+        logger.atDebug()
+                .addKeyValue("userId", userId)
+                .addKeyValue("licensePlate", vehicleDTO.getLicensePlate())
+                .addKeyValue("totalSeats", vehicleDTO.getTotalSeats())
+                .log("Creando vehículo");
         
         try {
             // Validar que los asientos sean válidos
             if (vehicleDTO.getTotalSeats() == null || vehicleDTO.getTotalSeats() <= 0) {
                 String errorMsg = "El número total de asientos debe ser mayor que cero";
-                System.out.println(errorMsg);
                 throw new RuntimeException(errorMsg);
             }
             
             // Verificar si ya existe un vehículo con la misma matrícula
             if (vehicleRepository.existsByLicensePlate(vehicleDTO.getLicensePlate())) {
                 String errorMsg = "Ya existe un vehículo con la matrícula: " + vehicleDTO.getLicensePlate();
-                System.out.println(errorMsg);
                 throw new RuntimeException(errorMsg);
             }
             
@@ -47,20 +55,17 @@ public class VehicleService {
             User owner = userRepository.findById(userId)
                 .orElseThrow(() -> {
                     String errorMsg = "Usuario no encontrado con ID: " + userId;
-                    System.out.println(errorMsg);
                     return new RuntimeException(errorMsg);
                 });
             
             // Verificar si el usuario ya tiene un vehículo
             if (vehicleRepository.existsByOwner(owner)) {
                 String errorMsg = "El usuario ya tiene un vehículo registrado. ID de usuario: " + userId;
-                System.out.println(errorMsg);
                 throw new RuntimeException(errorMsg);
             }
             
             // Crear y configurar el vehículo
             Vehicle vehicle = new Vehicle();
-            System.out.println("Antes de mapear DTO a entidad");
             mapDtoToEntity(vehicleDTO, vehicle);
             
             // Asegurar que los asientos disponibles sean iguales al total al crear
@@ -68,12 +73,13 @@ public class VehicleService {
             
             // Establecer el propietario
             vehicle.setOwner(owner);
-            System.out.println("Vehículo después del mapeo: " + vehicle);
             
             // Guardar el vehículo
-            System.out.println("Guardando vehículo en la base de datos...");
             vehicle = vehicleRepository.save(vehicle);
-            System.out.println("Vehículo guardado exitosamente con ID: " + vehicle.getId());
+            logger.atInfo()
+                    .addKeyValue("vehicleId", vehicle.getId())
+                    .addKeyValue("userId", userId)
+                    .log("Vehículo creado");
             
             // Actualizar la referencia en el usuario
             owner.setVehicle(vehicle);
@@ -82,20 +88,22 @@ public class VehicleService {
             return mapEntityToDto(vehicle);
             
         } catch (Exception e) {
-            System.err.println("Error en createVehicle: " + e.getMessage());
-            e.printStackTrace();
+            // Los errores de validación llegan al cliente como 400: no necesitan traza completa
+            logger.atWarn()
+                    .addKeyValue("userId", userId)
+                    .log("Error en createVehicle: {}", e.getMessage());
             throw e; // Relanzar la excepción para manejarla en el controlador
-        } finally {
-            System.out.println("=== FIN createVehicle ===");
         }
     }
     
+    @Transactional(readOnly = true)
     public List<VehicleDTO> getAllVehicles() {
         return vehicleRepository.findAll().stream()
                 .map(this::mapEntityToDto)
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public List<VehicleResponseDTO> getAvailableVehicles() {
         // Cargar todos los vehículos con sus pasajeros para evitar el problema N+1
         List<Vehicle> availableVehicles = vehicleRepository.findAllWithPassengers().stream()
@@ -131,129 +139,114 @@ public class VehicleService {
      */
     @Transactional
     public boolean joinVehicle(Long userId, Long vehicleId) {
-        System.out.println("=== INICIO joinVehicle ===");
-        System.out.println("Uniendo usuario " + userId + " al vehículo " + vehicleId);
-        
         try {
             // 1. Cargar el usuario sin sus relaciones para evitar referencias circulares
             User user = userRepository.findById(userId)
                 .orElseThrow(() -> {
                     String error = "Usuario no encontrado con ID: " + userId;
-                    System.out.println(error);
                     return new RuntimeException(error);
                 });
             
-            System.out.println("Usuario cargado: " + user.getUsername());
-            
             // 2. Cargar el vehículo con sus pasajeros usando una consulta optimizada
             Vehicle vehicle = vehicleRepository.findByIdWithPassengers(vehicleId)
                 .orElseThrow(() -> {
                     String error = "Vehículo no encontrado con ID: " + vehicleId;
-                    System.out.println(error);
                     return new RuntimeException(error);
                 });
-                
-            System.out.println("Vehículo cargado: " + vehicle.getLicensePlate() + 
-                           ", Asientos disponibles: " + vehicle.getAvailableSeats());
             
             // 3. Verificar disponibilidad
             if (vehicle.getAvailableSeats() <= 0) {
                 String error = "No hay asientos disponibles en este vehículo";
-                System.out.println(error);
                 throw new RuntimeException(error);
             }
             
             // 4. Verificar si el usuario ya está en este vehículo
             if (vehicle.getPassengers().stream().anyMatch(p -> p.getId().equals(userId))) {
                 String error = "El usuario ya es pasajero de este vehículo";
-                System.out.println(error);
                 throw new RuntimeException(error);
             }
             
             // 5. Si el usuario está en otro vehículo, salir primero
             if (user.getVehicle() != null && !user.getVehicle().getId().equals(vehicleId)) {
-                System.out.println("Usuario está en otro vehículo, saliendo primero...");
+                logger.atDebug()
+                        .addKeyValue("userId", userId)
+                        .addKeyValue("previousVehicleId", user.getVehicle().getId())
+                        .log("Usuario está en otro vehículo, saliendo primero");
                 leaveVehicle(user.getId(), user.getVehicle().getId());
                 // Recargar el usuario después de salir del vehículo anterior
                 user = userRepository.findById(userId).orElseThrow();
             }
             
             // 6. Actualizar las relaciones
-            // Añadir el usuario a la lista de pasajeros del vehículo
-            vehicle.getPassengers().add(user);
+            // Añadir el usuario a la lista de pasajeros del vehículo (y la tabla de unión, que es
+            // de User.vehiclesAsPassenger)
+            user.añadirVehiculoComoPasajero(vehicle);
             vehicle.setAvailableSeats(vehicle.getAvailableSeats() - 1);
             
             // Actualizar la relación en el usuario
             user.setVehicle(vehicle);
             
             // 7. Guardar los cambios
-            System.out.println("Guardando cambios...");
             vehicleRepository.save(vehicle);
             userRepository.save(user);
             
-            System.out.println("Usuario " + userId + " unido exitosamente al vehículo " + vehicleId);
+            logger.atInfo()
+                    .addKeyValue("userId", userId)
+                    .addKeyValue("vehicleId", vehicleId)
+                    .addKeyValue("availableSeats", vehicle.getAvailableSeats())
+                    .log("Usuario unido al vehículo");
+            businessMetrics.vehicleMembership("join", true);
             return true;
             
         } catch (Exception e) {
-            System.err.println("Error en joinVehicle: " + e.getMessage());
-            e.printStackTrace();
+            businessMetrics.vehicleMembership("join", false);
+            logger.atWarn()
+                    .addKeyValue("userId", userId)
+                    .addKeyValue("vehicleId", vehicleId)
+                    .log("Error en joinVehicle: {}", e.getMessage());
             throw new RuntimeException("Error al unirse al vehículo: " + e.getMessage(), e);
-        } finally {
-            System.out.println("=== FIN joinVehicle ===");
         }
     }
     
     private void mapDtoToEntity(VehicleDTO dto, Vehicle entity) {
-        try {
-            System.out.println("Iniciando mapeo de DTO a entidad...");
-            System.out.println("DTO recibido: " + dto);
-            
-            // Validar y establecer la marca
-            if (dto.getBrand() == null || dto.getBrand().trim().isEmpty()) {
-                throw new IllegalArgumentException("La marca del vehículo es obligatoria");
-            }
-            entity.setBrand(dto.getBrand().trim());
-            
-            // Validar y establecer el modelo
-            if (dto.getModel() == null || dto.getModel().trim().isEmpty()) {
-                throw new IllegalArgumentException("El modelo del vehículo es obligatorio");
-            }
-            entity.setModel(dto.getModel().trim());
-            
-            // Validar y establecer la matrícula
-            if (dto.getLicensePlate() == null || dto.getLicensePlate().trim().isEmpty()) {
-                throw new IllegalArgumentException("La matrícula del vehículo es obligatoria");
-            }
-            entity.setLicensePlate(dto.getLicensePlate().trim().toUpperCase());
-            
-            // Establecer color (opcional)
-            entity.setColor(dto.getColor() != null ? dto.getColor().trim() : null);
-            
-            // Validar y establecer el número total de asientos
-            if (dto.getTotalSeats() == null || dto.getTotalSeats() <= 0) {
-                throw new IllegalArgumentException("El número total de asientos debe ser mayor que cero");
-            }
-            entity.setTotalSeats(dto.getTotalSeats());
-            
-            // Establecer asientos disponibles (por defecto igual al total)
-            entity.setAvailableSeats(dto.getTotalSeats());
-            
-            // Establecer observaciones (opcional)
-            entity.setObservations(dto.getObservations() != null ? dto.getObservations().trim() : null);
-            
-            // Establecer si está activo (por defecto true)
-            entity.setActive(dto.getActive() != null ? dto.getActive() : true);
-            
-            System.out.println("Mapeo completado exitosamente");
-            System.out.println("Total Seats: " + entity.getTotalSeats() + 
-                             ", Available Seats: " + entity.getAvailableSeats() +
-                             ", Active: " + entity.isActive());
-            
-        } catch (Exception e) {
-            System.err.println("Error en mapDtoToEntity: " + e.getMessage());
-            e.printStackTrace();
-            throw e; // Relanzar la excepción para manejarla en el método que llama
+        // Validar y establecer la marca
+        if (dto.getBrand() == null || dto.getBrand().trim().isEmpty()) {
+            throw new IllegalArgumentException("La marca del vehículo es obligatoria");
+        }
+        entity.setBrand(dto.getBrand().trim());
+        
+        // Validar y establecer el modelo
+        if (dto.getModel() == null || dto.getModel().trim().isEmpty()) {
+            throw new IllegalArgumentException("El modelo del vehículo es obligatorio");
+        }
+        entity.setModel(dto.getModel().trim());
+        
+        // Validar y establecer la matrícula
+        if (dto.getLicensePlate() == null || dto.getLicensePlate().trim().isEmpty()) {
+            throw new IllegalArgumentException("La matrícula del vehículo es obligatoria");
         }
+        entity.setLicensePlate(dto.getLicensePlate().trim().toUpperCase());
+        
+        // Establecer color (opcional)
+        entity.setColor(dto.getColor() != null ? dto.getColor().trim() : null);
+        
+        // Validar y establecer el número total de asientos
+        if (dto.getTotalSeats() == null || dto.getTotalSeats() <= 0) {
+            throw new IllegalArgumentException("El número total de asientos debe ser mayor que cero");
+        }
+        entity.setTotalSeats(dto.getTotalSeats());
+        
+        // Establecer asientos disponibles (por defecto igual al total)
+        entity.setAvailableSeats(dto.getTotalSeats());
+        
+        // Establecer observaciones (opcional)
+        entity.setObservations(dto.getObservations() != null ? dto.getObservations().trim() : null);
+        
+        // Establecer si está activo (por defecto true)
+        entity.setActive(dto.getActive() != null ? dto.getActive() : true);
+        
+        logger.trace("Mapeo completado: totalSeats={}, availableSeats={}, active={}",
+                entity.getTotalSeats(), entity.getAvailableSeats(), entity.isActive());
     }
     
     @Transactional(readOnly = true)
@@ -266,9 +259,6 @@ public class VehicleService {
     @Transactional
     public void deleteVehicle(Long vehicleId, Long userId) {
         try {
-            System.out.println("=== INICIO deleteVehicle ===");
-            System.out.println("Eliminando vehículo ID: " + vehicleId + " por usuario ID: " + userId);
-            
             // Cargar el vehículo con sus relaciones
             Vehicle vehicle = vehicleRepository.findByIdWithRelations(vehicleId)
                 .orElseThrow(() -> new RuntimeException("Vehículo no encontrado con ID: " + vehicleId));
@@ -310,14 +300,17 @@ public class VehicleService {
             // 6. Finalmente, eliminar el vehículo
             vehicleRepository.delete(vehicle);
             
-            System.out.println("Vehículo eliminado exitosamente");
+            logger.atInfo()
+                    .addKeyValue("vehicleId", vehicleId)
+                    .addKeyValue("userId", userId)
+                    .log("Vehículo eliminado");
             
         } catch (Exception e) {
-            System.err.println("Error en deleteVehicle: " + e.getMessage());
-            e.printStackTrace();
+            logger.atWarn()
+                    .addKeyValue("vehicleId", vehicleId)
+                    .addKeyValue("userId", userId)
+                    .log("Error en deleteVehicle: {}", e.getMessage());
             throw new RuntimeException("Error al eliminar el vehículo: " + e.getMessage(), e);
-        } finally {
-            System.out.println("=== FIN deleteVehicle ===");
         }
     }
     
@@ -336,6 +329,11 @@ public class VehicleService {
                 throw new RuntimeException("El usuario no es pasajero de este vehículo");
             }
             
+            user.getVehiclesAsPassenger().removeIf(v -> v.getId().equals(vehicleId));
+            if (user.getVehicle() != null && user.getVehicle().getId().equals(vehicleId)) {
+                user.setVehicle(null);
+            }
+            
             // Incrementar los asientos disponibles
             vehicle.setAvailableSeats(vehicle.getAvailableSeats() + 1);
             
@@ -343,11 +341,20 @@ public class VehicleService {
             vehicleRepository.save(vehicle);
             userRepository.save(user);
             
+            logger.atInfo()
+                    .addKeyValue("userId", userId)
+                    .addKeyValue("vehicleId", vehicleId)
+                    .addKeyValue("availableSeats", vehicle.getAvailableSeats())
+                    .log("Usuario ha abandonado el vehículo");
+            businessMetrics.vehicleMembership("leave", true);
             return true;
             
         } catch (Exception e) {
-            System.err.println("Error en leaveVehicle: " + e.getMessage());
-            e.printStackTrace();
+            businessMetrics.vehicleMembership("leave", false);
+            logger.atWarn()
+                    .addKeyValue("userId", userId)
+                    .addKeyValue("vehicleId", vehicleId)
+                    .log("Error en leaveVehicle: {}", e.getMessage());
             throw new RuntimeException("Error al abandonar el vehículo: " + e.getMessage(), e);
         }
     }
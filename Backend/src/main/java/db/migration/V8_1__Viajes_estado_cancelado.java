@@ -0,0 +1,51 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Pasa la columna viajes.estado de ENUM a VARCHAR(20) para que admita CANCELADO. La tabla es de la
+ * aplicación de viajes y la crea Hibernate (ddl-auto=update), que en MySQL la creaba como un ENUM
+ * nativo que update no amplía; ahora Viaje.estado se mapea como VARCHAR(20), así que las bases de
+ * datos nuevas ya nacen así y esta migración solo iguala las que tienen la columna antigua.
+ *
+ * Va aquí porque la aplicación de viajes no tiene Flyway y comparte la base de datos. Es en Java y no
+ * un script para comprobar antes qué hay: solo hace algo en MySQL, si la tabla ya existe y si la
+ * columna sigue siendo un ENUM. En cualquier otro caso (base de datos nueva, arrancada solo con el
+ * gestor de horarios, o H2 en las pruebas) no cambia nada y Hibernate crea la columna como VARCHAR.
+ */
+public class V8_1__Viajes_estado_cancelado extends BaseJavaMigration {
+
+    private static final String ESTADO_VARCHAR = "ALTER TABLE viajes MODIFY estado VARCHAR(20)";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!esMySql(connection) || !estadoEsEnum(connection)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(ESTADO_VARCHAR);
+        }
+    }
+
+    private boolean esMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    // Sin fila si la tabla o la columna aún no existen
+    private boolean estadoEsEnum(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'viajes' AND COLUMN_NAME = 'estado'");
+             ResultSet resultado = statement.executeQuery()) {
+            return resultado.next() && "enum".equalsIgnoreCase(resultado.getString(1));
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Versión de los turnos de cada trabajador (VersionesTurnos). Sube en la misma transacción que
+-- cualquier cambio de sus horarios o plantillas de rota; ReglasLaboralesService la lee al bloquear
+-- la fila del trabajador y vuelve a cargar su ventana en memoria solo si no coincide, así que los
+-- cambios hechos por otra instancia se ven sin leer la base de datos en cada comprobación.
+ALTER TABLE users ADD COLUMN version_turnos BIGINT NOT NULL DEFAULT 0;
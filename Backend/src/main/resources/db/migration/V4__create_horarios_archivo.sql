@@ -0,0 +1,24 @@
+-- Tabla de archivo de horarios antiguos. HorarioArchivoService mueve aquí, por lotes, los
+-- horarios anteriores al periodo de retención para que la tabla horarios solo contenga
+-- los meses en uso. Misma estructura que horarios más la fecha de archivado.
+-- Sin claves foráneas: es histórico y no debe bloquear el borrado de usuarios.
+-- (No se particiona horarios por fecha porque MySQL no admite claves foráneas en tablas particionadas.)
+CREATE TABLE IF NOT EXISTS horarios_archivo (
+    id BIGINT NOT NULL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    hora_inicio TIME NULL,
+    hora_fin TIME NULL,
+    fecha_creacion DATETIME(6) NOT NULL,
+    fecha_actualizacion DATETIME(6) NOT NULL,
+    tipo_turno VARCHAR(20) NULL,
+    disponible BOOLEAN NOT NULL DEFAULT FALSE,
+    intercambiado BOOLEAN NOT NULL DEFAULT FALSE,
+    notas VARCHAR(500) NULL,
+    rol VARCHAR(50) NULL,
+    observaciones TEXT NULL,
+    fecha_archivado DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE INDEX idx_horarios_archivo_usuario_fecha ON horarios_archivo (usuario_id, fecha);
+CREATE INDEX idx_horarios_archivo_fecha ON horarios_archivo (fecha);
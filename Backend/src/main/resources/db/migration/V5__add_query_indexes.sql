@@ -0,0 +1,24 @@
+-- Índices compuestos para los patrones de acceso de HorarioRepository,
+-- SolicitudCambioRepository y VehicleRepository. IndexUsageTest comprueba
+-- que las consultas principales los usan en lugar de recorrer la tabla.
+
+-- Horarios de un usuario por fecha o rango: findByUsuarioAndFecha(Between),
+-- countByUsuarioAndFechaBetween, findConflictingSchedules
+CREATE INDEX idx_horarios_usuario_fecha ON horarios (usuario_id, fecha);
+
+-- Horarios disponibles por fecha o rango: findByFechaAndDisponibleTrue,
+-- findByFechaBetweenAndDisponibleTrue, findByDisponibleTrueAndUsuarioNotAndFechaBetween
+CREATE INDEX idx_horarios_disponible_fecha ON horarios (disponible, fecha);
+
+-- Listados por periodo (findByFecha, findByFechaBetween) y selección del job de archivado
+CREATE INDEX idx_horarios_fecha ON horarios (fecha);
+
+-- Solicitudes recibidas por estado (findByReceptorAndEstado, findByReceptor); fecha_creacion
+-- permite devolver la bandeja de un estado ya ordenada por antigüedad
+CREATE INDEX idx_solicitudes_receptor_estado_fecha ON solicitudes_cambio (receptor_id, estado, fecha_creacion);
+
+-- Solicitudes enviadas por estado: findBySolicitanteAndEstado, findBySolicitante
+CREATE INDEX idx_solicitudes_solicitante_estado ON solicitudes_cambio (solicitante_id, estado);
+
+-- Vehículos con plazas libres: findByAvailableSeatsGreaterThan
+CREATE INDEX idx_vehicles_available_seats_active ON vehicles (available_seats, active);
@@ -0,0 +1,3 @@
+-- Mapa de cobertura: countPorFechaTipoYRol agrupa por (fecha, tipo_turno, rol) en un rango de
+-- fechas. Con las tres columnas en el índice la consulta se resuelve sin leer la tabla.
+CREATE INDEX idx_horarios_fecha_tipo_rol ON horarios (fecha, tipo_turno, rol);
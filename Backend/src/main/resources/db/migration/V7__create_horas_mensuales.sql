@@ -0,0 +1,17 @@
+-- Registro de horas trabajadas por usuario, mes y tipo de turno. HorasMensualesService lo
+-- actualiza en la misma transacción que cada alta, cambio, borrado o intercambio de horarios, y
+-- lo reconstruye por meses a partir de horarios y horarios_archivo. Las filas no se borran al
+-- archivar, así que los informes de meses archivados tampoco leen horarios.
+-- Sin claves foráneas, como el archivo: es histórico.
+CREATE TABLE IF NOT EXISTS horas_mensuales (
+    usuario_id BIGINT NOT NULL,
+    mes DATE NOT NULL,
+    tipo_turno VARCHAR(20) NOT NULL,
+    minutos BIGINT NOT NULL DEFAULT 0,
+    minutos_nocturnos BIGINT NOT NULL DEFAULT 0,
+    turnos INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (usuario_id, mes, tipo_turno)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Informe de un mes para todos los usuarios (findByMes) y reconstrucción de un mes
+CREATE INDEX idx_horas_mensuales_mes ON horas_mensuales (mes);
@@ -0,0 +1,14 @@
+-- Suscripciones de calendario (ICS): una por usuario, con el hash SHA-256 del token de la URL
+-- (el token no se guarda). CalendarioIcsService sube version y fecha_actualizacion en la misma
+-- transacción que cada cambio de los horarios o las plantillas de rota del usuario; el feed en
+-- memoria se rehace solo cuando su versión no coincide, así que cada consulta de una aplicación
+-- de calendario lee esta fila por token y no los horarios.
+CREATE TABLE IF NOT EXISTS calendario_feeds (
+    usuario_id BIGINT NOT NULL,
+    token_hash CHAR(64) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    fecha_actualizacion DATETIME NOT NULL,
+    PRIMARY KEY (usuario_id),
+    CONSTRAINT uk_calendario_feeds_token UNIQUE (token_hash),
+    CONSTRAINT fk_calendario_feeds_usuario FOREIGN KEY (usuario_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
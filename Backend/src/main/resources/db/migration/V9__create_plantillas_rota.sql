@@ -0,0 +1,40 @@
+-- Plantillas de rota: ciclos de turnos que se repiten desde fecha_inicio hasta fecha_fin (null
+-- mientras sigan vigentes). Los días del ciclo no se guardan como horarios: se expanden al leer
+-- (ExpansionRota) y solo se escribe una fila en horarios cuando un día se materializa para
+-- editarlo; ese día queda en plantillas_rota_excepciones para que la plantilla ya no lo genere.
+CREATE TABLE IF NOT EXISTS plantillas_rota (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin DATE NULL,
+    rol VARCHAR(20) NULL,
+    fecha_creacion DATETIME(6) NOT NULL,
+    fecha_actualizacion DATETIME(6) NOT NULL,
+    CONSTRAINT fk_plantillas_rota_usuario FOREIGN KEY (usuario_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Días del ciclo en orden (posicion). Un día libre tiene libre = 1 y sin horas; si hora_fin no
+-- es posterior a hora_inicio, el turno acaba al día siguiente.
+CREATE TABLE IF NOT EXISTS plantillas_rota_turnos (
+    plantilla_id BIGINT NOT NULL,
+    posicion INT NOT NULL,
+    libre BOOLEAN NOT NULL,
+    tipo_turno VARCHAR(20) NULL,
+    hora_inicio TIME NULL,
+    hora_fin TIME NULL,
+    PRIMARY KEY (plantilla_id, posicion),
+    CONSTRAINT fk_plantillas_rota_turnos_plantilla FOREIGN KEY (plantilla_id) REFERENCES plantillas_rota (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Días materializados: la plantilla no genera turno en esas fechas. Uno por plantilla y fecha.
+CREATE TABLE IF NOT EXISTS plantillas_rota_excepciones (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    plantilla_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    fecha_creacion DATETIME(6) NOT NULL,
+    CONSTRAINT uk_plantillas_rota_excepciones UNIQUE (plantilla_id, fecha),
+    CONSTRAINT fk_plantillas_rota_excepciones_plantilla FOREIGN KEY (plantilla_id) REFERENCES plantillas_rota (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Plantillas de un usuario (findByUsuarioIdOrderByFechaInicio) y vigentes en un rango (findVigentes)
+CREATE INDEX idx_plantillas_rota_usuario_fecha ON plantillas_rota (usuario_id, fecha_inicio);
@@ -0,0 +1,121 @@
+package com.calendario.trabajadores.repository.usuario;
+
+import com.calendario.trabajadores.GestionTrabajadoresApplication;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.database.Vehiculo;
+import com.calendario.trabajadores.model.dto.usuario.UsuarioVehiculosResponse;
+import com.calendario.trabajadores.model.dto.vehiculo.VehiculoDTO;
+import com.calendario.trabajadores.repository.vehiculo.IVehiculoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Pagina de usuarios con sus vehiculos (dos consultas, agrupado en memoria). Cada prueba crea sus
+//usuarios y pagina a partir del id anterior al primero, asi no ve los de otras pruebas
+@SpringBootTest(classes = GestionTrabajadoresApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:usuariosvehiculos;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+class CustomUsuarioRepositoryTest {
+
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+    @Autowired
+    private IVehiculoRepository vehiculoRepository;
+
+    private Usuario conDos;
+    private Usuario sinVehiculos;
+    private Usuario conUno;
+    private Vehiculo activo;
+    private Vehiculo inactivo;
+    private Vehiculo otro;
+
+    @BeforeEach
+    void setUp() {
+        conDos = crearUsuario("dos");
+        sinVehiculos = crearUsuario("ninguno");
+        conUno = crearUsuario("uno");
+        activo = crearVehiculo(conDos, true);
+        otro = crearVehiculo(conUno, true);
+        inactivo = crearVehiculo(conDos, false);
+    }
+
+    @Test
+    @DisplayName("Agrupa los vehiculos por usuario y conserva a los usuarios sin vehiculos")
+    void agrupaVehiculosPorUsuario() {
+        List<UsuarioVehiculosResponse> pagina = usuarioRepository.findUsuariosVehiculos(null, conDos.id - 1, 3);
+
+        assertEquals(List.of(conDos.id, sinVehiculos.id, conUno.id), ids(pagina));
+        assertEquals(List.of(activo.id, inactivo.id), idsVehiculos(pagina.get(0)));
+        assertEquals("dos", pagina.get(0).getNombre());
+        assertEquals(activo.matricula, pagina.get(0).getVehiculos().get(0).getMatricula());
+        assertTrue(pagina.get(1).getVehiculos().isEmpty());
+        assertEquals(List.of(otro.id), idsVehiculos(pagina.get(2)));
+    }
+
+    @Test
+    @DisplayName("El filtro por activo se aplica a los vehiculos, no a los usuarios")
+    void filtraVehiculosPorActivo() {
+        List<UsuarioVehiculosResponse> activos = usuarioRepository.findUsuariosVehiculos(true, conDos.id - 1, 3);
+        List<UsuarioVehiculosResponse> inactivos = usuarioRepository.findUsuariosVehiculos(false, conDos.id - 1, 3);
+
+        assertEquals(3, activos.size());
+        assertEquals(List.of(activo.id), idsVehiculos(activos.get(0)));
+        assertEquals(List.of(otro.id), idsVehiculos(activos.get(2)));
+        assertEquals(3, inactivos.size());
+        assertEquals(List.of(inactivo.id), idsVehiculos(inactivos.get(0)));
+        assertTrue(inactivos.get(2).getVehiculos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Las paginas siguen por el ultimo id y los vehiculos no se cruzan entre paginas")
+    void paginaPorClave() {
+        List<UsuarioVehiculosResponse> primera = usuarioRepository.findUsuariosVehiculos(null, conDos.id - 1, 2);
+        Long ultimoId = primera.get(primera.size() - 1).getId();
+        List<UsuarioVehiculosResponse> segunda = usuarioRepository.findUsuariosVehiculos(null, ultimoId, 2);
+
+        assertEquals(List.of(conDos.id, sinVehiculos.id), ids(primera));
+        assertEquals(List.of(activo.id, inactivo.id), idsVehiculos(primera.get(0)));
+        assertEquals(List.of(conUno.id), ids(segunda));
+        assertEquals(List.of(otro.id), idsVehiculos(segunda.get(0)));
+        assertTrue(usuarioRepository.findUsuariosVehiculos(null, conUno.id, 2).isEmpty());
+    }
+
+    private List<Long> ids(List<UsuarioVehiculosResponse> pagina) {
+        return pagina.stream().map(UsuarioVehiculosResponse::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> idsVehiculos(UsuarioVehiculosResponse usuario) {
+        return usuario.getVehiculos().stream().map(VehiculoDTO::getId).collect(Collectors.toList());
+    }
+
+    private Vehiculo crearVehiculo(Usuario usuario, boolean activo) {
+        var vehiculo = new Vehiculo();
+        vehiculo.matricula = "M-" + System.nanoTime();
+        vehiculo.modeloCoche = "Seat Ibiza";
+        vehiculo.plazas = 4;
+        vehiculo.usuario = usuario;
+        vehiculo.activo = activo;
+        return vehiculoRepository.save(vehiculo);
+    }
+
+    private Usuario crearUsuario(String nombre) {
+        var usuario = new Usuario();
+        usuario.nombre = nombre;
+        usuario.apellido1 = "Prueba";
+        usuario.email = nombre + "-" + System.nanoTime() + "@correo.es";
+        usuario.contraseña = "123";
+        usuario.rol = "user";
+        usuario.activo = true;
+        return usuarioRepository.save(usuario);
+    }
+}
@@ -0,0 +1,180 @@
+package com.calendario.trabajadores.repository.viaje;
+
+import com.calendario.trabajadores.GestionTrabajadoresApplication;
+import com.calendario.trabajadores.model.common.ClaveLugar;
+import com.calendario.trabajadores.model.database.EstadoViaje;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.database.Vehiculo;
+import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.model.dto.viaje.ViajeDTO;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import com.calendario.trabajadores.repository.vehiculo.IVehiculoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Consultas de viajes sobre H2 con fechas como las mandan los clientes: fecha sin hora y la hora con un
+//dia cualquiera. Cada prueba usa su propio destino para no ver los viajes de otras
+@SpringBootTest(classes = GestionTrabajadoresApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:viajesrepositorio;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "calendario.estados.enabled=false"
+})
+@ActiveProfiles("test")
+class CustomViajeRepositoryTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(2);
+
+    @Autowired
+    private IViajeRepository viajeRepository;
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+    @Autowired
+    private IVehiculoRepository vehiculoRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario conductor;
+    private Vehiculo vehiculo;
+    private String destino;
+
+    @BeforeEach
+    void setUp() {
+        conductor = crearUsuario("conductor");
+        vehiculo = new Vehiculo();
+        vehiculo.matricula = "M-" + System.nanoTime();
+        vehiculo.modeloCoche = "Seat Ibiza";
+        vehiculo.plazas = 4;
+        vehiculo.usuario = conductor;
+        vehiculo.activo = true;
+        vehiculo = vehiculoRepository.save(vehiculo);
+        destino = "Destino " + System.nanoTime();
+    }
+
+    @Test
+    @DisplayName("La salida combina el dia de fecha con la hora del dia de hora")
+    void salidaCombinaFechaYHora() {
+        Viaje viaje = crearViaje(DIA, 10, 30, 3, EstadoViaje.DISPONIBLE);
+
+        assertEquals(fecha(DIA.atTime(10, 30)), viajeRepository.findById(viaje.id).orElseThrow().salida);
+        assertEquals(fecha(DIA.atStartOfDay()), Viaje.calcularSalida(fecha(DIA.atStartOfDay()), null));
+    }
+
+    @Test
+    @DisplayName("Los limites desde y hasta se comparan con la hora de salida, no con el dia")
+    void ventanaPorHoraDeSalida() {
+        Viaje temprano = crearViaje(DIA, 7, 0, 3, EstadoViaje.DISPONIBLE);
+        Viaje manana = crearViaje(DIA, 10, 0, 3, EstadoViaje.DISPONIBLE);
+        Viaje tarde = crearViaje(DIA, 18, 0, 3, EstadoViaje.DISPONIBLE);
+
+        List<Long> enVentana = ids(viajeRepository.buscarViajes(null, clave(destino),
+                fecha(DIA.atTime(8, 0)), fecha(DIA.atTime(12, 0)), 1, null, null, 10));
+        List<Long> desdeLasOcho = ids(viajeRepository.buscarViajes(null, clave(destino),
+                fecha(DIA.atTime(8, 0)), null, 1, null, null, 10));
+        List<Long> hastaLasSiete = ids(viajeRepository.buscarViajes(null, clave(destino),
+                fecha(DIA.atStartOfDay()), fecha(DIA.atTime(7, 0)), 1, null, null, 10));
+
+        assertEquals(List.of(manana.id), enVentana);
+        assertEquals(List.of(manana.id, tarde.id), desdeLasOcho);
+        assertEquals(List.of(temprano.id), hastaLasSiete);
+    }
+
+    @Test
+    @DisplayName("Las paginas siguen por salida e id y solo devuelven viajes disponibles con plazas")
+    void paginaPorClave() {
+        Viaje segundo = crearViaje(DIA, 18, 0, 3, EstadoViaje.DISPONIBLE);
+        Viaje primero = crearViaje(DIA, 9, 0, 3, EstadoViaje.DISPONIBLE);
+        Viaje empate = crearViaje(DIA, 18, 0, 2, EstadoViaje.DISPONIBLE);
+        Viaje ultimo = crearViaje(DIA.plusDays(1), 6, 0, 1, EstadoViaje.DISPONIBLE);
+        crearViaje(DIA, 12, 0, 3, EstadoViaje.CANCELADO);
+        crearViaje(DIA, 13, 0, 0, EstadoViaje.DISPONIBLE);
+        Date desde = fecha(DIA.atStartOfDay());
+
+        List<ViajeDTO> pagina1 = viajeRepository.buscarViajes(null, clave(destino), desde, null, 1, null, null, 2);
+        ViajeDTO cursor = pagina1.get(1);
+        List<ViajeDTO> pagina2 = viajeRepository.buscarViajes(null, clave(destino), desde, null, 1,
+                Viaje.calcularSalida(cursor.getFecha(), cursor.getHora()), cursor.getId(), 2);
+        ViajeDTO cursor2 = pagina2.get(1);
+        List<ViajeDTO> pagina3 = viajeRepository.buscarViajes(null, clave(destino), desde, null, 1,
+                Viaje.calcularSalida(cursor2.getFecha(), cursor2.getHora()), cursor2.getId(), 2);
+
+        assertEquals(List.of(primero.id, segundo.id), ids(pagina1));
+        assertEquals(List.of(empate.id, ultimo.id), ids(pagina2));
+        assertTrue(pagina3.isEmpty());
+        assertEquals(List.of(primero.id, segundo.id, empate.id), ids(viajeRepository.buscarViajes(null, clave(destino),
+                desde, null, 2, null, null, 10)));
+    }
+
+    @Test
+    @DisplayName("Los viajes guardados sin salida se rellenan al arrancar")
+    void rellenaLaSalidaDeViajesAntiguos() {
+        Viaje viaje = crearViaje(DIA, 16, 45, 3, EstadoViaje.DISPONIBLE);
+        jdbcTemplate.update("UPDATE viajes SET salida = NULL WHERE id = ?", viaje.id);
+
+        assertTrue(viajeRepository.rellenarCamposCalculados() >= 1);
+
+        assertEquals(fecha(DIA.atTime(16, 45)), viajeRepository.findById(viaje.id).orElseThrow().salida);
+    }
+
+    @Test
+    @DisplayName("El estado se guarda como texto y no como un ENUM de la base de datos")
+    void estadoComoTexto() {
+        Viaje cancelado = crearViaje(DIA, 9, 0, 3, EstadoViaje.CANCELADO);
+
+        assertEquals("CHARACTER VARYING", jdbcTemplate.queryForObject(
+                "SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'VIAJES' AND COLUMN_NAME = 'ESTADO'",
+                String.class));
+        assertEquals("CANCELADO", jdbcTemplate.queryForObject(
+                "SELECT estado FROM viajes WHERE id = ?", String.class, cancelado.id));
+    }
+
+    //La fecha llega sin hora y la hora con el dia de hoy, como en la app
+    private Viaje crearViaje(LocalDate dia, int hora, int minuto, int plazas, EstadoViaje estado) {
+        var viaje = new Viaje();
+        viaje.fecha = fecha(dia.atStartOfDay());
+        viaje.hora = fecha(LocalDate.now().atTime(hora, minuto));
+        viaje.origen = "Leganés";
+        viaje.destino = destino;
+        viaje.plazas = plazas;
+        viaje.estado = estado;
+        viaje.conductor = conductor;
+        viaje.vehiculo = vehiculo;
+        return viajeRepository.save(viaje);
+    }
+
+    private String clave(String lugar) {
+        return ClaveLugar.normalizar(lugar);
+    }
+
+    private List<Long> ids(List<ViajeDTO> viajes) {
+        return viajes.stream().map(ViajeDTO::getId).collect(Collectors.toList());
+    }
+
+    private Date fecha(LocalDateTime fechaHora) {
+        return Date.from(fechaHora.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private Usuario crearUsuario(String nombre) {
+        var usuario = new Usuario();
+        usuario.nombre = nombre;
+        usuario.apellido1 = "Prueba";
+        usuario.email = nombre + "-" + System.nanoTime() + "@correo.es";
+        usuario.contraseña = "123";
+        usuario.rol = "user";
+        usuario.activo = true;
+        return usuarioRepository.save(usuario);
+    }
+}
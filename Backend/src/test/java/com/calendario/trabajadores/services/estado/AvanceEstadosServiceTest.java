@@ -0,0 +1,203 @@
+package com.calendario.trabajadores.services.estado;
+
+import com.calendario.trabajadores.GestionTrabajadoresApplication;
+import com.calendario.trabajadores.model.database.EstadoTurno;
+import com.calendario.trabajadores.model.database.EstadoViaje;
+import com.calendario.trabajadores.model.database.PeticionTurno;
+import com.calendario.trabajadores.model.database.Turno;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.database.Vehiculo;
+import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.repository.turno.ITurnoRepository;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import com.calendario.trabajadores.repository.vehiculo.IVehiculoRepository;
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Lote de 2 para que haya varios lotes; el avance programado se desactiva para llamarlo a mano
+@SpringBootTest(classes = GestionTrabajadoresApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:avanceestados;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "calendario.estados.enabled=false",
+        "calendario.estados.lote=2",
+        "calendario.estados.duracion-viaje=PT2H"
+})
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class AvanceEstadosServiceTest {
+
+    private static final long HORA = 60 * 60 * 1000L;
+
+    @Autowired
+    private AvanceEstadosService avanceEstadosService;
+    @Autowired
+    private ITurnoRepository turnoRepository;
+    @Autowired
+    private IViajeRepository viajeRepository;
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+    @Autowired
+    private IVehiculoRepository vehiculoRepository;
+    @Autowired
+    private ApplicationEvents eventos;
+
+    private Usuario usuario;
+    private Vehiculo vehiculo;
+
+    @BeforeEach
+    void setUp() {
+        turnoRepository.deleteAll();
+        viajeRepository.deleteAll();
+        usuario = new Usuario();
+        usuario.nombre = "avance";
+        usuario.apellido1 = "Prueba";
+        usuario.email = "avance-" + System.nanoTime() + "@correo.es";
+        usuario.contraseña = "123";
+        usuario.rol = "user";
+        usuario.activo = true;
+        usuario = usuarioRepository.save(usuario);
+        vehiculo = new Vehiculo();
+        vehiculo.matricula = "A-" + usuario.id;
+        vehiculo.modeloCoche = "Seat Ibiza";
+        vehiculo.plazas = 4;
+        vehiculo.usuario = usuario;
+        vehiculo.activo = true;
+        vehiculo = vehiculoRepository.save(vehiculo);
+    }
+
+    @Test
+    @DisplayName("Los turnos pasan a EN_CURSO o FINALIZADO segun la hora, por lotes y con un evento por lote")
+    void avanzarTurnos() {
+        long ahora = System.currentTimeMillis();
+        Long futuro = crearTurno(ahora + HORA, ahora + 2 * HORA, EstadoTurno.SIN_EMPEZAR);
+        Long empezado1 = crearTurno(ahora - HORA, ahora + HORA, EstadoTurno.SIN_EMPEZAR);
+        Long empezado2 = crearTurno(ahora - 3 * HORA, ahora + 3 * HORA, EstadoTurno.SIN_EMPEZAR);
+        Long empezado3 = crearTurno(ahora - 2 * HORA, ahora + 2 * HORA, EstadoTurno.SIN_EMPEZAR);
+        Long terminado = crearTurno(ahora - 9 * HORA, ahora - HORA, EstadoTurno.EN_CURSO);
+        Long sinPasarPorCurso = crearTurno(ahora - 30 * HORA, ahora - 22 * HORA, EstadoTurno.SIN_EMPEZAR);
+
+        avanceEstadosService.avanzarEstados(new Date(ahora));
+
+        assertEquals(EstadoTurno.SIN_EMPEZAR, estado(futuro));
+        assertEquals(EstadoTurno.EN_CURSO, estado(empezado1));
+        assertEquals(EstadoTurno.EN_CURSO, estado(empezado2));
+        assertEquals(EstadoTurno.EN_CURSO, estado(empezado3));
+        assertEquals(EstadoTurno.FINALIZADO, estado(terminado));
+        assertEquals(EstadoTurno.FINALIZADO, estado(sinPasarPorCurso));
+
+        List<TurnosCambiadosEvent> publicados = eventos.stream(TurnosCambiadosEvent.class).toList();
+        assertTrue(publicados.stream().allMatch(e -> e.ids().size() <= 2));
+        assertEquals(Set.of(empezado1, empezado2, empezado3), idsEnEstado(publicados, EstadoTurno.EN_CURSO));
+        assertEquals(Set.of(terminado, sinPasarPorCurso), idsEnEstado(publicados, EstadoTurno.FINALIZADO));
+
+        //Una segunda pasada no tiene nada que hacer
+        eventos.clear();
+        avanceEstadosService.avanzarEstados(new Date(ahora));
+        assertEquals(0, eventos.stream(TurnosCambiadosEvent.class).count());
+    }
+
+    @Test
+    @DisplayName("Los viajes disponibles salen y finalizan pasada la duracion; los cancelados no cambian")
+    void avanzarViajes() {
+        long ahora = System.currentTimeMillis();
+        Long manana = crearViaje(ahora + 24 * HORA, EstadoViaje.DISPONIBLE);
+        Long saliendo = crearViaje(ahora - HORA, EstadoViaje.DISPONIBLE);
+        Long llegado = crearViaje(ahora - 3 * HORA, EstadoViaje.EN_CURSO);
+        Long olvidado = crearViaje(ahora - 48 * HORA, EstadoViaje.DISPONIBLE);
+        Long cancelado = crearViaje(ahora - 48 * HORA, EstadoViaje.CANCELADO);
+
+        avanceEstadosService.avanzarEstados(new Date(ahora));
+
+        assertEquals(EstadoViaje.DISPONIBLE, viajeRepository.findById(manana).orElseThrow().estado);
+        assertEquals(EstadoViaje.EN_CURSO, viajeRepository.findById(saliendo).orElseThrow().estado);
+        assertEquals(EstadoViaje.FINALIZADO, viajeRepository.findById(llegado).orElseThrow().estado);
+        assertEquals(EstadoViaje.FINALIZADO, viajeRepository.findById(olvidado).orElseThrow().estado);
+        assertEquals(EstadoViaje.CANCELADO, viajeRepository.findById(cancelado).orElseThrow().estado);
+
+        Set<Long> finalizados = eventos.stream(ViajesCambiadosEvent.class)
+                .filter(e -> e.estado() == EstadoViaje.FINALIZADO)
+                .flatMap(e -> e.ids().stream())
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(llegado, olvidado), finalizados);
+    }
+
+    @Test
+    @DisplayName("Un viaje sale a su hora, no al empezar el dia de su fecha")
+    void avanzarViajesPorHoraDeSalida() {
+        LocalDate dia = LocalDate.now().plusDays(3);
+        Long tarde = crearViaje(dia.atTime(14, 0), EstadoViaje.DISPONIBLE);
+        Long manana = crearViaje(dia.atTime(11, 0), EstadoViaje.DISPONIBLE);
+        Long temprano = crearViaje(dia.atTime(9, 30), EstadoViaje.DISPONIBLE);
+        Long enCurso = crearViaje(dia.atTime(10, 30), EstadoViaje.EN_CURSO);
+
+        avanceEstadosService.avanzarEstados(fecha(dia.atTime(12, 0)));
+
+        //Con la duracion de 2 horas, los que salieron hasta las 10:00 ya han llegado
+        assertEquals(EstadoViaje.DISPONIBLE, viajeRepository.findById(tarde).orElseThrow().estado);
+        assertEquals(EstadoViaje.EN_CURSO, viajeRepository.findById(manana).orElseThrow().estado);
+        assertEquals(EstadoViaje.FINALIZADO, viajeRepository.findById(temprano).orElseThrow().estado);
+        assertEquals(EstadoViaje.EN_CURSO, viajeRepository.findById(enCurso).orElseThrow().estado);
+    }
+
+    private Long crearTurno(long inicio, long fin, EstadoTurno estado) {
+        var turno = new Turno();
+        turno.setUsuario(usuario);
+        turno.setHoraInicio(new Date(inicio));
+        turno.setHoraFin(new Date(fin));
+        turno.setEstadoTurno(estado);
+        turno.setPeticionTurno(PeticionTurno.PENDIENTE);
+        turno.setActivo(true);
+        return turnoRepository.save(turno).getId();
+    }
+
+    private Long crearViaje(long salida, EstadoViaje estado) {
+        return crearViaje(LocalDateTime.ofInstant(Instant.ofEpochMilli(salida), ZoneId.systemDefault()), estado);
+    }
+
+    //Como los mandan los clientes: la fecha sin hora y la hora con otro dia
+    private Long crearViaje(LocalDateTime salida, EstadoViaje estado) {
+        var viaje = new Viaje();
+        viaje.fecha = fecha(salida.toLocalDate().atStartOfDay());
+        viaje.hora = fecha(LocalDate.of(2000, 1, 1).atTime(salida.toLocalTime()));
+        viaje.origen = "Leganés";
+        viaje.destino = "Hospital Clínico";
+        viaje.plazas = 3;
+        viaje.estado = estado;
+        viaje.conductor = usuario;
+        viaje.vehiculo = vehiculo;
+        return viajeRepository.save(viaje).id;
+    }
+
+    private Date fecha(LocalDateTime fechaHora) {
+        return Date.from(fechaHora.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private EstadoTurno estado(Long idTurno) {
+        return turnoRepository.findById(idTurno).orElseThrow().getEstadoTurno();
+    }
+
+    private static Set<Long> idsEnEstado(List<TurnosCambiadosEvent> eventos, EstadoTurno estado) {
+        Set<Long> ids = new HashSet<>();
+        eventos.stream().filter(e -> e.estado() == estado).forEach(e -> ids.addAll(e.ids()));
+        return ids;
+    }
+}
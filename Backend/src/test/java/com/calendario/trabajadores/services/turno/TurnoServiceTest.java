@@ -1,4 +1,222 @@
 package com.calendario.trabajadores.services.turno;
 
-public class TurnoServiceTest {
+import com.calendario.trabajadores.GestionTrabajadoresApplication;
+import com.calendario.trabajadores.model.dto.turno.CrearEditarTurnoResponse;
+import com.calendario.trabajadores.model.dto.turno.CrearTurnoRequest;
+import com.calendario.trabajadores.model.dto.turno.EditarTurnoRequest;
+import com.calendario.trabajadores.model.dto.turno.VistaCalendario;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.errorresponse.GenericResponse;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Solapes de turnos, vistas de calendario y turnos en curso sobre H2. Cada prueba usa su propio usuario
+@SpringBootTest(classes = GestionTrabajadoresApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:turnoservice;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "calendario.estados.enabled=false"
+})
+@ActiveProfiles("test")
+class TurnoServiceTest {
+
+    //Un miercoles, para que la semana no empiece ni acabe en el
+    private static final LocalDate DIA = LocalDate.of(2030, 5, 15);
+
+    @Autowired
+    private TurnoService turnoService;
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        usuario = crearUsuario("turnos");
+    }
+
+    @Test
+    @DisplayName("Un turno no puede solaparse con otro activo del mismo usuario; los contiguos si se permiten")
+    void solapeDeTurnos() {
+        assertTrue(crear(usuario, DIA.atTime(8, 0), DIA.atTime(16, 0)).isSuccess());
+
+        assertFalse(crear(usuario, DIA.atTime(15, 0), DIA.atTime(20, 0)).isSuccess());
+        assertFalse(crear(usuario, DIA.atTime(6, 0), DIA.atTime(9, 0)).isSuccess());
+        assertFalse(crear(usuario, DIA.atTime(10, 0), DIA.atTime(12, 0)).isSuccess());
+        assertTrue(crear(usuario, DIA.atTime(16, 0), DIA.atTime(22, 0)).isSuccess());
+        assertTrue(crear(usuario, DIA.atTime(0, 0), DIA.atTime(8, 0)).isSuccess());
+        //Otro usuario si puede tener ese horario
+        assertTrue(crear(crearUsuario("otro"), DIA.atTime(10, 0), DIA.atTime(12, 0)).isSuccess());
+
+        assertEquals(3, turnosDe(usuario));
+    }
+
+    @Test
+    @DisplayName("Las horas se validan y un turno inactivo no bloquea su horario")
+    void validacionesDeHorario() {
+        assertFalse(crear(usuario, DIA.atTime(10, 0), DIA.atTime(10, 0)).isSuccess());
+        assertFalse(crear(usuario, DIA.atTime(10, 0), DIA.atTime(9, 0)).isSuccess());
+        assertFalse(crear(usuario, DIA.atTime(10, 0), DIA.plusDays(1).atTime(10, 1)).isSuccess());
+        var sinUsuario = new CrearTurnoRequest();
+        sinUsuario.setIdUsuario(-1L);
+        sinUsuario.setHoraInicio(fecha(DIA.atTime(8, 0)));
+        sinUsuario.setHoraFin(fecha(DIA.atTime(9, 0)));
+        assertFalse(turnoService.crearTurno(sinUsuario).isSuccess());
+
+        CrearEditarTurnoResponse turno = crear(usuario, DIA.atTime(8, 0), DIA.atTime(16, 0)).getData();
+        assertTrue(desactivar(turno.getId()).isSuccess());
+        assertTrue(crear(usuario, DIA.atTime(9, 0), DIA.atTime(10, 0)).isSuccess());
+    }
+
+    @Test
+    @DisplayName("Al editar, el turno no choca consigo mismo pero si con los demas")
+    void solapeAlEditar() {
+        CrearEditarTurnoResponse manana = crear(usuario, DIA.atTime(8, 0), DIA.atTime(14, 0)).getData();
+        crear(usuario, DIA.atTime(15, 0), DIA.atTime(20, 0));
+
+        var alargar = new EditarTurnoRequest();
+        alargar.setId(manana.getId());
+        alargar.setHoraFin(fecha(DIA.atTime(15, 0)));
+        assertTrue(turnoService.modificarTurno(alargar).isSuccess());
+
+        var pisar = new EditarTurnoRequest();
+        pisar.setId(manana.getId());
+        pisar.setHoraFin(fecha(DIA.atTime(16, 0)));
+        var respuesta = turnoService.modificarTurno(pisar);
+        assertFalse(respuesta.isSuccess());
+        assertEquals(fecha(DIA.atTime(15, 0)), jdbcTemplate.queryForObject(
+                "SELECT hora_fin FROM turnos WHERE id = ?", Date.class, manana.getId()));
+    }
+
+    @Test
+    @DisplayName("Altas a la vez de turnos que se solapan: solo se guarda una")
+    void solapeConcurrente() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> tareas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int minutos = i * 5;
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                return crear(usuario, DIA.atTime(8, minutos), DIA.atTime(14, minutos)).isSuccess();
+            }));
+        }
+        salida.countDown();
+        int creados = 0;
+        for (Future<Boolean> tarea : tareas) {
+            if (tarea.get()) {
+                creados++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, creados);
+        assertEquals(1, turnosDe(usuario));
+    }
+
+    @Test
+    @DisplayName("La vista de calendario incluye los turnos que empiezan antes y acaban dentro del intervalo")
+    void vistasDeCalendario() {
+        Long nocheAnterior = crear(usuario, DIA.minusDays(1).atTime(22, 0), DIA.atTime(6, 0)).getData().getId();
+        Long delDia = crear(usuario, DIA.atTime(8, 0), DIA.atTime(14, 0)).getData().getId();
+        Long lunes = crear(usuario, LocalDate.of(2030, 5, 13).atTime(8, 0), LocalDate.of(2030, 5, 13).atTime(14, 0))
+                .getData().getId();
+        Long otraSemana = crear(usuario, LocalDate.of(2030, 5, 20).atTime(8, 0), LocalDate.of(2030, 5, 20).atTime(14, 0))
+                .getData().getId();
+        Long otroMes = crear(usuario, LocalDate.of(2030, 6, 1).atTime(8, 0), LocalDate.of(2030, 6, 1).atTime(14, 0))
+                .getData().getId();
+        crear(crearUsuario("otro"), DIA.atTime(8, 0), DIA.atTime(14, 0));
+
+        assertEquals(List.of(nocheAnterior, delDia), ids(calendario(VistaCalendario.DIA, 0, 10)));
+        assertEquals(List.of(lunes, nocheAnterior, delDia), ids(calendario(VistaCalendario.SEMANA, 0, 10)));
+        assertEquals(List.of(lunes, nocheAnterior, delDia, otraSemana), ids(calendario(VistaCalendario.MES, 0, 10)));
+        assertFalse(ids(calendario(VistaCalendario.MES, 0, 10)).contains(otroMes));
+
+        Page<CrearEditarTurnoResponse> pagina = calendario(VistaCalendario.MES, 1, 2);
+        assertEquals(4, pagina.getTotalElements());
+        assertEquals(List.of(delDia, otraSemana), ids(pagina));
+    }
+
+    @Test
+    @DisplayName("Los turnos en curso son los activos que han empezado y no han terminado")
+    void turnosEnCurso() {
+        LocalDateTime ahora = LocalDateTime.now();
+        Long enCurso = crear(usuario, ahora.minusHours(1), ahora.plusHours(1)).getData().getId();
+        Long terminado = crear(usuario, ahora.minusHours(5), ahora.minusHours(2)).getData().getId();
+        Long futuro = crear(usuario, ahora.plusHours(2), ahora.plusHours(4)).getData().getId();
+        Long inactivo = crear(crearUsuario("inactivo"), ahora.minusHours(1), ahora.plusHours(1)).getData().getId();
+        desactivar(inactivo);
+
+        List<Long> encontrados = ids(turnoService.listarTurnosEnCurso(PageRequest.of(0, 100)).getData());
+
+        assertTrue(encontrados.contains(enCurso));
+        assertFalse(encontrados.contains(terminado));
+        assertFalse(encontrados.contains(futuro));
+        assertFalse(encontrados.contains(inactivo));
+    }
+
+    private GenericResponse<CrearEditarTurnoResponse> crear(Usuario usuario, LocalDateTime inicio, LocalDateTime fin) {
+        var request = new CrearTurnoRequest();
+        request.setIdUsuario(usuario.id);
+        request.setHoraInicio(fecha(inicio));
+        request.setHoraFin(fecha(fin));
+        return turnoService.crearTurno(request);
+    }
+
+    private GenericResponse<CrearEditarTurnoResponse> desactivar(Long idTurno) {
+        var request = new EditarTurnoRequest();
+        request.setId(idTurno);
+        request.setActivo(false);
+        return turnoService.modificarTurno(request);
+    }
+
+    private Page<CrearEditarTurnoResponse> calendario(VistaCalendario vista, int pagina, int tamano) {
+        return turnoService.listarTurnosCalendario(usuario.id, vista, DIA, PageRequest.of(pagina, tamano)).getData();
+    }
+
+    private List<Long> ids(Page<CrearEditarTurnoResponse> turnos) {
+        return turnos.getContent().stream().map(CrearEditarTurnoResponse::getId).collect(Collectors.toList());
+    }
+
+    private int turnosDe(Usuario usuario) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM turnos WHERE usuario_id = ?", Integer.class, usuario.id);
+    }
+
+    private Date fecha(LocalDateTime fechaHora) {
+        return Date.from(fechaHora.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private Usuario crearUsuario(String nombre) {
+        var usuario = new Usuario();
+        usuario.nombre = nombre;
+        usuario.apellido1 = "Prueba";
+        usuario.email = nombre + "-" + System.nanoTime() + "@correo.es";
+        usuario.contraseña = "123";
+        usuario.rol = "user";
+        usuario.activo = true;
+        return usuarioRepository.save(usuario);
+    }
 }
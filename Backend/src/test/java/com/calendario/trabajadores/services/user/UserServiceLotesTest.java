@@ -0,0 +1,111 @@
+package com.calendario.trabajadores.services.user;
+
+import com.calendario.trabajadores.mappings.IUserMapper;
+import com.calendario.trabajadores.mappings.IViajeMapper;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.dto.usuario.UsuarioViajeResponse;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+//Recorrido por lotes de recorrerUsuariosViajes sin base de datos: limites de lote, avance del ultimo id
+//y vaciado del contexto de persistencia tras cada lote
+@ExtendWith(MockitoExtension.class)
+class UserServiceLotesTest {
+    private static final int LOTE = 500;
+
+    @Mock
+    private IUsuarioRepository userRepository;
+    @Mock
+    private IUserMapper userMapper;
+    @Mock
+    private IViajeMapper viajeMapper;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, userMapper, viajeMapper);
+        //lenient: el caso sin usuarios no llega a cargar ni mapear
+        lenient().when(userMapper.userToUsuarioViajeResponse(any())).thenAnswer(invocation -> {
+            var response = new UsuarioViajeResponse();
+            response.setId(((Usuario) invocation.getArgument(0)).getId());
+            return response;
+        });
+        lenient().when(userRepository.findConViajesByIdIn(anyCollection())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream().map(this::usuario).collect(Collectors.toList()));
+    }
+
+    @Test
+    void recorrerUsuariosViajes_UltimoLoteIncompleto_TerminaSinOtraConsulta() {
+        when(userRepository.findIdsDespuesDe(eq(0L), isNull(), any())).thenReturn(ids(1, LOTE));
+        when(userRepository.findIdsDespuesDe(eq((long) LOTE), isNull(), any())).thenReturn(ids(LOTE + 1, LOTE + 2));
+
+        List<Long> entregados = recorrer(null);
+
+        assertEquals(LongStream.rangeClosed(1, LOTE + 2).boxed().collect(Collectors.toList()), entregados);
+        InOrder orden = inOrder(userRepository);
+        orden.verify(userRepository).findIdsDespuesDe(0L, null, PageRequest.of(0, LOTE));
+        orden.verify(userRepository).findConViajesByIdIn(ids(1, LOTE));
+        orden.verify(userRepository).vaciarContexto();
+        orden.verify(userRepository).findIdsDespuesDe(LOTE, null, PageRequest.of(0, LOTE));
+        orden.verify(userRepository).findConViajesByIdIn(ids(LOTE + 1, LOTE + 2));
+        orden.verify(userRepository).vaciarContexto();
+        verify(userRepository, times(2)).findIdsDespuesDe(anyLong(), any(), any());
+    }
+
+    @Test
+    void recorrerUsuariosViajes_LoteExacto_ConsultaOtraVezYTerminaConLoteVacio() {
+        //Ids con huecos: el siguiente lote empieza en el ultimo id leido, no en el numero de filas
+        List<Long> primero = LongStream.rangeClosed(1, LOTE).map(i -> i * 3).boxed().collect(Collectors.toList());
+        when(userRepository.findIdsDespuesDe(eq(0L), eq(true), any())).thenReturn(primero);
+        when(userRepository.findIdsDespuesDe(eq(LOTE * 3L), eq(true), any())).thenReturn(List.of());
+
+        List<Long> entregados = recorrer(true);
+
+        assertEquals(primero, entregados);
+        verify(userRepository, times(2)).findIdsDespuesDe(anyLong(), eq(true), any());
+        verify(userRepository, times(1)).findConViajesByIdIn(anyCollection());
+        verify(userRepository, times(1)).vaciarContexto();
+    }
+
+    @Test
+    void recorrerUsuariosViajes_SinUsuarios_NoCargaNada() {
+        when(userRepository.findIdsDespuesDe(eq(0L), isNull(), any())).thenReturn(List.of());
+
+        assertTrue(recorrer(null).isEmpty());
+        verify(userRepository, never()).findConViajesByIdIn(anyCollection());
+        verify(userRepository, never()).vaciarContexto();
+    }
+
+    private List<Long> recorrer(Boolean activo) {
+        List<Long> entregados = new ArrayList<>();
+        userService.recorrerUsuariosViajes(activo, response -> entregados.add(response.getId()));
+        return entregados;
+    }
+
+    private List<Long> ids(long desde, long hasta) {
+        return LongStream.rangeClosed(desde, hasta).boxed().collect(Collectors.toList());
+    }
+
+    private Usuario usuario(Long id) {
+        var usuario = new Usuario();
+        usuario.setId(id);
+        return usuario;
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
@@ -215,8 +216,20 @@ class UserServiceTest {
 
     @Test
     @Order(16)
+    @DisplayName("16. Listar usuarios con viajes paginado")
+    void listarUsuariosConViajesPaginado() {
+        //Lo que usan /user/list y /user/viajes con page
+        var response = userService.listar(Optional.empty(), PageRequest.of(0, 1));
+        assertNotNull(response.getData());
+        assertEquals(1, response.getData().getContent().size());
+        assertNotNull(response.getData().getContent().get(0).getViajes());
+        assertTrue(response.getData().getTotalElements() >= 1);
+    }
+
+    @Test
+    @Order(17)
     @Transactional
-    @DisplayName("16. Borrar usuario definitivamente")
+    @DisplayName("17. Borrar usuario definitivamente")
     void borrarUsuarioDefinitivamente() {
         var response = userService.borrar(id, email);
         assertNotNull(response.getData());
@@ -37,7 +37,8 @@ class VehiculoServiceTest {
         var request = new CrearUsuarioRequest();
         request.nombre = "Paco";
         request.apellido1 = "Longaniza";
-        request.email = "paco@gmail.com";
+        // Email distinto al de UserServiceTest: ambas clases comparten el contexto y la BBDD en memoria
+        request.email = "paco.vehiculos@gmail.com";
         request.password = "123";
         request.rol = "user";
         request.activo = true;
@@ -0,0 +1,55 @@
+package com.calendario.trabajadores.services.viaje;
+
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceLugaresTest {
+
+    private IndiceLugares indice;
+
+    @BeforeEach
+    void setUp() {
+        IViajeRepository viajeRepository = mock(IViajeRepository.class);
+        when(viajeRepository.contarOrigenes()).thenReturn(List.<Object[]>of(
+                new Object[]{"Hospital Clínico", 5L},
+                new Object[]{"hospital  clinico", 2L},
+                new Object[]{"Hospital La Paz", 9L},
+                new Object[]{"Getafe", 1L}));
+        when(viajeRepository.contarDestinos()).thenReturn(List.<Object[]>of(
+                new Object[]{"Móstoles", 3L}));
+        indice = new IndiceLugares(viajeRepository);
+        indice.cargar();
+    }
+
+    @Test
+    @DisplayName("Sugerencias por prefijo sin acentos ni mayusculas, las de mas viajes primero")
+    void sugerirPorPrefijo() {
+        assertEquals(List.of("Hospital La Paz", "Hospital Clínico"), indice.sugerirOrigenes("HOSP", 10));
+        assertEquals(List.of("Hospital Clínico"), indice.sugerirOrigenes("hospital cli", 10));
+        assertEquals(List.of("Hospital La Paz"), indice.sugerirOrigenes("hosp", 1));
+        assertEquals(List.of("Móstoles"), indice.sugerirDestinos("mos", 10));
+        assertEquals(List.of(), indice.sugerirOrigenes(" ", 10));
+    }
+
+    @Test
+    @DisplayName("Crear y editar viajes actualiza el indice")
+    void actualizarIncremental() {
+        indice.registrarViaje("Leganés", "Hospital Clínico");
+        assertEquals(List.of("Leganés"), indice.sugerirOrigenes("lega", 10));
+        assertEquals(List.of("Hospital Clínico"), indice.sugerirDestinos("hos", 10));
+
+        // El unico viaje desde Getafe pasa a salir de Fuenlabrada
+        indice.actualizarViaje("Getafe", "Móstoles", "Fuenlabrada", "Móstoles");
+        assertEquals(List.of(), indice.sugerirOrigenes("get", 10));
+        assertEquals(List.of("Fuenlabrada"), indice.sugerirOrigenes("fuen", 10));
+        assertEquals(List.of("Móstoles"), indice.sugerirDestinos("mos", 10));
+    }
+}
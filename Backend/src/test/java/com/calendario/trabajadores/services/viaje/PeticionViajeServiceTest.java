@@ -0,0 +1,161 @@
+package com.calendario.trabajadores.services.viaje;
+
+import com.calendario.trabajadores.GestionTrabajadoresApplication;
+import com.calendario.trabajadores.model.database.EstadoPeticionViaje;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.database.Vehiculo;
+import com.calendario.trabajadores.model.dto.viaje.CrearViajeRequest;
+import com.calendario.trabajadores.model.dto.viaje.PeticionViajeResponse;
+import com.calendario.trabajadores.model.dto.viaje.ProcesarPeticionesRequest;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import com.calendario.trabajadores.repository.vehiculo.IVehiculoRepository;
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = GestionTrabajadoresApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:peticionviaje;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+class PeticionViajeServiceTest {
+
+    @Autowired
+    private PeticionViajeService peticionViajeService;
+    @Autowired
+    private ViajeService viajeService;
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+    @Autowired
+    private IVehiculoRepository vehiculoRepository;
+    @Autowired
+    private IViajeRepository viajeRepository;
+
+    private Usuario conductor;
+    private Vehiculo vehiculo;
+
+    @BeforeEach
+    void setUp() {
+        conductor = crearUsuario("conductor");
+        vehiculo = new Vehiculo();
+        vehiculo.matricula = "M-" + conductor.id;
+        vehiculo.modeloCoche = "Seat Ibiza";
+        vehiculo.plazas = 4;
+        vehiculo.usuario = conductor;
+        vehiculo.activo = true;
+        vehiculo = vehiculoRepository.save(vehiculo);
+    }
+
+    @Test
+    @DisplayName("Aceptar a la vez mas peticiones que plazas no sobrevende el viaje")
+    void aceptarConcurrenteSinSobreventa() throws Exception {
+        Long idViaje = crearViaje(3);
+        List<Long> peticiones = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            var peticion = peticionViajeService.solicitarPlaza(idViaje, crearUsuario("pasajero" + i).id);
+            assertTrue(peticion.isSuccess());
+            peticiones.add(peticion.getData().getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(peticiones.size());
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger aceptadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (Long idPeticion : peticiones) {
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                if (peticionViajeService.aceptarPeticion(conductor.id, idPeticion).isSuccess()) {
+                    aceptadas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        executor.shutdown();
+
+        assertEquals(3, aceptadas.get());
+        assertEquals(0, viajeRepository.findById(idViaje).orElseThrow().plazas);
+        assertEquals(3, viajeService.mostrarViajesConductor(conductor.id).getData().get(0).getPasajeros());
+        var estados = peticionViajeService.listarPeticiones(idViaje, Optional.empty()).getData();
+        assertEquals(3, estados.stream().filter(p -> p.getEstado() == EstadoPeticionViaje.ACEPTADA).count());
+        assertEquals(9, estados.stream().filter(p -> p.getEstado() == EstadoPeticionViaje.RECHAZADA).count());
+    }
+
+    @Test
+    @DisplayName("Aceptar en lote llena el viaje y rechaza el resto de pendientes")
+    void aceptarEnLote() {
+        Long idViaje = crearViaje(2);
+        List<Long> peticiones = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            peticiones.add(peticionViajeService.solicitarPlaza(idViaje, crearUsuario("lote" + i).id).getData().getId());
+        }
+
+        var resultado = peticionViajeService.aceptarPeticiones(
+                new ProcesarPeticionesRequest(conductor.id, peticiones)).getData();
+
+        assertEquals(peticiones.subList(0, 2), resultado.getAceptadas());
+        assertEquals(2, resultado.getErrores().size());
+        assertTrue(peticionViajeService.listarPeticiones(idViaje, Optional.of(EstadoPeticionViaje.PENDIENTE)).getData().isEmpty());
+        assertFalse(peticionViajeService.solicitarPlaza(idViaje, crearUsuario("tarde").id).isSuccess());
+    }
+
+    @Test
+    @DisplayName("Rechazar en lote solo afecta a peticiones pendientes de viajes del conductor")
+    void rechazarEnLote() {
+        Long idViaje = crearViaje(3);
+        Long pendiente = peticionViajeService.solicitarPlaza(idViaje, crearUsuario("r1").id).getData().getId();
+        Long aceptada = peticionViajeService.solicitarPlaza(idViaje, crearUsuario("r2").id).getData().getId();
+        assertTrue(peticionViajeService.aceptarPeticion(conductor.id, aceptada).isSuccess());
+        Usuario otro = crearUsuario("otro");
+
+        var ajeno = peticionViajeService.rechazarPeticiones(
+                new ProcesarPeticionesRequest(otro.id, List.of(pendiente))).getData();
+        assertTrue(ajeno.getRechazadas().isEmpty());
+
+        var resultado = peticionViajeService.rechazarPeticiones(
+                new ProcesarPeticionesRequest(conductor.id, List.of(pendiente, aceptada, -1L))).getData();
+        assertEquals(List.of(pendiente), resultado.getRechazadas());
+        assertEquals(2, resultado.getErrores().size());
+        PeticionViajeResponse sigueAceptada = peticionViajeService.listarPeticiones(idViaje,
+                Optional.of(EstadoPeticionViaje.ACEPTADA)).getData().get(0);
+        assertEquals(aceptada, sigueAceptada.getId());
+    }
+
+    private Long crearViaje(int plazas) {
+        var request = new CrearViajeRequest(vehiculo.id, conductor.id, "Leganés", "Hospital Clínico",
+                new Date(System.currentTimeMillis() + 86_400_000L), new Date(), plazas, true);
+        var viaje = viajeService.crearViaje(request);
+        assertTrue(viaje.isSuccess());
+        return viajeRepository.mostrarViajesConductor(conductor.id).get(0).getId();
+    }
+
+    private Usuario crearUsuario(String nombre) {
+        var usuario = new Usuario();
+        usuario.nombre = nombre;
+        usuario.apellido1 = "Prueba";
+        usuario.email = nombre + "-" + System.nanoTime() + "@correo.es";
+        usuario.contraseña = "123";
+        usuario.rol = "user";
+        usuario.activo = true;
+        return usuarioRepository.save(usuario);
+    }
+}
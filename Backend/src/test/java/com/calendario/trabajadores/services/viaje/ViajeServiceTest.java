@@ -1,4 +1,267 @@
 package com.calendario.trabajadores.services.viaje;
 
-public class ViajeServiceTest {
+import com.calendario.trabajadores.GestionTrabajadoresApplication;
+import com.calendario.trabajadores.mappings.IViajeMapper;
+import com.calendario.trabajadores.model.database.EstadoViaje;
+import com.calendario.trabajadores.model.database.Usuario;
+import com.calendario.trabajadores.model.database.Vehiculo;
+import com.calendario.trabajadores.model.database.Viaje;
+import com.calendario.trabajadores.model.dto.viaje.ViajeResumenDTO;
+import com.calendario.trabajadores.repository.usuario.IUsuarioRepository;
+import com.calendario.trabajadores.repository.vehiculo.IVehiculoRepository;
+import com.calendario.trabajadores.repository.viaje.IViajeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Plazas, pasajeros, cancelacion y paneles de conductor y pasajero sobre H2
+@SpringBootTest(classes = GestionTrabajadoresApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:viajeservice;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "calendario.estados.enabled=false"
+})
+@ActiveProfiles("test")
+class ViajeServiceTest {
+
+    @Autowired
+    private ViajeService viajeService;
+    @Autowired
+    private IViajeRepository viajeRepository;
+    @Autowired
+    private IUsuarioRepository usuarioRepository;
+    @Autowired
+    private IVehiculoRepository vehiculoRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario conductor;
+    private Vehiculo vehiculo;
+
+    @BeforeEach
+    void setUp() {
+        conductor = crearUsuario("conductor");
+        vehiculo = new Vehiculo();
+        vehiculo.matricula = "M-" + System.nanoTime();
+        vehiculo.modeloCoche = "Seat Ibiza";
+        vehiculo.plazas = 4;
+        vehiculo.usuario = conductor;
+        vehiculo.activo = true;
+        vehiculo = vehiculoRepository.save(vehiculo);
+    }
+
+    @Test
+    @DisplayName("Apuntarse ocupa una plaza y sin plazas o sin estar disponible no se puede")
+    void agregarPasajeroOcupaPlaza() {
+        Viaje viaje = crearViaje(1, EstadoViaje.DISPONIBLE);
+        Viaje enCurso = crearViaje(3, EstadoViaje.EN_CURSO);
+        Usuario primero = crearUsuario("primero");
+        Usuario segundo = crearUsuario("segundo");
+
+        assertTrue(viajeService.agregarPasajero(viaje.id, primero.id).isSuccess());
+        assertEquals(0, plazas(viaje.id));
+        assertFalse(viajeService.agregarPasajero(viaje.id, segundo.id).isSuccess());
+        assertFalse(viajeService.agregarPasajero(enCurso.id, segundo.id).isSuccess());
+        assertFalse(viajeService.agregarPasajero(viaje.id, conductor.id).isSuccess());
+
+        assertEquals(0, plazas(viaje.id));
+        assertEquals(3, plazas(enCurso.id));
+        assertEquals(1, pasajeros(viaje.id));
+        assertEquals(0, pasajeros(enCurso.id));
+    }
+
+    @Test
+    @DisplayName("Un usuario que ya va en el viaje no ocupa otra plaza")
+    void agregarPasajeroDuplicado() {
+        Viaje viaje = crearViaje(3, EstadoViaje.DISPONIBLE);
+        Usuario pasajero = crearUsuario("pasajero");
+
+        assertTrue(viajeService.agregarPasajero(viaje.id, pasajero.id).isSuccess());
+        var repetido = viajeService.agregarPasajero(viaje.id, pasajero.id);
+
+        assertFalse(repetido.isSuccess());
+        assertNotNull(repetido.getError());
+        assertEquals(2, plazas(viaje.id));
+        assertEquals(1, pasajeros(viaje.id));
+    }
+
+    @Test
+    @DisplayName("El mismo usuario apuntandose a la vez solo ocupa una plaza y no salta ninguna excepcion")
+    void agregarPasajeroDuplicadoConcurrente() throws Exception {
+        Viaje viaje = crearViaje(4, EstadoViaje.DISPONIBLE);
+        Usuario pasajero = crearUsuario("pasajero");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> tareas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                return viajeService.agregarPasajero(viaje.id, pasajero.id).isSuccess();
+            }));
+        }
+        salida.countDown();
+        int agregados = 0;
+        for (Future<Boolean> tarea : tareas) {
+            if (tarea.get()) {
+                agregados++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, agregados);
+        assertEquals(3, plazas(viaje.id));
+        assertEquals(1, pasajeros(viaje.id));
+    }
+
+    @Test
+    @DisplayName("Si la restriccion unica rechaza el INSERT la respuesta es un error, no una excepcion")
+    void agregarPasajeroRestriccionUnica() {
+        IViajeRepository repositorio = mock(IViajeRepository.class);
+        IUsuarioRepository usuarios = mock(IUsuarioRepository.class);
+        var viaje = new Viaje();
+        viaje.id = 1L;
+        viaje.conductor = conductor;
+        when(repositorio.findById(1L)).thenReturn(Optional.of(viaje));
+        when(usuarios.existsById(2L)).thenReturn(true);
+        when(repositorio.agregarUsuarioViaje(1L, 2L)).thenThrow(new DataIntegrityViolationException("usuario_viaje"));
+        var servicio = new ViajeService(repositorio, usuarios, mock(IVehiculoRepository.class), mock(IViajeMapper.class),
+                mock(IndiceLugares.class), mock(ApplicationEventPublisher.class));
+
+        var respuesta = servicio.agregarPasajero(1L, 2L);
+
+        assertFalse(respuesta.isSuccess());
+        assertNull(respuesta.getData());
+        assertNotNull(respuesta.getError());
+    }
+
+    @Test
+    @DisplayName("Bajarse devuelve la plaza solo si el viaje sigue disponible")
+    void eliminarPasajeroDevuelvePlaza() {
+        Viaje viaje = crearViaje(2, EstadoViaje.DISPONIBLE);
+        Usuario pasajero = crearUsuario("pasajero");
+        Usuario otro = crearUsuario("otro");
+        assertTrue(viajeService.agregarPasajero(viaje.id, pasajero.id).isSuccess());
+        assertTrue(viajeService.agregarPasajero(viaje.id, otro.id).isSuccess());
+
+        assertTrue(viajeService.eliminarPasajero(viaje.id, pasajero.id).isSuccess());
+        assertEquals(1, plazas(viaje.id));
+        assertFalse(viajeService.eliminarPasajero(viaje.id, pasajero.id).isSuccess());
+        assertEquals(1, plazas(viaje.id));
+
+        jdbcTemplate.update("UPDATE viajes SET estado = 'FINALIZADO' WHERE id = ?", viaje.id);
+        assertTrue(viajeService.eliminarPasajero(viaje.id, otro.id).isSuccess());
+        assertEquals(1, plazas(viaje.id));
+        assertEquals(0, pasajeros(viaje.id));
+    }
+
+    @Test
+    @DisplayName("Cancelar cambia el estado solo de viajes disponibles y un viaje cancelado no admite pasajeros")
+    void cancelarViaje() {
+        Viaje viaje = crearViaje(3, EstadoViaje.DISPONIBLE);
+        Viaje enCurso = crearViaje(3, EstadoViaje.EN_CURSO);
+
+        assertTrue(viajeService.cancelarViaje(viaje.id).isSuccess());
+        assertFalse(viajeService.cancelarViaje(viaje.id).isSuccess());
+        assertFalse(viajeService.cancelarViaje(enCurso.id).isSuccess());
+        assertFalse(viajeService.cancelarViaje(-1L).isSuccess());
+
+        assertEquals(EstadoViaje.CANCELADO, viajeRepository.findById(viaje.id).orElseThrow().estado);
+        assertEquals(EstadoViaje.EN_CURSO, viajeRepository.findById(enCurso.id).orElseThrow().estado);
+        assertFalse(viajeService.agregarPasajero(viaje.id, crearUsuario("tarde").id).isSuccess());
+        assertEquals(3, plazas(viaje.id));
+    }
+
+    @Test
+    @DisplayName("Los paneles devuelven los viajes del conductor y del pasajero con su numero de pasajeros")
+    void panelesConductorYPasajero() {
+        Viaje antiguo = crearViaje(LocalDate.now().plusDays(1), 3, EstadoViaje.DISPONIBLE);
+        Viaje reciente = crearViaje(LocalDate.now().plusDays(5), 3, EstadoViaje.DISPONIBLE);
+        Usuario pasajero = crearUsuario("pasajero");
+        Usuario otro = crearUsuario("otro");
+        assertTrue(viajeService.agregarPasajero(antiguo.id, pasajero.id).isSuccess());
+        assertTrue(viajeService.agregarPasajero(antiguo.id, otro.id).isSuccess());
+        assertTrue(viajeService.agregarPasajero(reciente.id, otro.id).isSuccess());
+
+        List<ViajeResumenDTO> delConductor = viajeService.mostrarViajesConductor(conductor.id).getData();
+        List<ViajeResumenDTO> delPasajero = viajeService.mostrarMisViajes(pasajero.id).getData();
+        List<ViajeResumenDTO> delOtro = viajeService.mostrarMisViajes(otro.id).getData();
+
+        //Mas recientes primero
+        assertEquals(List.of(reciente.id, antiguo.id), ids(delConductor));
+        ViajeResumenDTO fila = delConductor.get(1);
+        assertEquals(2L, fila.getPasajeros());
+        assertEquals(1, fila.getPlazas());
+        assertEquals(EstadoViaje.DISPONIBLE, fila.getEstado());
+        assertEquals(conductor.id, fila.getConductorId());
+        assertEquals("conductor", fila.getConductorNombre());
+        assertEquals(vehiculo.id, fila.getVehiculoId());
+        assertEquals(vehiculo.matricula, fila.getMatricula());
+        assertEquals(1L, delConductor.get(0).getPasajeros());
+
+        assertEquals(List.of(antiguo.id), ids(delPasajero));
+        assertEquals(2L, delPasajero.get(0).getPasajeros());
+        assertEquals(List.of(reciente.id, antiguo.id), ids(delOtro));
+        assertTrue(viajeService.mostrarViajesConductor(pasajero.id).getData().isEmpty());
+    }
+
+    private int plazas(Long idViaje) {
+        return jdbcTemplate.queryForObject("SELECT plazas FROM viajes WHERE id = ?", Integer.class, idViaje);
+    }
+
+    private int pasajeros(Long idViaje) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuario_viaje WHERE viaje_id = ?", Integer.class, idViaje);
+    }
+
+    private List<Long> ids(List<ViajeResumenDTO> viajes) {
+        return viajes.stream().map(ViajeResumenDTO::getId).collect(Collectors.toList());
+    }
+
+    private Viaje crearViaje(int plazas, EstadoViaje estado) {
+        return crearViaje(LocalDate.now().plusDays(2), plazas, estado);
+    }
+
+    private Viaje crearViaje(LocalDate dia, int plazas, EstadoViaje estado) {
+        var viaje = new Viaje();
+        viaje.fecha = Date.from(dia.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        viaje.hora = Date.from(LocalDate.now().atTime(9, 0).atZone(ZoneId.systemDefault()).toInstant());
+        viaje.origen = "Leganés";
+        viaje.destino = "Getafe";
+        viaje.plazas = plazas;
+        viaje.estado = estado;
+        viaje.conductor = conductor;
+        viaje.vehiculo = vehiculo;
+        return viajeRepository.save(viaje);
+    }
+
+    private Usuario crearUsuario(String nombre) {
+        var usuario = new Usuario();
+        usuario.nombre = nombre;
+        usuario.apellido1 = "Prueba";
+        usuario.email = nombre + "-" + System.nanoTime() + "@correo.es";
+        usuario.contraseña = "123";
+        usuario.rol = "user";
+        usuario.activo = true;
+        return usuarioRepository.save(usuario);
+    }
 }
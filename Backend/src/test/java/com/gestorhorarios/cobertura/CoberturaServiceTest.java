@@ -0,0 +1,143 @@
+package com.gestorhorarios.cobertura;
+
+import com.gestorhorarios.config.CoberturaProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoberturaServiceTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2025, 3, 3);
+
+    @Mock
+    private HorarioRepository horarioRepository;
+
+    @Mock
+    private ExpansionRota expansionRota;
+
+    private CoberturaService coberturaService;
+
+    @BeforeEach
+    void setUp() {
+        coberturaService = new CoberturaService(horarioRepository, expansionRota, new CoberturaProperties());
+        List<HorarioRepository.ConteoTurnos> guardados = List.of(
+                conteo(LUNES, Horario.TipoTurno.MANANA, Role.ROLE_MEDICO, 2),
+                conteo(LUNES, Horario.TipoTurno.NOCHE, Role.ROLE_ENFERMERO, 3),
+                conteo(LUNES.plusDays(2), Horario.TipoTurno.TARDE, Role.ROLE_TCAE, 1));
+        lenient().when(horarioRepository.countPorFechaTipoYRol(any(), any())).thenAnswer(invocation -> {
+            LocalDate desde = invocation.getArgument(0);
+            LocalDate hasta = invocation.getArgument(1);
+            return guardados.stream()
+                    .filter(c -> !c.getFecha().isBefore(desde) && !c.getFecha().isAfter(hasta))
+                    .toList();
+        });
+    }
+
+    @Test
+    void getCobertura_CuentaConUnaConsultaYSumaLosDiasDeRota() {
+        Horario rota = new Horario();
+        rota.setFecha(LUNES);
+        rota.setHoraInicio(LocalTime.of(8, 0));
+        rota.setHoraFin(LocalTime.of(15, 0));
+        rota.setTipoTurno(Horario.TipoTurno.MANANA);
+        rota.setRol(Role.ROLE_MEDICO);
+        when(expansionRota.horariosPeriodo(any(), any())).thenReturn(List.of(rota));
+
+        List<CoberturaDia> cobertura = coberturaService.getCobertura(LUNES, LUNES.plusDays(6));
+
+        assertEquals(7, cobertura.size());
+        assertEquals(Map.of(
+                Horario.TipoTurno.MANANA, Map.of(Role.ROLE_MEDICO, 3),
+                Horario.TipoTurno.NOCHE, Map.of(Role.ROLE_ENFERMERO, 3)), cobertura.get(0).turnos());
+        assertTrue(cobertura.get(1).turnos().isEmpty());
+        assertEquals(Map.of(Horario.TipoTurno.TARDE, Map.of(Role.ROLE_TCAE, 1)), cobertura.get(2).turnos());
+        verify(horarioRepository).countPorFechaTipoYRol(LUNES, LUNES.plusDays(6));
+    }
+
+    @Test
+    void getCobertura_LosDiasContadosNoSeVuelvenAConsultar() {
+        coberturaService.getCobertura(LUNES, LUNES.plusDays(6));
+        coberturaService.getCobertura(LUNES.plusDays(2), LUNES.plusDays(4));
+        coberturaService.getCobertura(LUNES.plusDays(5), LUNES.plusDays(8));
+
+        // La tercera solo cuenta los dos días que faltan
+        verify(horarioRepository).countPorFechaTipoYRol(LUNES, LUNES.plusDays(6));
+        verify(horarioRepository).countPorFechaTipoYRol(LUNES.plusDays(7), LUNES.plusDays(8));
+        verifyNoMoreInteractions(horarioRepository);
+    }
+
+    @Test
+    void sumarYRestar_ActualizanLosDiasEnMemoria() {
+        coberturaService.getCobertura(LUNES, LUNES.plusDays(6));
+
+        coberturaService.sumar(new TurnoCubierto(LUNES, Horario.TipoTurno.MANANA, Role.ROLE_MEDICO));
+        coberturaService.sumar(new TurnoCubierto(LUNES.plusDays(1), Horario.TipoTurno.TARDE, Role.ROLE_ENFERMERO));
+        coberturaService.restar(new TurnoCubierto(LUNES, Horario.TipoTurno.NOCHE, Role.ROLE_ENFERMERO));
+        // Un día que no está en memoria se contará al leerlo
+        coberturaService.sumar(new TurnoCubierto(LUNES.plusDays(30), Horario.TipoTurno.TARDE, Role.ROLE_ENFERMERO));
+        coberturaService.sumar(null);
+
+        List<CoberturaDia> cobertura = coberturaService.getCobertura(LUNES, LUNES.plusDays(1));
+        assertEquals(Map.of(
+                Horario.TipoTurno.MANANA, Map.of(Role.ROLE_MEDICO, 3),
+                Horario.TipoTurno.NOCHE, Map.of(Role.ROLE_ENFERMERO, 2)), cobertura.get(0).turnos());
+        assertEquals(Map.of(Horario.TipoTurno.TARDE, Map.of(Role.ROLE_ENFERMERO, 1)), cobertura.get(1).turnos());
+        verify(horarioRepository, times(1)).countPorFechaTipoYRol(any(), any());
+    }
+
+    @Test
+    void olvidar_VuelveAContarLosDiasDeLaPlantilla() {
+        coberturaService.getCobertura(LUNES, LUNES.plusDays(6));
+
+        coberturaService.olvidar(LUNES.plusDays(4), null);
+        coberturaService.getCobertura(LUNES, LUNES.plusDays(6));
+
+        verify(horarioRepository).countPorFechaTipoYRol(LUNES.plusDays(4), LUNES.plusDays(6));
+    }
+
+    @Test
+    void getCobertura_RechazaPeriodosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> coberturaService.getCobertura(LUNES, LUNES.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> coberturaService.getCobertura(LUNES, LUNES.plusYears(2)));
+    }
+
+    private static HorarioRepository.ConteoTurnos conteo(LocalDate fecha, Horario.TipoTurno tipo, Role rol, long total) {
+        return new HorarioRepository.ConteoTurnos() {
+            @Override
+            public LocalDate getFecha() {
+                return fecha;
+            }
+
+            @Override
+            public Horario.TipoTurno getTipoTurno() {
+                return tipo;
+            }
+
+            @Override
+            public Role getRol() {
+                return rol;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package com.gestorhorarios.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestorhorarios.GestorHorariosApplication;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints reservados a administradores. La seguridad por método no está activada, así que el rol
+ * lo exige SecurityConfig: las peticiones pasan por la cadena de seguridad y el filtro JWT reales,
+ * con el token de un trabajador (403) y el de un administrador (no 403).
+ */
+@SpringBootTest(classes = GestorHorariosApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:accesoadmin;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "app.horarios.archivo.enabled=false",
+        "management.server.port=-1"
+})
+@AutoConfigureMockMvc
+class AccesoAdministradorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String tokenTrabajador;
+    private String tokenAdmin;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokenTrabajador = token("acceso_medico", Role.ROLE_MEDICO);
+        tokenAdmin = token("acceso_admin", Role.ROLE_ADMIN);
+    }
+
+    @Test
+    void importarHorarios_ComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(post("/api/horarios/importar/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void importarHorarios_ComoAdmin_NoEsForbidden() throws Exception {
+        mockMvc.perform(post("/api/horarios/importar/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .header("Authorization", tokenAdmin))
+                .andExpect(noEsForbidden());
+    }
+
+    @Test
+    void generadorRota_ComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/rotas/generador/no-existe").header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/rotas/generador")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}")
+                        .header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void generadorRota_ComoAdmin_NoEsForbidden() throws Exception {
+        // Pasa al controlador, que no encuentra el borrador
+        mockMvc.perform(get("/api/rotas/generador/no-existe").header("Authorization", tokenAdmin))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cobertura_ComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/horarios/cobertura").header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void cobertura_ComoAdmin_ShouldReturnOk() throws Exception {
+        mockMvc.perform(get("/api/horarios/cobertura").header("Authorization", tokenAdmin))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void horas_DeOtrosComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/horas/usuario/1").header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/horas/mes/2025-03").header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/horas/reconstruir")
+                        .param("desde", "2025-03")
+                        .param("hasta", "2025-03")
+                        .header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void horas_PropiasComoTrabajador_ShouldReturnOk() throws Exception {
+        mockMvc.perform(get("/api/horas/mias").header("Authorization", tokenTrabajador))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void horas_DelMesComoAdmin_ShouldReturnOk() throws Exception {
+        mockMvc.perform(get("/api/horas/mes/2025-03").header("Authorization", tokenAdmin))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void exportarHorarios_ComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/horarios/exportar")
+                        .param("inicio", "2025-03-01")
+                        .param("fin", "2025-03-31")
+                        .header("Authorization", tokenTrabajador))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void exportarHorarios_ComoAdmin_ShouldReturnOk() throws Exception {
+        mockMvc.perform(get("/api/horarios/exportar")
+                        .param("inicio", "2025-03-01")
+                        .param("fin", "2025-03-31")
+                        .header("Authorization", tokenAdmin))
+                .andExpect(status().isOk());
+    }
+
+    // El administrador pasa la cadena de seguridad; lo que responda después depende de los datos
+    private static ResultMatcher noEsForbidden() {
+        return result -> assertNotEquals(403, result.getResponse().getStatus());
+    }
+
+    // Crea el usuario la primera vez y devuelve su token de acceso
+    private String token(String username, Role role) throws Exception {
+        if (userRepository.findByUsername(username).isEmpty()) {
+            User usuario = new User();
+            usuario.setUsername(username);
+            usuario.setPassword("password");
+            usuario.setNombre("Nombre");
+            usuario.setApellidos("Apellidos");
+            usuario.setEmail(username + "@example.com");
+            usuario.setCentroTrabajo("Centro");
+            usuario.setLocalidad("Localidad");
+            usuario.setRole(role);
+            userRepository.save(usuario);
+        }
+        String login = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("usernameOrEmail", username, "password", "password"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        // /api/auth/** no pasa por la cadena de seguridad y el login deja su autenticación en el hilo
+        // de la prueba, que MockMvc pasaría a la siguiente petición
+        TestSecurityContextHolder.clearContext();
+        return "Bearer " + objectMapper.readTree(login).path("token").asText();
+    }
+}
@@ -0,0 +1,143 @@
+package com.gestorhorarios.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestorhorarios.GestorHorariosApplication;
+import com.gestorhorarios.querycount.QueryBudget;
+import com.gestorhorarios.querycount.QueryCountingConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de consultas SQL de los endpoints más usados, con la caché de segundo nivel vacía
+ * y datos del generador sintético (varios trabajadores, vehículos con pasajeros y solicitudes),
+ * para que un N+1 sobre usuario, owner o pasajeros haga fallar la prueba.
+ * El presupuesto incluye la carga del usuario que hace JwtAuthenticationFilter en cada petición.
+ *
+ * Va en una clase aparte y no junto a {@link HorarioControllerTest}: allí el controlador se monta
+ * con MockMvc standalone y servicios simulados, así que ninguna petición llega a la base de datos y
+ * un presupuesto no mediría nada. Aquí la petición pasa por el filtro JWT, los servicios y los
+ * repositorios reales, con los datos de app.datagen (los mismos que usan las pruebas de carga).
+ */
+@SpringBootTest(classes = GestorHorariosApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:querybudget;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "app.datagen.enabled=true",
+        "app.datagen.centros=1",
+        "app.datagen.workers-per-role=10",
+        "app.datagen.years=1",
+        "app.horarios.archivo.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(QueryCountingConfig.class)
+class EndpointQueryBudgetTest {
+
+    private static final String USUARIO = "c1_medico_1";
+    private static final LocalDate FECHA_DISPONIBLES = LocalDate.now().plusDays(3);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String login = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("usernameOrEmail", USUARIO, "password", "password"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = "Bearer " + objectMapper.readTree(login).path("token").asText();
+        // Que el listado de disponibles tenga horarios de varios trabajadores
+        jdbcTemplate.update("UPDATE horarios SET disponible = TRUE WHERE fecha = ?", FECHA_DISPONIBLES);
+        // Medir el peor caso: sin entidades en la caché de segundo nivel
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    @QueryBudget(3)
+    void misHorarios() throws Exception {
+        LocalDate hoy = LocalDate.now();
+        mockMvc.perform(get("/api/horarios/mis-horarios")
+                        .param("inicio", hoy.minusMonths(2).toString())
+                        .param("fin", hoy.plusMonths(1).toString())
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(greaterThan(10)));
+    }
+
+    @Test
+    @QueryBudget(3)
+    void disponiblesPorRolYFecha() throws Exception {
+        mockMvc.perform(get("/api/horarios/disponibles")
+                        .param("rol", "MEDICO")
+                        .param("fecha", FECHA_DISPONIBLES.toString())
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(greaterThan(1)));
+    }
+
+    @Test
+    @QueryBudget(3)
+    void misDisponibles() throws Exception {
+        mockMvc.perform(get("/api/horarios/disponibles")
+                        .param("inicio", LocalDate.now().toString())
+                        .param("fin", LocalDate.now().plusMonths(2).toString())
+                        .header("Authorization", token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(4)
+    void solicitudesRecibidas() throws Exception {
+        mockMvc.perform(get("/api/solicitudes/recibidas").header("Authorization", token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(4)
+    void vehiculosDisponibles() throws Exception {
+        mockMvc.perform(get("/api/vehicles/available").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(greaterThan(1)));
+    }
+
+    @Test
+    @QueryBudget(1)
+    void todosLosVehiculos() throws Exception {
+        mockMvc.perform(get("/api/vehicles").header("Authorization", token))
+                .andExpect(status().isOk());
+    }
+}
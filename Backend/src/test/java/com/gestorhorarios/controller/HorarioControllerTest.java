@@ -231,12 +231,12 @@ class HorarioControllerTest {
     
     @Test
     @WithMockUser(username = "testuser", roles = {"MEDICO"})
-    void crearHorario_WithEndTimeBeforeStartTime_ShouldReturnBadRequest() throws Exception {
-        // Preparar la solicitud con hora de fin anterior a la de inicio
+    void crearHorario_WithEndTimeEqualToStartTime_ShouldReturnBadRequest() throws Exception {
+        // Preparar la solicitud con la misma hora de inicio y de fin
         HorarioRequest request = new HorarioRequest();
         request.setFecha(LocalDate.now().plusDays(1));
         request.setHoraInicio(LocalTime.of(17, 0));
-        request.setHoraFin(LocalTime.of(9, 0)); // Hora de fin anterior a la de inicio
+        request.setHoraFin(LocalTime.of(17, 0)); // Una hora de fin anterior sería un turno de noche
         request.setTipoTurno(Horario.TipoTurno.MANANA);
         
         // Ejecutar la prueba
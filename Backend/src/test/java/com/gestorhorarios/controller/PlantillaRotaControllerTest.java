@@ -0,0 +1,117 @@
+package com.gestorhorarios.controller;
+
+import com.gestorhorarios.exception.GlobalExceptionHandler;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.rota.PlantillaRotaService;
+import com.gestorhorarios.security.CurrentUser;
+import com.gestorhorarios.security.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de permisos del controlador de plantillas de rota: un trabajador solo ve sus plantillas
+ * y solo un administrador las gestiona.
+ */
+class PlantillaRotaControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private PlantillaRotaService plantillaRotaService;
+
+    @InjectMocks
+    private PlantillaRotaController plantillaRotaController;
+
+    private UserPrincipal currentUser;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        currentUser = principal(1L, Role.ROLE_MEDICO);
+
+        // Configurar argument resolver para @CurrentUser
+        HandlerMethodArgumentResolver argumentResolver = new HandlerMethodArgumentResolver() {
+            @Override
+            public boolean supportsParameter(MethodParameter parameter) {
+                return parameter.getParameterAnnotation(CurrentUser.class) != null;
+            }
+
+            @Override
+            @Nullable
+            public Object resolveArgument(MethodParameter parameter, @Nullable ModelAndViewContainer mavContainer,
+                                        NativeWebRequest webRequest, @Nullable WebDataBinderFactory binderFactory) {
+                return currentUser;
+            }
+        };
+
+        mockMvc = MockMvcBuilders.standaloneSetup(plantillaRotaController)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .setCustomArgumentResolvers(argumentResolver)
+            .build();
+
+        when(plantillaRotaService.getPlantillasPorUsuarioId(anyLong())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void obtenerPlantillas_PropiasComoTrabajador_ShouldReturnOk() throws Exception {
+        mockMvc.perform(get("/api/plantillas-rota/usuario/1"))
+                .andExpect(status().isOk());
+
+        verify(plantillaRotaService).getPlantillasPorUsuarioId(1L);
+    }
+
+    @Test
+    void obtenerPlantillas_DeOtroUsuarioComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(get("/api/plantillas-rota/usuario/2"))
+                .andExpect(status().isForbidden());
+
+        verify(plantillaRotaService, never()).getPlantillasPorUsuarioId(anyLong());
+    }
+
+    @Test
+    void obtenerPlantillas_DeOtroUsuarioComoAdmin_ShouldReturnOk() throws Exception {
+        currentUser = principal(3L, Role.ROLE_ADMIN);
+
+        mockMvc.perform(get("/api/plantillas-rota/usuario/2"))
+                .andExpect(status().isOk());
+
+        verify(plantillaRotaService).getPlantillasPorUsuarioId(2L);
+    }
+
+    @Test
+    void eliminarPlantilla_ComoTrabajador_ShouldReturnForbidden() throws Exception {
+        mockMvc.perform(delete("/api/plantillas-rota/5"))
+                .andExpect(status().isForbidden());
+
+        verify(plantillaRotaService, never()).eliminarPlantilla(anyLong());
+    }
+
+    private UserPrincipal principal(Long id, Role role) {
+        return new UserPrincipal(id, "usuario" + id, "usuario" + id + "@example.com", "password",
+                "Nombre", "Apellidos", Set.of(role), List.of(new SimpleGrantedAuthority(role.name())));
+    }
+}
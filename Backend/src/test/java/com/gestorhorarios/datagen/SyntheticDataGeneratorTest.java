@@ -0,0 +1,103 @@
+package com.gestorhorarios.datagen;
+
+import com.gestorhorarios.config.FlywayConfig;
+import com.gestorhorarios.config.SyntheticDataProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:datagen;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "app.datagen.centros=2",
+        "app.datagen.workers-per-role=4",
+        "app.datagen.years=1",
+        "app.datagen.batch-size=100",
+        "app.datagen.threads=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({FlywayConfig.class, SyntheticDataGenerator.class, SyntheticDataGeneratorTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SyntheticDataGeneratorTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SyntheticDataProperties.class)
+    static class Config {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return NoOpPasswordEncoder.getInstance();
+        }
+    }
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HorarioRepository horarioRepository;
+
+    @Test
+    void generate_CreaDatosCoherentesYUtilizablesDesdeJpa() {
+        SyntheticDataGenerator.Resultado resultado = generator.generate();
+
+        // 2 centros x 3 roles x 4 trabajadores
+        assertEquals(24, resultado.usuarios());
+        assertEquals(24L, count("SELECT COUNT(*) FROM users"));
+        assertEquals(24L, count("SELECT COUNT(*) FROM user_roles"));
+        assertEquals(resultado.horarios(), count("SELECT COUNT(*) FROM horarios"));
+        assertEquals(resultado.solicitudes(), count("SELECT COUNT(*) FROM solicitudes_cambio"));
+        assertTrue(resultado.horarios() > 24 * 200, "Un año de cuadrante por trabajador");
+        assertTrue(resultado.solicitudes() > 0);
+
+        // Plazas libres = plazas totales - pasajeros
+        assertEquals(0L, count("SELECT COUNT(*) FROM vehicles v WHERE v.available_seats <> v.total_seats - " +
+                "(SELECT COUNT(*) FROM user_vehicle_passengers p WHERE p.vehicle_id = v.id)"));
+        // Ningún pasajero va en dos vehículos
+        assertEquals(0L, count("SELECT COUNT(*) FROM (SELECT user_id FROM user_vehicle_passengers " +
+                "GROUP BY user_id HAVING COUNT(*) > 1) t"));
+        // Origen y destino de cada solicitud pertenecen a solicitante y receptor
+        assertEquals(0L, count("SELECT COUNT(*) FROM solicitudes_cambio s JOIN horarios h ON h.id = s.horario_origen_id " +
+                "WHERE h.usuario_id <> s.solicitante_id"));
+        assertEquals(0L, count("SELECT COUNT(*) FROM solicitudes_cambio s JOIN horarios h ON h.id = s.horario_destino_id " +
+                "WHERE h.usuario_id <> s.receptor_id"));
+
+        // Los datos se leen desde JPA y la identidad sigue después de los ids generados
+        User usuario = userRepository.findByUsername("c1_medico_1").orElseThrow();
+        assertEquals("Centro 1", usuario.getCentroTrabajo());
+        Horario nuevo = new Horario();
+        nuevo.setUsuario(usuario);
+        nuevo.setFecha(LocalDate.now().plusYears(5));
+        Horario guardado = horarioRepository.save(nuevo);
+        assertTrue(guardado.getId() > resultado.horarios());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,111 @@
+package com.gestorhorarios.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos bases H2 en memoria con datos distintos: cada lectura dice a qué base ha ido
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("primary");
+        DataSource replica = h2("replica");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary, List.of(replica), new ReadYourWritesGuard(Duration.ofMillis(300)));
+        routing.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void transaccionDeSoloLectura_VaALaReplica() {
+        assertEquals("replica", readOnly.execute(status -> origen()));
+    }
+
+    @Test
+    void transaccionDeEscritura_VaALaPrincipal() {
+        assertEquals("primary", readWrite.execute(status -> origen()));
+    }
+
+    @Test
+    void sinTransaccion_VaALaPrincipal() {
+        assertEquals("primary", origen());
+    }
+
+    @Test
+    void lecturaTrasEscritura_MismoUsuarioVaALaPrincipalDuranteLaVentana() throws InterruptedException {
+        autenticar("medico1");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE origen SET nombre = nombre"));
+
+        assertEquals("primary", readOnly.execute(status -> origen()));
+
+        // Otro usuario sigue leyendo de la réplica
+        autenticar("enfermero1");
+        assertEquals("replica", readOnly.execute(status -> origen()));
+
+        // Pasada la ventana, el usuario que escribió vuelve a la réplica
+        Thread.sleep(400);
+        autenticar("medico1");
+        assertEquals("replica", readOnly.execute(status -> origen()));
+    }
+
+    @Test
+    void escrituraRevertida_NoFuerzaLaPrincipal() {
+        autenticar("medico1");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE origen SET nombre = nombre");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", readOnly.execute(status -> origen()));
+    }
+
+    private String origen() {
+        return jdbcTemplate.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private void autenticar(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private DataSource h2(String nombre) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + nombre + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        template.update("INSERT INTO origen VALUES (?)", nombre);
+        return dataSource;
+    }
+}
@@ -0,0 +1,198 @@
+package com.gestorhorarios.exportacion;
+
+import com.gestorhorarios.config.ExportacionProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.gestorhorarios.service.HorarioArchivoService;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacionHorariosServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private HorarioArchivoService horarioArchivoService;
+    @Mock
+    private ExpansionRota expansionRota;
+    @Mock
+    private Connection connection;
+    @Mock
+    private DatabaseMetaData metaData;
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    private ExportacionHorariosService exportacionHorariosService;
+    private final List<String> consultas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exportacionHorariosService = new ExportacionHorariosService(jdbcTemplate, horarioArchivoService, expansionRota,
+                new ExportacionProperties());
+        lenient().when(connection.getMetaData()).thenReturn(metaData);
+        lenient().when(metaData.getDatabaseProductName()).thenReturn("H2");
+        lenient().when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            consultas.add(invocation.getArgument(0));
+            return preparedStatement;
+        });
+    }
+
+    @Test
+    void exportarCsv_IntercalaLosDiasDeRotaEnOrdenYUsaUnCursorDeSoloAvance() throws Exception {
+        when(horarioArchivoService.incluyeArchivo(any())).thenReturn(false);
+        when(expansionRota.horariosPeriodo(DIA, DIA.plusDays(2))).thenReturn(List.of(rota(DIA.plusDays(1))));
+        filasGuardadas(
+                new FilaHorario(1L, "ana", "Ana", "García, López", "ROLE_MEDICO", DIA, LocalTime.of(8, 0),
+                        LocalTime.of(15, 0), "MANANA", false),
+                new FilaHorario(2L, "luis", "=HYPERLINK(\"x\")", "Pérez", "ROLE_TCAE", DIA.plusDays(2), LocalTime.of(22, 0),
+                        LocalTime.of(8, 0), "NOCHE", true));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long filas = exportacionHorariosService.exportar(DIA, DIA.plusDays(2), FormatoExportacion.CSV, salida);
+
+        assertEquals(3, filas);
+        assertEquals(String.join("\r\n",
+                "usuario_id,usuario,nombre,apellidos,rol,fecha,hora_inicio,hora_fin,tipo_turno,intercambiado",
+                "1,ana,Ana,\"García, López\",ROLE_MEDICO,2025-03-10,08:00,15:00,MANANA,false",
+                "3,eva,Eva,Ruiz,ROLE_ENFERMERO,2025-03-11,15:00,22:00,TARDE,false",
+                "2,luis,\"'=HYPERLINK(\"\"x\"\")\",Pérez,ROLE_TCAE,2025-03-12,22:00,08:00,NOCHE,true") + "\r\n",
+                salida.toString(java.nio.charset.StandardCharsets.UTF_8));
+        assertEquals(1, consultas.size());
+        assertFalse(consultas.get(0).contains("horarios_archivo"));
+        verify(connection).prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(preparedStatement).setFetchSize(1000);
+    }
+
+    @Test
+    void exportar_UnaConsultaPorMesYEnMysqlLasFilasLleganDeUnaEnUna() throws Exception {
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(horarioArchivoService.incluyeArchivo(LocalDate.of(2025, 1, 20))).thenReturn(true);
+        when(horarioArchivoService.incluyeArchivo(LocalDate.of(2025, 2, 1))).thenReturn(false);
+        filasGuardadas();
+
+        exportacionHorariosService.exportar(LocalDate.of(2025, 1, 20), LocalDate.of(2025, 2, 5),
+                FormatoExportacion.CSV, new ByteArrayOutputStream());
+
+        verify(expansionRota).horariosPeriodo(LocalDate.of(2025, 1, 20), LocalDate.of(2025, 1, 31));
+        verify(expansionRota).horariosPeriodo(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 5));
+        assertEquals(2, consultas.size());
+        assertTrue(consultas.get(0).contains("UNION ALL"));
+        assertFalse(consultas.get(1).contains("UNION ALL"));
+        verify(preparedStatement, times(2)).setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Test
+    void exportar_PeriodoNoValido_LanzaExcepcionSinEscribir() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class,
+                () -> exportacionHorariosService.exportar(DIA, DIA.minusDays(1), FormatoExportacion.CSV, salida));
+        assertThrows(IllegalArgumentException.class,
+                () -> exportacionHorariosService.exportar(DIA, DIA.plusDays(400), FormatoExportacion.XLSX, salida));
+        assertEquals(0, salida.size());
+        assertThrows(IllegalArgumentException.class, () -> FormatoExportacion.de("pdf"));
+        assertEquals(FormatoExportacion.XLSX, FormatoExportacion.de("xlsx"));
+    }
+
+    @Test
+    void escritorXlsx_PasaAOtraHojaAlLlegarAlMaximoDeFilas() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (EscritorXlsx escritor = new EscritorXlsx(salida, 10, 2)) {
+            for (int i = 0; i < 3; i++) {
+                escritor.escribir(new FilaHorario((long) i, "u" + i, "Nombre", "Apellidos", "ROLE_MEDICO", DIA.plusDays(i),
+                        LocalTime.of(8, 0), LocalTime.of(15, 30), "MANANA", i == 1));
+            }
+            escritor.terminar();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(salida.toByteArray()))) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            Sheet primera = workbook.getSheetAt(0);
+            assertEquals("usuario_id", primera.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(2, primera.getLastRowNum());
+            Row fila = primera.getRow(2);
+            assertEquals("u1", fila.getCell(1).getStringCellValue());
+            assertEquals(DIA.plusDays(1).atStartOfDay(), fila.getCell(5).getLocalDateTimeCellValue());
+            assertEquals(15.5 / 24, fila.getCell(7).getNumericCellValue(), 1e-9);
+            assertTrue(fila.getCell(9).getBooleanCellValue());
+            assertEquals("u2", workbook.getSheetAt(1).getRow(1).getCell(1).getStringCellValue());
+        }
+    }
+
+    // El cursor crea la sentencia con la conexión simulada y pasa cada fila al manejador
+    private void filasGuardadas(FilaHorario... filas) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        int[] actual = {0};
+        lenient().when(rs.getLong("usuario_id")).thenAnswer(i -> filas[actual[0]].usuarioId());
+        lenient().when(rs.getString(anyString())).thenAnswer(i -> {
+            FilaHorario fila = filas[actual[0]];
+            return switch ((String) i.getArgument(0)) {
+                case "username" -> fila.usuario();
+                case "nombre" -> fila.nombre();
+                case "apellidos" -> fila.apellidos();
+                case "rol" -> fila.rol();
+                case "tipo_turno" -> fila.tipoTurno();
+                default -> null;
+            };
+        });
+        lenient().when(rs.getObject(eq("fecha"), eq(LocalDate.class))).thenAnswer(i -> filas[actual[0]].fecha());
+        lenient().when(rs.getObject(eq("hora_inicio"), eq(LocalTime.class))).thenAnswer(i -> filas[actual[0]].horaInicio());
+        lenient().when(rs.getObject(eq("hora_fin"), eq(LocalTime.class))).thenAnswer(i -> filas[actual[0]].horaFin());
+        lenient().when(rs.getBoolean("intercambiado")).thenAnswer(i -> filas[actual[0]].intercambiado());
+
+        doAnswer(invocation -> {
+            PreparedStatementCreator creador = invocation.getArgument(0);
+            creador.createPreparedStatement(connection);
+            RowCallbackHandler manejador = invocation.getArgument(1);
+            for (actual[0] = 0; actual[0] < filas.length; actual[0]++) {
+                manejador.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static Horario rota(LocalDate fecha) {
+        User usuario = new User();
+        usuario.setId(3L);
+        usuario.setUsername("eva");
+        usuario.setNombre("Eva");
+        usuario.setApellidos("Ruiz");
+        Horario horario = new Horario();
+        horario.setUsuario(usuario);
+        horario.setFecha(fecha);
+        horario.setHoraInicio(LocalTime.of(15, 0));
+        horario.setHoraFin(LocalTime.of(22, 0));
+        horario.setTipoTurno(Horario.TipoTurno.TARDE);
+        horario.setRol(Role.ROLE_ENFERMERO);
+        return horario;
+    }
+}
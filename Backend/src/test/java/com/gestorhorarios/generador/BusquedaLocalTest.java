@@ -0,0 +1,162 @@
+package com.gestorhorarios.generador;
+
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.reglas.DescansoMinimo;
+import com.gestorhorarios.reglas.HorasSemanales;
+import com.gestorhorarios.reglas.NochesConsecutivas;
+import com.gestorhorarios.reglas.ReglaLaboral;
+import com.gestorhorarios.reglas.TurnoLaboral;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusquedaLocalTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2025, 3, 3);
+    private static final long BUSQUEDA_NANOS = Duration.ofMillis(500).toNanos();
+
+    private final List<ReglaLaboral> reglas = List.of(
+            new DescansoMinimo(Duration.ofHours(12)), new HorasSemanales(40), new NochesConsecutivas(3));
+
+    @Test
+    void cubreLaDemandaCumpliendoLasReglas() {
+        ProblemaRota problema = problema(7, Map.of());
+
+        Solucion solucion = buscar(problema, 1L);
+
+        assertEquals(0, solucion.sinCubrir());
+        Map<Integer, List<TurnoLaboral>> porTrabajador = porTrabajador(problema, solucion);
+        for (List<TurnoLaboral> turnos : porTrabajador.values()) {
+            for (TurnoLaboral turno : turnos) {
+                TreeSet<TurnoLaboral> otros = new TreeSet<>(TurnoLaboral.POR_INICIO);
+                otros.addAll(turnos);
+                otros.remove(turno);
+                for (ReglaLaboral regla : reglas) {
+                    assertNull(regla.evaluar(turno, otros), "Turno del " + turno.fecha());
+                }
+            }
+        }
+    }
+
+    @Test
+    void repartePorIgualNochesYFinesDeSemana() {
+        ProblemaRota problema = problema(7, Map.of());
+
+        Solucion solucion = buscar(problema, 2L);
+
+        int[] noches = new int[problema.numTrabajadores()];
+        int[] findes = new int[problema.numTrabajadores()];
+        porTrabajador(problema, solucion).forEach((trabajador, turnos) -> {
+            for (TurnoLaboral turno : turnos) {
+                noches[trabajador] += turno.noche() ? 1 : 0;
+                findes[trabajador] += Hueco.esFinDeSemana(turno.fecha()) ? 1 : 0;
+            }
+        });
+        // 14 noches y 12 turnos de fin de semana entre 7 trabajadores
+        assertTrue(max(noches) - min(noches) <= 1, () -> "Noches: " + Arrays.toString(noches));
+        assertTrue(max(findes) - min(findes) <= 1, () -> "Fines de semana: " + Arrays.toString(findes));
+    }
+
+    @Test
+    void respetaLosTurnosQueYaTienenLosTrabajadores() {
+        // El primer trabajador ya tiene turno de mañana toda la primera semana
+        List<TurnoLaboral> fijos = new ArrayList<>();
+        for (int dia = 0; dia < 7; dia++) {
+            fijos.add(new TurnoLaboral(100L + dia, LUNES.plusDays(dia), LocalTime.of(8, 0), LocalTime.of(13, 0),
+                    Horario.TipoTurno.MANANA));
+        }
+        ProblemaRota problema = problema(7, Map.of(1L, fijos));
+
+        Solucion solucion = buscar(problema, 3L);
+
+        assertEquals(0, solucion.sinCubrir());
+        for (Hueco hueco : problema.getHuecos()) {
+            // Con 35 h hechas no le cabe ningún turno más esa semana
+            if (solucion.asignacion()[hueco.indice()] == 0) {
+                assertFalse(hueco.fecha().isBefore(LUNES.plusDays(7)), "Turno del " + hueco.fecha());
+            }
+        }
+    }
+
+    @Test
+    void dejaSinCubrirLosHuecosSinCandidatos() {
+        List<Hueco> huecos = List.of(
+                new Hueco(0, LUNES, Role.ROLE_MEDICO, Horario.TipoTurno.MANANA, LocalTime.of(8, 0), LocalTime.of(15, 0)),
+                new Hueco(1, LUNES, Role.ROLE_ENFERMERO, Horario.TipoTurno.MANANA, LocalTime.of(8, 0), LocalTime.of(15, 0)));
+        ProblemaRota problema = new ProblemaRota(LUNES, LUNES, huecos, Map.of(1L, Set.of(Role.ROLE_ENFERMERO)),
+                Map.of(), reglas, Duration.ofDays(8));
+
+        Solucion solucion = buscar(problema, 4L);
+
+        assertEquals(1, solucion.sinCubrir());
+        assertEquals(-1, solucion.asignacion()[0]);
+        assertEquals(0, solucion.asignacion()[1]);
+    }
+
+    // Dos semanas con un enfermero de mañana, tarde y noche cada día
+    private ProblemaRota problema(int trabajadores, Map<Long, List<TurnoLaboral>> fijos) {
+        List<Hueco> huecos = new ArrayList<>();
+        for (int dia = 0; dia < 14; dia++) {
+            LocalDate fecha = LUNES.plusDays(dia);
+            huecos.add(new Hueco(huecos.size(), fecha, Role.ROLE_ENFERMERO, Horario.TipoTurno.MANANA, LocalTime.of(8, 0), LocalTime.of(15, 0)));
+            huecos.add(new Hueco(huecos.size(), fecha, Role.ROLE_ENFERMERO, Horario.TipoTurno.TARDE, LocalTime.of(15, 0), LocalTime.of(22, 0)));
+            huecos.add(new Hueco(huecos.size(), fecha, Role.ROLE_ENFERMERO, Horario.TipoTurno.NOCHE, LocalTime.of(22, 0), LocalTime.of(8, 0)));
+        }
+        Map<Long, Set<Role>> roles = new HashMap<>();
+        for (long id = 1; id <= trabajadores; id++) {
+            roles.put(id, Set.of(Role.ROLE_ENFERMERO));
+        }
+        return new ProblemaRota(LUNES, LUNES.plusDays(13), huecos, roles, fijos, reglas, Duration.ofDays(8));
+    }
+
+    private static Solucion buscar(ProblemaRota problema, long semilla) {
+        TrabajoGeneracion trabajo = new TrabajoGeneracion("prueba", "Centro", problema, Duration.ofNanos(BUSQUEDA_NANOS));
+        Solucion solucion = new BusquedaLocal(problema, semilla).ejecutar(BUSQUEDA_NANOS, trabajo);
+        assertSame(solucion, trabajo.getMejor());
+        assertTrue(trabajo.getIteraciones() > 0);
+        return solucion;
+    }
+
+    // Turnos asignados más los que ya tenía cada trabajador
+    private static Map<Integer, List<TurnoLaboral>> porTrabajador(ProblemaRota problema, Solucion solucion) {
+        Map<Integer, List<TurnoLaboral>> turnos = new HashMap<>();
+        for (int t = 0; t < problema.numTrabajadores(); t++) {
+            turnos.put(t, new ArrayList<>(problema.fijos(t)));
+        }
+        for (Hueco hueco : problema.getHuecos()) {
+            int trabajador = solucion.asignacion()[hueco.indice()];
+            if (trabajador >= 0) {
+                turnos.get(trabajador).add(hueco.turno());
+            }
+        }
+        return turnos;
+    }
+
+    private static int max(int[] valores) {
+        int max = Integer.MIN_VALUE;
+        for (int valor : valores) {
+            max = Math.max(max, valor);
+        }
+        return max;
+    }
+
+    private static int min(int[] valores) {
+        int min = Integer.MAX_VALUE;
+        for (int valor : valores) {
+            min = Math.min(min, valor);
+        }
+        return min;
+    }
+}
@@ -0,0 +1,146 @@
+package com.gestorhorarios.generador;
+
+import com.gestorhorarios.GestorHorariosApplication;
+import com.gestorhorarios.dto.GenerarRotaRequest;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.ReglaLaboralException;
+import com.gestorhorarios.repository.UserRepository;
+import com.gestorhorarios.service.HorarioService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confirmación de borradores de rota sobre H2: las reglas se vuelven a comprobar contra la base de
+ * datos, los horarios se insertan de una vez y, si algún trabajador incumple, no se guarda nada y el
+ * borrador se puede volver a confirmar. Cada prueba usa su propio centro.
+ */
+@SpringBootTest(classes = GestorHorariosApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:generadorrota;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "app.horarios.archivo.enabled=false",
+        "app.horarios.generador.hilos=2",
+        "management.server.port=-1"
+})
+class GeneradorRotaServiceTest {
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+    private static final LocalDate DIA = LocalDate.now().plusMonths(2);
+
+    @Autowired
+    private GeneradorRotaService generadorRotaService;
+
+    @Autowired
+    private HorarioService horarioService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void confirmar_BorradorValido_InsertaLosHorariosUnaSolaVez() throws Exception {
+        String centro = "Centro " + SECUENCIA.incrementAndGet();
+        User trabajador = userRepository.save(usuario(centro));
+        TrabajoGeneracion trabajo = generar(centro, DIA, DIA.plusDays(1), Horario.TipoTurno.NOCHE);
+
+        assertEquals(2, generadorRotaService.confirmar(trabajo.getId()));
+
+        assertEquals(TrabajoGeneracion.Estado.CONFIRMADA, trabajo.getEstado());
+        List<Horario> horarios = horarioService.getHorariosPorUsuarioId(trabajador.getId(), DIA, DIA.plusDays(1));
+        assertEquals(2, horarios.size());
+        // Las noches se guardan de 22:00 a 08:00 y se pueden editar como cualquier otro horario
+        Horario noche = horarios.get(0);
+        assertEquals(LocalTime.of(22, 0), noche.getHoraInicio());
+        assertEquals(LocalTime.of(8, 0), noche.getHoraFin());
+        noche.setNotas("Revisada");
+        assertEquals("Revisada", horarioService.actualizarHorario(noche).getNotas());
+        // Un borrador confirmado no se puede guardar otra vez
+        assertThrows(IllegalArgumentException.class, () -> generadorRotaService.confirmar(trabajo.getId()));
+        assertEquals(2, horariosDe(trabajador));
+    }
+
+    @Test
+    void confirmar_TrabajadorQueYaNoCumpleLasReglas_NoGuardaNadaYSePuedeReintentar() throws Exception {
+        String centro = "Centro " + SECUENCIA.incrementAndGet();
+        User trabajador = userRepository.save(usuario(centro));
+        TrabajoGeneracion trabajo = generar(centro, DIA, DIA, Horario.TipoTurno.MANANA);
+
+        // Después de generar el borrador le asignan la noche anterior, que acaba a las 08:00 del día
+        Horario noche = new Horario();
+        noche.setFecha(DIA.minusDays(1));
+        noche.setHoraInicio(LocalTime.of(22, 0));
+        noche.setHoraFin(LocalTime.of(8, 0));
+        noche.setTipoTurno(Horario.TipoTurno.NOCHE);
+        noche.setUsuario(trabajador);
+        Horario guardada = horarioService.crearHorario(noche, "ROLE_MEDICO");
+
+        assertThrows(ReglaLaboralException.class, () -> generadorRotaService.confirmar(trabajo.getId()));
+        assertEquals(TrabajoGeneracion.Estado.TERMINADA, trabajo.getEstado());
+        assertEquals(1, horariosDe(trabajador));
+
+        // Sin la noche el mismo borrador ya se puede confirmar
+        horarioService.eliminarHorario(guardada.getId());
+        assertEquals(1, generadorRotaService.confirmar(trabajo.getId()));
+        assertEquals(TrabajoGeneracion.Estado.CONFIRMADA, trabajo.getEstado());
+        assertEquals(1, horariosDe(trabajador));
+    }
+
+    private TrabajoGeneracion generar(String centro, LocalDate desde, LocalDate hasta, Horario.TipoTurno tipo)
+            throws InterruptedException {
+        GenerarRotaRequest.Demanda demanda = new GenerarRotaRequest.Demanda();
+        demanda.setRol("ROLE_MEDICO");
+        demanda.setTipoTurno(tipo);
+        GenerarRotaRequest request = new GenerarRotaRequest();
+        request.setCentro(centro);
+        request.setDesde(desde);
+        request.setHasta(hasta);
+        request.setSegundos(1);
+        request.setDemandas(List.of(demanda));
+
+        TrabajoGeneracion trabajo = generadorRotaService.generar(request);
+        long limite = System.currentTimeMillis() + 30_000;
+        while (trabajo.getEstado() == TrabajoGeneracion.Estado.EN_CURSO && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        assertEquals(TrabajoGeneracion.Estado.TERMINADA, trabajo.getEstado());
+        assertEquals(0, trabajo.getMejor().sinCubrir());
+        return trabajo;
+    }
+
+    private int horariosDe(User trabajador) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horarios WHERE usuario_id = ?", Integer.class,
+                trabajador.getId());
+    }
+
+    private User usuario(String centro) {
+        int n = SECUENCIA.incrementAndGet();
+        User usuario = new User();
+        usuario.setUsername("generador" + n);
+        usuario.setPassword("password");
+        usuario.setNombre("Nombre");
+        usuario.setApellidos("Apellidos");
+        usuario.setEmail("generador" + n + "@example.com");
+        usuario.setCentroTrabajo(centro);
+        usuario.setLocalidad("Localidad");
+        usuario.setRole(Role.ROLE_MEDICO);
+        return usuario;
+    }
+}
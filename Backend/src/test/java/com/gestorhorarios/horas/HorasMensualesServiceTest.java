@@ -0,0 +1,165 @@
+package com.gestorhorarios.horas;
+
+import com.gestorhorarios.config.HorasMensualesProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.HorasMes;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.repository.HorasMesRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.gestorhorarios.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HorasMensualesServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private HorasMesRepository horasMesRepository;
+    @Mock
+    private HorarioRepository horarioRepository;
+    @Mock
+    private UserService userService;
+    @Mock
+    private ExpansionRota expansionRota;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private HorasMensualesService horasMensualesService;
+
+    @BeforeEach
+    void setUp() {
+        horasMensualesService = new HorasMensualesService(horasMesRepository, horarioRepository, userService,
+                expansionRota, jdbcTemplate, transactionManager, new HorasMensualesProperties());
+    }
+
+    @Test
+    void franjaNocturna_CuentaLosMinutosEntreLas22YLas6() {
+        FranjaNocturna franja = new FranjaNocturna(LocalTime.of(22, 0), LocalTime.of(6, 0));
+
+        assertEquals(480, franja.minutosEntre(DIA.atTime(22, 0), DIA.plusDays(1).atTime(8, 0)));
+        assertEquals(60, franja.minutosEntre(DIA.atTime(15, 0), DIA.atTime(23, 0)));
+        assertEquals(120, franja.minutosEntre(DIA.atTime(4, 0), DIA.atTime(12, 0)));
+        assertEquals(0, franja.minutosEntre(DIA.atTime(8, 0), DIA.atTime(15, 0)));
+        // Turno de 24 horas: una franja completa repartida en dos noches
+        assertEquals(480, franja.minutosEntre(DIA.atTime(8, 0), LocalDateTime.of(DIA.plusDays(1), LocalTime.of(8, 0))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sumar_TurnoDeNocheSeApuntaEnElMesEnQueEmpieza() {
+        horasMensualesService.sumar(turno(1L, LocalDate.of(2025, 3, 31), 22, 8, Horario.TipoTurno.NOCHE));
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        InOrder orden = inOrder(horarioRepository, jdbcTemplate);
+        orden.verify(horarioRepository).flush();
+        orden.verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        assertEquals(1, filas.getValue().size());
+        assertArrayEquals(new Object[]{1L, Date.valueOf(LocalDate.of(2025, 3, 1)), "NOCHE", 600L, 480L, 1},
+                filas.getValue().get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aplicar_IntercambioMueveLasHorasEntreLosDosTrabajadores() {
+        TurnoTrabajado manana = turno(1L, DIA, 8, 15, Horario.TipoTurno.MANANA);
+        TurnoTrabajado noche = turno(2L, DIA.plusDays(1), 22, 8, Horario.TipoTurno.NOCHE);
+
+        horasMensualesService.aplicar(List.of(manana, noche), List.of(
+                turno(2L, DIA, 8, 15, Horario.TipoTurno.MANANA),
+                turno(1L, DIA.plusDays(1), 22, 8, Horario.TipoTurno.NOCHE)));
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        Date marzo = Date.valueOf(LocalDate.of(2025, 3, 1));
+        // Ordenadas por usuario, mes y tipo
+        assertArrayEquals(new Object[]{1L, marzo, "MANANA", -420L, 0L, -1}, filas.getValue().get(0));
+        assertArrayEquals(new Object[]{1L, marzo, "NOCHE", 600L, 480L, 1}, filas.getValue().get(1));
+        assertArrayEquals(new Object[]{2L, marzo, "MANANA", 420L, 0L, 1}, filas.getValue().get(2));
+        assertArrayEquals(new Object[]{2L, marzo, "NOCHE", -600L, -480L, -1}, filas.getValue().get(3));
+    }
+
+    @Test
+    void cambiar_SinCambiosEnLoQueCuentaNoEscribe() {
+        TurnoTrabajado antes = turno(1L, DIA, 8, 15, Horario.TipoTurno.MANANA);
+
+        horasMensualesService.cambiar(antes, turno(1L, DIA, 8, 15, Horario.TipoTurno.MANANA));
+        // Otro día del mismo mes con las mismas horas: la fila no cambia
+        horasMensualesService.cambiar(antes, turno(1L, DIA.plusDays(3), 8, 15, Horario.TipoTurno.MANANA));
+
+        verifyNoInteractions(jdbcTemplate, horarioRepository);
+    }
+
+    @Test
+    void getHorasUsuario_SumaElRegistroYLosDiasDeRotaYDevuelveTodosLosMeses() {
+        User usuario = new User();
+        usuario.setId(1L);
+        when(userService.findUserById(1L)).thenReturn(usuario);
+        when(horasMesRepository.findByUsuarioIdAndMesBetween(1L, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 4, 1)))
+                .thenReturn(List.of(fila(1L, LocalDate.of(2025, 3, 1), Horario.TipoTurno.MANANA, 840, 0, 2)));
+        Horario rota = new Horario();
+        rota.setUsuario(usuario);
+        rota.setFecha(DIA);
+        rota.setHoraInicio(LocalTime.of(22, 0));
+        rota.setHoraFin(LocalTime.of(8, 0));
+        rota.setTipoTurno(Horario.TipoTurno.NOCHE);
+        when(expansionRota.horariosUsuario(usuario, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 4, 30)))
+                .thenReturn(List.of(rota));
+
+        List<ResumenHoras> horas = horasMensualesService.getHorasUsuario(1L, YearMonth.of(2025, 2), YearMonth.of(2025, 4));
+
+        assertEquals(List.of(YearMonth.of(2025, 2), YearMonth.of(2025, 3), YearMonth.of(2025, 4)),
+                horas.stream().map(ResumenHoras::mes).toList());
+        assertEquals(0, horas.get(0).turnos());
+        ResumenHoras marzo = horas.get(1);
+        assertEquals(3, marzo.turnos());
+        assertEquals(1440, marzo.minutos());
+        assertEquals(480, marzo.minutosNocturnos());
+        assertEquals(new ResumenHoras.PorTipo(1, 600, 480), marzo.porTipo().get(Horario.TipoTurno.NOCHE));
+    }
+
+    @Test
+    void getHorasUsuario_PeriodoDemasiadoLargo_LanzaExcepcion() {
+        assertThrows(IllegalArgumentException.class,
+                () -> horasMensualesService.getHorasUsuario(1L, YearMonth.of(2020, 1), YearMonth.of(2025, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> horasMensualesService.getHorasUsuario(1L, YearMonth.of(2025, 2), YearMonth.of(2025, 1)));
+    }
+
+    private static TurnoTrabajado turno(Long usuarioId, LocalDate fecha, int inicio, int fin, Horario.TipoTurno tipo) {
+        return new TurnoTrabajado(usuarioId, fecha, LocalTime.of(inicio, 0), LocalTime.of(fin, 0), tipo);
+    }
+
+    private static HorasMes fila(Long usuarioId, LocalDate mes, Horario.TipoTurno tipo, long minutos, long nocturnos, int turnos) {
+        HorasMes fila = new HorasMes();
+        fila.setUsuarioId(usuarioId);
+        fila.setMes(mes);
+        fila.setTipoTurno(tipo);
+        fila.setMinutos(minutos);
+        fila.setMinutosNocturnos(nocturnos);
+        fila.setTurnos(turnos);
+        return fila;
+    }
+}
@@ -0,0 +1,172 @@
+package com.gestorhorarios.ics;
+
+import com.gestorhorarios.config.CalendarioIcsProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import com.gestorhorarios.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarioIcsServiceTest {
+
+    private static final ZoneId MADRID = ZoneId.of("Europe/Madrid");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private HorarioRepository horarioRepository;
+    @Mock
+    private UserService userService;
+    @Mock
+    private ExpansionRota expansionRota;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CalendarioIcsService calendarioIcsService;
+    private User usuario;
+
+    @BeforeEach
+    void setUp() {
+        calendarioIcsService = new CalendarioIcsService(jdbcTemplate, horarioRepository, userService, expansionRota,
+                transactionManager, new CalendarioIcsProperties());
+        usuario = new User();
+        usuario.setId(7L);
+        usuario.setNombre("Ana");
+        usuario.setApellidos("García");
+    }
+
+    @Test
+    void generarToken_SoloGuardaElHash() throws Exception {
+        String token = calendarioIcsService.generarToken(7L);
+
+        assertTrue(token.matches("[A-Za-z0-9_-]{43}"));
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        verify(jdbcTemplate).update(contains("INSERT INTO calendario_feeds"), eq(7L), eq(hash), any(Timestamp.class));
+    }
+
+    @Test
+    void suscripcion_TokenMalFormado_NoConsulta() {
+        assertTrue(calendarioIcsService.suscripcion("corto").isEmpty());
+        assertTrue(calendarioIcsService.suscripcion(null).isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void suscripcion_UltimaModificacionNoEsAnteriorAlComienzoDelDia() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("usuario_id")).thenReturn(7L);
+        when(rs.getLong("version")).thenReturn(4L);
+        when(rs.getTimestamp("fecha_actualizacion")).thenReturn(Timestamp.from(Instant.parse("2020-01-01T10:00:00Z")));
+        when(jdbcTemplate.query(contains("FROM calendario_feeds WHERE token_hash = ?"), any(RowMapper.class), anyString()))
+                .thenAnswer(invocation -> List.of(((RowMapper<SuscripcionIcs>) invocation.getArgument(1)).mapRow(rs, 0)));
+
+        Optional<SuscripcionIcs> suscripcion = calendarioIcsService.suscripcion("a".repeat(43));
+
+        LocalDate hoy = LocalDate.now(MADRID);
+        assertTrue(suscripcion.isPresent());
+        assertEquals(7L, suscripcion.get().usuarioId());
+        assertEquals(hoy.atStartOfDay(MADRID).toInstant(), suscripcion.get().ultimaModificacion());
+        assertEquals("4-" + hoy.toString().replace("-", ""), suscripcion.get().etag());
+    }
+
+    @Test
+    void contenido_SoloSeGeneraDeNuevoSiCambiaLaVersion() {
+        LocalDate hoy = LocalDate.now(MADRID);
+        when(userService.findUserById(7L)).thenReturn(usuario);
+        when(horarioRepository.findByUsuarioAndFechaBetween(usuario, hoy.minusDays(31), hoy.plusDays(120)))
+                .thenReturn(List.of(horario(1L, hoy, LocalTime.of(8, 0), LocalTime.of(15, 0), Horario.TipoTurno.MANANA)));
+        SuscripcionIcs version1 = new SuscripcionIcs(7L, 1L, hoy, Instant.now());
+
+        byte[] primero = calendarioIcsService.contenido(version1);
+        byte[] segundo = calendarioIcsService.contenido(version1);
+        calendarioIcsService.contenido(new SuscripcionIcs(7L, 2L, hoy, Instant.now()));
+
+        assertSame(primero, segundo);
+        verify(horarioRepository, times(2)).findByUsuarioAndFechaBetween(any(), any(), any());
+        verify(expansionRota, times(2)).horariosUsuario(usuario, hoy.minusDays(31), hoy.plusDays(120));
+    }
+
+    @Test
+    void escribir_HorasEnUtcTurnosDeNocheYLineasPlegadas() {
+        LocalDate dia = LocalDate.of(2025, 3, 10);
+        Horario noche = horario(1L, dia, LocalTime.of(22, 0), LocalTime.of(8, 0), Horario.TipoTurno.NOCHE);
+        noche.setNotas("Cubre a Luis; planta 3, box \\2\nllevar busca " + "x".repeat(80));
+        Horario rota = horario(null, dia.plusDays(1), LocalTime.of(15, 0), LocalTime.of(22, 0), Horario.TipoTurno.TARDE);
+        rota.setIntercambiado(true);
+
+        String ics = new String(new EscritorIcs(MADRID, Duration.ofHours(1))
+                .escribir(7L, "Turnos de Ana García", List.of(noche, rota), Instant.parse("2025-03-01T00:00:00Z")),
+                StandardCharsets.UTF_8);
+
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(ics.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(ics.contains("REFRESH-INTERVAL;VALUE=DURATION:PT1H\r\n"));
+        assertTrue(ics.contains("UID:horario-1@gestorhorarios\r\nDTSTAMP:20250301T000000Z\r\n" +
+                "DTSTART:20250310T210000Z\r\nDTEND:20250311T070000Z\r\nSUMMARY:Turno de noche\r\n"));
+        assertTrue(ics.contains("UID:rota-7-20250311@gestorhorarios\r\n"));
+        assertTrue(ics.contains("DTSTART:20250311T140000Z\r\nDTEND:20250311T210000Z\r\n" +
+                "SUMMARY:Turno de tarde (intercambiado)\r\n"));
+        String desplegado = ics.replace("\r\n ", "");
+        assertTrue(desplegado.contains("DESCRIPTION:Cubre a Luis\\; planta 3\\, box \\\\2\\nllevar busca xxx"));
+        for (String linea : ics.split("\r\n")) {
+            assertTrue(linea.getBytes(StandardCharsets.UTF_8).length <= 75, linea);
+        }
+    }
+
+    @Test
+    void horariosCambiados_VuelcaLosHorariosYSubeLasVersionesEnOrden() {
+        ArgumentCaptor<Object[]> parametros = ArgumentCaptor.forClass(Object[].class);
+
+        calendarioIcsService.horariosCambiados(Set.of(9L, 3L));
+        calendarioIcsService.horariosCambiados(List.of());
+
+        InOrder orden = inOrder(horarioRepository, jdbcTemplate);
+        orden.verify(horarioRepository).flush();
+        orden.verify(jdbcTemplate).update(eq("UPDATE calendario_feeds SET version = version + 1, " +
+                "fecha_actualizacion = ? WHERE usuario_id IN (?, ?)"), parametros.capture());
+        assertEquals(List.of(3L, 9L), List.of(parametros.getValue()).subList(1, 3));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    private Horario horario(Long id, LocalDate fecha, LocalTime inicio, LocalTime fin, Horario.TipoTurno tipo) {
+        Horario horario = new Horario();
+        horario.setId(id);
+        horario.setUsuario(usuario);
+        horario.setFecha(fecha);
+        horario.setHoraInicio(inicio);
+        horario.setHoraFin(fin);
+        horario.setTipoTurno(tipo);
+        return horario;
+    }
+}
@@ -0,0 +1,86 @@
+package com.gestorhorarios.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias y códigos de estado de un endpoint durante la prueba de carga.
+ * Guarda cada muestra en vez de usar LatencyHistogram: sus cubetas son demasiado gruesas
+ * para comparar percentiles entre dos ejecuciones.
+ */
+class EndpointStats {
+
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private long[] samplesNanos = new long[1024];
+    private int size;
+
+    /**
+     * @param status Código HTTP, o 0 si la petición no llegó a tener respuesta
+     */
+    void record(long elapsedNanos, int status) {
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+        synchronized (this) {
+            if (size == samplesNanos.length) {
+                samplesNanos = Arrays.copyOf(samplesNanos, size * 2);
+            }
+            samplesNanos[size++] = elapsedNanos;
+        }
+    }
+
+    long serverErrors() {
+        return statuses.entrySet().stream()
+                .filter(e -> e.getKey() == 0 || e.getKey() >= 500)
+                .mapToLong(e -> e.getValue().sum())
+                .sum();
+    }
+
+    Map<String, Object> snapshot(double elapsedSeconds) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samplesNanos, size);
+        }
+        Arrays.sort(sorted);
+        long count = sorted.length;
+        long errorCount = errors.sum();
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", count);
+        snapshot.put("errors", errorCount);
+        snapshot.put("errorRate", count == 0 ? 0.0 : round((double) errorCount / count));
+        snapshot.put("throughputPerSecond", elapsedSeconds <= 0 ? 0.0 : round(count / elapsedSeconds));
+        snapshot.put("meanMs", count == 0 ? 0.0 : millis(Arrays.stream(sorted).sum() / count));
+        snapshot.put("p50Ms", millis(percentile(sorted, 0.50)));
+        snapshot.put("p95Ms", millis(percentile(sorted, 0.95)));
+        snapshot.put("p99Ms", millis(percentile(sorted, 0.99)));
+        snapshot.put("maxMs", millis(count == 0 ? 0 : sorted[sorted.length - 1]));
+        Map<String, Long> porEstado = new TreeMap<>();
+        statuses.forEach((status, n) -> porEstado.put(String.valueOf(status), n.sum()));
+        snapshot.put("statuses", porEstado);
+        return snapshot;
+    }
+
+    // Percentil por rango más cercano sobre las muestras ordenadas
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,176 @@
+package com.gestorhorarios.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestorhorarios.GestorHorariosApplication;
+import com.gestorhorarios.config.SyntheticDataProperties;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de carga extremo a extremo: arranca la aplicación en un puerto aleatorio sobre H2
+ * poblada con el generador sintético y la ataca con usuarios virtuales que repiten los
+ * escenarios de LoadScenarios. Escribe throughput, p50/p95/p99 y tasa de errores por endpoint
+ * en loadtest.output (JSON).
+ *
+ * No forma parte de mvn test; se ejecuta con el perfil de Maven load-test:
+ * mvn test -Pload-test -Dloadtest.users=100 -Dloadtest.duration-seconds=60
+ */
+@Tag("load")
+@SpringBootTest(classes = GestorHorariosApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class HttpLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpLoadTest.class);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SyntheticDataProperties datagen;
+
+    @Test
+    void cargaHttp_EscribeResultadosPorEndpointSinErroresDeServidor() throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        LoadTestClient client = new LoadTestClient("http://localhost:" + port, objectMapper);
+        LoadScenarios scenarios = new LoadScenarios(client, usernames(), datagen.getPassword());
+        LongAdder fallos = new LongAdder();
+        AtomicInteger semillas = new AtomicInteger();
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.warmupSeconds() + config.durationSeconds());
+
+        String modeloHilos;
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor != null) {
+            modeloHilos = "virtual";
+        } else {
+            modeloHilos = "platform";
+            executor = Executors.newFixedThreadPool(config.users());
+        }
+        logger.info("Prueba de carga: {} usuarios virtuales (hilos {}), {} s + {} s de calentamiento",
+                config.users(), modeloHilos, config.durationSeconds(), config.warmupSeconds());
+
+        for (int i = 0; i < config.users(); i++) {
+            executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom(config.seed() + semillas.getAndIncrement());
+                while (System.nanoTime() < fin && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        scenarios.runOnce(random);
+                    } catch (RuntimeException e) {
+                        // Respuesta con un formato inesperado; las peticiones ya quedaron registradas
+                        fallos.increment();
+                        logger.debug("Iteración fallida", e);
+                    }
+                    if (config.thinkTimeMs() > 0) {
+                        try {
+                            Thread.sleep(config.thinkTimeMs());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            });
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.warmupSeconds()));
+        scenarios.resetCounters();
+        fallos.reset();
+        client.startRecording();
+        long inicioMedida = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.durationSeconds()));
+        client.stopRecording();
+        double segundos = (System.nanoTime() - inicioMedida) / 1e9;
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Los usuarios virtuales no terminaron");
+
+        Map<String, Object> endpoints = client.snapshot(segundos);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("threadModel", modeloHilos);
+        report.put("config", config.toMap());
+        report.put("datagen", Map.of("centros", datagen.getCentros(), "workersPerRole", datagen.getWorkersPerRole(),
+                "years", datagen.getYears()));
+        report.put("elapsedSeconds", Math.round(segundos * 1000) / 1000.0);
+        report.put("totals", totals(endpoints, segundos));
+        report.put("scenarios", scenarios.snapshot());
+        report.put("failedIterations", fallos.sum());
+        report.put("endpoints", endpoints);
+
+        Path output = config.output().toAbsolutePath();
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        logger.info("Resultados de la prueba de carga en {}: {}", output, report.get("totals"));
+
+        assertTrue(client.stats().containsKey(LoadScenarios.LOGIN), "No se registró ningún login");
+        client.stats().forEach((endpoint, stats) ->
+                assertEquals(0, stats.serverErrors(), "Errores de servidor o sin respuesta en " + endpoint));
+    }
+
+    private List<String> usernames() {
+        // Mismo esquema de nombres que SyntheticDataGenerator con la base de datos vacía
+        List<String> usernames = new ArrayList<>();
+        for (int centro = 1; centro <= datagen.getCentros(); centro++) {
+            for (String rol : datagen.getRoles()) {
+                String corto = rol.replace("ROLE_", "").toLowerCase(Locale.ROOT);
+                for (int n = 1; n <= datagen.getWorkersPerRole(); n++) {
+                    usernames.add("c" + centro + "_" + corto + "_" + n);
+                }
+            }
+        }
+        return usernames;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> totals(Map<String, Object> endpoints, double segundos) {
+        long peticiones = 0;
+        long errores = 0;
+        for (Object valor : endpoints.values()) {
+            Map<String, Object> stats = (Map<String, Object>) valor;
+            peticiones += (Long) stats.get("count");
+            errores += (Long) stats.get("errors");
+        }
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("requests", peticiones);
+        totals.put("errors", errores);
+        totals.put("errorRate", peticiones == 0 ? 0.0 : Math.round(1000.0 * errores / peticiones) / 1000.0);
+        totals.put("throughputPerSecond", Math.round(peticiones / segundos * 1000) / 1000.0);
+        return totals;
+    }
+
+    /**
+     * Hilos virtuales si la JVM de la ejecución los tiene (21+); el proyecto compila para 17,
+     * así que se buscan por reflexión. Devuelve null en JVMs anteriores.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
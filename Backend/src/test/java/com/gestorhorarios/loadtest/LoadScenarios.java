@@ -0,0 +1,237 @@
+package com.gestorhorarios.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Escenarios de la prueba de carga. Cada iteración de un usuario virtual elige uno según su peso
+ * y actúa como un trabajador generado al azar (las sesiones se reutilizan entre iteraciones,
+ * igual que la app móvil reutiliza el token).
+ */
+class LoadScenarios {
+
+    static final String LOGIN = "POST /api/auth/signin";
+    static final String MIS_HORARIOS = "GET /api/horarios/mis-horarios";
+    static final String DISPONIBLES = "GET /api/horarios/disponibles";
+    static final String CREAR_SOLICITUD = "POST /api/solicitudes";
+    static final String RESPONDER_SOLICITUD = "POST /api/solicitudes/{id}/responder";
+    static final String VEHICULOS_DISPONIBLES = "GET /api/vehicles/available";
+    static final String UNIRSE_VEHICULO = "POST /api/vehicles/{vehicleId}/join/{userId}";
+    static final String SALIR_VEHICULO = "POST /api/vehicles/{id}/leave";
+
+    enum Escenario {
+        LOGIN(10),
+        MIS_HORARIOS(30),
+        DISPONIBLES(25),
+        SOLICITUD_CAMBIO(15),
+        VEHICULO(20);
+
+        private final int peso;
+
+        Escenario(int peso) {
+            this.peso = peso;
+        }
+    }
+
+    record Sesion(String username, String token, long userId, String rol) {
+    }
+
+    private static final int TOTAL_PESOS = totalPesos();
+
+    private final LoadTestClient client;
+    private final List<String> usernames;
+    private final String password;
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final Map<Escenario, LongAdder> iteraciones = new EnumMap<>(Escenario.class);
+    private final Map<Escenario, LongAdder> incompletas = new EnumMap<>(Escenario.class);
+
+    LoadScenarios(LoadTestClient client, List<String> usernames, String password) {
+        this.client = client;
+        this.usernames = usernames;
+        this.password = password;
+        for (Escenario escenario : Escenario.values()) {
+            iteraciones.put(escenario, new LongAdder());
+            incompletas.put(escenario, new LongAdder());
+        }
+    }
+
+    void runOnce(SplittableRandom random) {
+        Escenario escenario = elegir(random);
+        String username = usernames.get(random.nextInt(usernames.size()));
+        boolean completo = switch (escenario) {
+            case LOGIN -> login(username) != null;
+            case MIS_HORARIOS -> misHorarios(username);
+            case DISPONIBLES -> disponibles(username, random);
+            case SOLICITUD_CAMBIO -> solicitudCambio(username, random);
+            case VEHICULO -> vehiculo(username, random);
+        };
+        iteraciones.get(escenario).increment();
+        if (!completo) {
+            incompletas.get(escenario).increment();
+        }
+    }
+
+    /**
+     * Iteraciones por escenario; "incompletas" son las que se cortaron a mitad (un error o
+     * ningún horario o vehículo con el que seguir)
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (Escenario escenario : Escenario.values()) {
+            Map<String, Long> valores = new LinkedHashMap<>();
+            valores.put("iterations", iteraciones.get(escenario).sum());
+            valores.put("incomplete", incompletas.get(escenario).sum());
+            snapshot.put(escenario.name(), valores);
+        }
+        return snapshot;
+    }
+
+    void resetCounters() {
+        iteraciones.values().forEach(LongAdder::reset);
+        incompletas.values().forEach(LongAdder::reset);
+    }
+
+    // ---------------------------------------------------------------- escenarios
+
+    private Sesion login(String username) {
+        LoadTestClient.Respuesta respuesta = client.post(LOGIN, "/api/auth/signin", null,
+                Map.of("usernameOrEmail", username, "password", password));
+        if (!respuesta.ok()) {
+            return null;
+        }
+        JsonNode body = respuesta.body();
+        Sesion sesion = new Sesion(username, body.path("token").asText(), body.path("userId").asLong(),
+                body.path("role").asText());
+        sesiones.put(username, sesion);
+        return sesion;
+    }
+
+    private Sesion sesion(String username) {
+        Sesion sesion = sesiones.get(username);
+        return sesion != null ? sesion : login(username);
+    }
+
+    private boolean misHorarios(String username) {
+        Sesion sesion = sesion(username);
+        return sesion != null && misHorariosProximos(sesion).ok();
+    }
+
+    private boolean disponibles(String username, SplittableRandom random) {
+        Sesion sesion = sesion(username);
+        return sesion != null && disponiblesPorRol(sesion, LocalDate.now().plusDays(1 + random.nextInt(30))).ok();
+    }
+
+    /**
+     * El solicitante ofrece uno de sus próximos turnos a cambio de uno disponible de su rol y
+     * el propietario de ese turno acepta
+     */
+    private boolean solicitudCambio(String username, SplittableRandom random) {
+        Sesion solicitante = sesion(username);
+        if (solicitante == null) {
+            return false;
+        }
+        LoadTestClient.Respuesta propios = misHorariosProximos(solicitante);
+        if (!propios.ok() || propios.body().isEmpty()) {
+            return false;
+        }
+        JsonNode origen = propios.body().get(random.nextInt(propios.body().size()));
+
+        LoadTestClient.Respuesta disponibles = disponiblesPorRol(solicitante,
+                LocalDate.now().plusDays(1 + random.nextInt(30)));
+        if (!disponibles.ok()) {
+            return false;
+        }
+        List<JsonNode> ajenos = new ArrayList<>();
+        for (JsonNode horario : disponibles.body()) {
+            if (horario.path("usuario").path("id").asLong() != solicitante.userId()) {
+                ajenos.add(horario);
+            }
+        }
+        if (ajenos.isEmpty()) {
+            return false;
+        }
+        JsonNode destino = ajenos.get(random.nextInt(ajenos.size()));
+
+        LoadTestClient.Respuesta creada = client.post(CREAR_SOLICITUD, "/api/solicitudes", solicitante.token(),
+                Map.of("horarioOrigen", Map.of("id", origen.path("id").asLong()),
+                        "horarioDestino", Map.of("id", destino.path("id").asLong()),
+                        "mensaje", "Prueba de carga"));
+        if (!creada.ok()) {
+            return false;
+        }
+        Sesion receptor = sesion(destino.path("usuario").path("username").asText());
+        if (receptor == null) {
+            return false;
+        }
+        return client.post(RESPONDER_SOLICITUD,
+                "/api/solicitudes/" + creada.body().path("id").asLong() + "/responder?aceptada=true",
+                receptor.token(), null).ok();
+    }
+
+    private boolean vehiculo(String username, SplittableRandom random) {
+        Sesion sesion = sesion(username);
+        if (sesion == null) {
+            return false;
+        }
+        LoadTestClient.Respuesta vehiculos = client.get(VEHICULOS_DISPONIBLES, "/api/vehicles/available", sesion.token());
+        if (!vehiculos.ok()) {
+            return false;
+        }
+        List<Long> candidatos = new ArrayList<>();
+        for (JsonNode vehiculo : vehiculos.body()) {
+            if (vehiculo.path("availableSeats").asInt() > 0 && vehiculo.path("ownerId").asLong() != sesion.userId()) {
+                candidatos.add(vehiculo.path("id").asLong());
+            }
+        }
+        if (candidatos.isEmpty()) {
+            return false;
+        }
+        long vehicleId = candidatos.get(random.nextInt(candidatos.size()));
+        if (!client.post(UNIRSE_VEHICULO, "/api/vehicles/" + vehicleId + "/join/" + sesion.userId(),
+                sesion.token(), null).ok()) {
+            return false;
+        }
+        return client.post(SALIR_VEHICULO, "/api/vehicles/" + vehicleId + "/leave", sesion.token(), null).ok();
+    }
+
+    // ---------------------------------------------------------------- peticiones compartidas
+
+    private LoadTestClient.Respuesta misHorariosProximos(Sesion sesion) {
+        LocalDate hoy = LocalDate.now();
+        return client.get(MIS_HORARIOS, "/api/horarios/mis-horarios?inicio=" + hoy.plusDays(1)
+                + "&fin=" + hoy.plusDays(30), sesion.token());
+    }
+
+    private LoadTestClient.Respuesta disponiblesPorRol(Sesion sesion, LocalDate fecha) {
+        return client.get(DISPONIBLES, "/api/horarios/disponibles?rol=" + sesion.rol() + "&fecha=" + fecha,
+                sesion.token());
+    }
+
+    private static Escenario elegir(SplittableRandom random) {
+        int valor = random.nextInt(TOTAL_PESOS);
+        for (Escenario escenario : Escenario.values()) {
+            valor -= escenario.peso;
+            if (valor < 0) {
+                return escenario;
+            }
+        }
+        return Escenario.MIS_HORARIOS;
+    }
+
+    private static int totalPesos() {
+        int total = 0;
+        for (Escenario escenario : Escenario.values()) {
+            total += escenario.peso;
+        }
+        return total;
+    }
+}
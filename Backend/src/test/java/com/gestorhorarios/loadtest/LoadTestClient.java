@@ -0,0 +1,120 @@
+package com.gestorhorarios.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cliente HTTP de la prueba de carga. Cada petición se mide y se acumula bajo el nombre de su
+ * endpoint (método y plantilla de ruta, p. ej. "POST /api/solicitudes/{id}/responder") para que
+ * los ids concretos no dispersen las estadísticas.
+ */
+class LoadTestClient {
+
+    record Respuesta(int status, JsonNode body) {
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    // Durante el calentamiento se hacen las peticiones pero no se registran
+    private volatile boolean recording;
+
+    LoadTestClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    void startRecording() {
+        recording = true;
+    }
+
+    void stopRecording() {
+        recording = false;
+    }
+
+    Respuesta get(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).GET());
+    }
+
+    Respuesta post(String endpoint, String path, String token, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo serializar el cuerpo de " + endpoint, e);
+        }
+        return send(endpoint, request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(publisher));
+    }
+
+    Map<String, Object> snapshot(double elapsedSeconds) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        new TreeMap<>(stats).forEach((endpoint, s) -> endpoints.put(endpoint, s.snapshot(elapsedSeconds)));
+        return endpoints;
+    }
+
+    Map<String, EndpointStats> stats() {
+        return stats;
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Respuesta send(String endpoint, HttpRequest.Builder builder) {
+        long inicio = System.nanoTime();
+        HttpResponse<byte[]> response = null;
+        try {
+            response = http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            // Sin respuesta (conexión rechazada, timeout...): se registra con estado 0
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - inicio;
+        int status = response != null ? response.statusCode() : 0;
+        if (recording) {
+            stats.computeIfAbsent(endpoint, e -> new EndpointStats()).record(elapsed, status);
+        }
+        JsonNode body = response != null && response.body().length > 0 ? parse(response.body()) : MissingNode.getInstance();
+        return new Respuesta(status, body);
+    }
+
+    private JsonNode parse(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            // Algunos endpoints devuelven texto plano en los errores
+            return MissingNode.getInstance();
+        }
+    }
+}
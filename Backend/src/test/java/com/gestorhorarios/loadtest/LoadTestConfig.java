@@ -0,0 +1,33 @@
+package com.gestorhorarios.loadtest;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba de carga, leídos de propiedades del sistema con prefijo loadtest.
+ * (p. ej. -Dloadtest.users=200 -Dloadtest.duration-seconds=120). El volumen de datos se ajusta
+ * con las propiedades app.datagen.* de la misma forma.
+ */
+record LoadTestConfig(int users, int durationSeconds, int warmupSeconds, long thinkTimeMs, long seed, Path output) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 20),
+                Integer.getInteger("loadtest.duration-seconds", 30),
+                Integer.getInteger("loadtest.warmup-seconds", 5),
+                Long.getLong("loadtest.think-time-ms", 0L),
+                Long.getLong("loadtest.seed", 42L),
+                Path.of(System.getProperty("loadtest.output", "target/load-test/results.json")));
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("users", users);
+        map.put("durationSeconds", durationSeconds);
+        map.put("warmupSeconds", warmupSeconds);
+        map.put("thinkTimeMs", thinkTimeMs);
+        map.put("seed", seed);
+        return map;
+    }
+}
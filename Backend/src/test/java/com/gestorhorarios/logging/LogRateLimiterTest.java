@@ -0,0 +1,55 @@
+package com.gestorhorarios.logging;
+
+import com.gestorhorarios.config.LoggingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+    private LogRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        LoggingProperties properties = new LoggingProperties();
+        properties.setRateLimitPerSecond(3);
+        rateLimiter = new LogRateLimiter(properties);
+    }
+
+    @Test
+    void tryAcquire_LimitaEventosPorVentana() {
+        // Los tres primeros eventos pasan sin suprimidos pendientes
+        assertEquals(0, rateLimiter.tryAcquire("jwt.rejected"));
+        assertEquals(0, rateLimiter.tryAcquire("jwt.rejected"));
+        assertEquals(0, rateLimiter.tryAcquire("jwt.rejected"));
+
+        // A partir del límite se descartan
+        assertEquals(-1, rateLimiter.tryAcquire("jwt.rejected"));
+        assertEquals(-1, rateLimiter.tryAcquire("jwt.rejected"));
+    }
+
+    @Test
+    void tryAcquire_ClavesIndependientes() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("a");
+        }
+        assertEquals(-1, rateLimiter.tryAcquire("a"));
+
+        // Otra clave tiene su propia ventana
+        assertEquals(0, rateLimiter.tryAcquire("b"));
+    }
+
+    @Test
+    void tryAcquire_InformaDeSuprimidosEnLaSiguienteVentana() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("clave");
+        }
+
+        Thread.sleep(1100);
+
+        // El primer evento de la nueva ventana devuelve los dos descartados
+        assertEquals(2, rateLimiter.tryAcquire("clave"));
+        assertEquals(0, rateLimiter.tryAcquire("clave"));
+    }
+}
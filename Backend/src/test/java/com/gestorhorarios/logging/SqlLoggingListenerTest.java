@@ -0,0 +1,62 @@
+package com.gestorhorarios.logging;
+
+import com.gestorhorarios.config.LoggingProperties;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlLoggingListenerTest {
+
+    private SqlLoggingListener listener;
+
+    @BeforeEach
+    void setUp() {
+        LoggingProperties properties = new LoggingProperties();
+        properties.setSqlSlowThresholdMs(100);
+        listener = new SqlLoggingListener(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlRequestStats.end();
+    }
+
+    @Test
+    void afterQuery_AcumulaEstadisticasDeLaPeticion() {
+        SqlRequestStats stats = SqlRequestStats.begin(false);
+
+        listener.afterQuery(execution(20), List.of(new QueryInfo("select * from users where id=?")));
+        listener.afterQuery(execution(150), List.of(new QueryInfo("select * from horarios")));
+
+        assertEquals(2, stats.getQueryCount());
+        assertEquals(170, stats.getElapsedMs());
+        assertEquals(1, stats.getSlowQueryCount());
+    }
+
+    @Test
+    void afterQuery_SinPeticionEnCurso_NoFalla() {
+        assertNull(SqlRequestStats.current());
+        assertDoesNotThrow(() -> listener.afterQuery(execution(500), List.of(new QueryInfo("select 1"))));
+    }
+
+    @Test
+    void redact_OcultaLiteralesDeTexto() {
+        String sql = SqlLoggingListener.redact(List.of(
+                new QueryInfo("select *\n  from users where username = 'admin' and password='it''s'")));
+
+        assertEquals("select * from users where username = '?' and password='?'", sql);
+    }
+
+    private ExecutionInfo execution(long elapsedMs) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(elapsedMs);
+        executionInfo.setSuccess(true);
+        return executionInfo;
+    }
+}
@@ -0,0 +1,87 @@
+package com.gestorhorarios.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusinessMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private BusinessMetrics businessMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        businessMetrics = new BusinessMetrics(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void validacionesJwt_SeCuentanPorResultadoYMotivo() {
+        businessMetrics.jwtValidated();
+        businessMetrics.jwtValidated();
+        businessMetrics.jwtRejected("expired");
+        businessMetrics.jwtRejected("expired");
+        businessMetrics.jwtRejected("malformed");
+
+        assertEquals(2, contador("app.jwt.validations", "result", "valid", "reason", "none"));
+        assertEquals(2, contador("app.jwt.validations", "result", "rejected", "reason", "expired"));
+        assertEquals(1, contador("app.jwt.validations", "result", "rejected", "reason", "malformed"));
+    }
+
+    @Test
+    void transicionSinTransaccion_SeCuentaEnElMomento() {
+        businessMetrics.swapTransition("PENDIENTE", "ACEPTADA");
+
+        assertEquals(1, contador("app.swap.transitions", "from", "PENDIENTE", "to", "ACEPTADA"));
+    }
+
+    @Test
+    void transicionEnTransaccion_SoloSeCuentaAlConfirmar() {
+        TransactionSynchronizationManager.initSynchronization();
+        businessMetrics.swapTransition("PENDIENTE", "RECHAZADA");
+
+        assertEquals(0, contador("app.swap.transitions", "from", "PENDIENTE", "to", "RECHAZADA"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, contador("app.swap.transitions", "from", "PENDIENTE", "to", "RECHAZADA"));
+    }
+
+    @Test
+    void transicionEnTransaccionDeshecha_NoSeCuenta() {
+        TransactionSynchronizationManager.initSynchronization();
+        businessMetrics.swapTransition("PENDIENTE", "CANCELADA");
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(0, contador("app.swap.transitions", "from", "PENDIENTE", "to", "CANCELADA"));
+    }
+
+    @Test
+    void pasajeros_LosExitosEsperanAlCommitYLosFallosSeCuentanYa() {
+        TransactionSynchronizationManager.initSynchronization();
+        businessMetrics.vehicleMembership("join", true);
+        businessMetrics.vehicleMembership("leave", false);
+
+        assertEquals(0, contador("app.vehicle.membership", "action", "join", "outcome", "success"));
+        assertEquals(1, contador("app.vehicle.membership", "action", "leave", "outcome", "failure"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, contador("app.vehicle.membership", "action", "join", "outcome", "success"));
+    }
+
+    private double contador(String nombre, String... etiquetas) {
+        Counter counter = registry.find(nombre).tags(etiquetas).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
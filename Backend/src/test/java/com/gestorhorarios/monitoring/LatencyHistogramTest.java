@@ -0,0 +1,50 @@
+package com.gestorhorarios.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void histogramaVacio_DevuelveCeros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(0.99));
+    }
+
+    @Test
+    void percentiles_SeAproximanPorCubeta() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 90 llamadas rápidas y 10 lentas
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3, false);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(400, i == 0);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5, histogram.percentile(0.50));
+        assertEquals(400, histogram.percentile(0.95));
+        assertEquals(400, histogram.percentile(0.99));
+
+        Map<String, Object> snapshot = histogram.snapshot();
+        assertEquals(1L, snapshot.get("errors"));
+        assertEquals(400L, snapshot.get("maxMs"));
+    }
+
+    @Test
+    void valoresFueraDeRango_VanALaUltimaCubeta() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(60_000, false);
+
+        assertEquals(60_000, histogram.percentile(0.5));
+        @SuppressWarnings("unchecked")
+        Map<String, Long> buckets = (Map<String, Long>) histogram.snapshot().get("buckets");
+        assertEquals(1L, buckets.get("inf"));
+    }
+}
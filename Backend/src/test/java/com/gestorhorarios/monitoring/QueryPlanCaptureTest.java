@@ -0,0 +1,104 @@
+package com.gestorhorarios.monitoring;
+
+import com.gestorhorarios.config.MonitoringProperties;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlanCaptureTest {
+
+    private static final String SQL = "SELECT id FROM cuentas WHERE email = ? AND alta >= ? AND baja IS NOT DISTINCT FROM ?";
+
+    private JdbcDataSource dataSource;
+    private QueryPlanBuffer buffer;
+    private QueryPlanCapture capture;
+    private final RecentSqlCapture recentSqlCapture = new RecentSqlCapture();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:plancapture;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS cuentas (id BIGINT PRIMARY KEY, email VARCHAR(100), alta DATE, baja DATE)");
+        }
+        MonitoringProperties properties = new MonitoringProperties();
+        properties.setExplainEnabled(true);
+        buffer = new QueryPlanBuffer(properties);
+        capture = new QueryPlanCapture(dataSource, buffer, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        capture.shutdown();
+    }
+
+    @Test
+    void sentenciaCapturada_GuardaElTipoDeLosParametrosPeroNoSusValores() throws Exception {
+        RecentSqlCapture.CapturedStatement statement =
+                ejecutar(SQL, "secreto@ejemplo.com", java.sql.Date.valueOf(LocalDate.of(2024, 1, 1)), null);
+
+        assertEquals(SQL, statement.sql());
+        assertEquals(List.of(new RecentSqlCapture.ParameterSlot(1, String.class),
+                new RecentSqlCapture.ParameterSlot(2, java.sql.Date.class),
+                new RecentSqlCapture.ParameterSlot(3, null)), statement.parameters());
+        assertFalse(statement.toString().contains("secreto"));
+    }
+
+    @Test
+    void explain_EnlazaValoresNeutrosYNoRepiteLaMismaSentencia() throws Exception {
+        RecentSqlCapture.CapturedStatement statement =
+                ejecutar(SQL, "secreto@ejemplo.com", java.sql.Date.valueOf(LocalDate.of(2024, 1, 1)), null);
+
+        capture.explainAsync("CuentaRepository.findByEmail", 500, statement);
+        capture.explainAsync("CuentaRepository.findByEmail", 500, statement);
+
+        long limite = System.currentTimeMillis() + 5_000;
+        while (buffer.list().isEmpty() && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(100);
+        List<QueryPlan> plans = buffer.list();
+        assertEquals(1, plans.size());
+        assertNull(plans.get(0).getError());
+        assertFalse(plans.get(0).getPlan().isEmpty());
+    }
+
+    @Test
+    void valorNeutro_DelMismoTipoONull() {
+        assertEquals(0L, QueryPlanCapture.neutralValue(Long.class));
+        assertEquals("", QueryPlanCapture.neutralValue(String.class));
+        assertInstanceOf(java.sql.Date.class, QueryPlanCapture.neutralValue(LocalDate.class));
+        assertNull(QueryPlanCapture.neutralValue(byte[].class));
+        assertNull(QueryPlanCapture.neutralValue(null));
+    }
+
+    // Simula lo que datasource-proxy entrega al listener tras ejecutar la sentencia
+    private RecentSqlCapture.CapturedStatement ejecutar(String sql, String email, java.sql.Date alta, java.sql.Date baja) throws Exception {
+        QueryInfo queryInfo = new QueryInfo(sql);
+        queryInfo.getParametersList().add(List.of(
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                        new Object[]{1, email}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setDate", int.class, java.sql.Date.class),
+                        new Object[]{2, alta}),
+                new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                        new Object[]{3, Types.DATE})));
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(300);
+        recentSqlCapture.afterQuery(executionInfo, List.of(queryInfo));
+        List<RecentSqlCapture.CapturedStatement> statements = recentSqlCapture.statementsSince(0);
+        return statements.get(statements.size() - 1);
+    }
+}
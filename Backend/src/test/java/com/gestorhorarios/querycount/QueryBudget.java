@@ -0,0 +1,24 @@
+package com.gestorhorarios.querycount;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Número máximo de sentencias SQL que puede ejecutar una prueba (o cada prueba de la clase).
+ * Solo cuenta el cuerpo del método de prueba, no los @BeforeEach, así que el login o la
+ * preparación de datos no consumen presupuesto. Requiere un contexto de Spring que importe
+ * {@link QueryCountingConfig}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    int value();
+}
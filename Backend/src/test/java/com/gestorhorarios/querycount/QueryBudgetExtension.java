@@ -0,0 +1,59 @@
+package com.gestorhorarios.querycount;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cuenta las sentencias SQL del cuerpo de cada prueba con {@link QueryBudget} y la hace fallar
+ * si supera el presupuesto. El mensaje agrupa las sentencias repetidas para que un N+1 se vea
+ * a simple vista ("25 x select ... from users where id=?").
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budget(context).isPresent()) {
+            listener(context).start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Optional<QueryBudget> budget = budget(context);
+        if (budget.isEmpty()) {
+            return;
+        }
+        List<String> statements = listener(context).stop();
+        // Si la prueba ya ha fallado, ese es el error que interesa
+        if (context.getExecutionException().isPresent() || statements.size() <= budget.get().value()) {
+            return;
+        }
+        Map<String, Long> agrupadas = statements.stream()
+                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+        StringBuilder message = new StringBuilder()
+                .append("Se ejecutaron ").append(statements.size()).append(" sentencias SQL y el presupuesto es ")
+                .append(budget.get().value()).append(':');
+        agrupadas.forEach((sql, n) -> message.append("\n  ").append(n).append(" x ").append(sql));
+        throw new AssertionFailedError(message.toString());
+    }
+
+    private static Optional<QueryBudget> budget(ExtensionContext context) {
+        Optional<QueryBudget> budget = AnnotationSupport.findAnnotation(context.getTestMethod(), QueryBudget.class);
+        return budget.isPresent() ? budget : AnnotationSupport.findAnnotation(context.getTestClass(), QueryBudget.class);
+    }
+
+    private static QueryCountingListener listener(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(QueryCountingListener.class);
+    }
+}
@@ -0,0 +1,17 @@
+package com.gestorhorarios.querycount;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registra {@link QueryCountingListener}; SqlLoggingDataSourcePostProcessor lo añade al
+ * datasource-proxy junto con el resto de QueryExecutionListener.
+ */
+@TestConfiguration
+public class QueryCountingConfig {
+
+    @Bean
+    QueryCountingListener queryCountingListener() {
+        return new QueryCountingListener();
+    }
+}
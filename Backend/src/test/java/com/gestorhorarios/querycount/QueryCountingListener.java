@@ -0,0 +1,51 @@
+package com.gestorhorarios.querycount;
+
+import com.gestorhorarios.logging.SqlLoggingListener;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Guarda las sentencias ejecutadas entre start() y stop(), de cualquier hilo (MockMvc y los
+ * servidores embebidos no ejecutan en el mismo hilo). Un lote JDBC cuenta como una sentencia:
+ * lo que se quiere detectar son idas y vueltas a la base de datos.
+ */
+public class QueryCountingListener implements QueryExecutionListener {
+
+    private final List<String> statements = new ArrayList<>();
+    private volatile boolean active;
+
+    public synchronized void start() {
+        statements.clear();
+        active = true;
+    }
+
+    public synchronized List<String> stop() {
+        active = false;
+        return List.copyOf(statements);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Nada que hacer antes de la ejecución
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!active) {
+            return;
+        }
+        // Una entrada por ejecución: un lote de Statement trae un QueryInfo por SQL añadido y uno
+        // de PreparedStatement un único QueryInfo con varios juegos de parámetros
+        String sql = queryInfoList.stream()
+                .map(queryInfo -> SqlLoggingListener.redact(queryInfo.getQuery()))
+                .collect(Collectors.joining("; "));
+        synchronized (this) {
+            statements.add(sql);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.gestorhorarios.reglas;
+
+import com.gestorhorarios.GestorHorariosApplication;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.UserRepository;
+import com.gestorhorarios.service.HorarioService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos horarios que por separado cumplen las reglas laborales pero juntos no (menos de 12 horas de
+ * descanso) se crean a la vez para el mismo trabajador: con el trabajador bloqueado antes de validar,
+ * solo se guarda uno. Si otra instancia cambia los turnos del trabajador, la ventana en memoria se
+ * vuelve a cargar.
+ */
+@SpringBootTest(classes = GestorHorariosApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reglasbloqueo;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "app.horarios.archivo.enabled=false",
+        "management.server.port=-1"
+})
+class ReglasLaboralesBloqueoTest {
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+    private static final LocalDate LUNES = LocalDate.now().plusWeeks(2).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @Autowired
+    private HorarioService horarioService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void crearHorario_AsignacionesALaVezDelMismoTrabajador_SoloGuardaUnaSiJuntasIncumplen() throws Exception {
+        User trabajador = userRepository.save(usuario());
+
+        // Varias rondas, cada una en otra semana para que no se sumen las horas
+        for (int semana = 0; semana < 3; semana++) {
+            LocalDate dia = LUNES.plusWeeks(semana);
+            List<Boolean> guardados = aLaVez(
+                    () -> crear(trabajador, dia, LocalTime.of(8, 0), LocalTime.of(15, 0), Horario.TipoTurno.MANANA),
+                    () -> crear(trabajador, dia, LocalTime.of(20, 0), LocalTime.of(23, 0), Horario.TipoTurno.TARDE));
+
+            assertEquals(1, guardados.stream().filter(g -> g).count(), "semana " + semana + ": " + guardados);
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM horarios WHERE usuario_id = ? AND fecha = ?", Integer.class,
+                    trabajador.getId(), dia));
+        }
+    }
+
+    @Test
+    void crearHorario_OtraInstanciaGuardaUnTurno_LaVentanaSeVuelveACargar() {
+        User trabajador = userRepository.save(usuario());
+        LocalDate dia = LUNES.plusWeeks(4);
+        assertTrue(crear(trabajador, dia, LocalTime.of(8, 0), LocalTime.of(15, 0), Horario.TipoTurno.MANANA));
+
+        // Otra instancia guarda una tarde del día siguiente y sube la versión en su transacción
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO horarios (usuario_id, fecha, hora_inicio, hora_fin, tipo_turno, disponible, "
+                        + "intercambiado, fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, false, false, ?, ?)",
+                trabajador.getId(), dia.plusDays(1), LocalTime.of(20, 0), LocalTime.of(23, 0), "TARDE", ahora, ahora);
+        jdbcTemplate.update("UPDATE users SET version_turnos = version_turnos + 1 WHERE id = ?", trabajador.getId());
+
+        // La mañana siguiente deja 5 horas de descanso antes de esa tarde, que la ventana en memoria no tenía
+        assertFalse(crear(trabajador, dia.plusDays(1), LocalTime.of(8, 0), LocalTime.of(15, 0), Horario.TipoTurno.MANANA));
+    }
+
+    private boolean crear(User trabajador, LocalDate fecha, LocalTime inicio, LocalTime fin, Horario.TipoTurno tipo) {
+        Horario horario = new Horario();
+        horario.setFecha(fecha);
+        horario.setHoraInicio(inicio);
+        horario.setHoraFin(fin);
+        horario.setTipoTurno(tipo);
+        horario.setUsuario(trabajador);
+        try {
+            horarioService.crearHorario(horario, "ROLE_MEDICO");
+            return true;
+        } catch (ReglaLaboralException e) {
+            return false;
+        }
+    }
+
+    @SafeVarargs
+    private List<Boolean> aLaVez(Callable<Boolean>... tareas) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tareas.length);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> futuros = new ArrayList<>();
+        for (var tarea : tareas) {
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                return tarea.call();
+            }));
+        }
+        salida.countDown();
+        List<Boolean> resultados = new ArrayList<>();
+        for (Future<Boolean> futuro : futuros) {
+            resultados.add(futuro.get());
+        }
+        executor.shutdown();
+        return resultados;
+    }
+
+    private User usuario() {
+        int n = SECUENCIA.incrementAndGet();
+        User usuario = new User();
+        usuario.setUsername("bloqueo" + n);
+        usuario.setPassword("password");
+        usuario.setNombre("Nombre");
+        usuario.setApellidos("Apellidos");
+        usuario.setEmail("bloqueo" + n + "@example.com");
+        usuario.setCentroTrabajo("Centro");
+        usuario.setLocalidad("Localidad");
+        usuario.setRole(Role.ROLE_MEDICO);
+        return usuario;
+    }
+}
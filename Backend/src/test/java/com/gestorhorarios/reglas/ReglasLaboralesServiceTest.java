@@ -0,0 +1,205 @@
+package com.gestorhorarios.reglas;
+
+import com.gestorhorarios.config.ReglasLaboralesProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.rota.ExpansionRota;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReglasLaboralesServiceTest {
+
+    private static final Long USUARIO = 7L;
+    private static final LocalDate LUNES = LocalDate.of(2025, 3, 3);
+
+    @Mock
+    private HorarioRepository horarioRepository;
+
+    @Mock
+    private VersionesTurnos versionesTurnos;
+
+    @Mock
+    private ExpansionRota expansionRota;
+
+    private ReglasLaboralesService reglas;
+    private final List<TurnoLaboral> guardados = new ArrayList<>();
+    // Versión de los turnos del trabajador en la base de datos
+    private long version = 3;
+
+    @BeforeEach
+    void setUp() {
+        ReglasLaboralesProperties properties = new ReglasLaboralesProperties();
+        reglas = new ReglasLaboralesService(horarioRepository, versionesTurnos, expansionRota, properties);
+        lenient().when(versionesTurnos.bloquear(any())).thenAnswer(invocation -> {
+            Map<Long, Long> versiones = new LinkedHashMap<>();
+            for (Long id : invocation.<List<Long>>getArgument(0)) {
+                versiones.put(id, id.equals(USUARIO) ? version : 0L);
+            }
+            return versiones;
+        });
+        lenient().when(versionesTurnos.subir(USUARIO)).thenAnswer(invocation -> ++version);
+        // El repositorio devuelve los turnos guardados del rango pedido
+        lenient().when(horarioRepository.findTurnosLaborales(eq(USUARIO), any(), any())).thenAnswer(invocation -> {
+            LocalDate desde = invocation.getArgument(1);
+            LocalDate hasta = invocation.getArgument(2);
+            return guardados.stream()
+                    .filter(t -> !t.fecha().isBefore(desde) && !t.fecha().isAfter(hasta))
+                    .toList();
+        });
+    }
+
+    @Test
+    void descansoMinimo_NocheSeguidaDeMananaSeRechaza() {
+        guardados.add(turno(1L, LUNES, 22, 8, Horario.TipoTurno.NOCHE));
+
+        ReglaLaboralException exception = assertThrows(ReglaLaboralException.class,
+                () -> reglas.validar(USUARIO, turno(-1L, LUNES.plusDays(1), 8, 15, Horario.TipoTurno.MANANA), List.of()));
+        assertTrue(exception.getMessage().contains("0 h de descanso"), exception.getMessage());
+
+        // Con 12 horas de descanso sí se puede
+        assertDoesNotThrow(() -> reglas.validar(USUARIO,
+                turno(-1L, LUNES.plusDays(1), 20, 23, Horario.TipoTurno.TARDE), List.of()));
+    }
+
+    @Test
+    void horasSemanales_NoSuperaElMaximoEnSieteDiasSeguidos() {
+        // 5 días de 9 h = 45 h; un sexto turno de 8 h deja 53 h en 7 días
+        for (int i = 0; i < 5; i++) {
+            guardados.add(turno(i + 1L, LUNES.plusDays(i), 8, 17, Horario.TipoTurno.MANANA));
+        }
+        ReglaLaboralException exception = assertThrows(ReglaLaboralException.class,
+                () -> reglas.validar(USUARIO, turno(-1L, LUNES.plusDays(5), 8, 16, Horario.TipoTurno.MANANA), List.of()));
+        assertTrue(exception.getMessage().contains("53 h en 7 días"), exception.getMessage());
+
+        // Un turno corto cabe, y una semana después el periodo ya no incluye los anteriores
+        assertDoesNotThrow(() -> reglas.validar(USUARIO,
+                turno(-1L, LUNES.plusDays(5), 8, 11, Horario.TipoTurno.MANANA), List.of()));
+        assertDoesNotThrow(() -> reglas.validar(USUARIO,
+                turno(-1L, LUNES.plusDays(11), 8, 16, Horario.TipoTurno.MANANA), List.of()));
+    }
+
+    @Test
+    void nochesConsecutivas_CuentaLasNochesDeAntesYDespues() {
+        guardados.add(turno(1L, LUNES, 22, 6, Horario.TipoTurno.NOCHE));
+        guardados.add(turno(2L, LUNES.plusDays(1), 22, 6, Horario.TipoTurno.NOCHE));
+        guardados.add(turno(3L, LUNES.plusDays(3), 22, 6, Horario.TipoTurno.NOCHE));
+
+        ReglaLaboralException exception = assertThrows(ReglaLaboralException.class,
+                () -> reglas.validar(USUARIO, turno(-1L, LUNES.plusDays(2), 22, 6, Horario.TipoTurno.NOCHE), List.of()));
+        assertTrue(exception.getMessage().contains("4 noches seguidas"), exception.getMessage());
+    }
+
+    @Test
+    void evaluar_LoteCuentaLosTurnosAnterioresDelPropioLote() {
+        List<TurnoLaboral> lote = List.of(
+                turno(-1L, LUNES, 22, 8, Horario.TipoTurno.NOCHE),
+                turno(-2L, LUNES.plusDays(1), 8, 15, Horario.TipoTurno.MANANA),
+                turno(-3L, LUNES.plusDays(3), 8, 15, Horario.TipoTurno.MANANA));
+
+        List<String> incumplimientos = reglas.evaluar(USUARIO, lote, List.of());
+
+        assertEquals(1, incumplimientos.size());
+        assertTrue(incumplimientos.get(0).startsWith("Turno del " + LUNES.plusDays(1)));
+    }
+
+    @Test
+    void ventana_SoloConsultaLosDiasQueFaltan() {
+        guardados.add(turno(1L, LUNES, 8, 15, Horario.TipoTurno.MANANA));
+
+        reglas.validar(USUARIO, turno(-1L, LUNES.plusDays(2), 8, 15, Horario.TipoTurno.MANANA), List.of());
+        reglas.validar(USUARIO, turno(-1L, LUNES.plusDays(3), 8, 15, Horario.TipoTurno.MANANA), List.of());
+        reglas.validar(USUARIO, turno(-1L, LUNES.plusDays(2), 16, 20, Horario.TipoTurno.TARDE), List.of());
+
+        // La primera carga la ventana; la segunda solo amplía un día; la tercera no consulta
+        verify(horarioRepository, times(2)).findTurnosLaborales(eq(USUARIO), any(), any());
+    }
+
+    @Test
+    void registrar_ActualizaLaVentanaSinVolverAConsultar() {
+        reglas.bloquear(List.of(USUARIO));
+        reglas.validar(USUARIO, turno(-1L, LUNES, 8, 15, Horario.TipoTurno.MANANA), List.of());
+        reglas.registrar(USUARIO, turno(10L, LUNES, 8, 15, Horario.TipoTurno.MANANA));
+
+        assertThrows(ReglaLaboralException.class,
+                () -> reglas.validar(USUARIO, turno(-1L, LUNES, 14, 20, Horario.TipoTurno.TARDE), List.of()));
+        // Excluyendo el turno (por ejemplo, el que se cede en un cambio) ya no hay solape
+        assertDoesNotThrow(() -> reglas.validar(USUARIO, turno(-1L, LUNES, 14, 20, Horario.TipoTurno.TARDE), List.of(10L)));
+
+        reglas.quitar(USUARIO, 10L);
+        assertDoesNotThrow(() -> reglas.validar(USUARIO, turno(-1L, LUNES, 14, 20, Horario.TipoTurno.TARDE), List.of()));
+        // Cada cambio ha subido la versión y la ventana la sigue teniendo
+        reglas.bloquear(List.of(USUARIO));
+        assertEquals(5, version);
+        verify(horarioRepository, times(1)).findTurnosLaborales(eq(USUARIO), any(), any());
+    }
+
+    @Test
+    void bloquear_ConLaMismaVersionMantieneLaVentana() {
+        reglas.bloquear(List.of(USUARIO, 3L));
+        reglas.validar(USUARIO, turno(-1L, LUNES, 8, 15, Horario.TipoTurno.MANANA), List.of());
+
+        reglas.bloquear(List.of(USUARIO, 3L));
+        reglas.validar(USUARIO, turno(-1L, LUNES, 16, 20, Horario.TipoTurno.TARDE), List.of());
+
+        verify(versionesTurnos, times(2)).bloquear(List.of(USUARIO, 3L));
+        verify(horarioRepository, times(1)).findTurnosLaborales(eq(USUARIO), any(), any());
+    }
+
+    @Test
+    void bloquear_ConOtraVersionVuelveALeerLosTurnos() {
+        reglas.bloquear(List.of(USUARIO));
+        reglas.validar(USUARIO, turno(-1L, LUNES, 8, 15, Horario.TipoTurno.MANANA), List.of());
+        // Otra instancia guarda un turno del trabajador y sube su versión: la ventana en memoria no lo tiene
+        guardados.add(turno(10L, LUNES, 8, 15, Horario.TipoTurno.MANANA));
+        version++;
+
+        reglas.bloquear(List.of(USUARIO));
+
+        assertThrows(ReglaLaboralException.class,
+                () -> reglas.validar(USUARIO, turno(-1L, LUNES, 14, 20, Horario.TipoTurno.TARDE), List.of()));
+        verify(horarioRepository, times(2)).findTurnosLaborales(eq(USUARIO), any(), any());
+    }
+
+    @Test
+    void registrar_SobreUnaVentanaDeOtraVersionLaDescarta() {
+        reglas.bloquear(List.of(USUARIO));
+        reglas.validar(USUARIO, turno(-1L, LUNES, 8, 15, Horario.TipoTurno.MANANA), List.of());
+        // Otra instancia cambia los turnos entre medias: el cambio no se puede aplicar encima
+        version++;
+        reglas.registrar(USUARIO, turno(10L, LUNES, 8, 15, Horario.TipoTurno.MANANA));
+        guardados.add(turno(10L, LUNES, 8, 15, Horario.TipoTurno.MANANA));
+
+        assertThrows(ReglaLaboralException.class,
+                () -> reglas.validar(USUARIO, turno(-1L, LUNES, 14, 20, Horario.TipoTurno.TARDE), List.of()));
+        verify(horarioRepository, times(2)).findTurnosLaborales(eq(USUARIO), any(), any());
+    }
+
+    @Test
+    void bloquear_ConLasReglasDesactivadasNoBloquea() {
+        ReglasLaboralesProperties properties = new ReglasLaboralesProperties();
+        properties.setEnabled(false);
+        new ReglasLaboralesService(horarioRepository, versionesTurnos, expansionRota, properties).bloquear(List.of(USUARIO));
+
+        verifyNoInteractions(versionesTurnos);
+    }
+
+    private static TurnoLaboral turno(Long id, LocalDate fecha, int horaInicio, int horaFin, Horario.TipoTurno tipo) {
+        return new TurnoLaboral(id, fecha, LocalTime.of(horaInicio, 0), LocalTime.of(horaFin, 0), tipo);
+    }
+}
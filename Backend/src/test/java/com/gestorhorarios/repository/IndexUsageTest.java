@@ -0,0 +1,184 @@
+package com.gestorhorarios.repository;
+
+import com.gestorhorarios.config.FlywayConfig;
+import com.gestorhorarios.model.SolicitudCambio;
+import com.gestorhorarios.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ejecuta las consultas principales de los repositorios sobre H2 con el esquema de Hibernate
+ * más las migraciones de Flyway, captura el SQL generado y comprueba con EXPLAIN que cada una
+ * usa el índice esperado y no un recorrido completo de la tabla.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:indices;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.gestorhorarios.repository.IndexUsageTest$CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IndexUsageTest {
+
+    @Autowired
+    private HorarioRepository horarioRepository;
+
+    @Autowired
+    private SolicitudCambioRepository solicitudCambioRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HorasMesRepository horasMesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User usuario;
+
+    /**
+     * El optimizador necesita estadísticas: con tablas vacías cualquier índice cuesta lo mismo.
+     * Se cargan datos una sola vez (fuera de la transacción del test) y se ejecuta ANALYZE.
+     */
+    @BeforeEach
+    void setUp() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class) == 0) {
+            jdbcTemplate.update("INSERT INTO users (id, username, password, nombre, apellidos, email, " +
+                    "centro_trabajo, localidad, fecha_creacion, fecha_actualizacion) " +
+                    "SELECT x, CONCAT('user', x), 'secreto', 'Nombre', 'Apellidos', CONCAT('user', x, '@gestor.com'), " +
+                    "'Centro', 'Madrid', NOW(), NOW() FROM SYSTEM_RANGE(1, 100)");
+            jdbcTemplate.update("INSERT INTO horarios (id, usuario_id, fecha, hora_inicio, hora_fin, tipo_turno, " +
+                    "disponible, intercambiado, fecha_creacion, fecha_actualizacion) " +
+                    "SELECT x, MOD(x, 100) + 1, DATEADD(DAY, MOD(x, 365), CURRENT_DATE), '08:00', '15:00', 'MANANA', " +
+                    "MOD(x, 10) = 0, FALSE, NOW(), NOW() FROM SYSTEM_RANGE(1, 5000)");
+            jdbcTemplate.update("INSERT INTO solicitudes_cambio (id, solicitante_id, receptor_id, horario_origen_id, " +
+                    "estado, fecha_creacion) " +
+                    "SELECT x, MOD(x, 100) + 1, MOD(x + 7, 100) + 1, x, " +
+                    "CASE MOD(x, 4) WHEN 0 THEN 'PENDIENTE' WHEN 1 THEN 'ACEPTADA' WHEN 2 THEN 'RECHAZADA' ELSE 'CANCELADA' END, " +
+                    "DATEADD(DAY, -MOD(x, 365), NOW()) FROM SYSTEM_RANGE(1, 2000)");
+            jdbcTemplate.update("INSERT INTO vehicles (id, brand, model, license_plate, total_seats, available_seats, " +
+                    "active, owner_id) " +
+                    "SELECT x, 'Seat', 'Ibiza', CONCAT('PLACA', x), 4, MOD(x, 4), MOD(x, 5) <> 0, MOD(x, 100) + 1 " +
+                    "FROM SYSTEM_RANGE(1, 500)");
+            jdbcTemplate.update("INSERT INTO horas_mensuales (usuario_id, mes, tipo_turno, minutos, minutos_nocturnos, turnos) " +
+                    "SELECT MOD(x, 100) + 1, DATEADD(MONTH, x / 100, DATE '2024-01-01'), 'MANANA', 4200, 0, 10 " +
+                    "FROM SYSTEM_RANGE(0, 2399)");
+            jdbcTemplate.execute("ANALYZE");
+        }
+        usuario = userRepository.findById(1L).orElseThrow();
+    }
+
+    @Test
+    void horariosDeUsuarioPorRango_UsanIndiceUsuarioFecha() {
+        LocalDate hoy = LocalDate.now();
+        assertUsesIndex("idx_horarios_usuario_fecha",
+                () -> horarioRepository.findByUsuarioAndFechaBetween(usuario, hoy, hoy.plusDays(30)));
+        assertUsesIndex("idx_horarios_usuario_fecha",
+                () -> horarioRepository.countByUsuarioAndFechaBetween(usuario, hoy, hoy.plusDays(30)));
+        assertUsesIndex("idx_horarios_usuario_fecha",
+                () -> horarioRepository.findConflictingSchedules(usuario, hoy, LocalTime.of(8, 0), LocalTime.of(15, 0)));
+    }
+
+    @Test
+    void horariosDisponibles_UsanIndiceDisponibleFecha() {
+        LocalDate hoy = LocalDate.now();
+        assertUsesIndex("idx_horarios_disponible_fecha",
+                () -> horarioRepository.findByFechaBetweenAndDisponibleTrue(hoy, hoy.plusDays(30)));
+        assertUsesIndex("idx_horarios_disponible_fecha",
+                () -> horarioRepository.findByFechaAndDisponibleTrue(hoy));
+    }
+
+    @Test
+    void horariosPorPeriodo_UsanIndiceFecha() {
+        LocalDate hoy = LocalDate.now();
+        assertUsesIndex("idx_horarios_fecha", () -> horarioRepository.findByFechaBetween(hoy, hoy.plusDays(30)));
+    }
+
+    @Test
+    void coberturaPorFechaTipoYRol_UsaIndiceFechaTipoRol() {
+        LocalDate hoy = LocalDate.now();
+        assertUsesIndex("idx_horarios_fecha_tipo_rol", () -> horarioRepository.countPorFechaTipoYRol(hoy, hoy.plusDays(60)));
+    }
+
+    @Test
+    void horasDeTodosEnUnMes_UsanIndiceMes() {
+        assertUsesIndex("idx_horas_mensuales_mes", () -> horasMesRepository.findByMes(LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    void solicitudesPorEstado_UsanIndicesCompuestos() {
+        assertUsesIndex("idx_solicitudes_receptor_estado_fecha",
+                () -> solicitudCambioRepository.findByReceptorAndEstado(usuario, SolicitudCambio.EstadoSolicitud.PENDIENTE));
+        assertUsesIndex("idx_solicitudes_solicitante_estado",
+                () -> solicitudCambioRepository.findBySolicitanteAndEstado(usuario, SolicitudCambio.EstadoSolicitud.PENDIENTE));
+    }
+
+    @Test
+    void vehiculosConPlazas_UsanIndicePlazasActivo() {
+        assertUsesIndex("idx_vehicles_available_seats_active", () -> vehicleRepository.findByAvailableSeatsGreaterThan(0));
+    }
+
+    private void assertUsesIndex(String index, Runnable query) {
+        CapturingStatementInspector.clear();
+        query.run();
+        List<String> statements = CapturingStatementInspector.statements();
+        assertFalse(statements.isEmpty(), "La consulta no ha generado SQL");
+
+        String sql = statements.get(statements.size() - 1);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toLowerCase(Locale.ROOT);
+        assertFalse(plan.contains("tablescan"), () -> "Recorrido completo de la tabla:\n" + plan);
+        assertTrue(plan.contains(index), () -> "No se usa " + index + ":\n" + plan);
+    }
+
+    /**
+     * Guarda el SQL que genera Hibernate para poder lanzar EXPLAIN sobre él
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+
+        static void clear() {
+            synchronized (STATEMENTS) {
+                STATEMENTS.clear();
+            }
+        }
+
+        static List<String> statements() {
+            synchronized (STATEMENTS) {
+                return new ArrayList<>(STATEMENTS);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.gestorhorarios.rota;
+
+import com.gestorhorarios.model.ExcepcionPlantilla;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.PlantillaRota;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.TurnoPlantilla;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.TurnoLaboral;
+import com.gestorhorarios.repository.ExcepcionPlantillaRepository;
+import com.gestorhorarios.repository.PlantillaRotaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpansionRotaTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2025, 3, 3);
+
+    @Mock
+    private PlantillaRotaRepository plantillaRotaRepository;
+
+    @Mock
+    private ExcepcionPlantillaRepository excepcionPlantillaRepository;
+
+    @InjectMocks
+    private ExpansionRota expansionRota;
+
+    private User usuario;
+    private PlantillaRota plantilla;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new User();
+        usuario.setId(7L);
+        // Mañana, tarde, noche y libre
+        plantilla = new PlantillaRota();
+        plantilla.setId(1L);
+        plantilla.setUsuario(usuario);
+        plantilla.setRol(Role.ROLE_ENFERMERO);
+        plantilla.setFechaInicio(LUNES);
+        plantilla.setCiclo(List.of(
+                new TurnoPlantilla(false, Horario.TipoTurno.MANANA, LocalTime.of(8, 0), LocalTime.of(15, 0)),
+                new TurnoPlantilla(false, Horario.TipoTurno.TARDE, LocalTime.of(15, 0), LocalTime.of(22, 0)),
+                new TurnoPlantilla(false, Horario.TipoTurno.NOCHE, LocalTime.of(22, 0), LocalTime.of(8, 0)),
+                TurnoPlantilla.diaLibre()));
+        lenient().when(plantillaRotaRepository.findUsuariosConPlantilla()).thenReturn(List.of(7L));
+    }
+
+    @Test
+    void horariosUsuario_RepiteElCicloYSaltaLosDiasLibres() {
+        when(plantillaRotaRepository.findVigentes(7L, LUNES, LUNES.plusDays(9))).thenReturn(List.of(plantilla));
+
+        List<Horario> horarios = expansionRota.horariosUsuario(usuario, LUNES, LUNES.plusDays(9));
+
+        // 10 días: dos ciclos completos (6 turnos) más mañana y tarde
+        assertEquals(8, horarios.size());
+        assertEquals(Horario.TipoTurno.MANANA, horarios.get(3).getTipoTurno());
+        assertEquals(LUNES.plusDays(4), horarios.get(3).getFecha());
+        assertTrue(horarios.stream().allMatch(h -> h.getId() == null && h.getUsuario() == usuario
+                && h.getRol() == Role.ROLE_ENFERMERO));
+    }
+
+    @Test
+    void horariosUsuario_NoGeneraLosDiasConExcepcionNiFueraDeVigencia() {
+        plantilla.setFechaFin(LUNES.plusDays(5));
+        ExcepcionPlantilla excepcion = new ExcepcionPlantilla();
+        excepcion.setPlantilla(plantilla);
+        excepcion.setFecha(LUNES.plusDays(1));
+        when(plantillaRotaRepository.findVigentes(eq(7L), any(), any())).thenReturn(List.of(plantilla));
+        when(excepcionPlantillaRepository.findEnRango(List.of(1L), LUNES.minusDays(3), LUNES.plusDays(9)))
+                .thenReturn(List.of(excepcion));
+
+        List<LocalDate> fechas = expansionRota.horariosUsuario(usuario, LUNES.minusDays(3), LUNES.plusDays(9))
+                .stream().map(Horario::getFecha).toList();
+
+        assertEquals(List.of(LUNES, LUNES.plusDays(2), LUNES.plusDays(4), LUNES.plusDays(5)), fechas);
+    }
+
+    @Test
+    void sinPlantillasNoSeConsultaNada() {
+        User otro = new User();
+        otro.setId(8L);
+        assertTrue(expansionRota.horariosUsuario(otro, LUNES, LUNES.plusMonths(1)).isEmpty());
+        verify(plantillaRotaRepository, never()).findVigentes(any(), any(), any());
+
+        // Si ninguna plantilla está vigente en el rango tampoco se buscan excepciones
+        when(plantillaRotaRepository.findVigentes(eq(7L), any(), any())).thenReturn(List.of());
+        assertTrue(expansionRota.horariosUsuario(usuario, LUNES, LUNES.plusMonths(1)).isEmpty());
+        verify(excepcionPlantillaRepository, never()).findEnRango(anyCollection(), any(), any());
+
+        // Una plantilla nueva se ve sin esperar a la recarga
+        expansionRota.anotarUsuario(8L);
+        expansionRota.horariosUsuario(otro, LUNES, LUNES.plusMonths(1));
+        verify(plantillaRotaRepository).findVigentes(eq(8L), any(), any());
+        verify(plantillaRotaRepository, times(1)).findUsuariosConPlantilla();
+    }
+
+    @Test
+    void turnosLaborales_LaNochePasaAlDiaSiguienteConIdDeRota() {
+        when(plantillaRotaRepository.findVigentes(7L, LUNES.plusDays(2), LUNES.plusDays(2))).thenReturn(List.of(plantilla));
+
+        List<TurnoLaboral> turnos = expansionRota.turnosLaborales(7L, LUNES.plusDays(2), LUNES.plusDays(2));
+
+        assertEquals(1, turnos.size());
+        assertEquals(ExpansionRota.idTurnoRota(LUNES.plusDays(2)), turnos.get(0).id());
+        assertEquals(LUNES.plusDays(3).atTime(8, 0), turnos.get(0).fin());
+        assertTrue(turnos.get(0).noche());
+    }
+
+    @Test
+    void turnosLaborales_NoDependeDelConjuntoDeUsuariosConPlantilla() {
+        // Plantilla creada en otra instancia después de cargar el conjunto: las reglas la ven igual
+        plantilla.getUsuario().setId(8L);
+        when(plantillaRotaRepository.findVigentes(8L, LUNES, LUNES)).thenReturn(List.of(plantilla));
+
+        assertEquals(1, expansionRota.turnosLaborales(8L, LUNES, LUNES).size());
+        verify(plantillaRotaRepository, never()).findUsuariosConPlantilla();
+    }
+
+    @Test
+    void turnosLaborales_VariosUsuariosConUnaConsulta() {
+        when(plantillaRotaRepository.findVigentesDeUsuarios(List.of(7L, 8L), LUNES, LUNES.plusDays(3)))
+                .thenReturn(List.of(plantilla));
+
+        Map<Long, List<TurnoLaboral>> turnos = expansionRota.turnosLaborales(List.of(7L, 8L), LUNES, LUNES.plusDays(3));
+
+        assertEquals(3, turnos.get(7L).size());
+        assertEquals(List.of(), turnos.get(8L));
+        verify(excepcionPlantillaRepository, times(1)).findEnRango(List.of(1L), LUNES, LUNES.plusDays(3));
+    }
+}
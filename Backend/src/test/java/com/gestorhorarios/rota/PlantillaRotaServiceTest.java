@@ -0,0 +1,153 @@
+package com.gestorhorarios.rota;
+
+import com.gestorhorarios.cobertura.CoberturaService;
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.ics.CalendarioIcsService;
+import com.gestorhorarios.model.ExcepcionPlantilla;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.PlantillaRota;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.TurnoPlantilla;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.ReglaLaboralException;
+import com.gestorhorarios.reglas.ReglasLaboralesService;
+import com.gestorhorarios.reglas.TurnoLaboral;
+import com.gestorhorarios.repository.ExcepcionPlantillaRepository;
+import com.gestorhorarios.repository.HorarioRepository;
+import com.gestorhorarios.repository.PlantillaRotaRepository;
+import com.gestorhorarios.service.HorarioService;
+import com.gestorhorarios.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlantillaRotaServiceTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2025, 3, 3);
+
+    @Mock
+    private PlantillaRotaRepository plantillaRotaRepository;
+    @Mock
+    private ExcepcionPlantillaRepository excepcionPlantillaRepository;
+    @Mock
+    private HorarioRepository horarioRepository;
+    @Mock
+    private HorarioService horarioService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private ReglasLaboralesService reglasLaboralesService;
+    @Mock
+    private ExpansionRota expansionRota;
+    @Mock
+    private CoberturaService coberturaService;
+    @Mock
+    private HorasMensualesService horasMensualesService;
+    @Mock
+    private CalendarioIcsService calendarioIcsService;
+
+    @InjectMocks
+    private PlantillaRotaService plantillaRotaService;
+
+    private User usuario;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new User();
+        usuario.setId(7L);
+        usuario.setRole(Role.ROLE_TCAE);
+    }
+
+    @Test
+    void crearPlantilla_Comprueba14DiasConLasReglasYGuarda() {
+        when(userService.findUserById(7L)).thenReturn(usuario);
+        when(horarioService.rolPermitido("ROLE_TCAE")).thenReturn(Role.ROLE_TCAE);
+        when(reglasLaboralesService.evaluar(eq(7L), anyList(), any())).thenReturn(List.of());
+        when(plantillaRotaRepository.save(any(PlantillaRota.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PlantillaRota guardada = plantillaRotaService.crearPlantilla(7L, plantilla(manana(), TurnoPlantilla.diaLibre()), null);
+
+        assertEquals(Role.ROLE_TCAE, guardada.getRol());
+        assertSame(usuario, guardada.getUsuario());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TurnoLaboral>> turnos = ArgumentCaptor.forClass(List.class);
+        InOrder orden = inOrder(reglasLaboralesService);
+        orden.verify(reglasLaboralesService).bloquear(List.of(7L));
+        orden.verify(reglasLaboralesService).evaluar(eq(7L), turnos.capture(), any());
+        // Ciclo de 2 días: se comprueban las dos primeras semanas, 7 mañanas
+        assertEquals(7, turnos.getValue().size());
+        verify(expansionRota).anotarUsuario(7L);
+        verify(reglasLaboralesService).olvidar(7L);
+    }
+
+    @Test
+    void crearPlantilla_RechazaSolapesEIncumplimientos() {
+        when(userService.findUserById(7L)).thenReturn(usuario);
+        when(horarioService.rolPermitido(any())).thenReturn(Role.ROLE_TCAE);
+        when(plantillaRotaRepository.findVigentes(eq(7L), eq(LUNES), any())).thenReturn(List.of(new PlantillaRota()));
+
+        IllegalArgumentException solape = assertThrows(IllegalArgumentException.class,
+                () -> plantillaRotaService.crearPlantilla(7L, plantilla(manana()), null));
+        assertTrue(solape.getMessage().contains("ya tiene una plantilla"));
+
+        when(plantillaRotaRepository.findVigentes(eq(7L), eq(LUNES), any())).thenReturn(List.of());
+        when(reglasLaboralesService.evaluar(eq(7L), anyList(), any())).thenReturn(List.of("Turno del 2025-03-09: 56 h en 7 días"));
+        assertThrows(ReglaLaboralException.class, () -> plantillaRotaService.crearPlantilla(7L, plantilla(manana()), null));
+        verify(plantillaRotaRepository, never()).save(any());
+    }
+
+    @Test
+    void materializarDia_GuardaElHorarioYLaExcepcion() {
+        PlantillaRota plantilla = plantilla(manana(), TurnoPlantilla.diaLibre());
+        plantilla.setId(3L);
+        plantilla.setUsuario(usuario);
+        when(plantillaRotaRepository.findVigentes(7L, LUNES.plusDays(2), LUNES.plusDays(2))).thenReturn(List.of(plantilla));
+        when(horarioRepository.save(any(Horario.class))).thenAnswer(invocation -> {
+            Horario horario = invocation.getArgument(0);
+            horario.setId(50L);
+            return horario;
+        });
+
+        Horario horario = plantillaRotaService.materializarDia(7L, LUNES.plusDays(2));
+
+        assertEquals(50L, horario.getId());
+        assertEquals(Horario.TipoTurno.MANANA, horario.getTipoTurno());
+        ArgumentCaptor<ExcepcionPlantilla> excepcion = ArgumentCaptor.forClass(ExcepcionPlantilla.class);
+        verify(excepcionPlantillaRepository).save(excepcion.capture());
+        assertEquals(LUNES.plusDays(2), excepcion.getValue().getFecha());
+        verify(reglasLaboralesService).quitar(7L, ExpansionRota.idTurnoRota(LUNES.plusDays(2)));
+        verify(reglasLaboralesService).registrar(eq(7L), argThat(t -> t.id() == 50L));
+
+        // Un día libre no se puede pasar a horario
+        when(plantillaRotaRepository.findVigentes(7L, LUNES.plusDays(3), LUNES.plusDays(3))).thenReturn(List.of(plantilla));
+        assertThrows(RuntimeException.class, () -> plantillaRotaService.materializarDia(7L, LUNES.plusDays(3)));
+    }
+
+    private static PlantillaRota plantilla(TurnoPlantilla... ciclo) {
+        PlantillaRota plantilla = new PlantillaRota();
+        plantilla.setFechaInicio(LUNES);
+        plantilla.setCiclo(new ArrayList<>(List.of(ciclo)));
+        return plantilla;
+    }
+
+    private static TurnoPlantilla manana() {
+        return new TurnoPlantilla(false, Horario.TipoTurno.MANANA, LocalTime.of(8, 0), LocalTime.of(15, 0));
+    }
+}
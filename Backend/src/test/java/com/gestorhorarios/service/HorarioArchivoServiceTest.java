@@ -0,0 +1,120 @@
+package com.gestorhorarios.service;
+
+import com.gestorhorarios.config.FlywayConfig;
+import com.gestorhorarios.config.HorarioArchivoProperties;
+import com.gestorhorarios.model.Horario;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.repository.HorarioArchivadoRepository;
+import com.gestorhorarios.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archivado por lotes sobre H2: qué horarios se mueven, que el lote no deja restos y que las
+ * lecturas del archivo devuelven los horarios movidos.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archivo;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HorarioArchivoServiceTest {
+
+    private static final LocalDate CORTE = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private HorarioArchivadoRepository horarioArchivadoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private HorarioArchivoService horarioArchivoService;
+
+    @BeforeEach
+    void setUp() {
+        HorarioArchivoProperties properties = new HorarioArchivoProperties();
+        properties.setBatchSize(2);
+        horarioArchivoService = new HorarioArchivoService(horarioArchivadoRepository, jdbcTemplate,
+                transactionManager, properties);
+
+        jdbcTemplate.update("INSERT INTO users (id, username, password, nombre, apellidos, email, " +
+                "centro_trabajo, localidad, fecha_creacion, fecha_actualizacion) " +
+                "VALUES (1, 'archivo', 'secreto', 'Nombre', 'Apellidos', 'archivo@gestor.com', 'Centro', 'Madrid', NOW(), NOW())");
+        // 1..5 anteriores al corte, 6 el mismo día del corte y 7 posterior
+        jdbcTemplate.update("INSERT INTO horarios (id, usuario_id, fecha, hora_inicio, hora_fin, tipo_turno, " +
+                "disponible, intercambiado, notas, fecha_creacion, fecha_actualizacion) " +
+                "SELECT x, 1, DATEADD(DAY, x - 6, DATE '2024-03-01'), '08:00', '15:00', 'MANANA', FALSE, FALSE, " +
+                "CONCAT('turno ', x), NOW(), NOW() FROM SYSTEM_RANGE(1, 7)");
+        // El horario 2 sigue referenciado por una solicitud de cambio
+        jdbcTemplate.update("INSERT INTO solicitudes_cambio (id, solicitante_id, horario_origen_id, estado, fecha_creacion) " +
+                "VALUES (1, 1, 2, 'ACEPTADA', NOW())");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM solicitudes_cambio");
+        jdbcTemplate.update("DELETE FROM horarios_archivo");
+        jdbcTemplate.update("DELETE FROM horarios");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void archivarAnterioresA_MueveLosAnterioresPorLotesSalvoLosReferenciados() {
+        int archivados = horarioArchivoService.archivarAnterioresA(CORTE);
+
+        // 4 candidatos con lotes de 2: dos lotes llenos y uno vacío que termina el bucle
+        assertEquals(4, archivados);
+        assertEquals(List.of(2L, 6L, 7L), jdbcTemplate.queryForList("SELECT id FROM horarios ORDER BY id", Long.class));
+        assertEquals(List.of(1L, 3L, 4L, 5L),
+                jdbcTemplate.queryForList("SELECT id FROM horarios_archivo ORDER BY id", Long.class));
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM horarios_archivo WHERE fecha_archivado IS NOT NULL", Integer.class));
+
+        // Volver a ejecutarlo no encuentra nada más
+        assertEquals(0, horarioArchivoService.archivarAnterioresA(CORTE));
+    }
+
+    @Test
+    void archivarAnterioresA_ConservaLasColumnasYSePuedeLeerDelArchivo() {
+        horarioArchivoService.archivarAnterioresA(CORTE);
+        User usuario = userRepository.findById(1L).orElseThrow();
+
+        List<Horario> delUsuario = horarioArchivoService.findArchivadosPorUsuario(usuario,
+                CORTE.minusDays(5), CORTE.minusDays(3));
+        assertEquals(List.of(1L, 3L), delUsuario.stream().map(Horario::getId).sorted().toList());
+        Horario primero = delUsuario.stream().filter(h -> h.getId() == 1L).findFirst().orElseThrow();
+        assertEquals(CORTE.minusDays(5), primero.getFecha());
+        assertEquals(Horario.TipoTurno.MANANA, primero.getTipoTurno());
+        assertEquals("turno 1", primero.getNotas());
+
+        assertEquals(4, horarioArchivoService.findArchivadosPorPeriodo(CORTE.minusDays(10), CORTE).size());
+        // Solo los rangos que empiezan antes de la retención o de la fecha más reciente archivada
+        assertTrue(horarioArchivoService.incluyeArchivo(CORTE.minusDays(1)));
+        assertFalse(horarioArchivoService.incluyeArchivo(LocalDate.now()));
+    }
+}
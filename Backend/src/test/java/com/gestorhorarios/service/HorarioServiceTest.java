@@ -1,23 +1,31 @@
 package com.gestorhorarios.service;
 
+import com.gestorhorarios.cobertura.CoberturaService;
+import com.gestorhorarios.horas.HorasMensualesService;
+import com.gestorhorarios.ics.CalendarioIcsService;
 import com.gestorhorarios.exception.ResourceNotFoundException;
 import com.gestorhorarios.model.Horario;
 import com.gestorhorarios.model.Role;
 import com.gestorhorarios.model.User;
+import com.gestorhorarios.reglas.ReglasLaboralesService;
 import com.gestorhorarios.repository.HorarioRepository;
 import com.gestorhorarios.repository.UserRepository;
+import com.gestorhorarios.rota.ExpansionRota;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +40,24 @@ class HorarioServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private ReglasLaboralesService reglasLaboralesService;
+
+    @Mock
+    private CoberturaService coberturaService;
+
+    @Mock
+    private HorasMensualesService horasMensualesService;
+
+    @Mock
+    private CalendarioIcsService calendarioIcsService;
+
+    @Mock
+    private HorarioArchivoService horarioArchivoService;
+
+    @Mock
+    private ExpansionRota expansionRota;
+
     @InjectMocks
     private HorarioService horarioService;
 
@@ -88,15 +114,43 @@ class HorarioServiceTest {
 
         // Verificar que se llamó al método save del repositorio
         verify(horarioRepository, times(1)).save(any(Horario.class));
+        // El feed de calendario del trabajador pasa a la siguiente versión
+        verify(calendarioIcsService).horariosCambiados(testUser.getId());
+        // Las reglas laborales se comprueban con el trabajador bloqueado y antes de guardar
+        InOrder orden = inOrder(reglasLaboralesService, horarioRepository);
+        orden.verify(reglasLaboralesService).bloquear(List.of(testUser.getId()));
+        orden.verify(reglasLaboralesService).validar(eq(testUser.getId()), any(), any());
+        orden.verify(horarioRepository).save(any(Horario.class));
+    }
+
+    @Test
+    void crearHorario_WithEndTimeBeforeStartTime_ShouldSaveOvernightShift() {
+        when(horarioRepository.save(any(Horario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userService.findUserById(anyLong())).thenReturn(testUser);
+
+        // Un turno de noche: la hora de fin es del día siguiente
+        Horario noche = new Horario();
+        noche.setFecha(LocalDate.now().plusDays(1));
+        noche.setHoraInicio(LocalTime.of(22, 0));
+        noche.setHoraFin(LocalTime.of(8, 0));
+        noche.setTipoTurno(Horario.TipoTurno.NOCHE);
+        noche.setUsuario(testUser);
+
+        Horario resultado = horarioService.crearHorario(noche, "ROLE_MEDICO");
+
+        assertEquals(LocalTime.of(22, 0), resultado.getHoraInicio());
+        assertEquals(LocalTime.of(8, 0), resultado.getHoraFin());
+        verify(reglasLaboralesService).validar(eq(testUser.getId()), any(), any());
+        verify(horarioRepository, times(1)).save(any(Horario.class));
     }
 
     @Test
-    void crearHorario_WithEndTimeBeforeStartTime_ShouldThrowException() {
-        // Configurar un horario con hora de fin antes que la de inicio
+    void crearHorario_WithEndTimeEqualToStartTime_ShouldThrowException() {
+        // Configurar un horario con la misma hora de inicio y de fin
         Horario horarioInvalido = new Horario();
         horarioInvalido.setFecha(LocalDate.now().plusDays(1));
         horarioInvalido.setHoraInicio(LocalTime.of(17, 0));
-        horarioInvalido.setHoraFin(LocalTime.of(9, 0));
+        horarioInvalido.setHoraFin(LocalTime.of(17, 0));
         horarioInvalido.setUsuario(testUser);
 
         // Verificar que se lanza la excepción esperada
@@ -105,7 +159,20 @@ class HorarioServiceTest {
             () -> horarioService.crearHorario(horarioInvalido, "ROLE_MEDICO")
         );
 
-        assertEquals("La hora de fin no puede ser anterior a la hora de inicio", exception.getMessage());
+        assertEquals("La hora de fin no puede ser igual a la de inicio", exception.getMessage());
+        verify(horarioRepository, never()).save(any(Horario.class));
+    }
+
+    @Test
+    void actualizarHorario_WithEndTimeEqualToStartTime_ShouldThrowException() {
+        Horario cambios = new Horario();
+        cambios.setId(testHorario.getId());
+        cambios.setFecha(testHorario.getFecha());
+        cambios.setHoraInicio(LocalTime.of(9, 0));
+        cambios.setHoraFin(LocalTime.of(9, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> horarioService.actualizarHorario(cambios));
+        verify(horarioRepository, never()).save(any(Horario.class));
     }
 
     @Test
@@ -155,5 +222,56 @@ class HorarioServiceTest {
         assertNotNull(resultado.getId());
         assertEquals(Role.ROLE_MEDICO, resultado.getRol());
     }
-}
 
+    @Test
+    void getHorariosPorPeriodo_RangoVigente_NoConsultaElArchivo() {
+        LocalDate inicio = LocalDate.now();
+        LocalDate fin = inicio.plusDays(6);
+        when(horarioRepository.findByFechaBetween(inicio, fin)).thenReturn(List.of(testHorario));
+        when(expansionRota.horariosPeriodo(inicio, fin)).thenReturn(List.of());
+        when(horarioArchivoService.incluyeArchivo(inicio)).thenReturn(false);
+
+        assertEquals(List.of(testHorario), horarioService.getHorariosPorPeriodo(inicio, fin));
+        verify(horarioArchivoService, never()).findArchivadosPorPeriodo(any(), any());
+    }
+
+    @Test
+    void getHorariosPorPeriodo_RangoConArchivo_UneArchivadosVigentesYRota() {
+        LocalDate inicio = LocalDate.now().minusMonths(6);
+        LocalDate fin = LocalDate.now();
+        Horario archivado = horario(10L, inicio);
+        Horario rota = horario(null, fin);
+        when(horarioRepository.findByFechaBetween(inicio, fin)).thenReturn(List.of(testHorario));
+        when(expansionRota.horariosPeriodo(inicio, fin)).thenReturn(List.of(rota));
+        when(horarioArchivoService.incluyeArchivo(inicio)).thenReturn(true);
+        when(horarioArchivoService.findArchivadosPorPeriodo(inicio, fin)).thenReturn(List.of(archivado));
+
+        assertEquals(List.of(archivado, testHorario, rota), horarioService.getHorariosPorPeriodo(inicio, fin));
+    }
+
+    @Test
+    void getHorariosPorUsuarioId_RangoConArchivo_LeeElArchivoDelUsuario() {
+        LocalDate inicio = LocalDate.now().minusMonths(6);
+        LocalDate fin = inicio.plusDays(30);
+        Horario archivado = horario(10L, inicio);
+        when(userService.findUserById(1L)).thenReturn(testUser);
+        when(horarioRepository.findByUsuarioAndFechaBetween(testUser, inicio, fin)).thenReturn(List.of());
+        when(expansionRota.horariosUsuario(testUser, inicio, fin)).thenReturn(List.of());
+        when(horarioArchivoService.incluyeArchivo(inicio)).thenReturn(true);
+        when(horarioArchivoService.findArchivadosPorUsuario(testUser, inicio, fin)).thenReturn(List.of(archivado));
+
+        assertEquals(List.of(archivado), horarioService.getHorariosPorUsuarioId(1L, inicio, fin));
+        verify(horarioArchivoService, never()).findArchivadosPorPeriodo(any(), any());
+    }
+
+    private Horario horario(Long id, LocalDate fecha) {
+        Horario horario = new Horario();
+        horario.setId(id);
+        horario.setFecha(fecha);
+        horario.setHoraInicio(LocalTime.of(8, 0));
+        horario.setHoraFin(LocalTime.of(15, 0));
+        horario.setTipoTurno(Horario.TipoTurno.MANANA);
+        horario.setUsuario(testUser);
+        return horario;
+    }
+}
@@ -0,0 +1,189 @@
+package com.gestorhorarios.service;
+
+import com.gestorhorarios.GestorHorariosApplication;
+import com.gestorhorarios.dto.VehicleDTO;
+import com.gestorhorarios.model.Role;
+import com.gestorhorarios.model.User;
+import com.gestorhorarios.model.Vehicle;
+import com.gestorhorarios.repository.UserRepository;
+import com.gestorhorarios.repository.VehicleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que las escrituras de UserService y VehicleService no dejan entradas obsoletas en la
+ * caché de segundo nivel: cada lectura posterior se hace con un EntityManager nuevo, de modo que
+ * solo puede venir de la caché o de la base de datos, y se compara con lo que hay en las tablas.
+ */
+@SpringBootTest(classes = GestorHorariosApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:cacheinvalidation;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "app.horarios.archivo.enabled=false",
+        "management.server.port=-1"
+})
+class SecondLevelCacheInvalidationTest {
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cache cache;
+    private Statistics statistics;
+    private User propietario;
+    private User pasajero;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        cache = sessionFactory.getCache();
+        statistics = sessionFactory.getStatistics();
+        // El CacheManager de JCache es de la JVM y lo comparten los contextos de otras pruebas
+        cache.evictAllRegions();
+        propietario = userRepository.save(usuario("propietario"));
+        pasajero = userRepository.save(usuario("pasajero"));
+    }
+
+    @Test
+    void updateUser_RefrescaLaEntidadYLaConsultaDeLogin() {
+        // Calentar la entidad y la consulta de login
+        userRepository.findById(pasajero.getId()).orElseThrow();
+        userRepository.findByUsername(pasajero.getUsername()).orElseThrow();
+        long aciertos = statistics.getQueryCacheHitCount();
+        userRepository.findByUsername(pasajero.getUsername()).orElseThrow();
+        assertEquals(aciertos + 1, statistics.getQueryCacheHitCount(), "la consulta de login debería estar en caché");
+        assertTrue(cache.containsEntity(User.class, pasajero.getId()));
+
+        User cambios = new User();
+        cambios.setId(pasajero.getId());
+        cambios.setNombre("Renombrado");
+        cambios.setApellidos("Cambiado");
+        cambios.setEmail("nuevo-" + pasajero.getEmail());
+        userService.updateUser(cambios);
+
+        assertEquals("Renombrado", jdbcTemplate.queryForObject(
+                "SELECT nombre FROM users WHERE id = ?", String.class, pasajero.getId()));
+        assertEquals("Renombrado", userRepository.findById(pasajero.getId()).orElseThrow().getNombre());
+
+        aciertos = statistics.getQueryCacheHitCount();
+        User login = userRepository.findByUsername(pasajero.getUsername()).orElseThrow();
+        assertEquals(aciertos, statistics.getQueryCacheHitCount(), "la actualización debería invalidar la consulta de login");
+        assertEquals("Renombrado", login.getNombre());
+        assertEquals("Cambiado", login.getApellidos());
+        assertEquals(pasajero.getId(), userRepository
+                .findByUsernameOrEmail("nuevo-" + pasajero.getEmail(), "nuevo-" + pasajero.getEmail())
+                .orElseThrow().getId());
+        assertTrue(userRepository.findByUsernameOrEmail(pasajero.getEmail(), pasajero.getEmail()).isEmpty());
+    }
+
+    @Test
+    void joinYLeaveVehicle_RefrescanPlazasYVehiculoDelUsuario() {
+        Long vehiculoId = crearVehiculo(3);
+        // Calentar vehículo y usuario
+        assertEquals(3, vehicleRepository.findById(vehiculoId).orElseThrow().getAvailableSeats());
+        assertNull(vehiculoDe(pasajero.getId()));
+        assertTrue(cache.containsEntity(Vehicle.class, vehiculoId));
+
+        assertTrue(vehicleService.joinVehicle(pasajero.getId(), vehiculoId));
+
+        assertEquals(plazasEnTabla(vehiculoId), vehicleRepository.findById(vehiculoId).orElseThrow().getAvailableSeats());
+        assertEquals(2, vehicleRepository.findById(vehiculoId).orElseThrow().getAvailableSeats());
+        assertEquals(vehiculoId, vehiculoDe(pasajero.getId()));
+
+        assertTrue(vehicleService.leaveVehicle(pasajero.getId(), vehiculoId));
+
+        assertEquals(plazasEnTabla(vehiculoId), vehicleRepository.findById(vehiculoId).orElseThrow().getAvailableSeats());
+        assertEquals(3, vehicleRepository.findById(vehiculoId).orElseThrow().getAvailableSeats());
+        assertNull(vehiculoDe(pasajero.getId()));
+    }
+
+    @Test
+    void deleteVehicle_QuitaElVehiculoDeLaCacheYDelPropietario() {
+        Long vehiculoId = crearVehiculo(4);
+        vehicleRepository.findById(vehiculoId).orElseThrow();
+        assertEquals(vehiculoId, vehiculoDe(propietario.getId()));
+        assertTrue(cache.containsEntity(Vehicle.class, vehiculoId));
+        assertTrue(cache.containsEntity(User.class, propietario.getId()));
+
+        vehicleService.deleteVehicle(vehiculoId, propietario.getId());
+
+        // Con READ_WRITE la región conserva un bloqueo blando para la clave borrada, así que se
+        // comprueba la lectura y no containsEntity
+        assertTrue(vehicleRepository.findById(vehiculoId).isEmpty());
+        assertNull(vehiculoDe(propietario.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM vehicles WHERE id = ?", Integer.class, vehiculoId));
+    }
+
+    private Long crearVehiculo(int plazas) {
+        VehicleDTO dto = new VehicleDTO();
+        dto.setBrand("Seat");
+        dto.setModel("León");
+        dto.setLicensePlate("CACHE" + SECUENCIA.incrementAndGet());
+        dto.setTotalSeats(plazas);
+        return vehicleService.createVehicle(dto, propietario.getId()).getId();
+    }
+
+    private Long vehiculoDe(Long usuarioId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Vehicle vehiculo = userRepository.findById(usuarioId).orElseThrow().getVehicle();
+            return vehiculo != null ? vehiculo.getId() : null;
+        });
+    }
+
+    private int plazasEnTabla(Long vehiculoId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT available_seats FROM vehicles WHERE id = ?", Integer.class, vehiculoId);
+    }
+
+    private User usuario(String prefijo) {
+        int n = SECUENCIA.incrementAndGet();
+        User usuario = new User();
+        usuario.setUsername(prefijo + n);
+        usuario.setPassword("password");
+        usuario.setNombre("Nombre");
+        usuario.setApellidos("Apellidos");
+        usuario.setEmail(prefijo + n + "@example.com");
+        usuario.setCentroTrabajo("Centro");
+        usuario.setLocalidad("Localidad");
+        usuario.setRole(Role.ROLE_USER);
+        return usuario;
+    }
+}